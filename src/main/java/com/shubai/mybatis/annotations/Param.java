@@ -0,0 +1,26 @@
+package com.shubai.mybatis.annotations;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * ClassName: Param
+ * Description: 给 Mapper 方法的参数命名，SQL 中通过 #{名称} 或 #{名称.属性} 引用
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/12 09:30
+ * Version: 1.0
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface Param {
+
+    /**
+     * 参数名称
+     */
+    String value();
+}
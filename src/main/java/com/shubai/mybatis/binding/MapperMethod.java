@@ -1,11 +1,18 @@
 package com.shubai.mybatis.binding;
 
+import com.shubai.mybatis.annotations.Param;
+import com.shubai.mybatis.cursor.Cursor;
 import com.shubai.mybatis.mapping.MappedStatement;
 import com.shubai.mybatis.mapping.SqlCommandType;
 import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
 import com.shubai.mybatis.session.SqlSession;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
 
 /**
  * ClassName: MapperMethod
@@ -19,8 +26,65 @@ public class MapperMethod {
 
     private final SqlCommand command;
 
+    /**
+     * Mapper 接口方法的返回值类型
+     */
+    private final Class<?> returnType;
+
+    /**
+     * 方法只有一个 Collection 参数的插入、更新、删除按批量写入执行
+     */
+    private final boolean batch;
+
+    /**
+     * 各参数 @Param 声明的名称，没有注解的参数为 null；所有参数都没有 @Param 时整个数组为 null
+     */
+    private final String[] paramNames;
+
+    /**
+     * ResultHandler 参数的位置，没有时为 -1；该参数不作为 SQL 参数传递
+     */
+    private final int resultHandlerIndex;
+
     public MapperMethod(Class<?> mapperInterface, Method method, Configuration configuration) {
         this.command = new SqlCommand(configuration, mapperInterface, method);
+        this.returnType = method.getReturnType();
+        this.batch = command.getType() != SqlCommandType.SELECT && method.getParameterCount() == 1
+                && Collection.class.isAssignableFrom(method.getParameterTypes()[0]);
+        this.paramNames = resolveParamNames(method);
+        this.resultHandlerIndex = resolveResultHandlerIndex(method);
+        if (resultHandlerIndex >= 0 && (command.getType() != SqlCommandType.SELECT || returnType != void.class)) {
+            throw new RuntimeException("Mapper method '" + command.getName() + "' with a ResultHandler parameter must be a select returning void.");
+        }
+    }
+
+    private static int resolveResultHandlerIndex(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int index = -1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (ResultHandler.class.isAssignableFrom(parameterTypes[i])) {
+                if (index >= 0) {
+                    throw new RuntimeException(method.getName() + " cannot have multiple ResultHandler parameters");
+                }
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    private static String[] resolveParamNames(Method method) {
+        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+        String[] names = new String[parameterAnnotations.length];
+        boolean named = false;
+        for (int i = 0; i < parameterAnnotations.length; i++) {
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof Param) {
+                    names[i] = ((Param) annotation).value();
+                    named = true;
+                }
+            }
+        }
+        return named ? names : null;
     }
 
     /**
@@ -28,17 +92,38 @@ public class MapperMethod {
      */
     public Object execute(SqlSession sqlSession, Object[] args) {
         Object result = null;
+        if (batch) {
+            return batchResult(sqlSession.updateBatch(command.getName(), (Collection<?>) args[0]));
+        }
+        Object param = convertArgsToSqlCommandParam(args);
         switch (command.getType()) {
             case INSERT:
+                result = rowCountResult(sqlSession.insert(command.getName(), param));
                 break;
             case DELETE:
+                result = rowCountResult(sqlSession.delete(command.getName(), param));
                 break;
             case UPDATE:
+                result = rowCountResult(sqlSession.update(command.getName(), param));
                 break;
             case SELECT:
-                // todo:这里简单起见，直接调用selectOne方法，待完善。
-                System.out.println("调用 SQL 语句的 SqlCommand 名称:" + command.getName());
-                result = sqlSession.selectOne(command.getName(), args);
+                if (resultHandlerIndex >= 0) {
+                    // 每一行交给方法参数中的结果处理器，不返回结果
+                    sqlSession.select(command.getName(), param, (ResultHandler<?>) args[resultHandlerIndex]);
+                    break;
+                }
+                // 返回游标、迭代器、流的方法逐行读取，返回集合的方法查询列表，其他方法查询单条记录
+                if (returnType == Cursor.class) {
+                    result = sqlSession.selectCursor(command.getName(), param);
+                } else if (returnType == Iterator.class) {
+                    result = sqlSession.selectCursor(command.getName(), param).iterator();
+                } else if (returnType == Stream.class) {
+                    result = sqlSession.selectCursor(command.getName(), param).stream();
+                } else if (Collection.class.isAssignableFrom(returnType)) {
+                    result = sqlSession.selectList(command.getName(), param);
+                } else {
+                    result = sqlSession.selectOne(command.getName(), param);
+                }
                 break;
             default:
                 throw new RuntimeException("Unknown execution method for: " + command.getName());
@@ -46,6 +131,71 @@ public class MapperMethod {
         return result;
     }
 
+    /**
+     * 有 @Param 参数时把参数组装成 ParamMap，key 为 @Param 的名称以及 param1、param2 ...；否则原样传递参数数组。
+     * ResultHandler 参数不计入 SQL 参数
+     */
+    private Object convertArgsToSqlCommandParam(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+        if (paramNames == null) {
+            if (resultHandlerIndex < 0) {
+                return args;
+            }
+            Object[] sqlArgs = new Object[args.length - 1];
+            for (int i = 0, j = 0; i < args.length; i++) {
+                if (i != resultHandlerIndex) {
+                    sqlArgs[j++] = args[i];
+                }
+            }
+            return sqlArgs.length == 0 ? null : sqlArgs;
+        }
+        ParamMap param = new ParamMap();
+        for (int i = 0, position = 1; i < args.length; i++) {
+            if (i == resultHandlerIndex) {
+                continue;
+            }
+            if (paramNames[i] != null) {
+                param.put(paramNames[i], args[i]);
+            }
+            param.put("param" + position++, args[i]);
+        }
+        return param;
+    }
+
+    /**
+     * 按 Mapper 方法的返回值类型转换批量写入的影响行数：int[] 原样返回，数值类型返回总行数（不含 SUCCESS_NO_INFO 的行）
+     */
+    private Object batchResult(int[] updateCounts) {
+        if (returnType == int[].class) {
+            return updateCounts;
+        }
+        int total = 0;
+        for (int updateCount : updateCounts) {
+            if (updateCount > 0) {
+                total += updateCount;
+            }
+        }
+        return rowCountResult(total);
+    }
+
+    /**
+     * 按 Mapper 方法的返回值类型转换影响的行数
+     */
+    private Object rowCountResult(int rowCount) {
+        if (returnType == void.class) {
+            return null;
+        } else if (returnType == int.class || returnType == Integer.class) {
+            return rowCount;
+        } else if (returnType == long.class || returnType == Long.class) {
+            return (long) rowCount;
+        } else if (returnType == boolean.class || returnType == Boolean.class) {
+            return rowCount > 0;
+        }
+        throw new RuntimeException("Mapper method '" + command.getName() + "' has an unsupported return type: " + returnType);
+    }
+
     /**
      * SQL 指令
      */
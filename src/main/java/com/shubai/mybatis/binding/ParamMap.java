@@ -0,0 +1,18 @@
+package com.shubai.mybatis.binding;
+
+import java.util.HashMap;
+
+/**
+ * ClassName: ParamMap
+ * Description: Mapper 方法有 @Param 参数时传给 SqlSession 的参数对象：key 是 @Param 的名称以及 param1、param2 ...
+ * <p>
+ * 和普通的 Map 参数不同，引用不存在的参数名称是错误，而不是绑定 null。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/12 10:10
+ * Version: 1.0
+ */
+public class ParamMap extends HashMap<String, Object> {
+
+    private static final long serialVersionUID = 1L;
+}
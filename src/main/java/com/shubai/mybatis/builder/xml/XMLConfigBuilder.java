@@ -2,13 +2,19 @@ package com.shubai.mybatis.builder.xml;
 
 import com.shubai.mybatis.builder.BaseBuilder;
 import com.shubai.mybatis.datasource.DataSourceFactory;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.datasource.routing.RoutingDataSourceFactory;
+import com.shubai.mybatis.datasource.sharding.ShardingDataSourceFactory;
+import com.shubai.mybatis.executor.resultset.RowMapperType;
 import com.shubai.mybatis.io.Resources;
 import com.shubai.mybatis.mapping.BoundSql;
 import com.shubai.mybatis.mapping.Environment;
 import com.shubai.mybatis.mapping.MappedStatement;
 import com.shubai.mybatis.mapping.SqlCommandType;
 import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ExecutorType;
 import com.shubai.mybatis.transaction.TransactionFactory;
+import com.shubai.mybatis.type.JdbcType;
 import org.dom4j.Document;
 import org.dom4j.DocumentException;
 import org.dom4j.Element;
@@ -31,6 +37,11 @@ import java.util.regex.Pattern;
  */
 public class XMLConfigBuilder extends BaseBuilder {
 
+    /**
+     * mapper.xml 中表示 SQL 语句的标签
+     */
+    private static final Set<String> STATEMENT_ELEMENTS = new HashSet<>(Arrays.asList("select", "insert", "update", "delete"));
+
     private Element root;
 
     public XMLConfigBuilder(Reader reader) {
@@ -53,6 +64,8 @@ public class XMLConfigBuilder extends BaseBuilder {
      */
     public Configuration parse() {
         try {
+            // 解析 <settings> 节点，配置全局设置
+            settingsElement(root.element("settings"));
             // 解析 <environments> 节点，配置数据源和事务管理器
             environmentsElement(root.element("environments"));
             // 解析 <mappers> 节点，注册 Mapper 映射器
@@ -63,6 +76,35 @@ public class XMLConfigBuilder extends BaseBuilder {
         return configuration;
     }
 
+    /**
+     * 解析 <settings> 节点：defaultExecutorType、defaultBatchSize、defaultFetchSize、rowMapperType
+     */
+    private void settingsElement(Element settings) {
+        if (settings == null) {
+            return;
+        }
+        for (Element settingElement : settings.elements("setting")) {
+            String name = settingElement.attributeValue("name");
+            String value = settingElement.attributeValue("value").trim();
+            switch (name) {
+                case "defaultExecutorType":
+                    configuration.setDefaultExecutorType(ExecutorType.valueOf(value.toUpperCase(Locale.ENGLISH)));
+                    break;
+                case "defaultBatchSize":
+                    configuration.setDefaultBatchSize(Integer.parseInt(value));
+                    break;
+                case "defaultFetchSize":
+                    configuration.setDefaultFetchSize(Integer.valueOf(value));
+                    break;
+                case "rowMapperType":
+                    configuration.setRowMapperType(RowMapperType.valueOf(value.toUpperCase(Locale.ENGLISH)));
+                    break;
+                default:
+                    throw new RuntimeException("The setting " + name + " is not known.");
+            }
+        }
+    }
+
     /**
      * 解析 <environments> 节点，配置数据源和事务管理器
      */
@@ -78,19 +120,8 @@ public class XMLConfigBuilder extends BaseBuilder {
             if (environment.equals(id)) {
                 // 根据 <environment> 标签的 <transactionManager> 子标签中的 type 属性值，从 typeAliasRegistry 中获取 TransactionFactory 对应的 Class 对象，然后通过 newInstance 创建对象
                 TransactionFactory txFactory = (TransactionFactory) typeAliasRegistry.resolveAlias(environmentElement.element("transactionManager").attributeValue("type")).newInstance();
-                // 获取 <environment> 标签中的 <dataSource> 子标签
-                Element dataSourceElement = environmentElement.element("dataSource");
-                // 根据 <dataSource> 标签中的 type 属性值，从 typeAliasRegistry 中获取 DataSourceFactory 对应的 Class 对象，然后通过 newInstance 创建对象
-                DataSourceFactory dataSourceFactory = (DataSourceFactory) typeAliasRegistry.resolveAlias(dataSourceElement.attributeValue("type")).newInstance();
-                // 解析 <dataSource> 标签中的所有 <property> 子标签，封装成 Properties 对象
-                List<Element> propertyElementList = dataSourceElement.elements("property");
-                Properties props = new Properties();
-                for (Element propertyElement : propertyElementList) {
-                    props.setProperty(propertyElement.attributeValue("name"), propertyElement.attributeValue("value"));
-                }
-                // 使用配置的属性值，创建数据源
-                dataSourceFactory.setProperties(props);
-                DataSource dataSource = dataSourceFactory.getDataSource();
+                // 解析 <environment> 标签中的 <dataSource> 子标签，创建数据源
+                DataSource dataSource = dataSourceElement(environmentElement.element("dataSource"));
                 // 创建 Environment.Builder，并设置 id、事务管理器和数据源
                 Environment.Builder environmentBuilder = new Environment.Builder(id)
                         .transactionFactory(txFactory)
@@ -102,6 +133,57 @@ public class XMLConfigBuilder extends BaseBuilder {
     }
 
 
+    /**
+     * 解析 <dataSource> 节点，创建数据源
+     * <p>
+     * type="ROUTING" 时，嵌套的 <dataSource role="primary|replica"> 子标签分别作为主库和从库；
+     * type="SHARDING" 时，嵌套的 <dataSource role="shard" name="..."> 子标签按声明顺序作为各个分片。嵌套的数据源按同样的方式递归解析。
+     */
+    private DataSource dataSourceElement(Element dataSourceElement) throws Exception {
+        // 根据 <dataSource> 标签中的 type 属性值，从 typeAliasRegistry 中获取 DataSourceFactory 对应的 Class 对象，然后通过 newInstance 创建对象
+        DataSourceFactory dataSourceFactory = (DataSourceFactory) typeAliasRegistry.resolveAlias(dataSourceElement.attributeValue("type")).newInstance();
+        // 解析 <dataSource> 标签中的所有 <property> 子标签，封装成 Properties 对象
+        List<Element> propertyElementList = dataSourceElement.elements("property");
+        Properties props = new Properties();
+        for (Element propertyElement : propertyElementList) {
+            props.setProperty(propertyElement.attributeValue("name"), propertyElement.attributeValue("value"));
+        }
+        // 读写分离数据源：先创建嵌套的主库和从库
+        if (dataSourceFactory instanceof RoutingDataSourceFactory) {
+            RoutingDataSourceFactory routingDataSourceFactory = (RoutingDataSourceFactory) dataSourceFactory;
+            for (Element nestedElement : dataSourceElement.elements("dataSource")) {
+                String role = nestedElement.attributeValue("role");
+                if ("primary".equals(role)) {
+                    routingDataSourceFactory.setPrimary(dataSourceElement(nestedElement));
+                } else if ("replica".equals(role)) {
+                    routingDataSourceFactory.addReplica(dataSourceElement(nestedElement));
+                } else {
+                    throw new IllegalArgumentException("Nested <dataSource> requires role=\"primary\" or role=\"replica\", but was: " + role);
+                }
+            }
+        }
+        // 分片数据源：按声明顺序创建嵌套的分片
+        if (dataSourceFactory instanceof ShardingDataSourceFactory) {
+            ShardingDataSourceFactory shardingDataSourceFactory = (ShardingDataSourceFactory) dataSourceFactory;
+            for (Element nestedElement : dataSourceElement.elements("dataSource")) {
+                String role = nestedElement.attributeValue("role");
+                if (!"shard".equals(role)) {
+                    throw new IllegalArgumentException("Nested <dataSource> of a SHARDING data source requires role=\"shard\", but was: " + role);
+                }
+                shardingDataSourceFactory.addShard(nestedElement.attributeValue("name"), dataSourceElement(nestedElement));
+            }
+        }
+        // 使用配置的属性值，创建数据源
+        dataSourceFactory.setProperties(props);
+        DataSource dataSource = dataSourceFactory.getDataSource();
+        // 池化数据源开启预热时，在后台并行创建最少空闲连接，不阻塞配置解析
+        if (dataSource instanceof PooledDataSource && ((PooledDataSource) dataSource).isPoolWarmUp()) {
+            ((PooledDataSource) dataSource).warmUp();
+        }
+        return dataSource;
+    }
+
+
     /**
      * 解析 <mappers> 节点，注册 Mapper 映射器
      */
@@ -124,13 +206,21 @@ public class XMLConfigBuilder extends BaseBuilder {
             // 获取命名空间
             String namespace = root.attributeValue("namespace");
 
-            // 解析 <select> 节点，封装 MappedStatement 对象
-            List<Element> selectElementList = root.elements("select");
-            for (Element selectElement : selectElementList) {
+            // 解析 <select>、<insert>、<update>、<delete> 节点，封装 MappedStatement 对象
+            for (Element selectElement : root.elements()) {
+                if (!STATEMENT_ELEMENTS.contains(selectElement.getName())) {
+                    continue;
+                }
                 // 获取 id、parameterType、resultType、sql 语句
                 String id = selectElement.attributeValue("id");
                 String parameterType = selectElement.attributeValue("parameterType");
                 String resultType = selectElement.attributeValue("resultType");
+                // 分片键对应的参数名称，使用分片数据源时按该参数路由到对应的分片
+                String shardKey = selectElement.attributeValue("shardKey");
+                // 没有分片键的 update、delete 声明 broadcast="true" 后在每个分片上执行
+                boolean broadcast = Boolean.parseBoolean(selectElement.attributeValue("broadcast"));
+                // 每次从数据库读取的行数，MySQL 上 -2147483648（Integer.MIN_VALUE）表示流式读取
+                String fetchSize = selectElement.attributeValue("fetchSize");
                 String sql = selectElement.getText();
 
                 // #{} 参数处理
@@ -140,14 +230,29 @@ public class XMLConfigBuilder extends BaseBuilder {
                 Pattern pattern = Pattern.compile("(#\\{(.*?)})");
                 // 用正则表达式去匹配 SQL 语句，得到一个匹配器对象
                 Matcher matcher = pattern.matcher(sql);
+                // #{} 中显式声明的 javaType、jdbcType，key 是参数索引
+                Map<Integer, Class<?>> javaTypes = new HashMap<>();
+                Map<Integer, JdbcType> jdbcTypes = new HashMap<>();
                 // 遍历所有匹配到的 #{参数名}，i 从 1 开始计数
                 for (int i = 1; matcher.find(); i++) {
-                    // 获取完整的匹配内容，比如 #{id}
+                    // 获取完整的匹配内容，比如 #{id} 或 #{id, javaType=long, jdbcType=BIGINT}
                     String g1 = matcher.group(1);
-                    // 获取参数名，比如 id
-                    String g2 = matcher.group(2);
+                    // 获取参数名，比如 id，逗号之后是可选的类型声明
+                    String[] g2 = matcher.group(2).split(",");
+                    for (int j = 1; j < g2.length; j++) {
+                        String[] option = g2[j].split("=", 2);
+                        String optionName = option[0].trim();
+                        String optionValue = option.length > 1 ? option[1].trim() : "";
+                        if ("javaType".equals(optionName)) {
+                            javaTypes.put(i, resolveJavaType(optionValue));
+                        } else if ("jdbcType".equals(optionName)) {
+                            jdbcTypes.put(i, JdbcType.valueOf(optionValue.toUpperCase(Locale.ENGLISH)));
+                        } else {
+                            throw new IllegalArgumentException("Unknown option " + optionName + " in " + g1 + " of statement " + namespace + "." + id + ".");
+                        }
+                    }
                     // 将参数索引和参数名存入映射表
-                    parameter.put(i, g2);
+                    parameter.put(i, g2[0].trim());
                     // 将 SQL 语句中的 #{参数名} 替换为 ?，用于预编译 SQL
                     sql = sql.replace(g1, "?");
                 }
@@ -155,6 +260,10 @@ public class XMLConfigBuilder extends BaseBuilder {
                 // 构建 MappedStatement 对象
                 // 根据命名空间和 id 拼接成唯一的 statementId
                 String statementId = namespace + "." + id;
+                // 分片键必须是语句中的一个参数
+                if (shardKey != null && !parameter.containsValue(shardKey)) {
+                    throw new IllegalArgumentException("Shard key " + shardKey + " of statement " + statementId + " is not a parameter of the statement.");
+                }
                 // 获取 SQL 语句的类型，比如 select、insert、update、delete
                 String selectElementName = selectElement.getName();
                 // 将 SQL 语句类型转换为枚举类型 SqlCommandType
@@ -162,15 +271,28 @@ public class XMLConfigBuilder extends BaseBuilder {
                 // 创建 BoundSql 对象，封装处理后的 SQL 语句、参数映射表、参数类型和结果类型
                 BoundSql boundSql = new BoundSql(sql, parameter, parameterType, resultType);
                 // 使用 MappedStatement.Builder 构建 MappedStatement 对象
-                MappedStatement mappedStatement = new MappedStatement.Builder(configuration, statementId, sqlCommandType, boundSql).build();
+                MappedStatement.Builder statementBuilder = new MappedStatement.Builder(configuration, statementId, sqlCommandType, boundSql)
+                        .shardKey(shardKey)
+                        .broadcast(broadcast)
+                        .fetchSize(fetchSize == null ? null : Integer.valueOf(fetchSize.trim()));
+                for (Map.Entry<Integer, String> entry : parameter.entrySet()) {
+                    statementBuilder.declareParameter(entry.getKey(), javaTypes.get(entry.getKey()), jdbcTypes.get(entry.getKey()));
+                }
+                MappedStatement mappedStatement = statementBuilder.build();
                 // 将解析得到的 MappedStatement 对象存入 Configuration 中 mappedStatements 集合中
                 configuration.addMappedStatement(mappedStatement);
             }
 
-            // todo:这里可以继续解析 <insert>、<update>、<delete> 节点，封装 MappedStatement 对象，类似于上面的 <select> 节点解析，待完善。
-
             // 注册Mapper映射器
             configuration.addMapper(Resources.classForName(namespace));
         }
     }
+
+    /**
+     * 解析 #{} 中声明的 javaType：先按别名，再按全限定类名
+     */
+    private Class<?> resolveJavaType(String javaType) throws ClassNotFoundException {
+        Class<?> type = typeAliasRegistry.resolveAlias(javaType);
+        return type != null ? type : Resources.classForName(javaType);
+    }
 }
@@ -0,0 +1,50 @@
+package com.shubai.mybatis.cursor;
+
+import java.io.Closeable;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ClassName: Cursor
+ * Description: 游标，遍历时才逐行从结果集中读取并映射，适合导出等读取大量数据、不能一次性放进 List 的场景
+ * <p>
+ * 游标只能遍历一次。遍历结束或调用 close 后关闭结果集和语句，连接可以继续执行其他语句；
+ * 游标打开期间连接被结果集占用（例如 MySQL 的流式读取），SqlSession 关闭时会关闭所有未关闭的游标。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/15 09:30
+ * Version: 1.0
+ */
+public interface Cursor<T> extends Closeable, Iterable<T> {
+
+    /**
+     * 游标是否还没有关闭
+     */
+    boolean isOpen();
+
+    /**
+     * 是否已经读完所有行
+     */
+    boolean isConsumed();
+
+    /**
+     * 上一次返回的行的位置，从 0 开始，还没有读取时为 -1
+     */
+    int getCurrentIndex();
+
+    /**
+     * 关闭游标，释放结果集和语句，不会抛出检查异常
+     */
+    @Override
+    void close();
+
+    /**
+     * 把游标包装成顺序流，流关闭时关闭游标
+     */
+    default Stream<T> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED), false)
+                .onClose(this::close);
+    }
+}
@@ -0,0 +1,198 @@
+package com.shubai.mybatis.cursor.defaults;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.executor.resultset.RowMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * ClassName: DefaultCursor
+ * Description: 基于一个打开的结果集的游标，hasNext 时调用一次 ResultSet.next 并用行映射器映射该行
+ * <p>
+ * 游标持有结果集和创建它的语句，读完最后一行或者关闭游标时两者一起关闭。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/15 09:50
+ * Version: 1.0
+ */
+public class DefaultCursor<T> implements Cursor<T> {
+
+    /**
+     * 日志模块
+     */
+    private static final Logger logger = LoggerFactory.getLogger(DefaultCursor.class);
+
+    private final ResultSet resultSet;
+
+    private final Statement statement;
+
+    private final RowMapper rowMapper;
+
+    /**
+     * 关闭时的回调，例如从 SqlSession 的游标列表中移除
+     */
+    private Runnable onClose;
+
+    private CursorStatus status = CursorStatus.CREATED;
+
+    private int indexWithRowMapped = -1;
+
+    private boolean iteratorRetrieved;
+
+    public DefaultCursor(ResultSet resultSet, Statement statement, RowMapper rowMapper) {
+        this.resultSet = resultSet;
+        this.statement = statement;
+        this.rowMapper = rowMapper;
+    }
+
+    public void setOnClose(Runnable onClose) {
+        this.onClose = onClose;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return status == CursorStatus.OPEN;
+    }
+
+    @Override
+    public boolean isConsumed() {
+        return status == CursorStatus.CONSUMED;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return indexWithRowMapped;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        if (iteratorRetrieved) {
+            throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+        }
+        if (isClosed()) {
+            throw new IllegalStateException("A Cursor is already closed.");
+        }
+        iteratorRetrieved = true;
+        status = CursorStatus.OPEN;
+        return new CursorIterator();
+    }
+
+    @Override
+    public void close() {
+        if (isClosed()) {
+            return;
+        }
+        release(CursorStatus.CLOSED);
+    }
+
+    private boolean isClosed() {
+        return status == CursorStatus.CLOSED || status == CursorStatus.CONSUMED;
+    }
+
+    /**
+     * 移动到下一行，没有更多的行时关闭游标
+     *
+     * @return 是否还有行
+     */
+    private boolean fetchNextRow() throws SQLException {
+        if (isClosed()) {
+            return false;
+        }
+        if (!resultSet.next()) {
+            release(CursorStatus.CONSUMED);
+            return false;
+        }
+        indexWithRowMapped++;
+        return true;
+    }
+
+    private void release(CursorStatus finalStatus) {
+        status = finalStatus;
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            logger.warn("Unexpected exception on closing cursor result set.  Cause: " + e);
+        }
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.warn("Unexpected exception on closing cursor statement.  Cause: " + e);
+        }
+        if (onClose != null) {
+            onClose.run();
+        }
+    }
+
+    /**
+     * 游标的状态
+     */
+    private enum CursorStatus {
+
+        /**
+         * 刚创建，还没有开始遍历
+         */
+        CREATED,
+
+        /**
+         * 正在遍历
+         */
+        OPEN,
+
+        /**
+         * 遍历结束前被关闭
+         */
+        CLOSED,
+
+        /**
+         * 所有行都已读取
+         */
+        CONSUMED
+    }
+
+    /**
+     * 游标的迭代器，hasNext 预读一行，映射后的对象可能为 null（例如查询单列时该列为 NULL）
+     */
+    private class CursorIterator implements Iterator<T> {
+
+        private T object;
+
+        /**
+         * object 是否是已经读取、还没有被 next 返回的行
+         */
+        private boolean fetched;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            if (!fetched) {
+                try {
+                    if (fetchNextRow()) {
+                        object = (T) rowMapper.mapRow(resultSet);
+                        fetched = true;
+                    }
+                } catch (SQLException e) {
+                    close();
+                    throw new RuntimeException("Error fetching next row from cursor. Cause: " + e, e);
+                }
+            }
+            return fetched;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T next = object;
+            object = null;
+            fetched = false;
+            return next;
+        }
+    }
+}
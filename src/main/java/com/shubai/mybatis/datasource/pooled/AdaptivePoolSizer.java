@@ -0,0 +1,163 @@
+package com.shubai.mybatis.datasource.pooled;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ClassName: AdaptivePoolSizer
+ * Description: 自适应连接池大小控制器，根据 PoolState 中已有的等待次数、等待时长和连接占用时长，
+ * 在 poolAdaptiveMinimumActiveConnections 和 poolAdaptiveMaximumActiveConnections 之间调整 poolMaximumActiveConnections
+ * <p>
+ * 每次 adjust 观察上一次调用以来的一个窗口：
+ * 窗口内出现平均超过 poolAdaptiveWaitThreshold 毫秒的等待，或者利用率超过 GROW_UTILIZATION 时立即扩容 1/4（至少 1 个）；
+ * 只有连续 SHRINK_WINDOWS 个窗口没有等待且利用率低于 SHRINK_UTILIZATION 时才缩容 1/8（至少 1 个），
+ * 并且不低于按 TARGET_UTILIZATION 估算的所需连接数。扩容快、缩容慢，两个阈值之间留有间隔，负载在阈值附近波动时不会来回调整。
+ * <p>
+ * 利用率 = 窗口内归还连接的累计占用时长 / (窗口时长 × 当前上限)，与当前借出中的连接比例取较大值，避免长时间持有的连接被低估。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/05 15:10
+ * Version: 1.0
+ */
+public class AdaptivePoolSizer {
+
+    /**
+     * 利用率超过该值时即使没有等待也扩容
+     */
+    static final double GROW_UTILIZATION = 0.9;
+
+    /**
+     * 利用率低于该值的窗口才计入缩容
+     */
+    static final double SHRINK_UTILIZATION = 0.5;
+
+    /**
+     * 缩容时按该利用率估算所需连接数，缩容后的上限不低于这个数
+     */
+    static final double TARGET_UTILIZATION = 0.7;
+
+    /**
+     * 连续多少个空闲窗口之后才缩容
+     */
+    static final int SHRINK_WINDOWS = 3;
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptivePoolSizer.class);
+
+    private final PooledDataSource dataSource;
+
+    /**
+     * 开启自适应时的 poolMaximumActiveConnections，未配置 poolAdaptiveMaximumActiveConnections 时作为上限
+     */
+    private final int configuredMaximum;
+
+    /**
+     * 同一时刻只允许一次调整（维护线程和手动调用可能并发）
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 上一个窗口结束时的时间和计数器
+     */
+    private long lastTimestamp;
+
+    private long lastWaitCount;
+
+    private long lastWaitTime;
+
+    private long lastCheckoutTime;
+
+    /**
+     * 连续满足缩容条件的窗口数，扩容或出现等待时清零
+     */
+    private int calmWindows;
+
+    public AdaptivePoolSizer(PooledDataSource dataSource) {
+        this.dataSource = dataSource;
+        this.configuredMaximum = dataSource.getPoolMaximumActiveConnections();
+        PoolState state = dataSource.getPoolState();
+        this.lastTimestamp = System.currentTimeMillis();
+        this.lastWaitCount = state.hadToWaitCount.sum();
+        this.lastWaitTime = state.accumulatedWaitTime.sum();
+        this.lastCheckoutTime = state.accumulatedCheckoutTime.sum();
+    }
+
+    /**
+     * 下限：poolAdaptiveMinimumActiveConnections，未配置时为 poolMinimumIdle（至少 1）
+     */
+    public int getFloor() {
+        int floor = dataSource.getPoolAdaptiveMinimumActiveConnections();
+        return floor > 0 ? floor : Math.max(1, dataSource.getPoolMinimumIdle());
+    }
+
+    /**
+     * 上限：poolAdaptiveMaximumActiveConnections，未配置时为开启自适应时的 poolMaximumActiveConnections，且不低于下限
+     */
+    public int getCeiling() {
+        int ceiling = dataSource.getPoolAdaptiveMaximumActiveConnections();
+        return Math.max(getFloor(), ceiling > 0 ? ceiling : configuredMaximum);
+    }
+
+    /**
+     * 观察自上次调用以来的窗口并调整 poolMaximumActiveConnections
+     *
+     * @return 调整后的上限与调整前的差值，扩容为正，缩容为负，不变为 0
+     */
+    public int adjust() {
+        if (!lock.tryLock()) {
+            return 0;
+        }
+        try {
+            PoolState state = dataSource.getPoolState();
+            long now = System.currentTimeMillis();
+            long waitCount = state.hadToWaitCount.sum();
+            long waitTime = state.accumulatedWaitTime.sum();
+            long checkoutTime = state.accumulatedCheckoutTime.sum();
+            long window = Math.max(1, now - lastTimestamp);
+            long waits = waitCount - lastWaitCount;
+            long averageWait = waits == 0 ? 0 : (waitTime - lastWaitTime) / waits;
+            long busy = checkoutTime - lastCheckoutTime;
+            lastTimestamp = now;
+            lastWaitCount = waitCount;
+            lastWaitTime = waitTime;
+            lastCheckoutTime = checkoutTime;
+
+            int current = dataSource.getPoolMaximumActiveConnections();
+            int floor = getFloor();
+            int ceiling = getCeiling();
+            double utilization = Math.max((double) busy / ((double) window * current),
+                    (double) state.getActiveConnectionCount() / current);
+
+            int target = current;
+            if ((waits > 0 && averageWait >= dataSource.getPoolAdaptiveWaitThreshold()) || utilization > GROW_UTILIZATION) {
+                calmWindows = 0;
+                target = Math.min(ceiling, current + Math.max(1, current / 4));
+            } else if (waits == 0 && utilization < SHRINK_UTILIZATION) {
+                if (++calmWindows >= SHRINK_WINDOWS) {
+                    calmWindows = 0;
+                    int needed = (int) Math.ceil(utilization * current / TARGET_UTILIZATION);
+                    target = Math.max(floor, Math.max(needed, current - Math.max(1, current / 8)));
+                }
+            } else {
+                calmWindows = 0;
+            }
+            // 配置的上下限被修改后先回到范围内
+            target = Math.max(floor, Math.min(ceiling, target));
+            if (target == current) {
+                return 0;
+            }
+            if (target > current) {
+                state.adaptiveGrowCount.increment();
+            } else {
+                state.adaptiveShrinkCount.increment();
+            }
+            logger.info("Adaptive sizing changed poolMaximumActiveConnections of " + dataSource.getPoolName() + " from " + current + " to " + target
+                    + " (waits=" + waits + ", averageWait=" + averageWait + " ms, utilization=" + String.format("%.2f", utilization) + ").");
+            dataSource.resizePool(target);
+            return target - current;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.shubai.mybatis.datasource.pooled;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.shubai.mybatis.datasource.pooled.PooledConnection.STATE_IDLE;
+import static com.shubai.mybatis.datasource.pooled.PooledConnection.STATE_IN_USE;
+
+/**
+ * ClassName: ConcurrentBag
+ * Description: 无锁连接容器，每个 PooledConnection 是一个槽位，借出和归还通过 CAS 修改槽位状态完成
+ * <p>
+ * 读多写少：槽位数组只在连接创建和销毁时整体替换，借出时按下标遍历数组快照查找空闲槽位，不创建迭代器；
+ * 没有空闲槽位时调用方在 handoffQueue 上等待，归还的连接会被直接交给等待者。
+ * 空闲槽位数由槽位自己在进出 STATE_IDLE 时维护，归还时判断空闲连接是否已足够是 O(1) 的，不需要扫描。
+ * <p>
+ * 每个线程还会在 threadList 中记住自己最近归还的连接，再次借出时优先从这里 CAS，
+ * 命中时不需要遍历共享列表；本线程列表为空时再去 sharedList 中“窃取”其他线程归还的连接。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/26 10:20
+ * Version: 1.0
+ */
+public class ConcurrentBag {
+
+    /**
+     * 所有槽位（任意状态），写时复制：修改时整体替换数组，读取方拿到的引用就是一致的快照，遍历无需加锁
+     */
+    private volatile PooledConnection[] sharedList = new PooledConnection[0];
+
+    /**
+     * 串行化槽位数组的替换，只在连接创建和销毁时获取
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * 处于 STATE_IDLE 的槽位数，槽位的状态迁移进出 STATE_IDLE 时更新
+     */
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    /**
+     * 每个线程最多记住的最近归还连接数
+     */
+    private static final int THREAD_LIST_SIZE = 16;
+
+    /**
+     * 当前线程最近归还的连接，借出时从尾部（最近归还）开始尝试
+     */
+    private final ThreadLocal<List<PooledConnection>> threadList = ThreadLocal.withInitial(() -> new ArrayList<>(THREAD_LIST_SIZE));
+
+    /**
+     * 从本线程列表中借到连接的次数
+     */
+    private final LongAdder threadLocalHitCount = new LongAdder();
+
+    /**
+     * 本线程列表中没有可用连接、转而扫描共享列表的次数
+     */
+    private final LongAdder threadLocalMissCount = new LongAdder();
+
+    /**
+     * 当前正在等待连接的线程数
+     */
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    /**
+     * 归还的连接通过该队列直接交给等待中的线程，公平模式下按等待先后（FIFO）交接
+     */
+    private final SynchronousQueue<PooledConnection> handoffQueue;
+
+    public ConcurrentBag() {
+        this(false);
+    }
+
+    /**
+     * @param fair 是否按等待先后把归还的连接交给等待者，非公平模式下后来的等待者可能先拿到连接
+     */
+    public ConcurrentBag(boolean fair) {
+        this.handoffQueue = new SynchronousQueue<>(fair);
+    }
+
+    /**
+     * 非阻塞地借出一个空闲槽位
+     *
+     * @return 借到的连接（状态已置为 STATE_IN_USE），没有空闲槽位时返回 null
+     */
+    public PooledConnection borrow() {
+        // 先尝试本线程最近归还的连接，扫描过的条目一律移除，被别人借走的连接会在归还时回到对方的列表
+        List<PooledConnection> list = threadList.get();
+        for (int i = list.size() - 1; i >= 0; i--) {
+            PooledConnection connection = list.remove(i);
+            if (connection.compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+                threadLocalHitCount.increment();
+                return connection;
+            }
+        }
+        threadLocalMissCount.increment();
+        return borrowFromSharedList();
+    }
+
+    /**
+     * 扫描共享列表借出空闲槽位
+     */
+    private PooledConnection borrowFromSharedList() {
+        PooledConnection[] slots = sharedList;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+                return slots[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 借出一个空闲槽位，没有空闲槽位时最多等待 timeout
+     *
+     * @return 借到的连接（状态已置为 STATE_IN_USE），超时返回 null
+     * @throws InterruptedException 等待过程中线程被中断
+     */
+    public PooledConnection borrow(long timeout, TimeUnit unit) throws InterruptedException {
+        // 先登记为等待者再扫描，保证与 requite 之间不会错过刚归还的连接
+        waiters.incrementAndGet();
+        try {
+            PooledConnection connection = borrowFromSharedList();
+            if (connection != null) {
+                return connection;
+            }
+            long nanos = unit.toNanos(timeout);
+            while (nanos > 0) {
+                long start = System.nanoTime();
+                connection = handoffQueue.poll(nanos, TimeUnit.NANOSECONDS);
+                // 交接过来的连接可能已被其他线程通过扫描抢走，需要再次 CAS 确认
+                if (connection == null || connection.compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+                    return connection;
+                }
+                nanos -= System.nanoTime() - start;
+            }
+            return null;
+        } finally {
+            waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * 归还槽位：置为空闲，如果有线程在等待则直接交接，否则记入当前线程的最近归还列表
+     */
+    public void requite(PooledConnection connection) {
+        connection.setState(STATE_IDLE);
+        for (int i = 0; waiters.get() > 0; i++) {
+            // 槽位已被别人借走，或交接成功，都可以结束
+            if (connection.getState() != STATE_IDLE || handoffQueue.offer(connection)) {
+                return;
+            }
+            if ((i & 0xff) == 0xff) {
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(10));
+            } else {
+                Thread.yield();
+            }
+        }
+        List<PooledConnection> list = threadList.get();
+        if (list.size() < THREAD_LIST_SIZE) {
+            list.add(connection);
+        }
+    }
+
+    /**
+     * 新增槽位，调用方负责在加入前设置好状态
+     */
+    public void add(PooledConnection connection) {
+        writeLock.lock();
+        try {
+            PooledConnection[] slots = sharedList;
+            PooledConnection[] updated = Arrays.copyOf(slots, slots.length + 1);
+            updated[slots.length] = connection;
+            // 先接入空闲计数再发布，发布之前没有其他线程能修改该槽位的状态
+            connection.attachIdleCount(idleCount);
+            sharedList = updated;
+        } finally {
+            writeLock.unlock();
+        }
+        // 新增的空闲槽位同样可以交给等待者
+        if (connection.getState() == STATE_IDLE && waiters.get() > 0) {
+            handoffQueue.offer(connection);
+        }
+    }
+
+    /**
+     * 移除槽位
+     *
+     * @return 槽位是否存在于容器中
+     */
+    public boolean remove(PooledConnection connection) {
+        writeLock.lock();
+        try {
+            PooledConnection[] slots = sharedList;
+            for (int i = 0; i < slots.length; i++) {
+                if (slots[i] == connection) {
+                    PooledConnection[] updated = new PooledConnection[slots.length - 1];
+                    System.arraycopy(slots, 0, updated, 0, i);
+                    System.arraycopy(slots, i + 1, updated, i, slots.length - i - 1);
+                    sharedList = updated;
+                    connection.detachIdleCount();
+                    return true;
+                }
+            }
+            return false;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * 获取处于指定状态的槽位快照
+     */
+    public List<PooledConnection> values(int state) {
+        PooledConnection[] slots = sharedList;
+        List<PooledConnection> list = new ArrayList<>(slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].getState() == state) {
+                list.add(slots[i]);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * 获取全部槽位快照
+     */
+    public List<PooledConnection> values() {
+        return new ArrayList<>(Arrays.asList(sharedList));
+    }
+
+    /**
+     * 统计处于指定状态的槽位数量，STATE_IDLE 直接读取计数，其他状态扫描槽位
+     */
+    public int getCount(int state) {
+        if (state == STATE_IDLE) {
+            return getIdleCount();
+        }
+        PooledConnection[] slots = sharedList;
+        int count = 0;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].getState() == state) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 空闲槽位数，O(1)
+     */
+    public int getIdleCount() {
+        return idleCount.get();
+    }
+
+    public long getThreadLocalHitCount() {
+        return threadLocalHitCount.sum();
+    }
+
+    public long getThreadLocalMissCount() {
+        return threadLocalMissCount.sum();
+    }
+
+    public int size() {
+        return sharedList.length;
+    }
+
+    public int getWaitingThreadCount() {
+        return waiters.get();
+    }
+}
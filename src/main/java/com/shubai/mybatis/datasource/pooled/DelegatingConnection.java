@@ -0,0 +1,398 @@
+package com.shubai.mybatis.datasource.pooled;
+
+import java.sql.*;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * ClassName: DelegatingConnection
+ * Description: 手写的池化连接句柄，直接调用真实连接的对应方法，只拦截 close
+ * <p>
+ * 开启语句缓存时，prepareStatement 的 (sql)、(sql, type, concurrency)、(sql, type, concurrency, holdability) 重载经过 StatementCache。
+ * <p>
+ * 与 JDK 动态代理相比，没有 Method.invoke 和参数数组装箱，也不需要比较方法名，JIT 可以把热点 JDBC 调用内联。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/28 14:20
+ * Version: 1.0
+ */
+public class DelegatingConnection extends LeaseHandle implements Connection {
+
+    DelegatingConnection(PooledConnection pooledConnection) {
+        super(pooledConnection);
+    }
+
+    @Override
+    Connection getConnection() {
+        return this;
+    }
+
+    /**
+     * 在调用真实连接之前检查句柄是否仍属于当前租约
+     */
+    private void check() throws SQLException {
+        pooledConnection.checkConnection(this);
+    }
+
+    /**
+     * setClientInfo 只能抛出 SQLClientInfoException
+     */
+    private void checkClientInfo() throws SQLClientInfoException {
+        try {
+            check();
+        } catch (SQLException e) {
+            throw new SQLClientInfoException(e.getMessage(), null, e);
+        }
+    }
+
+    @Override
+    public Statement createStatement() throws SQLException {
+        check();
+        return realConnection.createStatement();
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        check();
+        if (statementCache != null) {
+            return statementCache.prepareStatement(this, sql, StatementCache.UNSPECIFIED, StatementCache.UNSPECIFIED, StatementCache.UNSPECIFIED);
+        }
+        return realConnection.prepareStatement(sql);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql) throws SQLException {
+        check();
+        return realConnection.prepareCall(sql);
+    }
+
+    @Override
+    public String nativeSQL(String sql) throws SQLException {
+        check();
+        return realConnection.nativeSQL(sql);
+    }
+
+    @Override
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        check();
+        realConnection.setAutoCommit(autoCommit);
+    }
+
+    @Override
+    public boolean getAutoCommit() throws SQLException {
+        check();
+        return realConnection.getAutoCommit();
+    }
+
+    @Override
+    public void commit() throws SQLException {
+        check();
+        realConnection.commit();
+    }
+
+    @Override
+    public void rollback() throws SQLException {
+        check();
+        realConnection.rollback();
+    }
+
+    /**
+     * 唯一被拦截的方法：结束租约，把连接还给连接池而不是关闭
+     */
+    @Override
+    public void close() throws SQLException {
+        pooledConnection.closeLease(this);
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        check();
+        return realConnection.isClosed();
+    }
+
+    @Override
+    public DatabaseMetaData getMetaData() throws SQLException {
+        check();
+        return realConnection.getMetaData();
+    }
+
+    @Override
+    public void setReadOnly(boolean readOnly) throws SQLException {
+        check();
+        realConnection.setReadOnly(readOnly);
+    }
+
+    @Override
+    public boolean isReadOnly() throws SQLException {
+        check();
+        return realConnection.isReadOnly();
+    }
+
+    @Override
+    public void setCatalog(String catalog) throws SQLException {
+        check();
+        realConnection.setCatalog(catalog);
+    }
+
+    @Override
+    public String getCatalog() throws SQLException {
+        check();
+        return realConnection.getCatalog();
+    }
+
+    @Override
+    public void setTransactionIsolation(int level) throws SQLException {
+        check();
+        realConnection.setTransactionIsolation(level);
+    }
+
+    @Override
+    public int getTransactionIsolation() throws SQLException {
+        check();
+        return realConnection.getTransactionIsolation();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        check();
+        return realConnection.getWarnings();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        check();
+        realConnection.clearWarnings();
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+        check();
+        return realConnection.createStatement(resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        check();
+        if (statementCache != null) {
+            return statementCache.prepareStatement(this, sql, resultSetType, resultSetConcurrency, StatementCache.UNSPECIFIED);
+        }
+        return realConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        check();
+        return realConnection.prepareCall(sql, resultSetType, resultSetConcurrency);
+    }
+
+    @Override
+    public Map<String, Class<?>> getTypeMap() throws SQLException {
+        check();
+        return realConnection.getTypeMap();
+    }
+
+    @Override
+    public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+        check();
+        realConnection.setTypeMap(map);
+    }
+
+    @Override
+    public void setHoldability(int holdability) throws SQLException {
+        check();
+        realConnection.setHoldability(holdability);
+    }
+
+    @Override
+    public int getHoldability() throws SQLException {
+        check();
+        return realConnection.getHoldability();
+    }
+
+    @Override
+    public Savepoint setSavepoint() throws SQLException {
+        check();
+        return realConnection.setSavepoint();
+    }
+
+    @Override
+    public Savepoint setSavepoint(String name) throws SQLException {
+        check();
+        return realConnection.setSavepoint(name);
+    }
+
+    @Override
+    public void rollback(Savepoint savepoint) throws SQLException {
+        check();
+        realConnection.rollback(savepoint);
+    }
+
+    @Override
+    public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+        check();
+        realConnection.releaseSavepoint(savepoint);
+    }
+
+    @Override
+    public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        check();
+        return realConnection.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        check();
+        if (statementCache != null) {
+            return statementCache.prepareStatement(this, sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+        }
+        return realConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        check();
+        return realConnection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        check();
+        return realConnection.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+        check();
+        return realConnection.prepareStatement(sql, columnIndexes);
+    }
+
+    @Override
+    public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+        check();
+        return realConnection.prepareStatement(sql, columnNames);
+    }
+
+    @Override
+    public Clob createClob() throws SQLException {
+        check();
+        return realConnection.createClob();
+    }
+
+    @Override
+    public Blob createBlob() throws SQLException {
+        check();
+        return realConnection.createBlob();
+    }
+
+    @Override
+    public NClob createNClob() throws SQLException {
+        check();
+        return realConnection.createNClob();
+    }
+
+    @Override
+    public SQLXML createSQLXML() throws SQLException {
+        check();
+        return realConnection.createSQLXML();
+    }
+
+    @Override
+    public boolean isValid(int timeout) throws SQLException {
+        check();
+        return realConnection.isValid(timeout);
+    }
+
+    @Override
+    public void setClientInfo(String name, String value) throws SQLClientInfoException {
+        checkClientInfo();
+        realConnection.setClientInfo(name, value);
+    }
+
+    @Override
+    public void setClientInfo(Properties properties) throws SQLClientInfoException {
+        checkClientInfo();
+        realConnection.setClientInfo(properties);
+    }
+
+    @Override
+    public String getClientInfo(String name) throws SQLException {
+        check();
+        return realConnection.getClientInfo(name);
+    }
+
+    @Override
+    public Properties getClientInfo() throws SQLException {
+        check();
+        return realConnection.getClientInfo();
+    }
+
+    @Override
+    public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+        check();
+        return realConnection.createArrayOf(typeName, elements);
+    }
+
+    @Override
+    public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+        check();
+        return realConnection.createStruct(typeName, attributes);
+    }
+
+    @Override
+    public void setSchema(String schema) throws SQLException {
+        check();
+        realConnection.setSchema(schema);
+    }
+
+    @Override
+    public String getSchema() throws SQLException {
+        check();
+        return realConnection.getSchema();
+    }
+
+    @Override
+    public void abort(Executor executor) throws SQLException {
+        check();
+        realConnection.abort(executor);
+    }
+
+    @Override
+    public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+        check();
+        realConnection.setNetworkTimeout(executor, milliseconds);
+    }
+
+    @Override
+    public int getNetworkTimeout() throws SQLException {
+        check();
+        return realConnection.getNetworkTimeout();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        check();
+        return realConnection.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        check();
+        return realConnection.isWrapperFor(iface);
+    }
+
+    @Override
+    public int hashCode() {
+        return realConnection.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return this == obj;
+    }
+
+    @Override
+    public String toString() {
+        return realConnection.toString();
+    }
+}
@@ -0,0 +1,227 @@
+package com.shubai.mybatis.datasource.pooled;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ClassName: LatencyHistogram
+ * Description: 无锁的对数-线性直方图（HDR 风格），用于统计耗时分布并计算百分位
+ * <p>
+ * 小于 16 的值精确记录；更大的值按 2 的幂分组，每组再等分为 16 个子桶，相对误差不超过 6.25%，
+ * 对毫秒级的 p99 已经足够，每个条带只有 960 个桶（约 7.5 KB）。
+ * 记录只是一次 AtomicLongArray 自增，不加锁、不分配对象。
+ * 计数按线程分散到最多两个条带（stripe）上，减少同一个桶上的争抢；条带在第一次记录时才创建，
+ * 很少使用的直方图（例如空闲分区的建连耗时）几乎不占内存。读取时把各条带相加。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/01 10:30
+ * Version: 1.0
+ */
+public class LatencyHistogram {
+
+    /**
+     * 每组子桶数量的位数，2^4 = 16 个子桶
+     */
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * long 正数最高位为第 62 位，共需要 (62 - 4 + 2) 组
+     */
+    private static final int BUCKET_COUNT = (62 - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    /**
+     * 条带数量：单核时为 1，否则为 2。PoolState 持有四个直方图，每个凭据分区又有自己的 PoolState，条带不能按核数放大
+     */
+    private static final int STRIPE_COUNT = Runtime.getRuntime().availableProcessors() > 1 ? 2 : 1;
+
+    /**
+     * 各个条带中各个桶的计数，条带在第一次记录时创建
+     */
+    private final AtomicReferenceArray<AtomicLongArray> stripes = new AtomicReferenceArray<>(STRIPE_COUNT);
+
+    /**
+     * 记录值的总和，用于计算平均值
+     */
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * 记录过的最大值，只有出现更大的值时才需要 CAS
+     */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * 记录一个值，负数按 0 处理
+     */
+    public void record(long value) {
+        long v = Math.max(value, 0);
+        int stripeIndex = (int) Thread.currentThread().getId() & (STRIPE_COUNT - 1);
+        AtomicLongArray stripe = stripes.get(stripeIndex);
+        if (stripe == null) {
+            stripe = createStripe(stripeIndex);
+        }
+        stripe.incrementAndGet(indexOf(v));
+        sum.add(v);
+        long current;
+        while (v > (current = max.get()) && !max.compareAndSet(current, v)) {
+            // 其他线程同时更新了最大值，重新比较
+        }
+    }
+
+    /**
+     * 第一次在该条带上记录时创建，多个线程同时创建时只保留一个
+     */
+    private AtomicLongArray createStripe(int stripeIndex) {
+        AtomicLongArray created = new AtomicLongArray(BUCKET_COUNT);
+        return stripes.compareAndSet(stripeIndex, null, created) ? created : stripes.get(stripeIndex);
+    }
+
+    /**
+     * 记录的总次数
+     */
+    public long getTotalCount() {
+        long total = 0;
+        for (int s = 0; s < STRIPE_COUNT; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                total += stripe.get(i);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 计算百分位值
+     *
+     * @param percentile 百分位，取值 0 ~ 100，例如 99.9
+     * @return 该百分位所在桶的上界，没有任何记录时返回 0
+     */
+    public long getValueAtPercentile(double percentile) {
+        return snapshot().getValueAtPercentile(percentile);
+    }
+
+    /**
+     * 复制一份当前的计数，之后的记录不影响快照，多个百分位可以在同一份快照上计算
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int s = 0; s < STRIPE_COUNT; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] += stripe.get(i);
+            }
+        }
+        return new Snapshot(counts, sum.sum(), max.get());
+    }
+
+    /**
+     * 清空所有计数
+     */
+    public void reset() {
+        for (int s = 0; s < STRIPE_COUNT; s++) {
+            AtomicLongArray stripe = stripes.get(s);
+            if (stripe == null) {
+                continue;
+            }
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                stripe.set(i, 0);
+            }
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        // 取最高的 SUB_BUCKET_BITS + 1 位，落在 [16, 32) 之间
+        int top = (int) (value >>> (msb - SUB_BUCKET_BITS));
+        return (msb - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + (top - SUB_BUCKET_COUNT);
+    }
+
+    static long lowerBoundOf(int index) {
+        int group = index >>> SUB_BUCKET_BITS;
+        int sub = index & (SUB_BUCKET_COUNT - 1);
+        if (group == 0) {
+            return sub;
+        }
+        return ((long) (SUB_BUCKET_COUNT + sub)) << (group - 1);
+    }
+
+    static long upperBoundOf(int index) {
+        if (index + 1 >= BUCKET_COUNT) {
+            return Long.MAX_VALUE;
+        }
+        return lowerBoundOf(index + 1) - 1;
+    }
+
+    /**
+     * 直方图某一时刻的不可变快照
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        private final long totalCount;
+
+        private final long sum;
+
+        private final long max;
+
+        Snapshot(long[] counts, long sum, long max) {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+            this.counts = counts;
+            this.totalCount = total;
+            this.sum = sum;
+            // 各条带和最大值不是同一时刻读取的，没有记录时不报告最大值
+            this.max = total == 0 ? 0 : max;
+        }
+
+        public long getTotalCount() {
+            return totalCount;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return totalCount == 0 ? 0 : (double) sum / totalCount;
+        }
+
+        /**
+         * 计算百分位值
+         *
+         * @param percentile 百分位，取值 0 ~ 100，例如 99.9
+         * @return 该百分位所在桶的上界（不超过记录过的最大值），没有任何记录时返回 0
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (totalCount == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * totalCount));
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                cumulative += counts[i];
+                if (cumulative >= target) {
+                    return max > 0 ? Math.min(upperBoundOf(i), max) : upperBoundOf(i);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.shubai.mybatis.datasource.pooled;
+
+import java.sql.Connection;
+
+/**
+ * ClassName: LeaseHandle
+ * Description: 池化连接的租约句柄，每次租约由 PooledConnection 新建一个，租约结束后永久失效
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/28 14:10
+ * Version: 1.0
+ */
+abstract class LeaseHandle {
+
+    /**
+     * 句柄所属的池化连接
+     */
+    protected final PooledConnection pooledConnection;
+
+    /**
+     * 真实的数据库连接对象，句柄上的调用最终都委托给它
+     */
+    protected final Connection realConnection;
+
+    /**
+     * 所属物理连接的预编译语句缓存，未开启时为 null
+     */
+    protected final StatementCache statementCache;
+
+    LeaseHandle(PooledConnection pooledConnection) {
+        this.pooledConnection = pooledConnection;
+        this.realConnection = pooledConnection.getRealConnection();
+        this.statementCache = pooledConnection.getStatementCache();
+    }
+
+    /**
+     * 交给使用者的 Connection 对象
+     */
+    abstract Connection getConnection();
+
+    PooledConnection getPooledConnection() {
+        return pooledConnection;
+    }
+}
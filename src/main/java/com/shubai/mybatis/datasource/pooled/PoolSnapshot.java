@@ -0,0 +1,203 @@
+package com.shubai.mybatis.datasource.pooled;
+
+/**
+ * ClassName: PoolSnapshot
+ * Description: 连接池统计信息在某一时刻的不可变快照，由 PoolState.snapshot() 创建
+ * <p>
+ * 各计数器分别求和，彼此之间不是严格的同一时刻，适合监控采集，不适合做精确的对账。
+ * 耗时分布均以微秒为单位。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/05 10:20
+ * Version: 1.0
+ */
+public class PoolSnapshot {
+
+    private final long timestamp;
+
+    private final int idleConnectionCount;
+
+    private final int activeConnectionCount;
+
+    private final int waitingThreadCount;
+
+    private final long requestCount;
+
+    private final long hadToWaitCount;
+
+    private final long badConnectionCount;
+
+    private final long claimedOverdueConnectionCount;
+
+    private final long createdConnectionCount;
+
+    private final long retiredConnectionCount;
+
+    private final long evictedIdleConnectionCount;
+
+    private final long partitionEvictionCount;
+
+    private final long validationCount;
+
+    private final long skippedValidationCount;
+
+    private final int suspectedLeakCount;
+
+    private final long reportedLeakCount;
+
+    private final long statementCacheHitCount;
+
+    private final long statementCacheMissCount;
+
+    private final long statementCacheEvictionCount;
+
+    private final LatencyHistogram.Snapshot acquireTime;
+
+    private final LatencyHistogram.Snapshot waitTime;
+
+    private final LatencyHistogram.Snapshot holdTime;
+
+    private final LatencyHistogram.Snapshot creationTime;
+
+    PoolSnapshot(PoolState state) {
+        this.timestamp = System.currentTimeMillis();
+        this.idleConnectionCount = state.getIdleConnectionCount();
+        this.activeConnectionCount = state.getActiveConnectionCount();
+        this.waitingThreadCount = state.getWaitingThreadCount();
+        this.requestCount = state.getRequestCount();
+        this.hadToWaitCount = state.getHadToWaitCount();
+        this.badConnectionCount = state.getBadConnectionCount();
+        this.claimedOverdueConnectionCount = state.getClaimedOverdueConnectionCount();
+        this.createdConnectionCount = state.getCreatedConnectionCount();
+        this.retiredConnectionCount = state.getRetiredConnectionCount();
+        this.evictedIdleConnectionCount = state.getEvictedIdleConnectionCount();
+        this.partitionEvictionCount = state.getPartitionEvictionCount();
+        this.validationCount = state.getValidationCount();
+        this.skippedValidationCount = state.getSkippedValidationCount();
+        this.suspectedLeakCount = state.getSuspectedLeakCount();
+        this.reportedLeakCount = state.getReportedLeakCount();
+        this.statementCacheHitCount = state.getStatementCacheHitCount();
+        this.statementCacheMissCount = state.getStatementCacheMissCount();
+        this.statementCacheEvictionCount = state.getStatementCacheEvictionCount();
+        this.acquireTime = state.acquireTimeHistogram.snapshot();
+        this.waitTime = state.waitTimeHistogram.snapshot();
+        this.holdTime = state.holdTimeHistogram.snapshot();
+        this.creationTime = state.creationTimeHistogram.snapshot();
+    }
+
+    /**
+     * 创建快照的时间（毫秒）
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public int getIdleConnectionCount() {
+        return idleConnectionCount;
+    }
+
+    public int getActiveConnectionCount() {
+        return activeConnectionCount;
+    }
+
+    public int getWaitingThreadCount() {
+        return waitingThreadCount;
+    }
+
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    public long getHadToWaitCount() {
+        return hadToWaitCount;
+    }
+
+    public long getBadConnectionCount() {
+        return badConnectionCount;
+    }
+
+    public long getClaimedOverdueConnectionCount() {
+        return claimedOverdueConnectionCount;
+    }
+
+    public long getCreatedConnectionCount() {
+        return createdConnectionCount;
+    }
+
+    public long getRetiredConnectionCount() {
+        return retiredConnectionCount;
+    }
+
+    public long getEvictedIdleConnectionCount() {
+        return evictedIdleConnectionCount;
+    }
+
+    public long getPartitionEvictionCount() {
+        return partitionEvictionCount;
+    }
+
+    public long getValidationCount() {
+        return validationCount;
+    }
+
+    public long getSkippedValidationCount() {
+        return skippedValidationCount;
+    }
+
+    public int getSuspectedLeakCount() {
+        return suspectedLeakCount;
+    }
+
+    public long getReportedLeakCount() {
+        return reportedLeakCount;
+    }
+
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount;
+    }
+
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount;
+    }
+
+    public long getStatementCacheEvictionCount() {
+        return statementCacheEvictionCount;
+    }
+
+    /**
+     * 从调用 getConnection 到拿到连接的耗时分布
+     */
+    public LatencyHistogram.Snapshot getAcquireTime() {
+        return acquireTime;
+    }
+
+    /**
+     * 需要等待的请求的等待时长分布
+     */
+    public LatencyHistogram.Snapshot getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * 从借出到归还的占用时长分布
+     */
+    public LatencyHistogram.Snapshot getHoldTime() {
+        return holdTime;
+    }
+
+    /**
+     * 建立物理连接的耗时分布
+     */
+    public LatencyHistogram.Snapshot getCreationTime() {
+        return creationTime;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolSnapshot{idle=" + idleConnectionCount + ", active=" + activeConnectionCount + ", waiting=" + waitingThreadCount
+                + ", requests=" + requestCount + ", waits=" + hadToWaitCount + ", bad=" + badConnectionCount
+                + ", claimedOverdue=" + claimedOverdueConnectionCount + ", suspectedLeaks=" + suspectedLeakCount
+                + ", acquireP99=" + acquireTime.getValueAtPercentile(99) + "us, waitP99=" + waitTime.getValueAtPercentile(99)
+                + "us, holdP99=" + holdTime.getValueAtPercentile(99) + "us}";
+    }
+}
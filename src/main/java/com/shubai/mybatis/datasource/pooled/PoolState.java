@@ -1,7 +1,13 @@
 package com.shubai.mybatis.datasource.pooled;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * ClassName: PoolState
@@ -18,6 +24,17 @@ public class PoolState {
      */
     protected PooledDataSource dataSource;
 
+    /**
+     * SYNCHRONIZED 引擎保护空闲/活跃连接列表、预占名额和等待队列的锁。
+     * 使用 ReentrantLock 而不是 PoolState 监视器：等待连接的线程在 Condition 上挂起，虚拟线程等待时会让出载体线程，不会被钉住
+     */
+    protected final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 有连接归还或建连名额被释放时通知等待的线程
+     */
+    protected final Condition connectionAvailable = lock.newCondition();
+
     /**
      * 空闲连接列表，存放当前未被使用的数据库连接
      */
@@ -28,87 +45,416 @@ public class PoolState {
      */
     protected final List<PooledConnection> activeConnections = new ArrayList<>();
 
+    /**
+     * SYNCHRONIZED 引擎下已预占名额、正在锁外建立的连接数，由 PoolState 的锁保护
+     */
+    protected int pendingConnections;
+
+    /**
+     * poolFairWait 模式下等待连接的线程，先到先得，归还的连接直接交给队头的等待者
+     */
+    protected final Deque<Waiter> waiters = new ArrayDeque<>();
+
     /**
      * 请求数据库连接的总次数，用于统计
      */
-    protected long requestCount = 0;
+    protected final LongAdder requestCount = new LongAdder();
 
     /**
      * 所有请求连接所花费的总时间（毫秒），用于统计平均请求时间
      */
-    protected long accumulatedRequestTime = 0;
+    protected final LongAdder accumulatedRequestTime = new LongAdder();
 
     /**
      * 所有连接被使用（签出）的总时间（毫秒），用于统计平均使用时长
      */
-    protected long accumulatedCheckoutTime = 0;
+    protected final LongAdder accumulatedCheckoutTime = new LongAdder();
 
     /**
      * 被强制回收（超时未归还）的连接次数
      */
-    protected long claimedOverdueConnectionCount = 0;
+    protected final LongAdder claimedOverdueConnectionCount = new LongAdder();
 
     /**
      * 被强制回收的连接累计超时时间（毫秒）
      */
-    protected long accumulatedCheckoutTimeOfOverdueConnections = 0;
+    protected final LongAdder accumulatedCheckoutTimeOfOverdueConnections = new LongAdder();
 
     /**
      * 申请连接时等待的总时间（毫秒）
      */
-    protected long accumulatedWaitTime = 0;
+    protected final LongAdder accumulatedWaitTime = new LongAdder();
 
     /**
      * 申请连接时需要等待的次数
      */
-    protected long hadToWaitCount = 0;
+    protected final LongAdder hadToWaitCount = new LongAdder();
 
     /**
      * 获取到无效（坏）连接的次数
      */
-    protected long badConnectionCount = 0;
+    protected final LongAdder badConnectionCount = new LongAdder();
+
+    /**
+     * 借出时实际访问数据库检测连接有效性的次数
+     */
+    protected final LongAdder validationCount = new LongAdder();
+
+    /**
+     * 借出时因为处于校验窗口内而跳过检测的次数
+     */
+    protected final LongAdder skippedValidationCount = new LongAdder();
+
+    /**
+     * 后台维护线程因空闲超时关闭的连接数
+     */
+    protected final LongAdder evictedIdleConnectionCount = new LongAdder();
+
+    /**
+     * 超过最大存活时间而被淘汰的连接数
+     */
+    protected final LongAdder retiredConnectionCount = new LongAdder();
+
+    /**
+     * 新建物理连接的次数
+     */
+    protected final LongAdder createdConnectionCount = new LongAdder();
+
+    /**
+     * 全局名额已满时，为其他分区腾出名额而关闭的空闲连接数
+     */
+    protected final LongAdder partitionEvictionCount = new LongAdder();
+
+    /**
+     * 当前被报告为疑似泄漏、仍未归还的租约数
+     */
+    protected final LongAdder suspectedLeakCount = new LongAdder();
+
+    /**
+     * 借出时间超过 poolLeakDetectionThreshold 而被报告为疑似泄漏的租约总数
+     */
+    protected final LongAdder reportedLeakCount = new LongAdder();
+
+    /**
+     * 自适应控制器扩大 poolMaximumActiveConnections 的次数
+     */
+    protected final LongAdder adaptiveGrowCount = new LongAdder();
+
+    /**
+     * 自适应控制器缩小 poolMaximumActiveConnections 的次数
+     */
+    protected final LongAdder adaptiveShrinkCount = new LongAdder();
+
+    /**
+     * prepareStatement 命中语句缓存的次数
+     */
+    protected final LongAdder statementCacheHitCount = new LongAdder();
+
+    /**
+     * prepareStatement 未命中语句缓存、需要真实预编译的次数
+     */
+    protected final LongAdder statementCacheMissCount = new LongAdder();
+
+    /**
+     * 因超出 poolPreparedStatementCacheSize 而被淘汰的缓存语句数
+     */
+    protected final LongAdder statementCacheEvictionCount = new LongAdder();
+
+    /**
+     * 建立物理连接的耗时分布（微秒）
+     */
+    protected final LatencyHistogram creationTimeHistogram = new LatencyHistogram();
+
+    /**
+     * 每次需要等待的请求从开始等待到拿到连接（或超时）的耗时分布（微秒）
+     */
+    protected final LatencyHistogram waitTimeHistogram = new LatencyHistogram();
+
+    /**
+     * 每次成功借出从调用 getConnection 到拿到连接的耗时分布（微秒），包含等待、建连和借出时的检测
+     */
+    protected final LatencyHistogram acquireTimeHistogram = new LatencyHistogram();
+
+    /**
+     * 每次租约从借出到归还（或被强制回收）的占用时长分布（微秒，借出时间戳精度为毫秒）
+     */
+    protected final LatencyHistogram holdTimeHistogram = new LatencyHistogram();
+
+    /**
+     * SYNCHRONIZED 引擎下的一个等待者，pushConnection 在持有 PoolState 的锁时把连接交给它并唤醒线程
+     */
+    static final class Waiter {
+
+        final Thread thread;
+
+        /**
+         * 交接过来的连接，状态为 STATE_RESERVED，由等待者自己完成借出
+         */
+        volatile PooledConnection connection;
+
+        Waiter(Thread thread) {
+            this.thread = thread;
+        }
+    }
 
     public PoolState(PooledDataSource dataSource) {
         this.dataSource = dataSource;
     }
 
-    public synchronized long getRequestCount() {
-        return requestCount;
+    public long getRequestCount() {
+        return requestCount.sum();
+    }
+
+    /**
+     * CONCURRENT 引擎下，从当前线程最近归还的连接中直接借到连接的次数
+     */
+    public long getThreadLocalHitCount() {
+        return dataSource.getConcurrentBag().getThreadLocalHitCount();
+    }
+
+    /**
+     * CONCURRENT 引擎下，当前线程没有可复用的连接、需要扫描共享列表的次数
+     */
+    public long getThreadLocalMissCount() {
+        return dataSource.getConcurrentBag().getThreadLocalMissCount();
+    }
+
+    /**
+     * 记录一次成功借出的耗时
+     *
+     * @param acquireNanos 从请求连接到拿到连接的耗时（纳秒）
+     */
+    protected void recordAcquireTime(long acquireNanos) {
+        accumulatedRequestTime.add(TimeUnit.NANOSECONDS.toMillis(acquireNanos));
+        acquireTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(acquireNanos));
+    }
+
+    /**
+     * 获取借出耗时的百分位值
+     *
+     * @param percentile 百分位，取值 0 ~ 100
+     * @return 借出耗时（微秒），从未借出时返回 0
+     */
+    public long getAcquireTimePercentile(double percentile) {
+        return acquireTimeHistogram.getValueAtPercentile(percentile);
+    }
+
+    public LatencyHistogram getAcquireTimeHistogram() {
+        return acquireTimeHistogram;
+    }
+
+    /**
+     * 记录一次租约的占用时长
+     *
+     * @param checkoutMillis 从借出到归还或被回收的时长（毫秒）
+     */
+    protected void recordCheckoutTime(long checkoutMillis) {
+        accumulatedCheckoutTime.add(checkoutMillis);
+        holdTimeHistogram.record(TimeUnit.MILLISECONDS.toMicros(checkoutMillis));
+    }
+
+    /**
+     * 获取连接占用时长的百分位值
+     *
+     * @param percentile 百分位，取值 0 ~ 100
+     * @return 占用时长（微秒），没有结束过的租约时返回 0
+     */
+    public long getHoldTimePercentile(double percentile) {
+        return holdTimeHistogram.getValueAtPercentile(percentile);
+    }
+
+    public LatencyHistogram getHoldTimeHistogram() {
+        return holdTimeHistogram;
+    }
+
+    /**
+     * 读取一份当前的统计快照：计数器直接求和，直方图各复制一次，不获取借出和归还使用的锁。
+     * 只有 SYNCHRONIZED 引擎的空闲、活跃连接数和排队线程数需要短暂持有 PoolState 的锁
+     */
+    public PoolSnapshot snapshot() {
+        return new PoolSnapshot(this);
+    }
+
+    public long getAverageRequestTime() {
+        long requests = requestCount.sum();
+        return requests == 0 ? 0 : accumulatedRequestTime.sum() / requests;
+    }
+
+    public long getAverageWaitTime() {
+        long waits = hadToWaitCount.sum();
+        return waits == 0 ? 0 : accumulatedWaitTime.sum() / waits;
+    }
+
+    /**
+     * 记录一次请求的总等待时间
+     *
+     * @param waitNanos 等待时长（纳秒）
+     */
+    protected void recordWaitTime(long waitNanos) {
+        waitTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+    }
+
+    /**
+     * 获取等待时间的百分位值，例如 getWaitTimePercentile(99) 表示 99% 的等待不超过该值
+     *
+     * @param percentile 百分位，取值 0 ~ 100
+     * @return 等待时间（微秒），从未等待过时返回 0
+     */
+    public long getWaitTimePercentile(double percentile) {
+        return waitTimeHistogram.getValueAtPercentile(percentile);
     }
 
-    public synchronized long getAverageRequestTime() {
-        return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+    public LatencyHistogram getWaitTimeHistogram() {
+        return waitTimeHistogram;
     }
 
-    public synchronized long getAverageWaitTime() {
-        return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+    /**
+     * 记录一次物理连接的建立耗时
+     *
+     * @param creationNanos 建连耗时（纳秒）
+     */
+    protected void recordCreationTime(long creationNanos) {
+        createdConnectionCount.increment();
+        creationTimeHistogram.record(TimeUnit.NANOSECONDS.toMicros(creationNanos));
     }
 
-    public synchronized long getHadToWaitCount() {
-        return hadToWaitCount;
+    public long getCreatedConnectionCount() {
+        return createdConnectionCount.sum();
     }
 
-    public synchronized long getBadConnectionCount() {
-        return badConnectionCount;
+    /**
+     * 获取建连耗时的百分位值
+     *
+     * @param percentile 百分位，取值 0 ~ 100
+     * @return 建连耗时（微秒），从未建连时返回 0
+     */
+    public long getCreationTimePercentile(double percentile) {
+        return creationTimeHistogram.getValueAtPercentile(percentile);
     }
 
-    public synchronized long getClaimedOverdueConnectionCount() {
-        return claimedOverdueConnectionCount;
+    public LatencyHistogram getCreationTimeHistogram() {
+        return creationTimeHistogram;
     }
 
-    public synchronized long getAverageOverdueCheckoutTime() {
-        return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+    public long getHadToWaitCount() {
+        return hadToWaitCount.sum();
     }
 
-    public synchronized long getAverageCheckoutTime() {
-        return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+    public long getBadConnectionCount() {
+        return badConnectionCount.sum();
     }
 
-    public synchronized int getIdleConnectionCount() {
-        return idleConnections.size();
+    public long getValidationCount() {
+        return validationCount.sum();
     }
 
-    public synchronized int getActiveConnectionCount() {
-        return activeConnections.size();
+    public long getSkippedValidationCount() {
+        return skippedValidationCount.sum();
+    }
+
+    public long getEvictedIdleConnectionCount() {
+        return evictedIdleConnectionCount.sum();
+    }
+
+    public long getRetiredConnectionCount() {
+        return retiredConnectionCount.sum();
+    }
+
+    public long getPartitionEvictionCount() {
+        return partitionEvictionCount.sum();
+    }
+
+    /**
+     * 当前疑似泄漏的租约数：借出时间已超过 poolLeakDetectionThreshold、已被报告但还没有归还或被回收
+     */
+    public int getSuspectedLeakCount() {
+        return (int) suspectedLeakCount.sum();
+    }
+
+    public long getReportedLeakCount() {
+        return reportedLeakCount.sum();
+    }
+
+    public long getAdaptiveGrowCount() {
+        return adaptiveGrowCount.sum();
+    }
+
+    public long getAdaptiveShrinkCount() {
+        return adaptiveShrinkCount.sum();
+    }
+
+    public long getStatementCacheHitCount() {
+        return statementCacheHitCount.sum();
+    }
+
+    public long getStatementCacheMissCount() {
+        return statementCacheMissCount.sum();
+    }
+
+    public long getStatementCacheEvictionCount() {
+        return statementCacheEvictionCount.sum();
+    }
+
+    /**
+     * 语句缓存命中率，没有任何 prepareStatement 经过缓存时返回 0
+     */
+    public double getStatementCacheHitRatio() {
+        long hits = statementCacheHitCount.sum();
+        long total = hits + statementCacheMissCount.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public long getClaimedOverdueConnectionCount() {
+        return claimedOverdueConnectionCount.sum();
+    }
+
+    public long getAverageOverdueCheckoutTime() {
+        long claimed = claimedOverdueConnectionCount.sum();
+        return claimed == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.sum() / claimed;
+    }
+
+    public long getAverageCheckoutTime() {
+        long requests = requestCount.sum();
+        return requests == 0 ? 0 : accumulatedCheckoutTime.sum() / requests;
+    }
+
+    public int getIdleConnectionCount() {
+        // CONCURRENT 引擎的连接不在列表中维护，直接统计槽位状态
+        if (dataSource.getPoolType() == PoolType.CONCURRENT) {
+            return dataSource.getConcurrentBag().getIdleCount();
+        }
+        lock.lock();
+        try {
+            return idleConnections.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getActiveConnectionCount() {
+        if (dataSource.getPoolType() == PoolType.CONCURRENT) {
+            return dataSource.getConcurrentBag().getCount(PooledConnection.STATE_IN_USE);
+        }
+        lock.lock();
+        try {
+            return activeConnections.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前正在等待连接的线程数，SYNCHRONIZED 引擎只统计 poolFairWait 模式下排队的线程
+     */
+    public int getWaitingThreadCount() {
+        if (dataSource.getPoolType() == PoolType.CONCURRENT) {
+            return dataSource.getConcurrentBag().getWaitingThreadCount();
+        }
+        lock.lock();
+        try {
+            return waiters.size();
+        } finally {
+            lock.unlock();
+        }
     }
 }
@@ -0,0 +1,22 @@
+package com.shubai.mybatis.datasource.pooled;
+
+/**
+ * ClassName: PoolType
+ * Description: 连接池引擎类型，通过 PooledDataSourceFactory 的 poolType 属性选择
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/26 10:12
+ * Version: 1.0
+ */
+public enum PoolType {
+
+    /**
+     * 经典实现，借出和归还都在 PoolState 的锁（ReentrantLock）中操作空闲/活跃连接列表，等待连接时在 Condition 上挂起
+     */
+    SYNCHRONIZED,
+
+    /**
+     * 无锁实现，基于 ConcurrentBag 和槽位状态机，无竞争时借出和归还不获取任何全局锁
+     */
+    CONCURRENT
+}
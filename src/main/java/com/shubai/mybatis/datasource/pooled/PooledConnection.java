@@ -1,31 +1,94 @@
 package com.shubai.mybatis.datasource.pooled;
 
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.sql.SQLClientInfoException;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * ClassName: PooledConnection
- * Description: 池化的数据库连接，TODO:通过动态代理拦截Connection的close方法，将连接返回给连接池而不是关闭连接
+ * Description: 池化的数据库连接，每个物理连接只创建一个，归还时不再丢弃重建
+ * <p>
+ * 每次借出称为一次租约（lease）。租约开始时创建一个轻量的句柄交给使用者，句柄默认是直接委托给真实连接的
+ * DelegatingConnection，poolUseReflectiveProxy 开启时退回到 JDK 动态代理。lease 字段指向当前租约的句柄，
+ * 句柄上的调用和 close 都要求 lease 仍然指向自己；租约结束时 lease 被清空，句柄从此失效，且不会被下一次租约复用，
+ * 因此无论过去多少次租约，过期句柄的调用都会被拒绝，重复 close 也不会把别人正在使用的连接还回连接池。
+ * <p>
+ * 结束租约（使用者 close、超时强制回收）都要先把 lease 从该句柄 CAS 为 null，同一次租约只有一方能成功。
+ * generation 在租约结束时递增，供泄漏检测确认读取到的时间戳和调用栈属于同一次租约。
  * <p>
  * Author: shubaizz
  * DateTime: 2025/11/25 13:48
  * Version: 1.0
  */
-public class PooledConnection implements InvocationHandler {
+public class PooledConnection {
 
     /**
      * 定义一个常量字符串，表示数据库连接的关闭方法名 "close"
      */
     private static final String CLOSE = "close";
 
+    /**
+     * 预编译语句的方法名，开启语句缓存时拦截
+     */
+    private static final String PREPARE_STATEMENT = "prepareStatement";
+
+    /**
+     * 设置客户端信息的方法名，只能抛出 SQLClientInfoException
+     */
+    private static final String SET_CLIENT_INFO = "setClientInfo";
+
     /**
      * 定义一个常量数组，里面只包含 Connection.class，后续用于动态代理
      */
     private static final Class<?>[] IFACES = new Class[]{Connection.class};
 
+    /**
+     * 槽位状态：空闲，可被借出
+     */
+    public static final int STATE_IDLE = 0;
+
+    /**
+     * 槽位状态：已被借出，正在使用
+     */
+    public static final int STATE_IN_USE = 1;
+
+    /**
+     * 槽位状态：被连接池预占（归还处理中、强制回收中），任何使用者都不能借出
+     */
+    public static final int STATE_RESERVED = -2;
+
+    /**
+     * 槽位状态：已从连接池中移除
+     */
+    public static final int STATE_REMOVED = -1;
+
+    /**
+     * 槽位状态的原子更新器，CONCURRENT 引擎通过 CAS 完成借出、归还等状态迁移
+     */
+    private static final AtomicIntegerFieldUpdater<PooledConnection> STATE_UPDATER = AtomicIntegerFieldUpdater.newUpdater(PooledConnection.class, "state");
+
+    /**
+     * 全局名额释放标记的原子更新器，保证每个物理连接只释放一次名额
+     */
+    private static final AtomicIntegerFieldUpdater<PooledConnection> RELEASED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(PooledConnection.class, "released");
+
+    /**
+     * 泄漏标记的原子更新器，保证每次租约只被报告一次，租约结束时只撤销一次
+     */
+    private static final AtomicIntegerFieldUpdater<PooledConnection> LEAK_SUSPECTED_UPDATER = AtomicIntegerFieldUpdater.newUpdater(PooledConnection.class, "leakSuspected");
+
+    /**
+     * 当前租约句柄的原子更新器，结束租约的一方通过 CAS 把它清空
+     */
+    private static final AtomicReferenceFieldUpdater<PooledConnection, LeaseHandle> LEASE_UPDATER = AtomicReferenceFieldUpdater.newUpdater(PooledConnection.class, LeaseHandle.class, "lease");
+
     /**
      * 保存真实数据库连接的 hashCode，用于标识和比较连接对象
      */
@@ -42,14 +105,30 @@ public class PooledConnection implements InvocationHandler {
     private Connection realConnection;
 
     /**
-     * 代理的数据库连接对象，外部实际拿到的是这个代理对象
+     * 是否使用 JDK 动态代理句柄
+     */
+    private final boolean reflective;
+
+    /**
+     * 当前租约的句柄，没有租约（空闲、租约刚结束或刚借出还没开始租约）时为 null
+     */
+    private volatile LeaseHandle lease;
+
+    /**
+     * 预编译语句缓存，poolPreparedStatementCacheSize 为 0 时为 null
+     */
+    private final StatementCache statementCache;
+
+    /**
+     * 租约代数，每次租约结束时递增，泄漏检测用它确认读取到的信息属于同一次租约
      */
-    private Connection proxyConnection;
+    private volatile int generation;
 
     /**
-     * 记录该连接被借出（checkout）的时间戳（毫秒）
+     * 记录该连接被借出（checkout）的时间戳（毫秒）。
+     * CONCURRENT 引擎中槽位先通过 CAS 变为 STATE_IN_USE、随后才写入时间戳，0 表示本次租约还没有开始计时，不能被当作超时连接回收
      */
-    private long checkoutTimestamp;
+    private volatile long checkoutTimestamp;
 
     /**
      * 记录该连接创建的时间戳（毫秒）
@@ -61,6 +140,11 @@ public class PooledConnection implements InvocationHandler {
      */
     private long lastUsedTimestamp;
 
+    /**
+     * 记录该连接上次通过有效性检测（如 keepalive ping）的时间戳（毫秒）
+     */
+    private long lastValidatedTimestamp;
+
     /**
      * 连接类型的标识码（通常由 url、用户名、密码等信息生成）
      */
@@ -71,55 +155,309 @@ public class PooledConnection implements InvocationHandler {
      */
     private boolean valid;
 
+    /**
+     * 槽位状态，取值为 STATE_IDLE、STATE_IN_USE、STATE_RESERVED、STATE_REMOVED
+     */
+    private volatile int state = STATE_IDLE;
+
+    /**
+     * 所在 ConcurrentBag 的空闲槽位计数，状态进出 STATE_IDLE 时更新；不在 ConcurrentBag 中时为 null
+     */
+    private volatile AtomicInteger idleCount;
+
+    /**
+     * 是否已经释放了所占的全局名额，0 表示未释放
+     */
+    private volatile int released;
+
+    /**
+     * 本次租约借出时采样到的调用栈，开启泄漏检测且被采样到时才有值，租约结束时清空
+     */
+    private volatile Throwable checkoutTrace;
+
+    /**
+     * 本次租约是否已被报告为疑似泄漏，0 表示未报告
+     */
+    private volatile int leakSuspected;
+
     public PooledConnection(Connection connection, PooledDataSource dataSource) {
         this.hashCode = connection.hashCode();
         this.realConnection = connection;
         this.dataSource = dataSource;
         this.createdTimestamp = System.currentTimeMillis();
         this.lastUsedTimestamp = System.currentTimeMillis();
+        this.lastValidatedTimestamp = this.lastUsedTimestamp;
         this.valid = true;
-        this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
+        int cacheSize = dataSource.getPoolPreparedStatementCacheSize();
+        this.statementCache = cacheSize > 0 ? new StatementCache(connection, cacheSize, dataSource.getPoolState()) : null;
+        this.reflective = dataSource.isPoolUseReflectiveProxy();
     }
 
+    /**
+     * 反射代理句柄，外部拿到的 Connection 是它创建的 JDK 动态代理对象，每次调用都经过 Method.invoke
+     */
+    static class ProxyHandle extends LeaseHandle implements InvocationHandler {
 
-    @Override
-    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        // 获取当前被调用方法的名称
-        String methodName = method.getName();
-        // TODO:如果是调用 CLOSE 关闭链接方法，则将链接加入连接池中，并返回null
-        if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
-            dataSource.pushConnection(this);
-            return null;
-        } else {
-            // TODO:如果调用的方法不是 Object 类自带的方法（如 toString、hashCode 等），在方法调用之前要检查connection是否还是合法的,不合法要抛出SQLException
-            if (!Object.class.equals(method.getDeclaringClass())) {
-                checkConnection();
+        /**
+         * 代理的数据库连接对象，外部实际拿到的是这个代理对象
+         */
+        private final Connection proxyConnection;
+
+        ProxyHandle(PooledConnection pooledConnection) {
+            super(pooledConnection);
+            this.proxyConnection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), IFACES, this);
+        }
+
+        @Override
+        Connection getConnection() {
+            return proxyConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            // 获取当前被调用方法的名称
+            String methodName = method.getName();
+            // close 结束本句柄的租约，把连接还给连接池
+            if (CLOSE.hashCode() == methodName.hashCode() && CLOSE.equals(methodName)) {
+                pooledConnection.closeLease(this);
+                return null;
+            } else if (statementCache != null && PREPARE_STATEMENT.equals(methodName) && isCacheable(args)) {
+                check(methodName);
+                return prepareCachedStatement(args);
+            } else {
+                // Object 自带的方法（toString、hashCode 等）不访问数据库，其余方法要求句柄仍属于当前租约
+                if (!Object.class.equals(method.getDeclaringClass())) {
+                    check(methodName);
+                }
+                try {
+                    // 通过反射调用真实数据库连接的对应方法，并传递参数
+                    return method.invoke(realConnection, args);
+                } catch (InvocationTargetException e) {
+                    // 抛出驱动的原始异常，否则代理会把它包装成 UndeclaredThrowableException
+                    throw e.getTargetException();
+                }
             }
-            // 通过反射调用真实数据库连接的对应方法，并传递参数
-            return method.invoke(realConnection, args);
+        }
+
+        /**
+         * 检查句柄是否仍属于当前租约；setClientInfo 没有声明 SQLException，转换为 SQLClientInfoException
+         */
+        private void check(String methodName) throws SQLException {
+            try {
+                pooledConnection.checkConnection(this);
+            } catch (SQLException e) {
+                if (SET_CLIENT_INFO.equals(methodName)) {
+                    throw new SQLClientInfoException(e.getMessage(), null, e);
+                }
+                throw e;
+            }
+        }
+
+        /**
+         * 只缓存 (sql)、(sql, type, concurrency)、(sql, type, concurrency, holdability) 三个重载，
+         * 两个参数的重载都与自增主键有关，直接交给真实连接
+         */
+        private boolean isCacheable(Object[] args) {
+            return args.length != 2;
+        }
+
+        private Object prepareCachedStatement(Object[] args) throws SQLException {
+            String sql = (String) args[0];
+            if (args.length == 1) {
+                return statementCache.prepareStatement(proxyConnection, sql, StatementCache.UNSPECIFIED, StatementCache.UNSPECIFIED, StatementCache.UNSPECIFIED);
+            } else if (args.length == 3) {
+                return statementCache.prepareStatement(proxyConnection, sql, (Integer) args[1], (Integer) args[2], StatementCache.UNSPECIFIED);
+            }
+            return statementCache.prepareStatement(proxyConnection, sql, (Integer) args[1], (Integer) args[2], (Integer) args[3]);
         }
     }
 
-    private void checkConnection() throws SQLException {
-        if (!valid) {
+    /**
+     * 开始一次租约：槽位已处于 STATE_IN_USE，为本次租约创建新的句柄并返回给使用者
+     *
+     * @return 本次租约的连接句柄
+     */
+    public Connection beginLease() {
+        LeaseHandle handle = reflective ? new ProxyHandle(this) : new DelegatingConnection(this);
+        lease = handle;
+        return handle.getConnection();
+    }
+
+    /**
+     * 预占指定句柄的租约：先把 lease 从该句柄 CAS 为 null，再把槽位从 STATE_IN_USE 迁移到 STATE_RESERVED。
+     * 同一次租约只有一个调用者能成功；句柄的租约已经结束时 CAS 失败，不会误占后来的租约
+     *
+     * @param handle 要结束的租约句柄，为 null 时（租约尚未开始）直接返回 false
+     * @return 预占成功返回 true，调用方随后负责 endLease
+     */
+    boolean reserveLease(LeaseHandle handle) {
+        return handle != null && LEASE_UPDATER.compareAndSet(this, handle, null) && compareAndSetState(STATE_IN_USE, STATE_RESERVED);
+    }
+
+    /**
+     * 当前租约的句柄，强制回收时先读取它，再通过 reserveLease 结束这次租约
+     */
+    LeaseHandle getLease() {
+        return lease;
+    }
+
+    /**
+     * 结束当前租约：槽位必须已经通过 reserveLease 迁移到 STATE_RESERVED，旧句柄此时已经失效
+     */
+    public void endLease() {
+        generation++;
+        checkoutTrace = null;
+        // 已报告为疑似泄漏的租约终于结束（归还或被强制回收），从疑似泄漏数中扣除
+        if (LEAK_SUSPECTED_UPDATER.getAndSet(this, 0) == 1) {
+            dataSource.leakedLeaseEnded(this);
+        }
+        // 收回上一个使用者没有 close 的缓存语句
+        if (statementCache != null) {
+            statementCache.releaseAll();
+        }
+    }
+
+    /**
+     * 句柄 close 时调用：只有当前租约的句柄才能把连接还回连接池，重复 close 和过期句柄的 close 被忽略
+     *
+     * @param handle 调用 close 的句柄
+     */
+    void closeLease(LeaseHandle handle) throws SQLException {
+        if (!reserveLease(handle)) {
+            return;
+        }
+        endLease();
+        dataSource.pushConnection(this);
+    }
+
+    /**
+     * 泄漏检测时调用：把指定代数的租约标记为疑似泄漏
+     *
+     * @param leaseGeneration 检测开始时读取到的租约代数
+     * @return 标记成功返回 true；已经报告过，或者租约在此期间已经结束时返回 false
+     */
+    boolean markLeakSuspected(int leaseGeneration) {
+        if (!LEAK_SUSPECTED_UPDATER.compareAndSet(this, 0, 1)) {
+            return false;
+        }
+        dataSource.getPoolState().suspectedLeakCount.increment();
+        // 标记之前租约已经结束（endLease 先递增代数再清除标记），撤销本次标记
+        if (leaseGeneration != generation || state != STATE_IN_USE) {
+            if (LEAK_SUSPECTED_UPDATER.compareAndSet(this, 1, 0)) {
+                dataSource.getPoolState().suspectedLeakCount.decrement();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    void checkConnection(LeaseHandle handle) throws SQLException {
+        // 连接已失效、当前并未处于借出状态，或者句柄属于已经结束的租约（例如 close 之后继续使用），都视为非法访问
+        if (!valid || state != STATE_IN_USE || lease != handle) {
             throw new SQLException("Error accessing PooledConnection. Connection is invalid.");
         }
     }
 
     public void invalidate() {
         valid = false;
+        // 失效的物理连接不再占用全局名额，多个回收路径重复调用时只释放一次
+        if (RELEASED_UPDATER.compareAndSet(this, 0, 1)) {
+            dataSource.releasePhysicalConnection();
+        }
+        // 物理连接即将关闭，缓存的语句随之失效
+        if (statementCache != null) {
+            statementCache.clear();
+        }
     }
 
+    /**
+     * 借出时使用：按数据源的校验策略检测连接，最近刚使用或检测过的连接跳过检测
+     */
     public boolean isValid() {
-        return valid && realConnection != null && dataSource.pingConnection(this);
+        return isUsable() && dataSource.validateConnection(this);
+    }
+
+    /**
+     * 只检查连接是否已被标记为失效，不访问数据库，归还连接时使用
+     */
+    public boolean isUsable() {
+        return valid && realConnection != null;
+    }
+
+    public StatementCache getStatementCache() {
+        return statementCache;
+    }
+
+    public int getState() {
+        return state;
+    }
+
+    public void setState(int state) {
+        AtomicInteger counter = idleCount;
+        if (counter == null) {
+            this.state = state;
+        } else {
+            countIdleTransition(counter, STATE_UPDATER.getAndSet(this, state), state);
+        }
+    }
+
+    public boolean compareAndSetState(int expect, int update) {
+        if (!STATE_UPDATER.compareAndSet(this, expect, update)) {
+            return false;
+        }
+        AtomicInteger counter = idleCount;
+        if (counter != null) {
+            countIdleTransition(counter, expect, update);
+        }
+        return true;
+    }
+
+    private static void countIdleTransition(AtomicInteger counter, int from, int to) {
+        if (from == to) {
+            return;
+        }
+        if (to == STATE_IDLE) {
+            counter.incrementAndGet();
+        } else if (from == STATE_IDLE) {
+            counter.decrementAndGet();
+        }
+    }
+
+    /**
+     * 加入 ConcurrentBag 时接入空闲计数，调用方保证此时没有其他线程修改状态
+     */
+    void attachIdleCount(AtomicInteger counter) {
+        idleCount = counter;
+        if (state == STATE_IDLE) {
+            counter.incrementAndGet();
+        }
+    }
+
+    /**
+     * 从 ConcurrentBag 中移除时断开空闲计数，移除时仍是空闲状态的槽位从计数中扣除
+     */
+    void detachIdleCount() {
+        AtomicInteger counter = idleCount;
+        idleCount = null;
+        if (counter != null && state == STATE_IDLE) {
+            counter.decrementAndGet();
+        }
     }
 
     public Connection getRealConnection() {
         return realConnection;
     }
 
+    /**
+     * 获取当前租约对应的连接句柄，没有租约时返回 null
+     */
     public Connection getProxyConnection() {
-        return proxyConnection;
+        LeaseHandle handle = lease;
+        return handle == null ? null : handle.getConnection();
+    }
+
+    public int getGeneration() {
+        return generation;
     }
 
     public int getRealHashCode() {
@@ -150,6 +488,14 @@ public class PooledConnection implements InvocationHandler {
         this.lastUsedTimestamp = lastUsedTimestamp;
     }
 
+    public long getLastValidatedTimestamp() {
+        return lastValidatedTimestamp;
+    }
+
+    public void setLastValidatedTimestamp(long lastValidatedTimestamp) {
+        this.lastValidatedTimestamp = lastValidatedTimestamp;
+    }
+
     public long getTimeElapsedSinceLastUse() {
         return System.currentTimeMillis() - lastUsedTimestamp;
     }
@@ -170,6 +516,14 @@ public class PooledConnection implements InvocationHandler {
         return System.currentTimeMillis() - checkoutTimestamp;
     }
 
+    public Throwable getCheckoutTrace() {
+        return checkoutTrace;
+    }
+
+    public void setCheckoutTrace(Throwable checkoutTrace) {
+        this.checkoutTrace = checkoutTrace;
+    }
+
     @Override
     public int hashCode() {
         return hashCode;
@@ -178,7 +532,8 @@ public class PooledConnection implements InvocationHandler {
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof PooledConnection) {
-            return realConnection.hashCode() == (((PooledConnection) obj).realConnection.hashCode());
+            // 使用构造时缓存的 hashCode，避免每次比较（如 activeConnections.remove）都调用真实连接的 hashCode
+            return hashCode == ((PooledConnection) obj).hashCode;
         } else if (obj instanceof Connection) {
             return hashCode == obj.hashCode();
         } else {
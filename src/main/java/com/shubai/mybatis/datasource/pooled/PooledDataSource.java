@@ -3,11 +3,30 @@ package com.shubai.mybatis.datasource.pooled;
 import com.shubai.mybatis.datasource.unpooled.UnpooledDataSource;
 import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import java.util.logging.Logger;
 
 /**
@@ -20,6 +39,16 @@ import java.util.logging.Logger;
  */
 public class PooledDataSource implements DataSource {
 
+    /**
+     * 全局连接名额已满时，等待线程最长隔多久（毫秒）醒来一次，重新尝试回收其他分区的空闲连接
+     */
+    private static final long GLOBAL_CAP_RETRY_MILLIS = 50;
+
+    /**
+     * 未设置 poolName 时用于生成默认名称的序号
+     */
+    private static final AtomicInteger POOL_SEQUENCE = new AtomicInteger();
+
     /**
      * 日志模块
      */
@@ -36,20 +65,59 @@ public class PooledDataSource implements DataSource {
     private final UnpooledDataSource dataSource;
 
     /**
-     * 连接池中允许的最大活动（正在使用的）连接数，超过这个数后新的请求会被阻塞等待
+     * 连接池中允许的最大活动（正在使用的）连接数，超过这个数后新的请求会被阻塞等待。
+     * 开启 poolAdaptiveSizing 后由自适应控制器在运行期间调整
+     */
+    protected volatile int poolMaximumActiveConnections = 10;
+
+    /**
+     * 连接池中允许的最大空闲（未被使用的）连接数，超过这个数时多余的空闲连接会被关闭；实际生效的值不超过 poolMaximumActiveConnections
+     */
+    protected volatile int poolMaximumIdleConnections = 5;
+
+    /**
+     * 是否开启自适应连接池大小：维护线程每次执行时根据等待和利用率调整 poolMaximumActiveConnections（需要 poolHousekeepingPeriod 大于 0），
+     * 只作用于默认账号的连接池，分区保持固定大小
+     */
+    protected boolean poolAdaptiveSizing = false;
+
+    /**
+     * 自适应调整的下限，小于等于 0 表示使用 poolMinimumIdle（至少 1）
+     */
+    protected int poolAdaptiveMinimumActiveConnections = 0;
+
+    /**
+     * 自适应调整的上限，小于等于 0 表示使用开启自适应时的 poolMaximumActiveConnections
+     */
+    protected int poolAdaptiveMaximumActiveConnections = 0;
+
+    /**
+     * 一个窗口内请求的平均等待时间（毫秒）达到该值时扩容
      */
-    protected int poolMaximumActiveConnections = 10;
+    protected int poolAdaptiveWaitThreshold = 5;
 
     /**
-     * 连接池中允许的最大空闲（未被使用的）连接数，超过这个数时多余的空闲连接会被关闭
+     * 自适应控制器，poolAdaptiveSizing 关闭时为 null
      */
-    protected int poolMaximumIdleConnections = 5;
+    private volatile AdaptivePoolSizer adaptiveSizer;
 
     /**
      * 单个连接被占用的最长时间（毫秒），超过这个时间会被强制回收
      */
     protected int poolMaximumCheckoutTime = 20000;
 
+    /**
+     * 泄漏检测阈值（毫秒）：连接借出超过这么久仍未归还就报告为疑似泄漏，0 表示不检测（默认）。
+     * 检测由后台维护线程执行（需要 poolHousekeepingPeriod 大于 0），也可以直接调用 detectLeaks
+     */
+    protected int poolLeakDetectionThreshold = 0;
+
+    /**
+     * 开启泄漏检测时，每隔多少次借出采样一次借出者的调用栈，1 表示每次借出都采样。
+     * 创建调用栈的开销远大于借出本身，因此默认只采样十分之一，未采样到的泄漏报告中没有调用栈
+     */
+    protected int poolLeakDetectionSampleRate = 10;
+
     /**
      * 没有可用连接时，获取连接的最大等待时间（毫秒），超时后会抛出异常
      */
@@ -70,54 +138,261 @@ public class PooledDataSource implements DataSource {
      */
     protected int poolPingConnectionsNotUsedFor = 0;
 
+    /**
+     * 借出连接时的有效性检测方式
+     */
+    protected ValidationStrategy poolValidationStrategy = ValidationStrategy.AUTO;
+
+    /**
+     * Connection.isValid 检测的超时时间（毫秒），按秒向上取整后传给驱动，小于等于 0 表示不限时
+     */
+    protected int poolValidationTimeout = 5000;
+
+    /**
+     * 校验窗口（毫秒）：连接在这段时间内刚被使用或检测过，借出时直接跳过检测，小于等于 0 表示每次借出都检测
+     */
+    protected int poolValidationWindow = 500;
+
+    /**
+     * AUTO 策略下驱动是否支持 Connection.isValid，首次调用失败后退回 ping 方式
+     */
+    private volatile boolean jdbc4ValidationSupported = true;
+
     /**
      * 用于标识当前连接类型的哈希码（根据url、用户名、密码生成），用于区分不同配置的连接
      */
     private int expectedConnectionTypeCode;
 
+    /**
+     * 是否使用 JDK 动态代理作为连接句柄（每次调用走 Method.invoke），默认使用直接委托的 DelegatingConnection
+     */
+    protected boolean poolUseReflectiveProxy = false;
+
+    /**
+     * 每个物理连接缓存的 PreparedStatement 数量上限，0 表示不缓存（默认）
+     */
+    protected int poolPreparedStatementCacheSize = 0;
+
+    /**
+     * 连接池引擎类型，默认使用经典的单锁实现
+     */
+    protected PoolType poolType = PoolType.SYNCHRONIZED;
+
+    /**
+     * 连接池耗尽时是否按先到先得的顺序把归还的连接直接交给等待最久的线程，
+     * 开启后每次请求最多等待 poolTimeToWait 毫秒（整体截止时间），超时抛出 SQLException
+     */
+    protected boolean poolFairWait = false;
+
+    /**
+     * 后台维护线程的执行间隔（毫秒），小于等于 0 表示不启用
+     */
+    protected int poolHousekeepingPeriod = 0;
+
+    /**
+     * 空闲连接的最长空闲时间（毫秒），超过后由维护线程关闭（保留 poolMinimumIdle 个），0 表示不限制
+     */
+    protected int poolIdleTimeout = 600000;
+
+    /**
+     * 连接的最大存活时间（毫秒），到期的空闲连接由维护线程关闭，借出中的连接在归还时关闭，0 表示不限制
+     */
+    protected int poolMaxLifetime = 1800000;
+
+    /**
+     * 空闲连接超过该时间（毫秒）没有被使用或检测过，维护线程就执行一次 poolPingQuery（需开启 poolPingEnabled），0 表示不启用
+     */
+    protected int poolKeepaliveTime = 0;
+
+    /**
+     * 维护线程保持的最少空闲连接数
+     */
+    protected int poolMinimumIdle = 0;
+
+    /**
+     * 构建环境时是否异步预热连接池（创建 poolMinimumIdle 个空闲连接）
+     */
+    protected boolean poolWarmUp = false;
+
+    /**
+     * 预热时并行建连的最大线程数
+     */
+    protected int poolWarmUpThreads = 4;
+
+    /**
+     * 同时建立物理连接的最大线程数，避免数据库被突发的建连请求压垮
+     */
+    protected int poolMaximumConcurrentCreations = 4;
+
+    /**
+     * 建连许可，数量为 poolMaximumConcurrentCreations
+     */
+    private volatile Semaphore creationPermits = new Semaphore(poolMaximumConcurrentCreations, true);
+
+    /**
+     * 后台维护线程，poolHousekeepingPeriod 大于 0 时启动
+     */
+    private ScheduledExecutorService housekeeper;
+
+    /**
+     * CONCURRENT 引擎使用的无锁连接容器，切换 poolFairWait 时重建
+     */
+    private ConcurrentBag bag = new ConcurrentBag(false);
+
+    /**
+     * CONCURRENT 引擎下已创建（含正在创建）的物理连接总数，通过 CAS 预占名额控制扩容上限
+     */
+    private final AtomicInteger totalConnections = new AtomicInteger();
+
+    /**
+     * 所有分区物理连接总数的上限，小于等于 0 表示与 poolMaximumActiveConnections 相同
+     */
+    protected int poolMaximumTotalConnections = 0;
+
+    /**
+     * 每个非默认账号分区的最大活动连接数，小于等于 0 表示与 poolMaximumActiveConnections 相同
+     */
+    protected int poolPartitionMaximumActiveConnections = 0;
+
+    /**
+     * 每个非默认账号分区的最大空闲连接数，小于等于 0 表示与 poolMaximumIdleConnections 相同
+     */
+    protected int poolPartitionMaximumIdleConnections = 0;
+
+    /**
+     * 连接池名称，用于日志和 JMX ObjectName，默认为 PooledDataSource-序号
+     */
+    protected String poolName;
+
+    /**
+     * 是否把连接池的统计信息注册为 JMX MXBean（PooledDataSourceMXBean），默认不注册
+     */
+    protected boolean poolRegisterMbeans = false;
+
+    /**
+     * 已注册的 MXBean 名称，未注册时为 null
+     */
+    private ObjectName registeredMbeanName;
+
+    /**
+     * 根数据源，默认账号的连接池就是根数据源本身；分区的全局名额、建连许可都来自根数据源
+     */
+    private final PooledDataSource root;
+
+    /**
+     * getConnection(username, password) 使用非默认账号时按账号创建的分区，只有根数据源持有，分区中为 null
+     */
+    private final ConcurrentHashMap<PartitionKey, PooledDataSource> partitions;
+
+    /**
+     * 所有分区（含根数据源）已创建（含正在创建）的物理连接总数，由根数据源和各分区共享
+     */
+    private final AtomicInteger physicalConnections;
+
     public PooledDataSource() {
         this.dataSource = new UnpooledDataSource();
+        this.root = this;
+        this.partitions = new ConcurrentHashMap<>();
+        this.physicalConnections = new AtomicInteger();
+        this.poolName = "PooledDataSource-" + POOL_SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * 创建非默认账号的分区，连接池参数在 newPartition 中从根数据源复制
+     */
+    private PooledDataSource(PooledDataSource root) {
+        this.dataSource = new UnpooledDataSource();
+        this.root = root;
+        this.partitions = null;
+        this.physicalConnections = root.physicalConnections;
+    }
+
+    /**
+     * 分区的 key，按账号和密码区分，不使用可能冲突的连接类型码
+     */
+    private static final class PartitionKey {
+
+        private final String username;
+
+        private final String password;
+
+        PartitionKey(String username, String password) {
+            this.username = username;
+            this.password = password;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(username, password);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PartitionKey)) {
+                return false;
+            }
+            PartitionKey other = (PartitionKey) obj;
+            return Objects.equals(username, other.username) && Objects.equals(password, other.password);
+        }
     }
 
     /**
      * 将连接归还到连接池的方法。
      * 如果连接有效且池中空闲连接未满，则放回空闲池，否则关闭连接。
+     * 调用前连接的租约已经结束，槽位状态为 STATE_RESERVED。
      *
      * @param connection 要归还的连接
      * @throws SQLException 如果归还过程中发生数据库错误，抛出异常
      */
     protected void pushConnection(PooledConnection connection) throws SQLException {
+        if (poolType == PoolType.CONCURRENT) {
+            pushConnectionConcurrently(connection);
+            return;
+        }
         // 保证线程安全，防止多线程同时操作连接池状态
-        synchronized (state){
-            // 从活跃连接列表中移除该连接（表示不再被使用）
-            state.activeConnections.remove(connection);
+        state.lock.lock();
+        try {
+            // 公平等待模式下有线程在排队时，连接不进入空闲池，直接交给等待最久的线程
+            boolean handOff = poolFairWait && !state.waiters.isEmpty() && connection.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(connection);
+            // 从活跃连接列表中移除该连接（表示不再被使用）；交接中的连接仍计入活跃连接，防止其他线程趁机新建连接超过上限
+            if (!handOff) {
+                state.activeConnections.remove(connection);
+            }
             // 检查连接是否有效
-            if (connection.isValid()){
+            // 归还时只看失效标记，不访问数据库，真正的检测留到下次借出
+            if (connection.isUsable()){
+                if (handOff) {
+                    state.recordCheckoutTime(connection.getCheckoutTime());
+                    if (!connection.getRealConnection().getAutoCommit()) {
+                        connection.getRealConnection().rollback();
+                    }
+                    handOffLocked(connection);
+                    return;
+                }
                 // 如果空闲连接池未满，且连接类型匹配（防止不同配置的连接混用）
-                if(state.idleConnections.size() < poolMaximumIdleConnections && connection.getConnectionTypeCode() == expectedConnectionTypeCode){
+                if(state.idleConnections.size() < idleLimit() && connection.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(connection)){
                     // 累加该连接的使用时长
-                    state.accumulatedCheckoutTime += connection.getCheckoutTime();
+                    state.recordCheckoutTime(connection.getCheckoutTime());
                     // 如果连接不是自动提交，回滚未提交的事务，保证连接干净
                     if (!connection.getRealConnection().getAutoCommit()) {
                         connection.getRealConnection().rollback();
                     }
-                    // 用真实连接新建一个PooledConnection对象（避免代理对象复用带来问题）
-                    PooledConnection newConnection = new PooledConnection(connection.getRealConnection(), this);
-                    // 放入空闲连接池
-                    state.idleConnections.add(newConnection);
-                    // 继承原连接的创建和最后使用时间
-                    newConnection.setCreatedTimestamp(connection.getCreatedTimestamp());
-                    newConnection.setLastUsedTimestamp(connection.getLastUsedTimestamp());
-                    // 使原连接失效（防止被再次使用）
-                    connection.invalidate();
+                    // 租约已结束，旧句柄通过代数比对失效，PooledConnection 本身直接放回空闲连接池复用
+                    connection.setState(PooledConnection.STATE_IDLE);
+                    state.idleConnections.add(connection);
                     // 记录日志
-                    logger.info("Returned connection " + newConnection.getRealHashCode() + " to pool.");
-                    // 通知等待连接的线程有新连接可用
-                    state.notifyAll();
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Returned connection " + connection.getRealHashCode() + " to pool.");
+                    }
+                    // 只归还了一个连接，唤醒一个等待的线程即可，避免所有等待者同时醒来争抢
+                    state.connectionAvailable.signal();
                 }else {
-                    // 空闲池已满或连接类型不匹配，直接关闭连接
+                    // 空闲池已满、连接类型不匹配或已超过最大存活时间，直接关闭连接
+                    if (isExpired(connection)) {
+                        state.retiredConnectionCount.increment();
+                    }
                     // 累加该连接的使用时长
-                    state.accumulatedCheckoutTime += connection.getCheckoutTime();
+                    state.recordCheckoutTime(connection.getCheckoutTime());
                     // 回滚未提交的事务
                     if (!connection.getRealConnection().getAutoCommit()) {
                         connection.getRealConnection().rollback();
@@ -128,142 +403,1236 @@ public class PooledDataSource implements DataSource {
                     logger.info("Closed connection " + connection.getRealHashCode() + ".");
                     // 使连接失效
                     connection.invalidate();
+                    connection.setState(PooledConnection.STATE_REMOVED);
+                    // 活跃连接名额空出，等待者可以新建连接
+                    signalSlotFreedLocked();
+                }
+            }else{
+                if (handOff) {
+                    state.activeConnections.remove(connection);
+                }
+                // 连接无效，丢弃并计数
+                logger.info("A bad connection (" + connection.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+                state.badConnectionCount.increment();
+                connection.setState(PooledConnection.STATE_REMOVED);
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * 获取一个可用的数据库连接（PooledConnection），如果没有可用连接则等待或创建新连接
+     *
+     * @param connectionTypeCode 请求的连接类型码（根据url、用户名、密码生成）
+     * @return 一个有效的PooledConnection对象
+     * @throws SQLException 如果无法获取连接，抛出异常
+     */
+    private PooledConnection popConnection(int connectionTypeCode) throws SQLException {
+        if (poolType == PoolType.CONCURRENT) {
+            return popConnectionConcurrently(connectionTypeCode);
+        }
+        // 标记本次等待是否已计数
+        boolean countedWait = false;
+        // 最终要返回的连接
+        PooledConnection conn = null;
+        // 记录开始获取连接的时间（纳秒）
+        long t = System.nanoTime();
+        // 公平等待模式下本次请求的整体截止时间，以及开始等待的时间
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(poolTimeToWait);
+        long waitStart = 0;
+        // 公平等待模式下本线程在队列中的登记
+        PoolState.Waiter waiter = null;
+        // 在锁外新建好的连接，下一轮在锁内完成借出
+        PooledConnection created = null;
+        // 本地坏连接计数
+        int localBadConnectionCount = 0;
+        // 全局名额已满时，上一轮是否已经尝试过回收其他分区的空闲连接
+        boolean evictionAttempted = false;
+        // 循环直到获取到可用连接
+        while (conn == null) {
+            // 公平等待模式下需要在锁外挂起的时长
+            long parkNanos = 0;
+            // 本轮是否预占了新建连接的名额
+            boolean reserved = false;
+            // 本轮是否需要在锁外回收其他分区的空闲连接
+            boolean evictOtherPartition = false;
+            // 保证线程安全，锁住连接池状态
+            state.lock.lock();
+            try {
+                if (created != null) {
+                    // 新建的连接占用之前预占的名额
+                    conn = created;
+                    created = null;
+                    state.pendingConnections--;
+                } else if (waiter != null && waiter.connection != null) {
+                    // 排队期间已有连接交接过来
+                    conn = waiter.connection;
+                    waiter = null;
+                    // 交接期间连接一直留在活跃列表中，移除后在下面重新加入队尾
+                    state.activeConnections.remove(conn);
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Received connection " + conn.getRealHashCode() + " from a returning thread.");
+                    }
+                } else if (!state.idleConnections.isEmpty()) {
+                    // 如果有空闲连接，从空闲连接池取出第一个连接
+                    conn = state.idleConnections.remove(0);
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+                    }
+                } else {
+                    // 没有空闲连接
+                    // 本分区还有名额，但所有分区的物理连接总数可能已达上限
+                    boolean hasLocalSlot = state.activeConnections.size() + state.pendingConnections < poolMaximumActiveConnections;
+                    // 活跃连接数（含正在建立的连接）未达上限，可以创建新连接：在锁内预占名额，在锁外建连
+                    if (hasLocalSlot && reservePhysicalConnection()) {
+                        state.pendingConnections++;
+                        reserved = true;
+                        // 自己去建连，不再需要排队等待交接
+                        if (waiter != null) {
+                            state.waiters.remove(waiter);
+                            waiter = null;
+                        }
+                    } else {
+                        // 活跃连接数已达上限，不能新建连接
+                        // 获取最早被借出的连接，名额可能全部被正在建立的连接占用，此时没有可回收的连接
+                        PooledConnection oldestActiveConnection = state.activeConnections.isEmpty() ? null : state.activeConnections.get(0);
+                        // 计算该连接已被占用的时长
+                        long longestCheckoutTime = oldestActiveConnection == null ? 0 : oldestActiveConnection.getCheckoutTime();
+                        // 如果该连接被占用超时，可以强制回收；预占失败说明原使用者正在归还或租约还没开始，等待即可
+                        if (oldestActiveConnection != null && longestCheckoutTime > poolMaximumCheckoutTime
+                                && oldestActiveConnection.reserveLease(oldestActiveConnection.getLease())) {
+                            // 结束原使用者的租约，其手里的句柄随之失效；借出时的调用栈随租约一起清空，先取出用于报告
+                            Throwable checkoutTrace = oldestActiveConnection.getCheckoutTrace();
+                            oldestActiveConnection.endLease();
+                            // 超时回收次数+1
+                            state.claimedOverdueConnectionCount.increment();
+                            // 累加超时连接的占用时长
+                            state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+                            // 累加总占用时长
+                            state.recordCheckoutTime(longestCheckoutTime);
+                            // 从活跃连接池移除，未提交的事务在锁外借出前回滚
+                            state.activeConnections.remove(oldestActiveConnection);
+                            // 直接复用该 PooledConnection 开始新的租约
+                            conn = oldestActiveConnection;
+                            // 记录日志，采样到借出者的调用栈时一并输出
+                            logOverdueClaim(conn, longestCheckoutTime, checkoutTrace);
+                        } else {
+                            // 没有超时连接，只能等待
+                            if (!countedWait) {
+                                // 等待次数+1
+                                state.hadToWaitCount.increment();
+                                // 标记已计数
+                                countedWait = true;
+                                waitStart = System.nanoTime();
+                            }
+                            if (hasLocalSlot && !evictionAttempted) {
+                                // 只是全局名额已满：先到锁外关闭其他分区的一个空闲连接腾出名额，失败再等待
+                                evictionAttempted = true;
+                                evictOtherPartition = true;
+                            } else if (poolFairWait) {
+                                evictionAttempted = false;
+                                long remaining = deadline - System.nanoTime();
+                                if (remaining <= 0) {
+                                    // 整体截止时间已到，退出队列
+                                    if (waiter != null) {
+                                        state.waiters.remove(waiter);
+                                    }
+                                    state.recordWaitTime(System.nanoTime() - waitStart);
+                                    logger.debug("PooledDataSource: Timed out waiting for a connection.");
+                                    throw new SQLException("PooledDataSource: Timed out after " + poolTimeToWait + " milliseconds waiting for a connection.");
+                                }
+                                if (waiter == null) {
+                                    logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+                                    waiter = new PoolState.Waiter(Thread.currentThread());
+                                    state.waiters.addLast(waiter);
+                                }
+                                // 最早借出的连接超时后需要醒来尝试回收，因此挂起时长不超过它剩余的占用时间
+                                parkNanos = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(Math.max(1, poolMaximumCheckoutTime - longestCheckoutTime + 1)));
+                                if (hasLocalSlot) {
+                                    // 其他分区归还连接不会唤醒本分区的等待者，定期醒来重新尝试
+                                    parkNanos = Math.min(parkNanos, TimeUnit.MILLISECONDS.toNanos(GLOBAL_CAP_RETRY_MILLIS));
+                                }
+                            } else {
+                                evictionAttempted = false;
+                                try {
+                                    logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+                                    // 记录等待开始时间
+                                    long wt = System.currentTimeMillis();
+                                    // 等待指定时间；只是全局名额已满时，其他分区归还连接不会唤醒本分区，定期醒来重新尝试
+                                    state.connectionAvailable.await(hasLocalSlot ? Math.min(poolTimeToWait, GLOBAL_CAP_RETRY_MILLIS) : poolTimeToWait, TimeUnit.MILLISECONDS);
+                                    // 累加等待时长
+                                    state.accumulatedWaitTime.add(System.currentTimeMillis() - wt);
+                                } catch (InterruptedException e) {
+                                    // 被中断的线程可能刚好消耗了一次唤醒，转交给下一个等待者后跳出循环
+                                    state.connectionAvailable.signal();
+                                    break;
+                                }
+                            }
+                        }
+
+                    }
+                }
+                // 成功获得到连接
+                if (conn != null) {
+                    // 通过空闲池、新建或回收拿到了连接，不再需要排队
+                    if (waiter != null) {
+                        state.waiters.remove(waiter);
+                        waiter = null;
+                    }
+                    // 校验和回滚可能各是一次网络往返，先预占连接、在锁外完成，校验期间它占用一个活跃名额
+                    conn.setState(PooledConnection.STATE_RESERVED);
+                    state.pendingConnections++;
+                }
+            } finally {
+                state.lock.unlock();
+            }
+            // 在锁外校验连接并回滚未提交的事务，其他线程的借出和归还不会排在这次往返之后
+            if (conn != null) {
+                boolean valid = conn.isValid();
+                try {
+                    // 如果不是自动提交，回滚未提交事务，保证连接干净
+                    if (valid && !conn.getRealConnection().getAutoCommit()) {
+                        conn.getRealConnection().rollback();
+                    }
+                } catch (SQLException e) {
+                    abandonCheckout(conn);
+                    throw e;
+                }
+                if (!valid) {
+                    // 连接无效，尝试重新获取
+                    logger.info("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+                    // 坏连接计数+1
+                    state.badConnectionCount.increment();
+                    // 本地坏连接计数+1
+                    localBadConnectionCount++;
+                    abandonCheckout(conn);
+                    conn = null;
+                    // 如果坏连接次数超过容忍上限，抛出异常
+                    if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
+                        logger.debug("PooledDataSource: Could not get a good connection to the database.");
+                        throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+                    }
+                    continue;
+                }
+                // 重新加锁只为把连接交给本线程
+                state.lock.lock();
+                try {
+                    state.pendingConnections--;
+                    // 设置连接类型码（用于区分不同配置的连接）
+                    conn.setConnectionTypeCode(connectionTypeCode);
+                    // 设置借出时间和最后使用时间
+                    conn.setCheckoutTimestamp(System.currentTimeMillis());
+                    conn.setLastUsedTimestamp(System.currentTimeMillis());
+                    conn.setState(PooledConnection.STATE_IN_USE);
+                    // 加入活跃连接池
+                    state.activeConnections.add(conn);
+                    // 请求次数+1
+                    state.requestCount.increment();
+                    // 累加本次请求耗时并记入借出耗时分布
+                    state.recordAcquireTime(System.nanoTime() - t);
+                    if (countedWait) {
+                        state.recordWaitTime(System.nanoTime() - waitStart);
+                    }
+                } finally {
+                    state.lock.unlock();
+                }
+                continue;
+            }
+            // 在锁外建立物理连接，慢速建连不会阻塞其他线程的借出和归还
+            if (reserved) {
+                try {
+                    created = new PooledConnection(openConnection(), this);
+                } catch (SQLException e) {
+                    state.lock.lock();
+                    try {
+                        state.pendingConnections--;
+                        signalSlotFreedLocked();
+                    } finally {
+                        state.lock.unlock();
+                    }
+                    throw e;
+                }
+                logger.info("Created connection " + created.getRealHashCode() + ".");
+                continue;
+            }
+            // 在锁外回收其他分区的空闲连接，之后立即重新尝试预占名额
+            if (evictOtherPartition) {
+                root.evictIdleConnectionFor(this);
+                continue;
+            }
+            // 在锁外挂起，等待归还线程交接连接、截止时间到达或最早借出的连接超时
+            if (parkNanos > 0) {
+                long wt = System.currentTimeMillis();
+                LockSupport.parkNanos(state, parkNanos);
+                state.accumulatedWaitTime.add(System.currentTimeMillis() - wt);
+                if (Thread.currentThread().isInterrupted()) {
+                    state.lock.lock();
+                    try {
+                        // 被中断时如果连接还没交接过来，退出队列；否则下一轮照常借出
+                        if (waiter.connection == null) {
+                            state.waiters.remove(waiter);
+                            break;
+                        }
+                    } finally {
+                        state.lock.unlock();
+                    }
+                }
+            }
+        }
+        // 如果最终没有获取到连接，抛出严重异常
+        if (conn == null) {
+            logger.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+            throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+        }
+        // 返回可用连接
+        return conn;
+    }
+
+    /**
+     * CONCURRENT 引擎的归还逻辑：槽位已由句柄 CAS 预占，全程不获取 PoolState 的锁
+     *
+     * @param connection 要归还的连接
+     * @throws SQLException 如果归还过程中发生数据库错误，抛出异常
+     */
+    private void pushConnectionConcurrently(PooledConnection connection) throws SQLException {
+        if (!connection.isUsable()) {
+            logger.info("A bad connection (" + connection.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+            state.badConnectionCount.increment();
+            discardConnection(connection);
+            return;
+        }
+        state.recordCheckoutTime(connection.getCheckoutTime());
+        // 在槽位重新变为空闲之前清零，下一个借出者写入新的时间戳之前该槽位不会被当作超时连接
+        connection.setCheckoutTimestamp(0);
+        try {
+            if (connection.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(connection) && bag.getIdleCount() < idleLimit()) {
+                // 回滚未提交的事务，保证连接干净，然后把槽位重新置为空闲
+                if (!connection.getRealConnection().getAutoCommit()) {
+                    connection.getRealConnection().rollback();
+                }
+                bag.requite(connection);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Returned connection " + connection.getRealHashCode() + " to pool.");
+                }
+            } else {
+                // 空闲连接已足够、连接类型不匹配或已超过最大存活时间，直接关闭
+                if (isExpired(connection)) {
+                    state.retiredConnectionCount.increment();
+                }
+                discardConnection(connection);
+                logger.info("Closed connection " + connection.getRealHashCode() + ".");
+            }
+        } catch (SQLException e) {
+            discardConnection(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * CONCURRENT 引擎的借出逻辑：扫描空闲槽位 -> CAS 预占名额新建连接 -> 回收超时连接 -> 等待归还
+     *
+     * @param connectionTypeCode 请求的连接类型码（根据url、用户名、密码生成）
+     * @return 一个有效的PooledConnection对象
+     * @throws SQLException 如果无法获取连接，抛出异常
+     */
+    private PooledConnection popConnectionConcurrently(int connectionTypeCode) throws SQLException {
+        boolean countedWait = false;
+        long t = System.nanoTime();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(poolTimeToWait);
+        long waitStart = 0;
+        int localBadConnectionCount = 0;
+        boolean evictionAttempted = false;
+        while (true) {
+            // 公平等待模式下已有线程在排队时不插队，直接进入等待
+            PooledConnection conn = poolFairWait && bag.getWaitingThreadCount() > 0 ? null : bag.borrow();
+            if (conn != null) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+                }
+            } else {
+                conn = createConnectionConcurrently();
+            }
+            if (conn == null) {
+                conn = claimOverdueConnectionConcurrently();
+            }
+            if (conn == null) {
+                if (!countedWait) {
+                    state.hadToWaitCount.increment();
+                    countedWait = true;
+                    waitStart = System.nanoTime();
+                }
+                // 本分区还有名额、只是全局名额已满：先关闭其他分区的一个空闲连接腾出名额，失败再等待
+                boolean hasLocalSlot = totalConnections.get() < poolMaximumActiveConnections;
+                if (hasLocalSlot && !evictionAttempted) {
+                    evictionAttempted = true;
+                    root.evictIdleConnectionFor(this);
+                    continue;
+                }
+                evictionAttempted = false;
+                long timeout = TimeUnit.MILLISECONDS.toNanos(poolTimeToWait);
+                if (poolFairWait) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        state.recordWaitTime(System.nanoTime() - waitStart);
+                        logger.debug("PooledDataSource: Timed out waiting for a connection.");
+                        throw new SQLException("PooledDataSource: Timed out after " + poolTimeToWait + " milliseconds waiting for a connection.");
+                    }
+                    // 最早借出的连接超时后需要醒来尝试回收
+                    timeout = Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(millisUntilOverdueConcurrently()));
+                }
+                if (hasLocalSlot) {
+                    // 其他分区归还连接不会唤醒本分区的等待者，定期醒来重新尝试
+                    timeout = Math.min(timeout, TimeUnit.MILLISECONDS.toNanos(GLOBAL_CAP_RETRY_MILLIS));
+                }
+                logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
+                long wt = System.currentTimeMillis();
+                try {
+                    conn = bag.borrow(timeout, TimeUnit.NANOSECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                state.accumulatedWaitTime.add(System.currentTimeMillis() - wt);
+                if (conn == null) {
+                    continue;
+                }
+            }
+            try {
+                if (conn.isValid()) {
+                    if (!conn.getRealConnection().getAutoCommit()) {
+                        conn.getRealConnection().rollback();
+                    }
+                    conn.setConnectionTypeCode(connectionTypeCode);
+                    conn.setCheckoutTimestamp(System.currentTimeMillis());
+                    conn.setLastUsedTimestamp(System.currentTimeMillis());
+                    state.requestCount.increment();
+                    state.recordAcquireTime(System.nanoTime() - t);
+                    if (countedWait) {
+                        state.recordWaitTime(System.nanoTime() - waitStart);
+                    }
+                    return conn;
+                }
+            } catch (SQLException e) {
+                discardConnection(conn);
+                throw e;
+            }
+            logger.info("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
+            state.badConnectionCount.increment();
+            localBadConnectionCount++;
+            discardConnection(conn);
+            if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
+                logger.debug("PooledDataSource: Could not get a good connection to the database.");
+                throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
+            }
+        }
+        logger.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+        throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+    }
+
+    /**
+     * CONCURRENT 引擎下新建连接：先通过 CAS 预占一个名额，保证并发扩容时不超过最大活动连接数
+     *
+     * @return 新建的连接（状态为 STATE_IN_USE），本分区或全局名额已满时返回 null
+     */
+    private PooledConnection createConnectionConcurrently() throws SQLException {
+        int total;
+        do {
+            total = totalConnections.get();
+            if (total >= poolMaximumActiveConnections) {
+                return null;
+            }
+        } while (!totalConnections.compareAndSet(total, total + 1));
+        if (!reservePhysicalConnection()) {
+            totalConnections.decrementAndGet();
+            return null;
+        }
+        try {
+            PooledConnection conn = new PooledConnection(openConnection(), this);
+            conn.setState(PooledConnection.STATE_IN_USE);
+            bag.add(conn);
+            logger.info("Created connection " + conn.getRealHashCode() + ".");
+            return conn;
+        } catch (SQLException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * CONCURRENT 引擎下强制回收被占用时间最长且已超时的连接
+     *
+     * @return 回收后开始新租约的连接（状态为 STATE_IN_USE），没有超时连接时返回 null
+     */
+    private PooledConnection claimOverdueConnectionConcurrently() throws SQLException {
+        PooledConnection oldestActiveConnection = oldestActiveConnectionConcurrently();
+        if (oldestActiveConnection == null) {
+            return null;
+        }
+        // 先读取租约句柄再读取时间戳：时间戳若属于更晚的租约，预占时句柄已经不是当前租约，CAS 会失败
+        LeaseHandle lease = oldestActiveConnection.getLease();
+        long checkoutTimestamp = oldestActiveConnection.getCheckoutTimestamp();
+        long longestCheckoutTime = System.currentTimeMillis() - checkoutTimestamp;
+        // 未超时，或者在此期间已被原使用者归还
+        if (lease == null || checkoutTimestamp == 0 || longestCheckoutTime <= poolMaximumCheckoutTime
+                || !oldestActiveConnection.reserveLease(lease)) {
+            return null;
+        }
+        // 结束原使用者的租约，其手里的句柄随之失效；借出时的调用栈随租约一起清空，先取出用于报告
+        Throwable checkoutTrace = oldestActiveConnection.getCheckoutTrace();
+        oldestActiveConnection.endLease();
+        state.claimedOverdueConnectionCount.increment();
+        state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+        state.recordCheckoutTime(longestCheckoutTime);
+        try {
+            if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+                oldestActiveConnection.getRealConnection().rollback();
+            }
+        } catch (SQLException e) {
+            discardConnection(oldestActiveConnection);
+            throw e;
+        }
+        // 槽位直接开始新的租约，时间戳先清零，防止在借出者写入新时间戳之前被其他线程再次回收
+        oldestActiveConnection.setCheckoutTimestamp(0);
+        oldestActiveConnection.setState(PooledConnection.STATE_IN_USE);
+        logOverdueClaim(oldestActiveConnection, longestCheckoutTime, checkoutTrace);
+        return oldestActiveConnection;
+    }
+
+    /**
+     * 记录强制回收超时连接的日志：原使用者的租约被打断，采样到借出时的调用栈时以 warn 级别输出，方便定位没有归还连接的代码
+     *
+     * @param connection    被回收的连接
+     * @param checkoutTime  被回收时已借出的时长（毫秒）
+     * @param checkoutTrace 原使用者借出时的调用栈，未采样时为 null
+     */
+    private void logOverdueClaim(PooledConnection connection, long checkoutTime, Throwable checkoutTrace) {
+        if (checkoutTrace == null) {
+            logger.info("Claimed overdue connection " + connection.getRealHashCode() + ".");
+        } else {
+            logger.warn("Claimed overdue connection " + connection.getRealHashCode() + " after " + checkoutTime + " ms, it was checked out at:", checkoutTrace);
+        }
+    }
+
+    /**
+     * CONCURRENT 引擎下被占用时间最长的连接
+     *
+     * @return 没有借出中的连接时返回 null
+     */
+    private PooledConnection oldestActiveConnectionConcurrently() {
+        PooledConnection oldestActiveConnection = null;
+        for (PooledConnection candidate : bag.values(PooledConnection.STATE_IN_USE)) {
+            // 时间戳为 0 的槽位刚被借出，租约还没有开始计时
+            if (candidate.getCheckoutTimestamp() == 0) {
+                continue;
+            }
+            if (oldestActiveConnection == null || candidate.getCheckoutTimestamp() < oldestActiveConnection.getCheckoutTimestamp()) {
+                oldestActiveConnection = candidate;
+            }
+        }
+        return oldestActiveConnection;
+    }
+
+    /**
+     * CONCURRENT 引擎下距离最早借出的连接超时还有多久（毫秒），至少为 1
+     */
+    private long millisUntilOverdueConcurrently() {
+        PooledConnection oldestActiveConnection = oldestActiveConnectionConcurrently();
+        long checkoutTime = oldestActiveConnection == null ? 0 : oldestActiveConnection.getCheckoutTime();
+        return Math.max(1, poolMaximumCheckoutTime - checkoutTime + 1);
+    }
+
+    /**
+     * CONCURRENT 引擎下丢弃一个连接：移除槽位、释放名额并关闭真实连接
+     */
+    private void discardConnection(PooledConnection connection) {
+        connection.setState(PooledConnection.STATE_REMOVED);
+        if (bag.remove(connection)) {
+            totalConnections.decrementAndGet();
+        }
+        connection.invalidate();
+        closeQuietly(connection.getRealConnection());
+    }
+
+    /**
+     * 回滚未提交的事务并关闭真实连接，忽略过程中的异常
+     */
+    private void closeQuietly(Connection realConn) {
+        try {
+            if (!realConn.getAutoCommit()) {
+                realConn.rollback();
+            }
+            realConn.close();
+        } catch (Exception ignore) {
+            // 捕获异常但不处理，忽略关闭过程中的错误
+        }
+    }
+
+    /**
+     * SYNCHRONIZED 引擎下把连接交给等待最久的线程，调用方必须持有 PoolState 的锁且等待队列非空
+     */
+    private void handOffLocked(PooledConnection connection) {
+        PoolState.Waiter waiter = state.waiters.pollFirst();
+        waiter.connection = connection;
+        LockSupport.unpark(waiter.thread);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Handed off connection " + connection.getRealHashCode() + " to a waiting thread.");
+        }
+    }
+
+    /**
+     * SYNCHRONIZED 引擎下丢弃一个在锁外校验失败的连接：释放校验期间占用的名额，唤醒等待者，再关闭真实连接。
+     * 调用方不能持有 PoolState 的锁
+     */
+    private void abandonCheckout(PooledConnection conn) {
+        state.lock.lock();
+        try {
+            state.pendingConnections--;
+            conn.invalidate();
+            conn.setState(PooledConnection.STATE_REMOVED);
+            signalSlotFreedLocked();
+        } finally {
+            state.lock.unlock();
+        }
+        closeQuietly(conn.getRealConnection());
+    }
+
+    /**
+     * SYNCHRONIZED 引擎下预占的建连名额被释放时，唤醒等待者重新尝试，调用方必须持有 PoolState 的锁
+     */
+    private void signalSlotFreedLocked() {
+        if (poolFairWait && !state.waiters.isEmpty()) {
+            LockSupport.unpark(state.waiters.peekFirst().thread);
+        } else {
+            state.connectionAvailable.signal();
+        }
+    }
+
+    /**
+     * 建立一个物理连接：同时建连的线程数受 poolMaximumConcurrentCreations 限制（所有分区共用），并记录建连耗时。
+     * 调用方不能持有 PoolState 的锁，并且已经通过 reservePhysicalConnection 预占了全局名额，建连失败时名额在这里释放。
+     *
+     * @return 真实的数据库连接
+     * @throws SQLException 建连失败或等待建连许可时被中断
+     */
+    private Connection openConnection() throws SQLException {
+        Semaphore permits = root.creationPermits;
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            releasePhysicalConnection();
+            Thread.currentThread().interrupt();
+            throw new SQLException("PooledDataSource: Interrupted while waiting to create a connection.", e);
+        }
+        try {
+            long start = System.nanoTime();
+            Connection connection = dataSource.getConnection();
+            state.recordCreationTime(System.nanoTime() - start);
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            releasePhysicalConnection();
+            throw e;
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * 预占一个全局名额：所有分区的物理连接总数不超过 poolMaximumTotalConnections
+     *
+     * @return 全局名额已满时返回 false
+     */
+    private boolean reservePhysicalConnection() {
+        int maximum = root.getEffectiveMaximumTotalConnections();
+        int total;
+        do {
+            total = physicalConnections.get();
+            if (total >= maximum) {
+                return false;
+            }
+        } while (!physicalConnections.compareAndSet(total, total + 1));
+        return true;
+    }
+
+    /**
+     * 释放一个全局名额，物理连接失效（PooledConnection.invalidate）或建连失败时调用
+     */
+    void releasePhysicalConnection() {
+        physicalConnections.decrementAndGet();
+    }
+
+    private int getEffectiveMaximumTotalConnections() {
+        return poolMaximumTotalConnections > 0 ? poolMaximumTotalConnections : poolMaximumActiveConnections;
+    }
+
+    /**
+     * 全局名额已满时，为 requester 分区关闭空闲连接最多的其他分区中最久未使用的一个空闲连接。
+     * 只在根数据源上调用，调用方不能持有任何 PoolState 的锁。
+     *
+     * @param requester 需要新建连接的分区
+     * @return 是否腾出了名额
+     */
+    private boolean evictIdleConnectionFor(PooledDataSource requester) {
+        PooledDataSource victim = null;
+        int mostIdle = 0;
+        for (PooledDataSource partition : getAllPartitions()) {
+            if (partition == requester) {
+                continue;
+            }
+            int idle = partition.state.getIdleConnectionCount();
+            if (idle > mostIdle) {
+                victim = partition;
+                mostIdle = idle;
+            }
+        }
+        return victim != null && victim.evictOldestIdleConnection();
+    }
+
+    /**
+     * 关闭本分区最久未使用的一个空闲连接
+     */
+    private boolean evictOldestIdleConnection() {
+        PooledConnection conn = null;
+        if (poolType == PoolType.CONCURRENT) {
+            for (PooledConnection candidate : bag.values(PooledConnection.STATE_IDLE)) {
+                if (candidate.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_RESERVED)) {
+                    conn = candidate;
+                    break;
+                }
+            }
+        } else {
+            state.lock.lock();
+            try {
+                if (!state.idleConnections.isEmpty()) {
+                    // 空闲列表从头部借出、从尾部归还，头部的连接空闲最久
+                    conn = state.idleConnections.remove(0);
+                    conn.setState(PooledConnection.STATE_RESERVED);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        if (conn == null) {
+            return false;
+        }
+        state.partitionEvictionCount.increment();
+        discardConnection(conn);
+        logger.info("Closed idle connection " + conn.getRealHashCode() + " to free a slot for another partition.");
+        return true;
+    }
+
+    /**
+     * 根数据源及其所有分区
+     */
+    private List<PooledDataSource> getAllPartitions() {
+        List<PooledDataSource> all = new ArrayList<>(partitions.size() + 1);
+        all.add(this);
+        all.addAll(partitions.values());
+        return all;
+    }
+
+    /**
+     * 获取（必要时创建）非默认账号的分区
+     */
+    private PooledDataSource getPartition(String username, String password) {
+        return partitions.computeIfAbsent(new PartitionKey(username, password), key -> newPartition(username, password));
+    }
+
+    /**
+     * 创建分区：复制根数据源的驱动和连接池参数，最大活动、空闲连接数使用分区参数；
+     * 分区不单独预热、不补足最少空闲连接，维护由根数据源的维护线程统一执行
+     */
+    private PooledDataSource newPartition(String username, String password) {
+        PooledDataSource partition = new PooledDataSource(this);
+        UnpooledDataSource target = partition.dataSource;
+        target.setDriverClassLoader(dataSource.getDriverClassLoader());
+        target.setDriverProperties(dataSource.getDriverProperties());
+        target.setDriver(dataSource.getDriver());
+        target.setUrl(dataSource.getUrl());
+        target.setUsername(username);
+        target.setPassword(password);
+        target.setAutoCommit(dataSource.getAutoCommit());
+        target.setDefaultTransactionIsolationLevel(dataSource.getDefaultTransactionIsolationLevel());
+        partition.poolMaximumActiveConnections = poolPartitionMaximumActiveConnections > 0 ? poolPartitionMaximumActiveConnections : poolMaximumActiveConnections;
+        partition.poolMaximumIdleConnections = poolPartitionMaximumIdleConnections > 0 ? poolPartitionMaximumIdleConnections : poolMaximumIdleConnections;
+        partition.poolMaximumCheckoutTime = poolMaximumCheckoutTime;
+        partition.poolLeakDetectionThreshold = poolLeakDetectionThreshold;
+        partition.poolLeakDetectionSampleRate = poolLeakDetectionSampleRate;
+        partition.poolTimeToWait = poolTimeToWait;
+        partition.poolPingQuery = poolPingQuery;
+        partition.poolPingEnabled = poolPingEnabled;
+        partition.poolPingConnectionsNotUsedFor = poolPingConnectionsNotUsedFor;
+        partition.poolValidationStrategy = poolValidationStrategy;
+        partition.poolValidationTimeout = poolValidationTimeout;
+        partition.poolValidationWindow = poolValidationWindow;
+        partition.poolUseReflectiveProxy = poolUseReflectiveProxy;
+        partition.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+        partition.poolType = poolType;
+        partition.poolFairWait = poolFairWait;
+        partition.bag = new ConcurrentBag(poolFairWait);
+        partition.poolIdleTimeout = poolIdleTimeout;
+        partition.poolMaxLifetime = poolMaxLifetime;
+        partition.poolKeepaliveTime = poolKeepaliveTime;
+        partition.expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), username, password);
+        partition.poolName = poolName + "/" + username;
+        logger.info("Created pool partition for user " + username + ".");
+        return partition;
+    }
+
+    /**
+     * 把维护线程检测过或新建的连接放回连接池，有线程在等待时直接交给它
+     */
+    private void restoreIdleConnection(PooledConnection connection) {
+        if (poolType == PoolType.CONCURRENT) {
+            bag.requite(connection);
+            return;
+        }
+        state.lock.lock();
+        try {
+            if (poolFairWait && !state.waiters.isEmpty()) {
+                handOffLocked(connection);
+            } else {
+                connection.setState(PooledConnection.STATE_IDLE);
+                state.idleConnections.add(connection);
+                state.connectionAvailable.signal();
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * 连接是否超过最大存活时间。每个连接根据 hashCode 提前最多 2.5% 的时间到期，避免同一批创建的连接同时重建
+     */
+    private boolean isExpired(PooledConnection connection) {
+        if (poolMaxLifetime <= 0) {
+            return false;
+        }
+        long jitter = (connection.hashCode() & 0x7fffffff) % (poolMaxLifetime / 40 + 1);
+        return connection.getAge() > poolMaxLifetime - jitter;
+    }
+
+    /**
+     * 空闲连接是否需要由维护线程执行 keepalive ping
+     */
+    private boolean needsKeepalive(PooledConnection connection) {
+        if (poolKeepaliveTime <= 0 || !(poolPingEnabled || useJdbc4Validation())) {
+            return false;
+        }
+        long lastActive = Math.max(connection.getLastUsedTimestamp(), connection.getLastValidatedTimestamp());
+        return System.currentTimeMillis() - lastActive > poolKeepaliveTime;
+    }
+
+    /**
+     * 执行一次连接池维护：关闭空闲超时和超过最大存活时间的空闲连接，对长时间未使用的空闲连接做 keepalive ping，
+     * 然后补足 poolMinimumIdle 个空闲连接。
+     * 需要处理的连接先在锁内（或通过 CAS）从空闲连接中摘出，ping 和关闭都在锁外进行，不影响借出和归还。
+     * 通常由后台维护线程按 poolHousekeepingPeriod 定期调用。
+     */
+    public void housekeep() {
+        AdaptivePoolSizer sizer = adaptiveSizer;
+        if (sizer != null) {
+            sizer.adjust();
+        }
+        List<PooledConnection> retired = new ArrayList<>();
+        List<PooledConnection> evicted = new ArrayList<>();
+        List<PooledConnection> keepalive = new ArrayList<>();
+        if (poolType == PoolType.CONCURRENT) {
+            int idle = bag.getIdleCount();
+            int removable = idle - poolMinimumIdle;
+            // 上限被调小（自适应缩容或修改配置）后多出来的空闲连接
+            int surplus = idle - idleLimit();
+            for (PooledConnection conn : bag.values(PooledConnection.STATE_IDLE)) {
+                boolean expired = isExpired(conn);
+                boolean idleTimeout = !expired && (surplus > 0 || (removable > 0 && poolIdleTimeout > 0 && conn.getTimeElapsedSinceLastUse() > poolIdleTimeout));
+                boolean keep = !expired && !idleTimeout && needsKeepalive(conn);
+                // CAS 失败说明连接刚被借走，跳过即可
+                if ((expired || idleTimeout || keep) && conn.compareAndSetState(PooledConnection.STATE_IDLE, PooledConnection.STATE_RESERVED)) {
+                    if (expired) {
+                        retired.add(conn);
+                    } else if (idleTimeout) {
+                        evicted.add(conn);
+                        removable--;
+                        surplus--;
+                    } else {
+                        keepalive.add(conn);
+                    }
+                }
+            }
+        } else {
+            state.lock.lock();
+            try {
+                int removable = state.idleConnections.size() - poolMinimumIdle;
+                int surplus = state.idleConnections.size() - idleLimit();
+                Iterator<PooledConnection> iterator = state.idleConnections.iterator();
+                while (iterator.hasNext()) {
+                    PooledConnection conn = iterator.next();
+                    if (isExpired(conn)) {
+                        retired.add(conn);
+                    } else if (surplus > 0 || (removable > 0 && poolIdleTimeout > 0 && conn.getTimeElapsedSinceLastUse() > poolIdleTimeout)) {
+                        evicted.add(conn);
+                        removable--;
+                        surplus--;
+                    } else if (needsKeepalive(conn)) {
+                        keepalive.add(conn);
+                    } else {
+                        continue;
+                    }
+                    iterator.remove();
+                    conn.setState(PooledConnection.STATE_RESERVED);
+                }
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        for (PooledConnection conn : retired) {
+            state.retiredConnectionCount.increment();
+            discardConnection(conn);
+            logger.info("Retired connection " + conn.getRealHashCode() + " after reaching max lifetime.");
+        }
+        for (PooledConnection conn : evicted) {
+            state.evictedIdleConnectionCount.increment();
+            discardConnection(conn);
+            logger.info("Evicted idle connection " + conn.getRealHashCode() + ".");
+        }
+        for (PooledConnection conn : keepalive) {
+            boolean alive = useJdbc4Validation() ? probeConnection(conn) : executePingQuery(conn);
+            if (alive) {
+                conn.setLastValidatedTimestamp(System.currentTimeMillis());
+                restoreIdleConnection(conn);
+            } else {
+                state.badConnectionCount.increment();
+                discardConnection(conn);
+            }
+        }
+        fillPool();
+        reportLeaks();
+        // 分区由根数据源统一维护
+        if (partitions != null) {
+            for (PooledDataSource partition : partitions.values()) {
+                partition.housekeep();
+            }
+        }
+    }
+
+    /**
+     * 检查所有借出中的连接，把借出时间超过 poolLeakDetectionThreshold 的租约报告为疑似泄漏（含各分区）。
+     * 每次租约只报告一次，租约结束时从疑似泄漏数中扣除；开启后台维护线程时会定期自动执行
+     *
+     * @return 本次新报告的疑似泄漏数
+     */
+    public int detectLeaks() {
+        int reported = reportLeaks();
+        if (partitions != null) {
+            for (PooledDataSource partition : partitions.values()) {
+                reported += partition.reportLeaks();
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * 检查本连接池借出中的连接，只在锁内（或从槽位）复制一份列表，报告和打印日志都在锁外进行
+     */
+    private int reportLeaks() {
+        if (poolLeakDetectionThreshold <= 0) {
+            return 0;
+        }
+        List<PooledConnection> active;
+        if (poolType == PoolType.CONCURRENT) {
+            active = bag.values(PooledConnection.STATE_IN_USE);
+        } else {
+            state.lock.lock();
+            try {
+                active = new ArrayList<>(state.activeConnections);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        int reported = 0;
+        long now = System.currentTimeMillis();
+        for (PooledConnection conn : active) {
+            // 先读代数再读时间戳和调用栈，标记时用代数确认读到的都属于同一次租约
+            int generation = conn.getGeneration();
+            long checkoutTimestamp = conn.getCheckoutTimestamp();
+            if (checkoutTimestamp == 0 || now - checkoutTimestamp <= poolLeakDetectionThreshold) {
+                continue;
+            }
+            Throwable checkoutTrace = conn.getCheckoutTrace();
+            if (!conn.markLeakSuspected(generation)) {
+                continue;
+            }
+            state.reportedLeakCount.increment();
+            reported++;
+            if (checkoutTrace == null) {
+                logger.warn("Connection leak detection triggered for connection " + conn.getRealHashCode() + ", checked out for "
+                        + (now - checkoutTimestamp) + " ms (checkout stack trace was not sampled).");
+            } else {
+                logger.warn("Connection leak detection triggered for connection " + conn.getRealHashCode() + ", checked out for "
+                        + (now - checkoutTimestamp) + " ms at:", checkoutTrace);
+            }
+        }
+        return reported;
+    }
+
+    /**
+     * 已报告为疑似泄漏的租约结束时由 PooledConnection 调用
+     */
+    void leakedLeaseEnded(PooledConnection connection) {
+        state.suspectedLeakCount.decrement();
+        logger.info("Previously reported leaked connection " + connection.getRealHashCode() + " was released after " + connection.getCheckoutTime() + " ms.");
+    }
+
+    /**
+     * 开启泄漏检测时按 poolLeakDetectionSampleRate 采样记录借出者的调用栈
+     *
+     * @param connection 刚借出的连接
+     * @return 传入的连接
+     */
+    private PooledConnection traceCheckout(PooledConnection connection) {
+        if (poolLeakDetectionThreshold > 0
+                && (poolLeakDetectionSampleRate <= 1 || ThreadLocalRandom.current().nextInt(poolLeakDetectionSampleRate) == 0)) {
+            connection.setCheckoutTrace(new Throwable("Connection " + connection.getRealHashCode() + " checked out by thread " + Thread.currentThread().getName()));
+        }
+        return connection;
+    }
+
+    /**
+     * 补足 poolMinimumIdle 个空闲连接
+     */
+    private void fillPool() {
+        while (fillOne(poolMinimumIdle)) {
+            // 每次新建一个连接，直到空闲连接数达到 poolMinimumIdle 或总连接数达到上限
+        }
+    }
+
+    /**
+     * 空闲连接不足 minimumIdle 时新建一个空闲连接，新建连接在锁外完成，且总连接数不超过 poolMaximumActiveConnections 和全局名额。
+     * 有线程在等待时新建的连接直接交给等待者
+     *
+     * @param minimumIdle 需要保持的最少空闲连接数
+     * @return 是否新建了连接
+     */
+    private boolean fillOne(int minimumIdle) {
+        PooledConnection conn;
+        if (poolType == PoolType.CONCURRENT) {
+            if (bag.getIdleCount() >= minimumIdle) {
+                return false;
+            }
+            int total;
+            do {
+                total = totalConnections.get();
+                if (total >= poolMaximumActiveConnections) {
+                    return false;
+                }
+            } while (!totalConnections.compareAndSet(total, total + 1));
+            if (!reservePhysicalConnection()) {
+                totalConnections.decrementAndGet();
+                return false;
+            }
+            try {
+                conn = new PooledConnection(openConnection(), this);
+            } catch (SQLException e) {
+                totalConnections.decrementAndGet();
+                logger.info("Could not fill pool to minimum idle: " + e.getMessage());
+                return false;
+            }
+            conn.setConnectionTypeCode(expectedConnectionTypeCode);
+            conn.setState(PooledConnection.STATE_IDLE);
+            bag.add(conn);
+        } else {
+            state.lock.lock();
+            try {
+                if (state.idleConnections.size() >= minimumIdle
+                        || state.idleConnections.size() + state.activeConnections.size() + state.pendingConnections >= poolMaximumActiveConnections
+                        || !reservePhysicalConnection()) {
+                    return false;
+                }
+                // 预占名额，建连在锁外进行
+                state.pendingConnections++;
+            } finally {
+                state.lock.unlock();
+            }
+            try {
+                conn = new PooledConnection(openConnection(), this);
+            } catch (SQLException e) {
+                state.lock.lock();
+                try {
+                    state.pendingConnections--;
+                    signalSlotFreedLocked();
+                } finally {
+                    state.lock.unlock();
+                }
+                logger.info("Could not fill pool to minimum idle: " + e.getMessage());
+                return false;
+            }
+            conn.setConnectionTypeCode(expectedConnectionTypeCode);
+            state.lock.lock();
+            try {
+                state.pendingConnections--;
+                restoreIdleConnection(conn);
+            } finally {
+                state.lock.unlock();
+            }
+        }
+        logger.info("Created idle connection " + conn.getRealHashCode() + ".");
+        return true;
+    }
+
+    /**
+     * 实际生效的最大空闲连接数，不超过当前的 poolMaximumActiveConnections
+     */
+    private int idleLimit() {
+        return Math.min(poolMaximumIdleConnections, poolMaximumActiveConnections);
+    }
+
+    /**
+     * 立即执行一次自适应调整，通常由维护线程调用
+     *
+     * @return 调整后的 poolMaximumActiveConnections 与调整前的差值，未开启 poolAdaptiveSizing 时返回 0
+     */
+    public int adaptPoolSize() {
+        AdaptivePoolSizer sizer = adaptiveSizer;
+        return sizer == null ? 0 : sizer.adjust();
+    }
+
+    /**
+     * 自适应控制器调整连接池上限。
+     * 缩容只修改上限：超出上限的借出中连接归还时关闭，多余的空闲连接由维护线程关闭。
+     * 扩容时唤醒等待者：SYNCHRONIZED 引擎的等待者醒来后自己新建连接；
+     * CONCURRENT 引擎的等待者阻塞在交接队列上，由这里为它们新建连接并直接交接
+     *
+     * @param maximumActiveConnections 新的 poolMaximumActiveConnections
+     */
+    void resizePool(int maximumActiveConnections) {
+        int growth = maximumActiveConnections - poolMaximumActiveConnections;
+        poolMaximumActiveConnections = maximumActiveConnections;
+        if (growth <= 0) {
+            return;
+        }
+        if (poolType == PoolType.CONCURRENT) {
+            int waiting = Math.min(growth, bag.getWaitingThreadCount());
+            for (int i = 0; i < waiting && fillOne(maximumActiveConnections); i++) {
+                // 每个等待者一个新连接
+            }
+            return;
+        }
+        state.lock.lock();
+        try {
+            int woken = 0;
+            for (PoolState.Waiter waiter : state.waiters) {
+                if (woken++ >= growth) {
+                    break;
+                }
+                LockSupport.unpark(waiter.thread);
+            }
+            state.connectionAvailable.signalAll();
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    /**
+     * 异步预热连接池：在有界线程池上并行创建连接，直到空闲连接数达到 poolMinimumIdle。
+     * 建连全部在锁外进行，预热期间到达的请求照常借出或新建连接，总数仍受 poolMaximumActiveConnections 限制。
+     *
+     * @return 预热结束时完成的 Future，结果为本次新建的连接数
+     */
+    public CompletableFuture<Integer> warmUp() {
+        int missing = poolMinimumIdle - state.getIdleConnectionCount();
+        if (missing <= 0) {
+            return CompletableFuture.completedFuture(0);
+        }
+        int threads = Math.max(1, Math.min(poolWarmUpThreads, missing));
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mini-mybatis-pool-warmup-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Warming up pool with " + missing + " connections on " + threads + " threads.");
+        AtomicInteger created = new AtomicInteger();
+        CompletableFuture<?>[] tasks = new CompletableFuture<?>[missing];
+        for (int i = 0; i < missing; i++) {
+            tasks[i] = CompletableFuture.runAsync(() -> {
+                if (fillOne(poolMinimumIdle)) {
+                    created.incrementAndGet();
                 }
-            }else{
-                // 连接无效，丢弃并计数
-                logger.info("A bad connection (" + connection.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
-                state.badConnectionCount++;
-            }
+            }, executor);
         }
+        return CompletableFuture.allOf(tasks).handle((ignore, e) -> {
+            executor.shutdown();
+            logger.info("Pool warm-up finished, created " + created.get() + " connections.");
+            return created.get();
+        });
     }
 
     /**
-     * 获取一个可用的数据库连接（PooledConnection），如果没有可用连接则等待或创建新连接
-     *
-     * @param username 数据库用户名
-     * @param password 数据库密码
-     * @return 一个有效的PooledConnection对象
-     * @throws SQLException 如果无法获取连接，抛出异常
+     * 按 poolHousekeepingPeriod 重新安排后台维护线程
      */
-    private PooledConnection popConnection(String username, String password) throws SQLException {
-        // 标记本次等待是否已计数
-        boolean countedWait = false;
-        // 最终要返回的连接
-        PooledConnection conn = null;
-        // 记录开始获取连接的时间
-        long t = System.currentTimeMillis();
-        // 本地坏连接计数
-        int localBadConnectionCount = 0;
-        // 循环直到获取到可用连接
-        while (conn == null) {
-            // 保证线程安全，锁住连接池状态
-            synchronized (state) {
-                // 如果有空闲连接，从空闲连接池取出第一个连接
-                if (!state.idleConnections.isEmpty()) {
-                    conn = state.idleConnections.remove(0);
-                    logger.info("Checked out connection " + conn.getRealHashCode() + " from pool.");
-                } else {
-                    // 没有空闲连接
-                    // 活跃连接数未达上限，可以创建新连接
-                    if (state.activeConnections.size() < poolMaximumActiveConnections) {
-                        conn = new PooledConnection(dataSource.getConnection(), this);
-                        logger.info("Created connection " + conn.getRealHashCode() + ".");
-                    } else {
-                        // 活跃连接数已达上限，不能新建连接
-                        // 获取最早被借出的连接
-                        PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-                        // 计算该连接已被占用的时长
-                        long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-                        // 如果该连接被占用超时，可以强制回收
-                        if (longestCheckoutTime > poolMaximumCheckoutTime) {
-                            // 超时回收次数+1
-                            state.claimedOverdueConnectionCount++;
-                            // 累加超时连接的占用时长
-                            state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-                            // 累加总占用时长
-                            state.accumulatedCheckoutTime += longestCheckoutTime;
-                            // 从活跃连接池移除
-                            state.activeConnections.remove(oldestActiveConnection);
-                            // 如果连接不是自动提交，回滚未提交的事务，保证连接干净
-                            if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
-                                oldestActiveConnection.getRealConnection().rollback();
-                            }
-                            // 用原连接的真实连接对象新建一个PooledConnection
-                            conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
-                            // 继承原连接的创建和最后使用时间
-                            conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
-                            conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
-                            // 使原连接失效
-                            oldestActiveConnection.invalidate();
-                            // 记录日志
-                            logger.info("Claimed overdue connection " + conn.getRealHashCode() + ".");
-                        } else {
-                            // 没有超时连接，只能等待
-                            try {
-                                if (!countedWait) {
-                                    // 等待次数+1
-                                    state.hadToWaitCount++;
-                                    // 标记已计数
-                                    countedWait = true;
-                                }
-                                logger.info("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
-                                // 记录等待开始时间
-                                long wt = System.currentTimeMillis();
-                                // 等待指定时间
-                                state.wait(poolTimeToWait);
-                                // 累加等待时长
-                                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
-                            } catch (InterruptedException e) {
-                                // 如果线程被中断，跳出循环
-                                break;
-                            }
-                        }
+    private synchronized void rescheduleHousekeeper() {
+        if (housekeeper != null) {
+            housekeeper.shutdownNow();
+            housekeeper = null;
+        }
+        if (poolHousekeepingPeriod <= 0) {
+            return;
+        }
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mini-mybatis-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(() -> {
+            try {
+                housekeep();
+            } catch (Throwable e) {
+                // 维护失败不能终止后续调度
+                logger.warn("Pool housekeeping failed.", e);
+            }
+        }, poolHousekeepingPeriod, poolHousekeepingPeriod, TimeUnit.MILLISECONDS);
+    }
 
-                    }
-                }
-                // 成功获得到连接
-                if (conn != null) {
-                    // 检查连接是否有效
-                    if (conn.isValid()) {
-                        // 如果不是自动提交，回滚未提交事务，保证连接干净
-                        if (!conn.getRealConnection().getAutoCommit()) {
-                            conn.getRealConnection().rollback();
-                        }
-                        // 设置连接类型码（用于区分不同配置的连接）
-                        conn.setConnectionTypeCode(assembleConnectionTypeCode(dataSource.getUrl(), username, password));
-                        // 设置借出时间和最后使用时间
-                        conn.setCheckoutTimestamp(System.currentTimeMillis());
-                        conn.setLastUsedTimestamp(System.currentTimeMillis());
-                        // 加入活跃连接池
-                        state.activeConnections.add(conn);
-                        // 请求次数+1
-                        state.requestCount++;
-                        // 累加本次请求耗时
-                        state.accumulatedRequestTime += System.currentTimeMillis() - t;
-                    } else {
-                        // 连接无效，尝试重新获取
-                        logger.info("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
-                        // 坏连接计数+1
-                        state.badConnectionCount++;
-                        // 本地坏连接计数+1
-                        localBadConnectionCount++;
-                        conn = null;
-                        // 如果坏连接次数超过容忍上限，抛出异常
-                        if (localBadConnectionCount > (poolMaximumIdleConnections + 3)) {
-                            logger.debug("PooledDataSource: Could not get a good connection to the database.");
-                            throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
-                        }
-                    }
-                }
+    /**
+     * 按 poolRegisterMbeans 注册或注销 MXBean，名称变化时先注销旧名称
+     */
+    private synchronized void reregisterMbean() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (registeredMbeanName != null) {
+            try {
+                server.unregisterMBean(registeredMbeanName);
+            } catch (JMException e) {
+                logger.warn("Could not unregister MBean " + registeredMbeanName + ".", e);
             }
+            registeredMbeanName = null;
         }
-        // 如果最终没有获取到连接，抛出严重异常
-        if (conn == null) {
-            logger.debug("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
-            throw new SQLException("PooledDataSource: Unknown severe error condition.  The connection pool returned a null connection.");
+        if (!poolRegisterMbeans) {
+            return;
         }
-        // 返回可用连接
-        return conn;
+        try {
+            ObjectName name = new ObjectName("com.shubai.mybatis.datasource:type=PooledDataSource,name=" + ObjectName.quote(poolName));
+            server.registerMBean(new PooledDataSourceMetrics(this), name);
+            registeredMbeanName = name;
+        } catch (JMException e) {
+            // 监控注册失败不影响连接池使用
+            logger.warn("Could not register MBean for pool " + poolName + ".", e);
+        }
+    }
+
+    /**
+     * 停止后台维护线程、注销 MXBean 并关闭所有连接
+     */
+    public void close() {
+        synchronized (this) {
+            if (housekeeper != null) {
+                housekeeper.shutdownNow();
+                housekeeper = null;
+            }
+            if (registeredMbeanName != null) {
+                poolRegisterMbeans = false;
+                reregisterMbean();
+            }
+        }
+        forceCloseAll();
     }
 
     /**
@@ -272,7 +1641,8 @@ public class PooledDataSource implements DataSource {
      */
     public void forceCloseAll() {
         // 保证线程安全，防止多线程同时操作连接池状态
-        synchronized (state) {
+        state.lock.lock();
+        try {
             // 重新计算当前连接类型的哈希码（根据url、用户名、密码）
             expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
             // 关闭所有活跃（正在使用中的）连接
@@ -282,6 +1652,7 @@ public class PooledDataSource implements DataSource {
                     PooledConnection conn = state.activeConnections.remove(i - 1);
                     // 将连接标记为失效，防止被再次使用
                     conn.invalidate();
+                    conn.setState(PooledConnection.STATE_REMOVED);
                     // 获取真实的数据库连接对象
                     Connection realConn = conn.getRealConnection();
                     // 如果不是自动提交，回滚未提交的事务，保证数据一致性
@@ -301,6 +1672,7 @@ public class PooledDataSource implements DataSource {
                     PooledConnection conn = state.idleConnections.remove(i - 1);
                     // 将连接标记为失效
                     conn.invalidate();
+                    conn.setState(PooledConnection.STATE_REMOVED);
                     // 获取真实的数据库连接对象
                     Connection realConn = conn.getRealConnection();
                     // 如果不是自动提交，回滚未提交的事务
@@ -313,8 +1685,77 @@ public class PooledDataSource implements DataSource {
                     // 捕获异常但不处理，忽略关闭过程中的错误
                 }
             }
+            // 关闭 CONCURRENT 引擎中的所有槽位，借出中的连接之后 close 时会因状态不匹配而被忽略
+            for (PooledConnection conn : bag.values()) {
+                discardConnection(conn);
+            }
             logger.info("PooledDataSource forcefully closed/removed all connections.");
+        } finally {
+            state.lock.unlock();
+        }
+        // 分区在锁外关闭，之后的 getConnection(username, password) 按当前参数重新创建分区
+        if (partitions != null) {
+            for (PooledDataSource partition : partitions.values()) {
+                partition.forceCloseAll();
+            }
+            partitions.clear();
+        }
+    }
+
+    /**
+     * 借出连接时检测连接是否可用：校验窗口内刚被使用或检测过的连接直接视为可用，否则按 poolValidationStrategy 检测
+     *
+     * @param conn 需要检测的连接
+     * @return 连接是否可用
+     */
+    protected boolean validateConnection(PooledConnection conn) {
+        long now = System.currentTimeMillis();
+        if (poolValidationWindow > 0 && now - Math.max(conn.getLastUsedTimestamp(), conn.getLastValidatedTimestamp()) <= poolValidationWindow) {
+            state.skippedValidationCount.increment();
+            return true;
+        }
+        state.validationCount.increment();
+        boolean result = probeConnection(conn);
+        if (result) {
+            conn.setLastValidatedTimestamp(now);
+        }
+        return result;
+    }
+
+    /**
+     * 是否使用 Connection.isValid 检测连接
+     */
+    private boolean useJdbc4Validation() {
+        return poolValidationStrategy == ValidationStrategy.JDBC4
+                || (poolValidationStrategy == ValidationStrategy.AUTO && jdbc4ValidationSupported);
+    }
+
+    /**
+     * 按 poolValidationStrategy 访问数据库检测连接，不考虑校验窗口
+     */
+    private boolean probeConnection(PooledConnection conn) {
+        if (useJdbc4Validation()) {
+            int timeoutSeconds = poolValidationTimeout <= 0 ? 0 : (poolValidationTimeout + 999) / 1000;
+            try {
+                boolean result = conn.getRealConnection().isValid(timeoutSeconds);
+                if (!result) {
+                    logger.info("Connection " + conn.getRealHashCode() + " is BAD: isValid returned false.");
+                }
+                return result;
+            } catch (AbstractMethodError | SQLFeatureNotSupportedException e) {
+                // JDBC4 之前的驱动没有实现 isValid
+                if (poolValidationStrategy == ValidationStrategy.JDBC4) {
+                    logger.info("Connection " + conn.getRealHashCode() + " is BAD: driver does not support isValid.");
+                    return false;
+                }
+                logger.info("Driver does not support Connection.isValid, falling back to ping query validation.");
+                jdbc4ValidationSupported = false;
+            } catch (SQLException e) {
+                logger.info("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
+                return false;
+            }
         }
+        return pingConnection(conn);
     }
 
     /**
@@ -336,36 +1777,48 @@ public class PooledDataSource implements DataSource {
         }
         // 如果连接未关闭，并且启用了 ping 检测，且设置了检测的时间阈值，并且该连接距离上次使用已经超过设定的时间
         if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0 && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
+            result = executePingQuery(conn);
+        }
+        // 返回最终检测结果
+        return result;
+    }
+
+    /**
+     * 在连接上执行 poolPingQuery，失败时关闭真实连接
+     *
+     * @param conn 需要检测的连接
+     * @return ping 查询是否执行成功
+     */
+    private boolean executePingQuery(PooledConnection conn) {
+        boolean result;
+        try {
+            // 打印调试日志，说明正在测试该连接
+            logger.info("Testing connection " + conn.getRealHashCode() + " ...");
+            // 获取真实的数据库连接
+            Connection realConn = conn.getRealConnection();
+            // 创建一个 SQL 语句对象，并执行 ping 查询（如 select 1），用于检测连接是否真的可用
+            Statement statement = realConn.createStatement();
+            ResultSet resultSet = statement.executeQuery(poolPingQuery);
+            resultSet.close();
+            // 如果不是自动提交，回滚未提交的事务，保证连接干净
+            if (!realConn.getAutoCommit()) {
+                realConn.rollback();
+            }
+            // 执行到这里说明连接可用
+            result = true;
+            logger.info("Connection " + conn.getRealHashCode() + " is GOOD!");
+        } catch (Exception e) {
+            // 如果 ping 查询执行失败，说明连接不可用
+            logger.info("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
             try {
-                // 打印调试日志，说明正在测试该连接
-                logger.info("Testing connection " + conn.getRealHashCode() + " ...");
-                // 获取真实的数据库连接
-                Connection realConn = conn.getRealConnection();
-                // 创建一个 SQL 语句对象，并执行 ping 查询（如 select 1），用于检测连接是否真的可用
-                Statement statement = realConn.createStatement();
-                ResultSet resultSet = statement.executeQuery(poolPingQuery);
-                resultSet.close();
-                // 如果不是自动提交，回滚未提交的事务，保证连接干净
-                if (!realConn.getAutoCommit()) {
-                    realConn.rollback();
-                }
-                // 执行到这里说明连接可用
-                result = true;
-                logger.info("Connection " + conn.getRealHashCode() + " is GOOD!");
-            } catch (Exception e) {
-                // 如果 ping 查询执行失败，说明连接不可用
-                logger.info("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
-                try {
-                    // 关闭真实数据库连接，释放资源
-                    conn.getRealConnection().close();
-                } catch (SQLException ignore) {
-                    // 忽略关闭异常
-                }
-                result = false;
-                logger.info("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
+                // 关闭真实数据库连接，释放资源
+                conn.getRealConnection().close();
+            } catch (SQLException ignore) {
+                // 忽略关闭异常
             }
+            result = false;
+            logger.info("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
         }
-        // 返回最终检测结果
         return result;
     }
 
@@ -376,14 +1829,18 @@ public class PooledDataSource implements DataSource {
      * @return 真实的数据库连接对象
      */
     public static Connection unwrapConnection(Connection conn) {
+        // 直接委托的连接句柄
+        if (conn instanceof DelegatingConnection) {
+            return ((DelegatingConnection) conn).getPooledConnection().getRealConnection();
+        }
         // 判断传入的连接对象是否是一个由JDK动态代理生成的代理类
         if (Proxy.isProxyClass(conn.getClass())) {
             // 获取该代理对象背后的InvocationHandler
             InvocationHandler handler = Proxy.getInvocationHandler(conn);
-            // 判断这个InvocationHandler是否是PooledConnection类型
-            if (handler instanceof PooledConnection) {
+            // 判断这个InvocationHandler是否是PooledConnection的代理句柄
+            if (handler instanceof PooledConnection.ProxyHandle) {
                 // 如果是，则返回其内部持有的真实数据库连接
-                return ((PooledConnection) handler).getRealConnection();
+                return ((PooledConnection.ProxyHandle) handler).getPooledConnection().getRealConnection();
             }
         }
         // 如果不是代理类，或者不是PooledConnection类型，直接返回原始连接
@@ -406,17 +1863,24 @@ public class PooledDataSource implements DataSource {
 
     @Override
     public Connection getConnection() throws SQLException {
-        return popConnection(dataSource.getUsername(), dataSource.getPassword()).getProxyConnection();
+        // 默认账号的连接类型码在 forceCloseAll 中已经算好，避免每次借出都拼接字符串
+        return traceCheckout(popConnection(expectedConnectionTypeCode)).beginLease();
     }
 
+    /**
+     * 默认账号直接从本连接池借出；其他账号从按账号划分的分区借出，各分区有自己的上限，并共享 poolMaximumTotalConnections 全局名额
+     */
     @Override
     public Connection getConnection(String username, String password) throws SQLException {
-        return popConnection(username, password).getProxyConnection();
+        if (partitions == null || (Objects.equals(username, dataSource.getUsername()) && Objects.equals(password, dataSource.getPassword()))) {
+            return traceCheckout(popConnection(expectedConnectionTypeCode)).beginLease();
+        }
+        return getPartition(username, password).getConnection();
     }
 
     @Override
     protected void finalize() throws Throwable {
-        forceCloseAll();
+        close();
         super.finalize();
     }
 
@@ -475,6 +1939,15 @@ public class PooledDataSource implements DataSource {
         forceCloseAll();
     }
 
+    public Properties getDriverProperties() {
+        return dataSource.getDriverProperties();
+    }
+
+    public void setDriverProperties(Properties driverProperties) {
+        dataSource.setDriverProperties(driverProperties);
+        forceCloseAll();
+    }
+
 
     public void setDefaultAutoCommit(boolean defaultAutoCommit) {
         dataSource.setAutoCommit(defaultAutoCommit);
@@ -489,6 +1962,42 @@ public class PooledDataSource implements DataSource {
         this.poolMaximumActiveConnections = poolMaximumActiveConnections;
     }
 
+    public boolean isPoolAdaptiveSizing() {
+        return poolAdaptiveSizing;
+    }
+
+    /**
+     * 开启时以当前的计数器作为第一个观察窗口的起点，关闭时保留当前的 poolMaximumActiveConnections
+     */
+    public void setPoolAdaptiveSizing(boolean poolAdaptiveSizing) {
+        this.poolAdaptiveSizing = poolAdaptiveSizing;
+        this.adaptiveSizer = poolAdaptiveSizing ? new AdaptivePoolSizer(this) : null;
+    }
+
+    public int getPoolAdaptiveMinimumActiveConnections() {
+        return poolAdaptiveMinimumActiveConnections;
+    }
+
+    public void setPoolAdaptiveMinimumActiveConnections(int poolAdaptiveMinimumActiveConnections) {
+        this.poolAdaptiveMinimumActiveConnections = poolAdaptiveMinimumActiveConnections;
+    }
+
+    public int getPoolAdaptiveMaximumActiveConnections() {
+        return poolAdaptiveMaximumActiveConnections;
+    }
+
+    public void setPoolAdaptiveMaximumActiveConnections(int poolAdaptiveMaximumActiveConnections) {
+        this.poolAdaptiveMaximumActiveConnections = poolAdaptiveMaximumActiveConnections;
+    }
+
+    public int getPoolAdaptiveWaitThreshold() {
+        return poolAdaptiveWaitThreshold;
+    }
+
+    public void setPoolAdaptiveWaitThreshold(int poolAdaptiveWaitThreshold) {
+        this.poolAdaptiveWaitThreshold = poolAdaptiveWaitThreshold;
+    }
+
     public int getPoolMaximumIdleConnections() {
         return poolMaximumIdleConnections;
     }
@@ -497,6 +2006,22 @@ public class PooledDataSource implements DataSource {
         this.poolMaximumIdleConnections = poolMaximumIdleConnections;
     }
 
+    public int getPoolLeakDetectionThreshold() {
+        return poolLeakDetectionThreshold;
+    }
+
+    public void setPoolLeakDetectionThreshold(int poolLeakDetectionThreshold) {
+        this.poolLeakDetectionThreshold = poolLeakDetectionThreshold;
+    }
+
+    public int getPoolLeakDetectionSampleRate() {
+        return poolLeakDetectionSampleRate;
+    }
+
+    public void setPoolLeakDetectionSampleRate(int poolLeakDetectionSampleRate) {
+        this.poolLeakDetectionSampleRate = poolLeakDetectionSampleRate;
+    }
+
     public int getPoolMaximumCheckoutTime() {
         return poolMaximumCheckoutTime;
     }
@@ -537,6 +2062,222 @@ public class PooledDataSource implements DataSource {
         this.poolPingConnectionsNotUsedFor = poolPingConnectionsNotUsedFor;
     }
 
+    public ValidationStrategy getPoolValidationStrategy() {
+        return poolValidationStrategy;
+    }
+
+    public void setPoolValidationStrategy(ValidationStrategy poolValidationStrategy) {
+        this.poolValidationStrategy = poolValidationStrategy;
+        this.jdbc4ValidationSupported = true;
+    }
+
+    public int getPoolValidationTimeout() {
+        return poolValidationTimeout;
+    }
+
+    public void setPoolValidationTimeout(int poolValidationTimeout) {
+        this.poolValidationTimeout = poolValidationTimeout;
+    }
+
+    public int getPoolValidationWindow() {
+        return poolValidationWindow;
+    }
+
+    public void setPoolValidationWindow(int poolValidationWindow) {
+        this.poolValidationWindow = poolValidationWindow;
+    }
+
+    public PoolType getPoolType() {
+        return poolType;
+    }
+
+    public void setPoolType(PoolType poolType) {
+        this.poolType = poolType;
+        forceCloseAll();
+    }
+
+    public boolean isPoolUseReflectiveProxy() {
+        return poolUseReflectiveProxy;
+    }
+
+    public void setPoolUseReflectiveProxy(boolean poolUseReflectiveProxy) {
+        this.poolUseReflectiveProxy = poolUseReflectiveProxy;
+        // 已有连接的句柄在创建时确定，切换后需要重建
+        forceCloseAll();
+    }
+
+    public int getPoolMaximumTotalConnections() {
+        return poolMaximumTotalConnections;
+    }
+
+    public void setPoolMaximumTotalConnections(int poolMaximumTotalConnections) {
+        this.poolMaximumTotalConnections = poolMaximumTotalConnections;
+    }
+
+    public int getPoolPartitionMaximumActiveConnections() {
+        return poolPartitionMaximumActiveConnections;
+    }
+
+    /**
+     * 只对之后创建的分区生效
+     */
+    public void setPoolPartitionMaximumActiveConnections(int poolPartitionMaximumActiveConnections) {
+        this.poolPartitionMaximumActiveConnections = poolPartitionMaximumActiveConnections;
+    }
+
+    public int getPoolPartitionMaximumIdleConnections() {
+        return poolPartitionMaximumIdleConnections;
+    }
+
+    /**
+     * 只对之后创建的分区生效
+     */
+    public void setPoolPartitionMaximumIdleConnections(int poolPartitionMaximumIdleConnections) {
+        this.poolPartitionMaximumIdleConnections = poolPartitionMaximumIdleConnections;
+    }
+
+    public int getPoolPreparedStatementCacheSize() {
+        return poolPreparedStatementCacheSize;
+    }
+
+    public void setPoolPreparedStatementCacheSize(int poolPreparedStatementCacheSize) {
+        this.poolPreparedStatementCacheSize = poolPreparedStatementCacheSize;
+        // 语句缓存随物理连接创建，修改后需要重建已有连接
+        forceCloseAll();
+    }
+
+    public boolean isPoolFairWait() {
+        return poolFairWait;
+    }
+
+    public void setPoolFairWait(boolean poolFairWait) {
+        this.poolFairWait = poolFairWait;
+        // 交接队列的公平性在创建时确定，切换后重建 CONCURRENT 引擎的容器
+        forceCloseAll();
+        this.bag = new ConcurrentBag(poolFairWait);
+    }
+
+    public int getPoolHousekeepingPeriod() {
+        return poolHousekeepingPeriod;
+    }
+
+    public void setPoolHousekeepingPeriod(int poolHousekeepingPeriod) {
+        this.poolHousekeepingPeriod = poolHousekeepingPeriod;
+        rescheduleHousekeeper();
+    }
+
+    public int getPoolIdleTimeout() {
+        return poolIdleTimeout;
+    }
+
+    public void setPoolIdleTimeout(int poolIdleTimeout) {
+        this.poolIdleTimeout = poolIdleTimeout;
+    }
+
+    public int getPoolMaxLifetime() {
+        return poolMaxLifetime;
+    }
+
+    public void setPoolMaxLifetime(int poolMaxLifetime) {
+        this.poolMaxLifetime = poolMaxLifetime;
+    }
+
+    public int getPoolKeepaliveTime() {
+        return poolKeepaliveTime;
+    }
+
+    public void setPoolKeepaliveTime(int poolKeepaliveTime) {
+        this.poolKeepaliveTime = poolKeepaliveTime;
+    }
+
+    public int getPoolMinimumIdle() {
+        return poolMinimumIdle;
+    }
+
+    public void setPoolMinimumIdle(int poolMinimumIdle) {
+        this.poolMinimumIdle = poolMinimumIdle;
+    }
+
+    public boolean isPoolWarmUp() {
+        return poolWarmUp;
+    }
+
+    public void setPoolWarmUp(boolean poolWarmUp) {
+        this.poolWarmUp = poolWarmUp;
+    }
+
+    public int getPoolWarmUpThreads() {
+        return poolWarmUpThreads;
+    }
+
+    public void setPoolWarmUpThreads(int poolWarmUpThreads) {
+        this.poolWarmUpThreads = poolWarmUpThreads;
+    }
+
+    public int getPoolMaximumConcurrentCreations() {
+        return poolMaximumConcurrentCreations;
+    }
+
+    public void setPoolMaximumConcurrentCreations(int poolMaximumConcurrentCreations) {
+        this.poolMaximumConcurrentCreations = poolMaximumConcurrentCreations;
+        this.creationPermits = new Semaphore(Math.max(1, poolMaximumConcurrentCreations), true);
+    }
+
+    /**
+     * 获取非默认账号分区的连接池状态
+     *
+     * @return 该账号还没有借过连接时返回 null
+     */
+    public PoolState getPoolState(String username, String password) {
+        PooledDataSource partition = partitions == null ? null : partitions.get(new PartitionKey(username, password));
+        return partition == null ? null : partition.state;
+    }
+
+    /**
+     * 非默认账号分区的数量
+     */
+    public int getPartitionCount() {
+        return partitions == null ? 0 : partitions.size();
+    }
+
+    /**
+     * 所有分区（含默认账号）当前的物理连接总数
+     */
+    public int getPhysicalConnectionCount() {
+        return physicalConnections.get();
+    }
+
+    public PoolState getPoolState() {
+        return state;
+    }
+
+    public String getPoolName() {
+        return poolName;
+    }
+
+    public void setPoolName(String poolName) {
+        this.poolName = poolName;
+        if (registeredMbeanName != null) {
+            reregisterMbean();
+        }
+    }
+
+    public boolean isPoolRegisterMbeans() {
+        return poolRegisterMbeans;
+    }
+
+    /**
+     * 开启时立即以 poolName 注册 MXBean，关闭时注销
+     */
+    public void setPoolRegisterMbeans(boolean poolRegisterMbeans) {
+        this.poolRegisterMbeans = poolRegisterMbeans;
+        reregisterMbean();
+    }
+
+    ConcurrentBag getConcurrentBag() {
+        return bag;
+    }
+
     public int getExpectedConnectionTypeCode() {
         return expectedConnectionTypeCode;
     }
@@ -3,6 +3,8 @@ package com.shubai.mybatis.datasource.pooled;
 import com.shubai.mybatis.datasource.unpooled.UnpooledDataSourceFactory;
 
 import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.function.Consumer;
 
 /**
  * ClassName: PooledDataSourceFactory
@@ -21,6 +23,57 @@ public class PooledDataSourceFactory extends UnpooledDataSourceFactory {
         pooledDataSource.setUrl(props.getProperty("url"));
         pooledDataSource.setUsername(props.getProperty("username"));
         pooledDataSource.setPassword(props.getProperty("password"));
+        pooledDataSource.setDriverProperties(driverProperties());
+        // 连接池引擎及参数，未配置的属性保持 PooledDataSource 中的默认值
+        setProperty("poolType", value -> pooledDataSource.setPoolType(PoolType.valueOf(value.toUpperCase(Locale.ENGLISH))));
+        setProperty("poolFairWait", value -> pooledDataSource.setPoolFairWait(Boolean.parseBoolean(value)));
+        setProperty("poolUseReflectiveProxy", value -> pooledDataSource.setPoolUseReflectiveProxy(Boolean.parseBoolean(value)));
+        setProperty("poolPreparedStatementCacheSize", value -> pooledDataSource.setPoolPreparedStatementCacheSize(Integer.parseInt(value)));
+        setProperty("poolMaximumActiveConnections", value -> pooledDataSource.setPoolMaximumActiveConnections(Integer.parseInt(value)));
+        setProperty("poolMaximumIdleConnections", value -> pooledDataSource.setPoolMaximumIdleConnections(Integer.parseInt(value)));
+        setProperty("poolMaximumTotalConnections", value -> pooledDataSource.setPoolMaximumTotalConnections(Integer.parseInt(value)));
+        setProperty("poolPartitionMaximumActiveConnections", value -> pooledDataSource.setPoolPartitionMaximumActiveConnections(Integer.parseInt(value)));
+        setProperty("poolPartitionMaximumIdleConnections", value -> pooledDataSource.setPoolPartitionMaximumIdleConnections(Integer.parseInt(value)));
+        setProperty("poolMaximumCheckoutTime", value -> pooledDataSource.setPoolMaximumCheckoutTime(Integer.parseInt(value)));
+        setProperty("poolLeakDetectionThreshold", value -> pooledDataSource.setPoolLeakDetectionThreshold(Integer.parseInt(value)));
+        setProperty("poolLeakDetectionSampleRate", value -> pooledDataSource.setPoolLeakDetectionSampleRate(Integer.parseInt(value)));
+        setProperty("poolMaximumConcurrentCreations", value -> pooledDataSource.setPoolMaximumConcurrentCreations(Integer.parseInt(value)));
+        setProperty("poolTimeToWait", value -> pooledDataSource.setPoolTimeToWait(Integer.parseInt(value)));
+        setProperty("poolPingQuery", pooledDataSource::setPoolPingQuery);
+        setProperty("poolPingEnabled", value -> pooledDataSource.setPoolPingEnabled(Boolean.parseBoolean(value)));
+        setProperty("poolPingConnectionsNotUsedFor", value -> pooledDataSource.setPoolPingConnectionsNotUsedFor(Integer.parseInt(value)));
+        setProperty("poolValidationStrategy", value -> pooledDataSource.setPoolValidationStrategy(ValidationStrategy.valueOf(value.toUpperCase(Locale.ENGLISH))));
+        setProperty("poolValidationTimeout", value -> pooledDataSource.setPoolValidationTimeout(Integer.parseInt(value)));
+        setProperty("poolValidationWindow", value -> pooledDataSource.setPoolValidationWindow(Integer.parseInt(value)));
+        // 后台维护线程及其参数，poolHousekeepingPeriod 最后设置，启动时其余参数已经就绪
+        setProperty("poolIdleTimeout", value -> pooledDataSource.setPoolIdleTimeout(Integer.parseInt(value)));
+        setProperty("poolMaxLifetime", value -> pooledDataSource.setPoolMaxLifetime(Integer.parseInt(value)));
+        setProperty("poolKeepaliveTime", value -> pooledDataSource.setPoolKeepaliveTime(Integer.parseInt(value)));
+        setProperty("poolMinimumIdle", value -> pooledDataSource.setPoolMinimumIdle(Integer.parseInt(value)));
+        setProperty("poolWarmUp", value -> pooledDataSource.setPoolWarmUp(Boolean.parseBoolean(value)));
+        setProperty("poolWarmUpThreads", value -> pooledDataSource.setPoolWarmUpThreads(Integer.parseInt(value)));
+        // 自适应大小以此时的 poolMaximumActiveConnections 作为默认上限，放在连接池大小之后设置
+        setProperty("poolAdaptiveMinimumActiveConnections", value -> pooledDataSource.setPoolAdaptiveMinimumActiveConnections(Integer.parseInt(value)));
+        setProperty("poolAdaptiveMaximumActiveConnections", value -> pooledDataSource.setPoolAdaptiveMaximumActiveConnections(Integer.parseInt(value)));
+        setProperty("poolAdaptiveWaitThreshold", value -> pooledDataSource.setPoolAdaptiveWaitThreshold(Integer.parseInt(value)));
+        setProperty("poolAdaptiveSizing", value -> pooledDataSource.setPoolAdaptiveSizing(Boolean.parseBoolean(value)));
+        setProperty("poolHousekeepingPeriod", value -> pooledDataSource.setPoolHousekeepingPeriod(Integer.parseInt(value)));
+        // 监控：先确定名称再注册 MXBean
+        setProperty("poolName", pooledDataSource::setPoolName);
+        setProperty("poolRegisterMbeans", value -> pooledDataSource.setPoolRegisterMbeans(Boolean.parseBoolean(value)));
         return pooledDataSource;
     }
+
+    /**
+     * 如果配置了该属性，则把属性值交给对应的 setter
+     *
+     * @param name   属性名
+     * @param setter 属性值的处理逻辑
+     */
+    protected void setProperty(String name, Consumer<String> setter) {
+        String value = props.getProperty(name);
+        if (value != null) {
+            setter.accept(value.trim());
+        }
+    }
 }
@@ -0,0 +1,75 @@
+package com.shubai.mybatis.datasource.pooled;
+
+/**
+ * ClassName: PooledDataSourceMXBean
+ * Description: 连接池的 JMX 管理接口，开启 poolRegisterMbeans 后以 com.shubai.mybatis.datasource:type=PooledDataSource,name=poolName 注册
+ * <p>
+ * 耗时类属性的单位均为微秒，每次读取都基于直方图的一份新快照。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/05 10:40
+ * Version: 1.0
+ */
+public interface PooledDataSourceMXBean {
+
+    String getPoolName();
+
+    int getIdleConnections();
+
+    int getActiveConnections();
+
+    int getWaitingThreads();
+
+    /**
+     * 根数据源和所有分区的物理连接总数
+     */
+    int getPhysicalConnections();
+
+    int getPartitionCount();
+
+    /**
+     * 当前的 poolMaximumActiveConnections，开启自适应大小时随负载变化
+     */
+    int getMaximumActiveConnections();
+
+    long getRequestCount();
+
+    long getHadToWaitCount();
+
+    long getBadConnectionCount();
+
+    long getClaimedOverdueConnectionCount();
+
+    long getCreatedConnectionCount();
+
+    int getSuspectedLeakCount();
+
+    double getStatementCacheHitRatio();
+
+    long getAcquireTimeP50();
+
+    long getAcquireTimeP99();
+
+    long getAcquireTimeP999();
+
+    long getAcquireTimeMax();
+
+    long getWaitTimeP99();
+
+    long getWaitTimeMax();
+
+    long getHoldTimeP50();
+
+    long getHoldTimeP99();
+
+    long getHoldTimeMax();
+
+    long getCreationTimeP99();
+
+    /**
+     * 立即执行一次泄漏检测
+     *
+     * @return 本次新报告的疑似泄漏数
+     */
+    int detectLeaks();
+}
@@ -0,0 +1,173 @@
+package com.shubai.mybatis.datasource.pooled;
+
+/**
+ * ClassName: PooledDataSourceMetrics
+ * Description: PooledDataSourceMXBean 的实现，只读取 PoolState 的计数器和直方图快照，不参与借出和归还
+ * <p>
+ * 监控系统一次采集会连续读取十来个耗时属性，每个属性单独合并一遍直方图既浪费又彼此不一致。
+ * 这里缓存一份 PoolSnapshot，在 SNAPSHOT_TTL_MILLIS 内的所有百分位和最大值都从同一份快照计算；
+ * 连接数、排队线程数等计数器仍然实时读取。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/05 10:50
+ * Version: 1.0
+ */
+public class PooledDataSourceMetrics implements PooledDataSourceMXBean {
+
+    /**
+     * 快照的有效期（毫秒），短于常见的采集间隔，又足够覆盖一次采集读取全部属性的时间
+     */
+    private static final long SNAPSHOT_TTL_MILLIS = 1000;
+
+    private final PooledDataSource dataSource;
+
+    /**
+     * 最近一次的直方图快照
+     */
+    private volatile PoolSnapshot snapshot;
+
+    public PooledDataSourceMetrics(PooledDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    private PoolState state() {
+        return dataSource.getPoolState();
+    }
+
+    /**
+     * 返回有效期内的快照，过期后重新创建；并发采集时可能重复创建，结果等价，不加锁
+     */
+    private PoolSnapshot snapshot() {
+        PoolSnapshot current = snapshot;
+        if (current == null || System.currentTimeMillis() - current.getTimestamp() >= SNAPSHOT_TTL_MILLIS) {
+            current = state().snapshot();
+            snapshot = current;
+        }
+        return current;
+    }
+
+    @Override
+    public String getPoolName() {
+        return dataSource.getPoolName();
+    }
+
+    @Override
+    public int getIdleConnections() {
+        return state().getIdleConnectionCount();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return state().getActiveConnectionCount();
+    }
+
+    @Override
+    public int getWaitingThreads() {
+        return state().getWaitingThreadCount();
+    }
+
+    @Override
+    public int getPhysicalConnections() {
+        return dataSource.getPhysicalConnectionCount();
+    }
+
+    @Override
+    public int getPartitionCount() {
+        return dataSource.getPartitionCount();
+    }
+
+    @Override
+    public int getMaximumActiveConnections() {
+        return dataSource.getPoolMaximumActiveConnections();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return state().getRequestCount();
+    }
+
+    @Override
+    public long getHadToWaitCount() {
+        return state().getHadToWaitCount();
+    }
+
+    @Override
+    public long getBadConnectionCount() {
+        return state().getBadConnectionCount();
+    }
+
+    @Override
+    public long getClaimedOverdueConnectionCount() {
+        return state().getClaimedOverdueConnectionCount();
+    }
+
+    @Override
+    public long getCreatedConnectionCount() {
+        return state().getCreatedConnectionCount();
+    }
+
+    @Override
+    public int getSuspectedLeakCount() {
+        return state().getSuspectedLeakCount();
+    }
+
+    @Override
+    public double getStatementCacheHitRatio() {
+        return state().getStatementCacheHitRatio();
+    }
+
+    @Override
+    public long getAcquireTimeP50() {
+        return snapshot().getAcquireTime().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getAcquireTimeP99() {
+        return snapshot().getAcquireTime().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getAcquireTimeP999() {
+        return snapshot().getAcquireTime().getValueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getAcquireTimeMax() {
+        return snapshot().getAcquireTime().getMax();
+    }
+
+    @Override
+    public long getWaitTimeP99() {
+        return snapshot().getWaitTime().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getWaitTimeMax() {
+        return snapshot().getWaitTime().getMax();
+    }
+
+    @Override
+    public long getHoldTimeP50() {
+        return snapshot().getHoldTime().getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getHoldTimeP99() {
+        return snapshot().getHoldTime().getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getHoldTimeMax() {
+        return snapshot().getHoldTime().getMax();
+    }
+
+    @Override
+    public long getCreationTimeP99() {
+        return snapshot().getCreationTime().getValueAtPercentile(99);
+    }
+
+    @Override
+    public int detectLeaks() {
+        return dataSource.detectLeaks();
+    }
+}
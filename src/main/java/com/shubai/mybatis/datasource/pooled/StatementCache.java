@@ -0,0 +1,328 @@
+package com.shubai.mybatis.datasource.pooled;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ClassName: StatementCache
+ * Description: 单个物理连接上的 PreparedStatement LRU 缓存，key 为 SQL 文本和结果集选项
+ * <p>
+ * 命中时返回缓存语句的包装（CachedPreparedStatement），包装 close 时清空参数并放回缓存；
+ * 同一条 SQL 的缓存语句正在使用时，新请求创建一个不进入缓存的语句，同样以包装返回，归还或租约结束时关闭。
+ * 超出容量时淘汰最久未使用的语句，正在使用的语句等到归还时再关闭；物理连接失效时整个缓存被清空。
+ * <p>
+ * 一个物理连接同一时刻只属于一个租约，但超时回收可能在其他线程上结束租约，因此所有方法都加锁。
+ * 锁内会访问数据库（预编译、关闭语句），使用 ReentrantLock 而不是 synchronized，虚拟线程不会因此被钉在载体线程上。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/03 10:00
+ * Version: 1.0
+ */
+public class StatementCache {
+
+    /**
+     * 结果集选项未指定，对应不带该参数的 prepareStatement 重载
+     */
+    public static final int UNSPECIFIED = -1;
+
+    /**
+     * 缓存的最大语句数
+     */
+    private final int maxSize;
+
+    /**
+     * 真实的数据库连接对象
+     */
+    private final Connection realConnection;
+
+    /**
+     * 命中、未命中等计数记录在连接池状态中
+     */
+    private final PoolState state;
+
+    /**
+     * 按访问顺序排列的缓存条目，最久未使用的在最前面
+     */
+    private final LinkedHashMap<StatementKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 借出中的不缓存语句，租约结束时和缓存中借出的语句一起收回
+     */
+    private final List<Entry> detachedEntries = new ArrayList<>();
+
+    /**
+     * 当前被借出的语句数量（含不缓存的语句），为 0 时结束租约不需要遍历缓存
+     */
+    private int inUseCount;
+
+    /**
+     * 物理连接失效后缓存被关闭，之后归还的语句直接关闭
+     */
+    private boolean closed;
+
+    public StatementCache(Connection realConnection, int maxSize, PoolState state) {
+        this.realConnection = realConnection;
+        this.maxSize = maxSize;
+        this.state = state;
+    }
+
+    /**
+     * 缓存条目，owner 为当前借出该语句的包装，空闲时为 null
+     */
+    static final class Entry {
+
+        final StatementKey key;
+
+        final PreparedStatement statement;
+
+        /**
+         * 不进入缓存的语句，只借出一次，归还时关闭
+         */
+        final boolean detached;
+
+        volatile CachedPreparedStatement owner;
+
+        /**
+         * 借出期间被淘汰，归还时关闭
+         */
+        boolean evicted;
+
+        Entry(StatementKey key, PreparedStatement statement, boolean detached) {
+            this.key = key;
+            this.statement = statement;
+            this.detached = detached;
+            this.evicted = detached;
+        }
+    }
+
+    /**
+     * 缓存 key，hashCode 预先计算
+     */
+    static final class StatementKey {
+
+        private final String sql;
+
+        private final int resultSetType;
+
+        private final int resultSetConcurrency;
+
+        private final int resultSetHoldability;
+
+        private final int hashCode;
+
+        StatementKey(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) {
+            this.sql = sql;
+            this.resultSetType = resultSetType;
+            this.resultSetConcurrency = resultSetConcurrency;
+            this.resultSetHoldability = resultSetHoldability;
+            this.hashCode = ((sql.hashCode() * 31 + resultSetType) * 31 + resultSetConcurrency) * 31 + resultSetHoldability;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof StatementKey)) {
+                return false;
+            }
+            StatementKey other = (StatementKey) obj;
+            return hashCode == other.hashCode
+                    && resultSetType == other.resultSetType
+                    && resultSetConcurrency == other.resultSetConcurrency
+                    && resultSetHoldability == other.resultSetHoldability
+                    && sql.equals(other.sql);
+        }
+    }
+
+    /**
+     * 从缓存中获取预编译语句，未命中时创建并放入缓存
+     *
+     * @param connection           使用者持有的连接句柄，作为语句的 getConnection 返回值
+     * @param sql                  SQL 文本
+     * @param resultSetType        结果集类型，未指定时为 UNSPECIFIED
+     * @param resultSetConcurrency 结果集并发模式，未指定时为 UNSPECIFIED
+     * @param resultSetHoldability 结果集可保持性，未指定时为 UNSPECIFIED
+     */
+    public PreparedStatement prepareStatement(Connection connection, String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        lock.lock();
+        try {
+            if (sql == null) {
+                throw new SQLException("PooledDataSource: SQL must not be null.");
+            }
+            StatementKey key = new StatementKey(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            Entry entry = entries.get(key);
+            if (entry != null && entry.owner == null) {
+                state.statementCacheHitCount.increment();
+                return checkout(entry, connection);
+            }
+            state.statementCacheMissCount.increment();
+            PreparedStatement statement = createStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+            if (entry != null || closed) {
+                // 同一条 SQL 的缓存语句正在使用（例如嵌套查询），这次使用不缓存的语句；
+                // 仍然包装后返回，getConnection 不会暴露真实连接，租约结束时也能被收回
+                Entry detached = new Entry(key, statement, true);
+                detachedEntries.add(detached);
+                return checkout(detached, connection);
+            }
+            entry = new Entry(key, statement, false);
+            entries.put(key, entry);
+            evictIfNecessary();
+            return checkout(entry, connection);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 包装 close 时调用：清空参数后放回缓存，修改过属性、已被淘汰或者清理失败的语句直接关闭
+     */
+    void release(Entry entry, CachedPreparedStatement owner) {
+        lock.lock();
+        try {
+            if (entry.owner != owner) {
+                return;
+            }
+            entry.owner = null;
+            inUseCount--;
+            if (entry.detached) {
+                detachedEntries.remove(entry);
+            }
+            closeQuietly(owner.getTrackedResultSet());
+            if (entry.evicted || closed || owner.isModified() || !reset(entry.statement)) {
+                entries.remove(entry.key, entry);
+                closeQuietly(entry.statement);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 租约结束时调用：收回使用者忘记 close 的语句，旧包装之后的调用都会被拒绝
+     */
+    public void releaseAll() {
+        lock.lock();
+        try {
+            if (inUseCount == 0) {
+                return;
+            }
+            List<Entry> inUse = new ArrayList<>(detachedEntries);
+            for (Entry entry : entries.values()) {
+                if (entry.owner != null) {
+                    inUse.add(entry);
+                }
+            }
+            for (Entry entry : inUse) {
+                release(entry, entry.owner);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 物理连接失效时调用：关闭所有空闲语句，借出中的语句归还时关闭
+     */
+    public void clear() {
+        lock.lock();
+        try {
+            closed = true;
+            for (Entry entry : entries.values()) {
+                if (entry.owner == null) {
+                    closeQuietly(entry.statement);
+                } else {
+                    entry.evicted = true;
+                }
+            }
+            entries.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    private CachedPreparedStatement checkout(Entry entry, Connection connection) {
+        CachedPreparedStatement cached = new CachedPreparedStatement(this, entry, connection);
+        entry.owner = cached;
+        inUseCount++;
+        return cached;
+    }
+
+    /**
+     * 超出容量时按访问顺序淘汰，刚放入的条目在最后，不会被淘汰
+     */
+    private void evictIfNecessary() {
+        Iterator<Map.Entry<StatementKey, Entry>> iterator = entries.entrySet().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            state.statementCacheEvictionCount.increment();
+            if (eldest.owner == null) {
+                closeQuietly(eldest.statement);
+            } else {
+                eldest.evicted = true;
+            }
+        }
+    }
+
+    private PreparedStatement createStatement(String sql, int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+        if (resultSetType == UNSPECIFIED) {
+            return realConnection.prepareStatement(sql);
+        } else if (resultSetHoldability == UNSPECIFIED) {
+            return realConnection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+        }
+        return realConnection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+    }
+
+    /**
+     * 清空参数、批处理和警告，使语句可以被下一个使用者复用
+     */
+    private boolean reset(PreparedStatement statement) {
+        try {
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception ignore) {
+            // 忽略关闭过程中的错误
+        }
+    }
+}
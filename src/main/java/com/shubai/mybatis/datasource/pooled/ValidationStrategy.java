@@ -0,0 +1,27 @@
+package com.shubai.mybatis.datasource.pooled;
+
+/**
+ * ClassName: ValidationStrategy
+ * Description: 借出连接时的有效性检测方式，通过 PooledDataSourceFactory 的 poolValidationStrategy 属性选择
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/04 09:30
+ * Version: 1.0
+ */
+public enum ValidationStrategy {
+
+    /**
+     * 优先使用 JDBC4 的 Connection.isValid(timeout)，驱动不支持时退回到 PING_QUERY
+     */
+    AUTO,
+
+    /**
+     * 总是使用 Connection.isValid(timeout)，由驱动用最轻量的方式（如 MySQL 的 COM_PING）检测
+     */
+    JDBC4,
+
+    /**
+     * 原有方式：检查 isClosed()，开启 poolPingEnabled 时再执行 poolPingQuery
+     */
+    PING_QUERY
+}
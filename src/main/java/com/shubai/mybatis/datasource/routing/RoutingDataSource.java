@@ -0,0 +1,339 @@
+package com.shubai.mybatis.datasource.routing;
+
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * ClassName: RoutingDataSource
+ * Description: 读写分离数据源：一个主库和 N 个从库（通常各自是一个 PooledDataSource）
+ * <p>
+ * getConnection(SqlCommandType, boolean) 把不在写事务中的 SELECT 路由到从库，其余语句和普通的 getConnection() 一律使用主库。
+ * 是否处于写事务由调用方（BaseExecutor 按会话的事务状态）传入，数据源本身不按线程记录借出的主库连接：
+ * 连接可能在一个线程上借出、在另一个线程上使用，按线程判断会把无关的会话钉在主库上。
+ * <p>
+ * 从库按最少未完成请求（借出未 close 的连接数）选择，未完成请求数相同时轮流选择。
+ * 从库连续 replicaFailureThreshold 次获取连接失败后被摘除 replicaEjectionTime 毫秒，再次失败时摘除时间翻倍（最多 MAX_EJECTION_MULTIPLIER 倍），
+ * 获取成功后恢复；所有从库都不可用时读请求退回主库。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/06 10:00
+ * Version: 1.0
+ */
+public class RoutingDataSource implements DataSource {
+
+    /**
+     * 连续摘除时摘除时间的最大倍数
+     */
+    static final int MAX_EJECTION_MULTIPLIER = 8;
+
+    /**
+     * 日志模块
+     */
+    private org.slf4j.Logger logger = LoggerFactory.getLogger(RoutingDataSource.class);
+
+    /**
+     * 主库
+     */
+    private final Target primary;
+
+    /**
+     * 从库，创建后不再变化
+     */
+    private final List<Target> replicas;
+
+    /**
+     * 未完成请求数相同时轮流选择的起点
+     */
+    private final AtomicInteger cursor = new AtomicInteger();
+
+    /**
+     * 连续失败多少次后摘除从库
+     */
+    protected int replicaFailureThreshold = 3;
+
+    /**
+     * 从库第一次被摘除的时长（毫秒）
+     */
+    protected long replicaEjectionTime = 30000;
+
+    /**
+     * 因为所有从库都不可用而改走主库的读请求数
+     */
+    private final LongAdder primaryFallbackCount = new LongAdder();
+
+    public RoutingDataSource(DataSource primary, List<DataSource> replicas) {
+        this.primary = new Target("primary", primary);
+        List<Target> targets = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.add(new Target("replica-" + i, replicas.get(i)));
+        }
+        this.replicas = Collections.unmodifiableList(targets);
+    }
+
+    /**
+     * 主库或从库，记录未完成请求数和健康状态
+     */
+    public static final class Target {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        /**
+         * 借出未 close 的连接数
+         */
+        private final AtomicInteger outstandingRequests = new AtomicInteger();
+
+        /**
+         * 成功借出的连接总数
+         */
+        private final LongAdder requestCount = new LongAdder();
+
+        /**
+         * 连续获取连接失败的次数，成功后清零
+         */
+        private volatile int consecutiveFailures;
+
+        /**
+         * 连续被摘除的次数，决定下一次摘除的时长，成功后清零
+         */
+        private volatile int ejections;
+
+        /**
+         * 摘除截止时间（毫秒），0 表示没有被摘除
+         */
+        private volatile long ejectedUntil;
+
+        Target(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void release() {
+            outstandingRequests.decrementAndGet();
+        }
+
+        boolean isAvailable(long now) {
+            return ejectedUntil <= now;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+
+        public int getOutstandingRequests() {
+            return outstandingRequests.get();
+        }
+
+        public long getRequestCount() {
+            return requestCount.sum();
+        }
+
+        public int getConsecutiveFailures() {
+            return consecutiveFailures;
+        }
+
+        /**
+         * 当前是否处于摘除期
+         */
+        public boolean isEjected() {
+            return !isAvailable(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * 按语句类型获取连接：不在写事务中的 SELECT 使用从库，其余使用主库
+     *
+     * @param commandType        要执行的语句类型
+     * @param inWriteTransaction 调用方是否已经在主库上开始了事务，为 true 时 SELECT 也使用主库，保证事务内能读到自己的写入
+     * @return 连接，使用完毕后必须 close
+     * @throws SQLException 获取连接失败
+     */
+    public Connection getConnection(SqlCommandType commandType, boolean inWriteTransaction) throws SQLException {
+        if (commandType == SqlCommandType.SELECT && !replicas.isEmpty() && !inWriteTransaction) {
+            return getReadConnection();
+        }
+        return getConnection();
+    }
+
+    /**
+     * 从从库获取连接：按最少未完成请求依次尝试可用的从库，全部失败或不可用时使用主库
+     */
+    public Connection getReadConnection() throws SQLException {
+        int size = replicas.size();
+        boolean[] tried = new boolean[size];
+        for (int attempt = 0; attempt < size; attempt++) {
+            long now = System.currentTimeMillis();
+            int start = Math.floorMod(cursor.getAndIncrement(), size);
+            Target chosen = null;
+            int chosenIndex = -1;
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % size;
+                Target candidate = replicas.get(index);
+                if (tried[index] || !candidate.isAvailable(now)) {
+                    continue;
+                }
+                if (chosen == null || candidate.outstandingRequests.get() < chosen.outstandingRequests.get()) {
+                    chosen = candidate;
+                    chosenIndex = index;
+                }
+            }
+            if (chosen == null) {
+                break;
+            }
+            tried[chosenIndex] = true;
+            // 先计入未完成请求，让并发的选择看到这次请求
+            chosen.outstandingRequests.incrementAndGet();
+            try {
+                Connection connection = chosen.dataSource.getConnection();
+                recordSuccess(chosen);
+                return new RoutedConnection(connection, chosen);
+            } catch (SQLException e) {
+                chosen.release();
+                recordFailure(chosen, e);
+            }
+        }
+        primaryFallbackCount.increment();
+        logger.debug("No replica available, routing read to primary.");
+        return getConnection();
+    }
+
+    private void recordSuccess(Target target) {
+        target.requestCount.increment();
+        if (target.consecutiveFailures != 0 || target.ejections != 0) {
+            target.consecutiveFailures = 0;
+            target.ejections = 0;
+            target.ejectedUntil = 0;
+            logger.info("Replica " + target.name + " recovered.");
+        }
+    }
+
+    private void recordFailure(Target target, SQLException e) {
+        int failures = ++target.consecutiveFailures;
+        if (failures < replicaFailureThreshold) {
+            logger.warn("Could not get a connection from replica " + target.name + " (" + failures + " consecutive failures).", e);
+            return;
+        }
+        // 摘除期结束后的第一次尝试仍然失败，摘除时间翻倍
+        int ejections = Math.min(target.ejections + 1, Integer.numberOfTrailingZeros(MAX_EJECTION_MULTIPLIER) + 1);
+        target.ejections = ejections;
+        long duration = replicaEjectionTime << (ejections - 1);
+        target.ejectedUntil = System.currentTimeMillis() + duration;
+        logger.warn("Ejected replica " + target.name + " for " + duration + " ms after " + failures + " consecutive failures.", e);
+    }
+
+    /**
+     * 获取主库连接
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return trackPrimary(primary.dataSource.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return trackPrimary(primary.dataSource.getConnection(username, password));
+    }
+
+    private Connection trackPrimary(Connection connection) {
+        primary.outstandingRequests.incrementAndGet();
+        primary.requestCount.increment();
+        return new RoutedConnection(connection, primary);
+    }
+
+    /**
+     * 关闭主库和从库中的连接池
+     */
+    public void close() {
+        close(primary.dataSource);
+        for (Target replica : replicas) {
+            close(replica.dataSource);
+        }
+    }
+
+    private static void close(DataSource dataSource) {
+        if (dataSource instanceof PooledDataSource) {
+            ((PooledDataSource) dataSource).close();
+        }
+    }
+
+    public Target getPrimary() {
+        return primary;
+    }
+
+    public List<Target> getReplicas() {
+        return replicas;
+    }
+
+    public long getPrimaryFallbackCount() {
+        return primaryFallbackCount.sum();
+    }
+
+    public int getReplicaFailureThreshold() {
+        return replicaFailureThreshold;
+    }
+
+    public void setReplicaFailureThreshold(int replicaFailureThreshold) {
+        this.replicaFailureThreshold = Math.max(1, replicaFailureThreshold);
+    }
+
+    public long getReplicaEjectionTime() {
+        return replicaEjectionTime;
+    }
+
+    public void setReplicaEjectionTime(long replicaEjectionTime) {
+        this.replicaEjectionTime = replicaEjectionTime;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return primary.dataSource.getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        primary.dataSource.setLogWriter(out);
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        primary.dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return primary.dataSource.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException(getClass().getName() + " is not a wrapper.");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return false;
+    }
+}
@@ -0,0 +1,61 @@
+package com.shubai.mybatis.datasource.routing;
+
+import com.shubai.mybatis.datasource.DataSourceFactory;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * ClassName: RoutingDataSourceFactory
+ * Description: 读写分离数据源工厂
+ * <p>
+ * 主库和从库由 XMLConfigBuilder 解析嵌套的 &lt;dataSource role="primary|replica"&gt; 标签后传入，
+ * 自身的 &lt;property&gt; 只配置从库的健康检查参数：replicaFailureThreshold、replicaEjectionTime。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/06 10:40
+ * Version: 1.0
+ */
+public class RoutingDataSourceFactory implements DataSourceFactory {
+
+    /**
+     * 数据源配置属性
+     */
+    protected Properties props = new Properties();
+
+    private DataSource primary;
+
+    private final List<DataSource> replicas = new ArrayList<>();
+
+    @Override
+    public void setProperties(Properties props) {
+        this.props = props;
+    }
+
+    public void setPrimary(DataSource primary) {
+        this.primary = primary;
+    }
+
+    public void addReplica(DataSource replica) {
+        replicas.add(replica);
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        if (primary == null) {
+            throw new IllegalStateException("RoutingDataSource requires a nested <dataSource role=\"primary\">.");
+        }
+        RoutingDataSource routingDataSource = new RoutingDataSource(primary, replicas);
+        String threshold = props.getProperty("replicaFailureThreshold");
+        if (threshold != null) {
+            routingDataSource.setReplicaFailureThreshold(Integer.parseInt(threshold.trim()));
+        }
+        String ejectionTime = props.getProperty("replicaEjectionTime");
+        if (ejectionTime != null) {
+            routingDataSource.setReplicaEjectionTime(Long.parseLong(ejectionTime.trim()));
+        }
+        return routingDataSource;
+    }
+}
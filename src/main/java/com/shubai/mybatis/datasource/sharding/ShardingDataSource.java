@@ -0,0 +1,277 @@
+package com.shubai.mybatis.datasource.sharding;
+
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.datasource.routing.RoutingDataSource;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * ClassName: ShardingDataSource
+ * Description: 分片数据源：持有多个分片（通常各自是一个 PooledDataSource 或 RoutingDataSource），按分片键把语句路由到对应的分片
+ * <p>
+ * 声明了 shardKey 的语句由 BaseExecutor 取出分片键的值，通过 getShard 找到所在分片；
+ * 没有分片键的查询通过 scatterGather 在所有分片上并行执行，结果按分片顺序合并。
+ * 没有分片键的写语句不做分散执行：INSERT 直接拒绝，UPDATE、DELETE 只有声明了 broadcast 才在每个分片上执行。
+ * 普通的 getConnection() 使用第一个分片（默认分片），用于不分片的表。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/07 09:40
+ * Version: 1.0
+ */
+public class ShardingDataSource implements DataSource {
+
+    /**
+     * 分片，创建后不再变化
+     */
+    private final List<DataSource> shards;
+
+    /**
+     * 分片名称，和 shards 一一对应
+     */
+    private final List<String> shardNames;
+
+    /**
+     * 分片策略
+     */
+    protected ShardingStrategy shardingStrategy = ShardingStrategy.MODULO;
+
+    /**
+     * 并行查询所有分片的线程数，0 表示和分片数量相同
+     */
+    protected int scatterGatherThreads = 0;
+
+    /**
+     * 并行查询所有分片的线程池，第一次使用时创建
+     */
+    private volatile ExecutorService scatterGatherExecutor;
+
+    private static final AtomicInteger EXECUTOR_SEQUENCE = new AtomicInteger();
+
+    public ShardingDataSource(List<String> shardNames, List<DataSource> shards) {
+        if (shards.isEmpty() || shardNames.size() != shards.size()) {
+            throw new IllegalArgumentException("ShardingDataSource requires at least one shard and a name for each shard.");
+        }
+        this.shardNames = Collections.unmodifiableList(new ArrayList<>(shardNames));
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+    }
+
+    /**
+     * 在一个分片上执行的查询
+     */
+    public interface ShardQuery<E> {
+
+        /**
+         * @param shard 分片数据源
+         * @return 该分片上的查询结果
+         */
+        List<E> query(DataSource shard) throws Exception;
+    }
+
+    /**
+     * 根据分片键的值找到所在分片
+     *
+     * @param shardKey 分片键的值
+     * @return 分片数据源
+     * @throws SQLException 分片键为 null
+     */
+    public DataSource getShard(Object shardKey) throws SQLException {
+        if (shardKey == null) {
+            throw new SQLException("Shard key must not be null.");
+        }
+        return shards.get(shardIndex(shardKey));
+    }
+
+    /**
+     * 根据分片键的值计算所在分片的下标
+     */
+    public int shardIndex(Object shardKey) {
+        int index = shardingStrategy.shardFor(shardKey, shards.size());
+        if (index < 0 || index >= shards.size()) {
+            throw new IllegalStateException("Sharding strategy returned shard " + index + " for key " + shardKey + ", but there are " + shards.size() + " shards.");
+        }
+        return index;
+    }
+
+    /**
+     * 在所有分片上并行执行查询，按分片顺序合并结果；任意一个分片失败时整个查询失败
+     *
+     * @param query 在单个分片上执行的查询
+     * @return 合并后的结果
+     * @throws SQLException 某个分片查询失败
+     */
+    public <E> List<E> scatterGather(ShardQuery<E> query) throws SQLException {
+        // 只有一个分片时直接在当前线程执行
+        if (shards.size() == 1) {
+            return runQuery(query, shards.get(0));
+        }
+        ExecutorService executor = getScatterGatherExecutor();
+        List<Future<List<E>>> futures = new ArrayList<>(shards.size());
+        try {
+            for (DataSource shard : shards) {
+                futures.add(executor.submit((Callable<List<E>>) () -> query.query(shard)));
+            }
+            List<E> merged = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    List<E> result = futures.get(i).get();
+                    if (result != null) {
+                        merged.addAll(result);
+                    }
+                } catch (ExecutionException e) {
+                    throw new SQLException("Error querying shard " + shardNames.get(i) + ". Cause: " + e.getCause(), e.getCause());
+                }
+            }
+            return merged;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while querying all shards.", e);
+        } finally {
+            // 失败或中断时取消还没有完成的分片查询
+            for (Future<List<E>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    private static <E> List<E> runQuery(ShardQuery<E> query, DataSource shard) throws SQLException {
+        try {
+            List<E> result = query.query(shard);
+            return result != null ? result : new ArrayList<>();
+        } catch (SQLException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SQLException("Error querying shard. Cause: " + e, e);
+        }
+    }
+
+    private ExecutorService getScatterGatherExecutor() {
+        ExecutorService executor = scatterGatherExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = scatterGatherExecutor;
+                if (executor == null) {
+                    int threads = scatterGatherThreads > 0 ? scatterGatherThreads : shards.size();
+                    String prefix = "ShardingDataSource-" + EXECUTOR_SEQUENCE.incrementAndGet() + "-scatter-";
+                    AtomicInteger threadSequence = new AtomicInteger();
+                    executor = Executors.newFixedThreadPool(threads, runnable -> {
+                        Thread thread = new Thread(runnable, prefix + threadSequence.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                    scatterGatherExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * 使用默认分片（第一个分片）获取连接
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        return shards.get(0).getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return shards.get(0).getConnection(username, password);
+    }
+
+    /**
+     * 关闭并行查询线程池和各个分片中的连接池
+     */
+    public void close() {
+        ExecutorService executor = scatterGatherExecutor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        for (DataSource shard : shards) {
+            if (shard instanceof PooledDataSource) {
+                ((PooledDataSource) shard).close();
+            } else if (shard instanceof RoutingDataSource) {
+                ((RoutingDataSource) shard).close();
+            }
+        }
+    }
+
+    public List<DataSource> getShards() {
+        return shards;
+    }
+
+    public List<String> getShardNames() {
+        return shardNames;
+    }
+
+    public ShardingStrategy getShardingStrategy() {
+        return shardingStrategy;
+    }
+
+    public void setShardingStrategy(ShardingStrategy shardingStrategy) {
+        this.shardingStrategy = shardingStrategy;
+    }
+
+    public int getScatterGatherThreads() {
+        return scatterGatherThreads;
+    }
+
+    /**
+     * 在第一次并行查询之前设置才生效
+     */
+    public void setScatterGatherThreads(int scatterGatherThreads) {
+        this.scatterGatherThreads = scatterGatherThreads;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return shards.get(0).getLogWriter();
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        for (DataSource shard : shards) {
+            shard.setLogWriter(out);
+        }
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        for (DataSource shard : shards) {
+            shard.setLoginTimeout(seconds);
+        }
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return shards.get(0).getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        throw new SQLException(getClass().getName() + " is not a wrapper.");
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return false;
+    }
+}
@@ -0,0 +1,79 @@
+package com.shubai.mybatis.datasource.sharding;
+
+import com.shubai.mybatis.datasource.DataSourceFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * ClassName: ShardingDataSourceFactory
+ * Description: 分片数据源工厂
+ * <p>
+ * 分片由 XMLConfigBuilder 解析嵌套的 &lt;dataSource role="shard" name="..."&gt; 标签后按声明顺序传入，
+ * 自身的 &lt;property&gt; 支持 shardingStrategy（ShardingStrategy 实现类的全限定名）和 scatterGatherThreads。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/07 10:10
+ * Version: 1.0
+ */
+public class ShardingDataSourceFactory implements DataSourceFactory {
+
+    /**
+     * 数据源配置属性
+     */
+    protected Properties props = new Properties();
+
+    private final List<String> shardNames = new ArrayList<>();
+
+    private final List<DataSource> shards = new ArrayList<>();
+
+    @Override
+    public void setProperties(Properties props) {
+        this.props = props;
+    }
+
+    /**
+     * 按顺序添加分片，分片下标即添加顺序
+     *
+     * @param name  分片名称，为 null 时使用 shard-下标
+     * @param shard 分片数据源
+     */
+    public void addShard(String name, DataSource shard) {
+        shardNames.add(name != null ? name : "shard-" + shards.size());
+        shards.add(shard);
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        if (shards.isEmpty()) {
+            throw new IllegalStateException("ShardingDataSource requires at least one nested <dataSource role=\"shard\">.");
+        }
+        ShardingDataSource shardingDataSource = new ShardingDataSource(shardNames, shards);
+        String strategy = props.getProperty("shardingStrategy");
+        if (strategy != null) {
+            try {
+                shardingDataSource.setShardingStrategy((ShardingStrategy) Class.forName(strategy.trim()).getDeclaredConstructor().newInstance());
+            } catch (InvocationTargetException e) {
+                // 构造器自身抛出的异常原样抛出，不再包一层反射异常
+                Throwable cause = e.getTargetException();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IllegalArgumentException("Error creating sharding strategy " + strategy + ". Cause: " + cause, cause);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Error creating sharding strategy " + strategy + ". Cause: " + e, e);
+            }
+        }
+        String threads = props.getProperty("scatterGatherThreads");
+        if (threads != null) {
+            shardingDataSource.setScatterGatherThreads(Integer.parseInt(threads.trim()));
+        }
+        return shardingDataSource;
+    }
+}
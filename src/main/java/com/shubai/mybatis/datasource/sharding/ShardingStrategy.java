@@ -0,0 +1,31 @@
+package com.shubai.mybatis.datasource.sharding;
+
+/**
+ * ClassName: ShardingStrategy
+ * Description: 分片策略：根据分片键的值计算所在分片的下标
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/07 09:30
+ * Version: 1.0
+ */
+public interface ShardingStrategy {
+
+    /**
+     * 默认策略：整数取模，其他类型按 hashCode 取模
+     */
+    ShardingStrategy MODULO = (shardKey, shardCount) -> {
+        if (shardKey instanceof Number) {
+            return (int) Math.floorMod(((Number) shardKey).longValue(), (long) shardCount);
+        }
+        return Math.floorMod(shardKey.hashCode(), shardCount);
+    };
+
+    /**
+     * 计算分片下标
+     *
+     * @param shardKey   分片键的值，不为 null
+     * @param shardCount 分片数量
+     * @return 分片下标，范围 [0, shardCount)
+     */
+    int shardFor(Object shardKey, int shardCount);
+}
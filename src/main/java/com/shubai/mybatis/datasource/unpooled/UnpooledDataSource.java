@@ -5,6 +5,7 @@ import java.io.PrintWriter;
 import java.sql.*;
 import java.util.Enumeration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
@@ -64,6 +65,18 @@ public class UnpooledDataSource implements DataSource {
      */
     private Integer defaultTransactionIsolationLevel;
 
+    /**
+     * 解析好的驱动实例，创建连接时直接调用 Driver.connect，不再经过 DriverManager 逐个尝试已注册的驱动
+     * driver、driverClassLoader 或 url 变化时清空，下次创建连接时重新解析
+     */
+    private volatile Driver resolvedDriver;
+
+    /**
+     * 使用默认账号创建连接时的连接属性：driverProperties 加上 user、password，预先构建好且不可修改
+     * driverProperties、username 或 password 变化时清空
+     */
+    private volatile Properties connectionProperties;
+
     static {
         Enumeration<Driver> drivers = DriverManager.getDrivers();
         while (drivers.hasMoreElements()) {
@@ -90,7 +103,7 @@ public class UnpooledDataSource implements DataSource {
 
         @Override
         public boolean acceptsURL(String url) throws SQLException {
-            return this.acceptsURL(url);
+            return this.driver.acceptsURL(url);
         }
 
         @Override
@@ -119,25 +132,98 @@ public class UnpooledDataSource implements DataSource {
         }
     }
 
+    /**
+     * 不可修改的连接属性，多次创建连接共享同一份，避免每次都分配并填充新的 Properties
+     */
+    private static final class ImmutableProperties extends Properties {
+
+        private static final long serialVersionUID = 1L;
+
+        private final boolean frozen;
+
+        ImmutableProperties(Properties source) {
+            for (String name : source.stringPropertyNames()) {
+                super.put(name, source.getProperty(name));
+            }
+            frozen = true;
+        }
+
+        @Override
+        public synchronized Object put(Object key, Object value) {
+            if (frozen) {
+                throw new UnsupportedOperationException("Connection properties are immutable.");
+            }
+            return super.put(key, value);
+        }
+
+        @Override
+        public synchronized Object remove(Object key) {
+            throw new UnsupportedOperationException("Connection properties are immutable.");
+        }
+
+        @Override
+        public synchronized void putAll(Map<?, ?> t) {
+            throw new UnsupportedOperationException("Connection properties are immutable.");
+        }
+
+        @Override
+        public synchronized void clear() {
+            throw new UnsupportedOperationException("Connection properties are immutable.");
+        }
+    }
+
+    /**
+     * 解析驱动：只在第一次创建连接或驱动配置变化后执行，之后直接使用缓存的驱动实例
+     */
+    private Driver resolveDriver() throws SQLException {
+        Driver resolved = resolvedDriver;
+        if (resolved != null) {
+            return resolved;
+        }
+        synchronized (this) {
+            if (resolvedDriver == null) {
+                resolvedDriver = initializerDriver();
+            }
+            return resolvedDriver;
+        }
+    }
+
     /**
      * 初始化驱动
      */
-    private synchronized void initializerDriver() throws SQLException {
-        if(!registeredDrivers.containsKey(driver)){
-            try{
-                Class<?> driverType = Class.forName(driver, true, driverClassLoader);
-                Driver driverInstance = (Driver) driverType.newInstance();
+    private Driver initializerDriver() throws SQLException {
+        // 没有配置驱动类时，由 DriverManager 根据 url 找到驱动，只查找这一次
+        if (driver == null) {
+            return DriverManager.getDriver(url);
+        }
+        Driver driverInstance = registeredDrivers.get(driver);
+        if (driverInstance == null) {
+            try {
+                // 没有指定类加载器时使用加载当前类的类加载器，Class.forName(driver, true, null) 只会在启动类加载器中查找
+                Class<?> driverType = driverClassLoader != null ? Class.forName(driver, true, driverClassLoader) : Class.forName(driver);
+                driverInstance = (Driver) driverType.newInstance();
                 DriverManager.registerDriver(new DriverProxy(driverInstance));
-                registeredDrivers.put(driver, driverInstance);
-            }catch (Exception e){
-                throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e);
+                Driver existing = registeredDrivers.putIfAbsent(driver, driverInstance);
+                if (existing != null) {
+                    driverInstance = existing;
+                }
+            } catch (Exception e) {
+                throw new SQLException("Error setting driver on UnpooledDataSource. Cause: " + e, e);
             }
         }
+        // 驱动类已经加载但不接受该 url 时，和 DriverManager 一样报错，而不是返回 null
+        if (url != null && !driverInstance.acceptsURL(url)) {
+            throw new SQLException("Driver " + driver + " does not accept url " + url);
+        }
+        return driverInstance;
     }
 
-    private Connection doGetConnection(String username, String password) throws SQLException {
+    /**
+     * 构建连接属性：driverProperties 加上 user、password
+     */
+    private Properties buildConnectionProperties(String username, String password) {
         Properties props = new Properties();
-        if (driverProperties != null){
+        if (driverProperties != null) {
             props.putAll(driverProperties);
         }
         if (username != null) {
@@ -146,12 +232,27 @@ public class UnpooledDataSource implements DataSource {
         if (password != null) {
             props.setProperty("password", password);
         }
-        return doGetConnection(props);
+        return new ImmutableProperties(props);
+    }
+
+    private Connection doGetConnection(String username, String password) throws SQLException {
+        // 使用默认账号时复用预先构建好的连接属性
+        if (Objects.equals(username, this.username) && Objects.equals(password, this.password)) {
+            Properties props = connectionProperties;
+            if (props == null) {
+                props = buildConnectionProperties(username, password);
+                connectionProperties = props;
+            }
+            return doGetConnection(props);
+        }
+        return doGetConnection(buildConnectionProperties(username, password));
     }
 
     private Connection doGetConnection(Properties properties) throws SQLException {
-        initializerDriver();
-        Connection connection = DriverManager.getConnection(url, properties);
+        Connection connection = resolveDriver().connect(url, properties);
+        if (connection == null) {
+            throw new SQLException("No suitable driver found for " + url);
+        }
         if (autoCommit != null && autoCommit != connection.getAutoCommit()) {
             connection.setAutoCommit(autoCommit);
         }
@@ -212,6 +313,7 @@ public class UnpooledDataSource implements DataSource {
 
     public void setDriverClassLoader(ClassLoader driverClassLoader) {
         this.driverClassLoader = driverClassLoader;
+        this.resolvedDriver = null;
     }
 
     public Properties getDriverProperties() {
@@ -220,6 +322,7 @@ public class UnpooledDataSource implements DataSource {
 
     public void setDriverProperties(Properties driverProperties) {
         this.driverProperties = driverProperties;
+        this.connectionProperties = null;
     }
 
     public static Map<String, Driver> getRegisteredDrivers() {
@@ -236,6 +339,7 @@ public class UnpooledDataSource implements DataSource {
 
     public synchronized void setDriver(String driver) {
         this.driver = driver;
+        this.resolvedDriver = null;
     }
 
     public String getUrl() {
@@ -244,6 +348,7 @@ public class UnpooledDataSource implements DataSource {
 
     public void setUrl(String url) {
         this.url = url;
+        this.resolvedDriver = null;
     }
 
     public String getUsername() {
@@ -252,6 +357,7 @@ public class UnpooledDataSource implements DataSource {
 
     public void setUsername(String username) {
         this.username = username;
+        this.connectionProperties = null;
     }
 
     public String getPassword() {
@@ -260,6 +366,7 @@ public class UnpooledDataSource implements DataSource {
 
     public void setPassword(String password) {
         this.password = password;
+        this.connectionProperties = null;
     }
 
     public Boolean getAutoCommit() {
@@ -19,6 +19,11 @@ public class UnpooledDataSourceFactory implements DataSourceFactory {
      */
     protected Properties props;
 
+    /**
+     * 驱动属性的前缀
+     */
+    private static final String DRIVER_PROPERTY_PREFIX = "driver.";
+
     @Override
     public void setProperties(Properties props) {
         this.props = props;
@@ -31,6 +36,28 @@ public class UnpooledDataSourceFactory implements DataSourceFactory {
         unpooledDataSource.setUrl(props.getProperty("url"));
         unpooledDataSource.setUsername(props.getProperty("username"));
         unpooledDataSource.setPassword(props.getProperty("password"));
+        unpooledDataSource.setDriverProperties(driverProperties());
         return unpooledDataSource;
     }
+
+    /**
+     * 收集以 driver. 开头的属性，去掉前缀后作为驱动的连接属性，例如 driver.encoding=UTF8。
+     * rewriteBatchedStatements=true 是 driver.rewriteBatchedStatements=true 的简写：MySQL 驱动会把批量写入改写成多值 INSERT，
+     * 此时批量写入的影响行数为 Statement.SUCCESS_NO_INFO。
+     *
+     * @return 驱动属性，没有配置时为 null
+     */
+    protected Properties driverProperties() {
+        Properties driverProperties = new Properties();
+        for (String name : props.stringPropertyNames()) {
+            if (name.startsWith(DRIVER_PROPERTY_PREFIX)) {
+                driverProperties.setProperty(name.substring(DRIVER_PROPERTY_PREFIX.length()), props.getProperty(name));
+            }
+        }
+        String rewriteBatchedStatements = props.getProperty("rewriteBatchedStatements");
+        if (rewriteBatchedStatements != null) {
+            driverProperties.setProperty("rewriteBatchedStatements", rewriteBatchedStatements.trim());
+        }
+        return driverProperties.isEmpty() ? null : driverProperties;
+    }
 }
@@ -0,0 +1,527 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.datasource.routing.RoutingDataSource;
+import com.shubai.mybatis.datasource.sharding.ShardingDataSource;
+import com.shubai.mybatis.executor.parameter.DefaultParameterHandler;
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.executor.statement.PreparedStatementHandler;
+import com.shubai.mybatis.executor.statement.StatementHandler;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.ParameterMapping;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
+import com.shubai.mybatis.session.TransactionIsolationLevel;
+import com.shubai.mybatis.transaction.Transaction;
+import com.shubai.mybatis.transaction.TransactionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClassName: BaseExecutor
+ * Description: 执行器基类：决定语句在哪个数据源上执行并管理对应的事务，具体的语句创建和执行方式由子类实现
+ * <p>
+ * 每个数据源对应一个事务，连接在第一次使用时打开，直到提交、回滚后仍然保留，SqlSession 关闭时释放：
+ * 普通数据源直接使用；分片数据源按语句的分片键选择分片，没有分片键的查询在所有分片上并行执行，
+ * 没有分片键的写语句只有声明了 broadcast 的 UPDATE、DELETE 才在每个分片上依次执行，其余直接拒绝，避免一行插入落到每个分片上；
+ * 读写分离数据源上的查询使用从库的只读连接，当前会话已经在主库上开始事务（非自动提交）时使用主库；
+ * 自动提交模式下从库连接在每条查询结束后立即归还，游标查询的从库连接保留到会话关闭。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 10:40
+ * Version: 1.0
+ */
+public abstract class BaseExecutor implements Executor {
+
+    /**
+     * 日志模块
+     */
+    private Logger logger = LoggerFactory.getLogger(BaseExecutor.class);
+
+    protected final Configuration configuration;
+
+    protected final TransactionFactory transactionFactory;
+
+    protected final TransactionIsolationLevel level;
+
+    protected final boolean autoCommit;
+
+    /**
+     * 每个数据源对应的事务，只在调用线程上访问：没有分片键的查询也先在调用线程上取得所有分片的连接，再交给并行线程执行
+     */
+    private final Map<DataSource, Transaction> transactions = new HashMap<>();
+
+    /**
+     * 非自动提交模式下读写分离数据源上只读查询使用的从库连接，保留到会话关闭
+     */
+    private final Map<DataSource, Transaction> readTransactions = new HashMap<>();
+
+    /**
+     * 自动提交模式下正在执行的查询使用的从库连接，查询结束后由 releaseStatementReads 归还；
+     * 结果处理器中嵌套的查询追加在后面，只归还自己借用的部分
+     */
+    private final List<Transaction> statementReadTransactions = new ArrayList<>();
+
+    /**
+     * 自动提交模式下游标查询使用的从库连接，游标在会话关闭前都可能继续读取，保留到会话关闭
+     */
+    private final List<Transaction> cursorReadTransactions = new ArrayList<>();
+
+    private volatile boolean closed;
+
+    protected BaseExecutor(Configuration configuration, TransactionIsolationLevel level, boolean autoCommit) {
+        this.configuration = configuration;
+        this.transactionFactory = configuration.getEnvironment().getTransactionFactory();
+        this.level = level;
+        this.autoCommit = autoCommit;
+    }
+
+    @Override
+    public int update(MappedStatement ms, Object parameter) throws SQLException {
+        checkOpen();
+        DataSource dataSource = configuration.getEnvironment().getDataSource();
+        if (dataSource instanceof ShardingDataSource) {
+            ShardingDataSource shardingDataSource = (ShardingDataSource) dataSource;
+            if (ms.getShardKey() != null) {
+                return doUpdate(ms, parameter, getConnection(ms, shardingDataSource.getShard(getShardKeyValue(ms, parameter))));
+            }
+            checkBroadcast(ms);
+            // 声明了 broadcast 的更新在每个分片上执行，攒批时各分片返回的是占位值，不能累加
+            int updated = 0;
+            boolean batched = false;
+            for (DataSource shard : shardingDataSource.getShards()) {
+                int count = doUpdate(ms, parameter, getConnection(ms, shard));
+                if (count == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+                    batched = true;
+                } else {
+                    updated += count;
+                }
+            }
+            return batched ? BatchExecutor.BATCH_UPDATE_RETURN_VALUE : updated;
+        }
+        return doUpdate(ms, parameter, getConnection(ms, dataSource));
+    }
+
+    @Override
+    public int[] batchUpdate(MappedStatement ms, Collection<?> parameters, int batchSize) throws SQLException {
+        checkOpen();
+        Object[] rows = parameters.toArray();
+        int[] updateCounts = new int[rows.length];
+        if (rows.length == 0) {
+            return updateCounts;
+        }
+        int chunkSize = batchSize > 0 ? batchSize : configuration.getDefaultBatchSize();
+        DataSource dataSource = configuration.getEnvironment().getDataSource();
+        if (dataSource instanceof ShardingDataSource) {
+            ShardingDataSource shardingDataSource = (ShardingDataSource) dataSource;
+            if (ms.getShardKey() != null) {
+                // 按分片分组，每个分片上各自攒批，影响行数放回原来的位置
+                Map<DataSource, List<Integer>> rowsByShard = new LinkedHashMap<>();
+                for (int i = 0; i < rows.length; i++) {
+                    rowsByShard.computeIfAbsent(shardingDataSource.getShard(getShardKeyValue(ms, rows[i])), key -> new ArrayList<>()).add(i);
+                }
+                for (Map.Entry<DataSource, List<Integer>> entry : rowsByShard.entrySet()) {
+                    doBatchUpdate(ms, rows, toArray(entry.getValue()), getConnection(ms, entry.getKey()), chunkSize, updateCounts);
+                }
+            } else {
+                // 声明了 broadcast 时每一行在每个分片上执行
+                checkBroadcast(ms);
+                int[] allRows = new int[rows.length];
+                for (int i = 0; i < rows.length; i++) {
+                    allRows[i] = i;
+                }
+                for (DataSource shard : shardingDataSource.getShards()) {
+                    doBatchUpdate(ms, rows, allRows, getConnection(ms, shard), chunkSize, updateCounts);
+                }
+            }
+            return updateCounts;
+        }
+        int[] allRows = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            allRows[i] = i;
+        }
+        doBatchUpdate(ms, rows, allRows, getConnection(ms, dataSource), chunkSize, updateCounts);
+        return updateCounts;
+    }
+
+    /**
+     * 在一个连接上批量执行：同一个 PreparedStatement 逐行设置参数并 addBatch，每 chunkSize 行 executeBatch 一次
+     *
+     * @param rows         所有参数对象
+     * @param indexes      在该连接上执行的行
+     * @param updateCounts 影响行数，累加到对应的位置
+     */
+    private void doBatchUpdate(MappedStatement ms, Object[] rows, int[] indexes, Connection connection, int chunkSize, int[] updateCounts) throws SQLException {
+        BoundSql boundSql = ms.getBoundSql();
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, rows[indexes[0]]);
+        List<BatchResult> completed = new ArrayList<>();
+        try (PreparedStatement ps = handler.prepare(connection)) {
+            int chunkStart = 0;
+            BatchResult batchResult = new BatchResult(ms, boundSql.getSql());
+            for (int i = 0; i < indexes.length; i++) {
+                Object row = rows[indexes[i]];
+                new DefaultParameterHandler(ms, row).setParameters(ps);
+                handler.batch(ps);
+                batchResult.addParameterObject(row);
+                if (i - chunkStart + 1 == chunkSize || i == indexes.length - 1) {
+                    int[] chunkCounts;
+                    try {
+                        chunkCounts = ps.executeBatch();
+                    } catch (BatchUpdateException e) {
+                        throw new BatchExecutorException(ms.getId() + " (rows " + chunkStart + "-" + i + ") failed."
+                                + (chunkStart > 0 ? " " + chunkStart + " prior rows completed successfully." : ""),
+                                e, completed, batchResult);
+                    }
+                    batchResult.setUpdateCounts(chunkCounts);
+                    completed.add(batchResult);
+                    for (int j = 0; j < chunkCounts.length && chunkStart + j <= i; j++) {
+                        int index = indexes[chunkStart + j];
+                        // 在多个分片上执行的行累加影响行数，驱动没有给出行数时保留 SUCCESS_NO_INFO
+                        updateCounts[index] = chunkCounts[j] < 0 || updateCounts[index] < 0 ? chunkCounts[j] : updateCounts[index] + chunkCounts[j];
+                    }
+                    chunkStart = i + 1;
+                    batchResult = new BatchResult(ms, boundSql.getSql());
+                }
+            }
+        }
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    @Override
+    public <E> List<E> query(MappedStatement ms, Object parameter) throws SQLException {
+        checkOpen();
+        int reads = statementReadTransactions.size();
+        try {
+            DataSource dataSource = configuration.getEnvironment().getDataSource();
+            if (dataSource instanceof ShardingDataSource) {
+                ShardingDataSource shardingDataSource = (ShardingDataSource) dataSource;
+                if (ms.getShardKey() != null) {
+                    return doQuery(ms, parameter, getConnection(ms, shardingDataSource.getShard(getShardKeyValue(ms, parameter))));
+                }
+                // 没有分片键的查询在所有分片上并行执行并按分片顺序合并结果。
+                // 连接在调用线程上取得：事务和读写分离的选择都属于当前会话，不能在共享的并行线程上决定
+                Map<DataSource, Connection> connections = new HashMap<>();
+                for (DataSource shard : shardingDataSource.getShards()) {
+                    connections.put(shard, getConnection(ms, shard));
+                }
+                return shardingDataSource.scatterGather(shard -> this.<E>doQuery(ms, parameter, connections.get(shard)));
+            }
+            return doQuery(ms, parameter, getConnection(ms, dataSource));
+        } finally {
+            releaseStatementReads(reads);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(MappedStatement ms, Object parameter, ResultHandler<?> resultHandler) throws SQLException {
+        checkOpen();
+        ResultHandler<Object> handler = (ResultHandler<Object>) resultHandler;
+        DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
+        int reads = statementReadTransactions.size();
+        try {
+            DataSource dataSource = configuration.getEnvironment().getDataSource();
+            if (dataSource instanceof ShardingDataSource) {
+                ShardingDataSource shardingDataSource = (ShardingDataSource) dataSource;
+                if (ms.getShardKey() != null) {
+                    doQuery(ms, parameter, getConnection(ms, shardingDataSource.getShard(getShardKeyValue(ms, parameter))), handler, resultContext);
+                    return;
+                }
+                // 结果处理器不要求线程安全，没有分片键时按分片顺序依次查询，停止后不再查询后面的分片
+                for (DataSource shard : shardingDataSource.getShards()) {
+                    if (resultContext.isStopped()) {
+                        break;
+                    }
+                    doQuery(ms, parameter, getConnection(ms, shard), handler, resultContext);
+                }
+                return;
+            }
+            doQuery(ms, parameter, getConnection(ms, dataSource), handler, resultContext);
+        } finally {
+            releaseStatementReads(reads);
+        }
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter) throws SQLException {
+        checkOpen();
+        int reads = statementReadTransactions.size();
+        try {
+            DataSource dataSource = configuration.getEnvironment().getDataSource();
+            if (dataSource instanceof ShardingDataSource) {
+                if (ms.getShardKey() == null) {
+                    throw new SQLException("Cursor query " + ms.getId() + " on a sharding data source requires a shard key.");
+                }
+                ShardingDataSource shardingDataSource = (ShardingDataSource) dataSource;
+                return doQueryCursor(ms, parameter, getConnection(ms, shardingDataSource.getShard(getShardKeyValue(ms, parameter))));
+            }
+            return doQueryCursor(ms, parameter, getConnection(ms, dataSource));
+        } finally {
+            // 游标返回后仍然从连接上读取，从库连接保留到会话关闭
+            List<Transaction> cursorReads = statementReadTransactions.subList(reads, statementReadTransactions.size());
+            cursorReadTransactions.addAll(cursorReads);
+            cursorReads.clear();
+        }
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() throws SQLException {
+        return flushStatements(false);
+    }
+
+    protected List<BatchResult> flushStatements(boolean isRollback) throws SQLException {
+        checkOpen();
+        return doFlushStatements(isRollback);
+    }
+
+    @Override
+    public void commit(boolean required) throws SQLException {
+        checkOpen();
+        flushStatements();
+        if (required) {
+            for (Transaction transaction : transactions.values()) {
+                transaction.commit();
+            }
+            for (Transaction transaction : readTransactions.values()) {
+                transaction.commit();
+            }
+            for (Transaction transaction : cursorReadTransactions) {
+                transaction.commit();
+            }
+        }
+    }
+
+    @Override
+    public void rollback(boolean required) throws SQLException {
+        if (closed) {
+            return;
+        }
+        try {
+            flushStatements(true);
+        } finally {
+            if (required) {
+                SQLException failure = null;
+                for (Transaction transaction : allTransactions()) {
+                    try {
+                        transaction.rollback();
+                    } catch (SQLException e) {
+                        failure = failure == null ? e : failure;
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+        }
+    }
+
+    @Override
+    public Transaction getTransaction() {
+        checkOpenUnchecked();
+        return getTransaction(configuration.getEnvironment().getDataSource());
+    }
+
+    @Override
+    public void close(boolean forceRollback) {
+        if (closed) {
+            return;
+        }
+        try {
+            try {
+                rollback(forceRollback);
+            } finally {
+                for (Transaction transaction : allTransactions()) {
+                    try {
+                        transaction.close();
+                    } catch (SQLException e) {
+                        logger.warn("Unexpected exception on closing transaction.  Cause: " + e);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            logger.warn("Unexpected exception on closing executor.  Cause: " + e);
+        } finally {
+            transactions.clear();
+            readTransactions.clear();
+            cursorReadTransactions.clear();
+            closed = true;
+        }
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 在连接上执行更新语句
+     */
+    protected abstract int doUpdate(MappedStatement ms, Object parameter, Connection connection) throws SQLException;
+
+    /**
+     * 在连接上执行查询语句
+     */
+    protected abstract <E> List<E> doQuery(MappedStatement ms, Object parameter, Connection connection) throws SQLException;
+
+    /**
+     * 在连接上执行查询语句，把每一行交给结果处理器
+     */
+    protected abstract void doQuery(MappedStatement ms, Object parameter, Connection connection,
+                                    ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException;
+
+    /**
+     * 在连接上执行游标查询：每个游标使用新创建的语句，不参与语句复用，游标关闭时关闭该语句
+     */
+    protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        PreparedStatement ps = handler.prepare(connection);
+        try {
+            handler.parameterize(ps);
+            return handler.queryCursor(ps);
+        } catch (SQLException | RuntimeException e) {
+            closeStatement(ps);
+            throw e;
+        }
+    }
+
+    /**
+     * 执行或丢弃攒批的语句，并关闭执行器持有的语句
+     *
+     * @param isRollback 为 true 时丢弃攒批的语句
+     */
+    protected abstract List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException;
+
+    /**
+     * 连接在会话结束前归还时调用，关闭执行器在该连接上持有的语句；默认不持有语句
+     */
+    protected void doReleaseConnection(Connection connection) {
+    }
+
+    /**
+     * 获取语句在数据源上使用的连接
+     */
+    protected Connection getConnection(MappedStatement ms, DataSource dataSource) throws SQLException {
+        if (dataSource instanceof RoutingDataSource && ms.getSqlCommandType() == SqlCommandType.SELECT) {
+            RoutingDataSource routingDataSource = (RoutingDataSource) dataSource;
+            // 会话已经在主库上开始事务时继续使用主库，保证事务内能读到自己的写入
+            boolean inWriteTransaction = !autoCommit && transactions.containsKey(dataSource);
+            if (!inWriteTransaction) {
+                if (autoCommit) {
+                    // 每条查询各自借用从库连接，查询结束后归还，会话空闲时不占用从库连接
+                    Transaction transaction = transactionFactory.newTransaction(routingDataSource.getConnection(SqlCommandType.SELECT, false));
+                    statementReadTransactions.add(transaction);
+                    return transaction.getConnection();
+                }
+                Transaction transaction = readTransactions.get(dataSource);
+                if (transaction == null) {
+                    transaction = transactionFactory.newTransaction(routingDataSource.getConnection(SqlCommandType.SELECT, false));
+                    readTransactions.put(dataSource, transaction);
+                }
+                return transaction.getConnection();
+            }
+        }
+        return getTransaction(dataSource).getConnection();
+    }
+
+    /**
+     * 归还自动提交模式下当前查询借用的从库连接
+     *
+     * @param from 查询开始时 statementReadTransactions 的长度，之前的连接属于外层查询
+     */
+    private void releaseStatementReads(int from) {
+        if (statementReadTransactions.size() == from) {
+            return;
+        }
+        List<Transaction> reads = statementReadTransactions.subList(from, statementReadTransactions.size());
+        for (Transaction transaction : reads) {
+            try {
+                doReleaseConnection(transaction.getConnection());
+                transaction.close();
+            } catch (SQLException e) {
+                logger.warn("Unexpected exception on releasing read connection.  Cause: " + e);
+            }
+        }
+        reads.clear();
+    }
+
+    private Transaction getTransaction(DataSource dataSource) {
+        return transactions.computeIfAbsent(dataSource, key -> transactionFactory.newTransaction(key, level, autoCommit));
+    }
+
+    private List<Transaction> allTransactions() {
+        List<Transaction> all = new ArrayList<>(transactions.values());
+        all.addAll(readTransactions.values());
+        all.addAll(cursorReadTransactions);
+        return all;
+    }
+
+    /**
+     * 取出分片键对应的参数值
+     */
+    private Object getShardKeyValue(MappedStatement ms, Object parameter) throws SQLException {
+        DefaultParameterHandler parameterHandler = new DefaultParameterHandler(ms, parameter);
+        for (ParameterMapping parameterMapping : ms.getParameterMappings()) {
+            if (ms.getShardKey().equals(parameterMapping.getProperty())) {
+                return parameterHandler.getParameterValue(parameterMapping);
+            }
+        }
+        throw new SQLException("No parameter value for shard key " + ms.getShardKey() + ".");
+    }
+
+    /**
+     * 分片数据源上没有分片键的写语句必须显式声明 broadcast，否则无法确定应该写入哪个分片
+     */
+    private void checkBroadcast(MappedStatement ms) throws SQLException {
+        if (!ms.isBroadcast()) {
+            throw new SQLException(ms.getSqlCommandType() + " " + ms.getId() + " on a sharding data source requires a shard key"
+                    + (ms.getSqlCommandType() == SqlCommandType.INSERT ? "." : ", or broadcast=\"true\" to run on every shard."));
+        }
+    }
+
+    private void checkOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Executor was closed.");
+        }
+    }
+
+    private void checkOpenUnchecked() {
+        if (closed) {
+            throw new IllegalStateException("Executor was closed.");
+        }
+    }
+
+    /**
+     * 关闭语句，忽略关闭时的异常
+     */
+    protected void closeStatement(Statement statement) {
+        if (statement != null) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+}
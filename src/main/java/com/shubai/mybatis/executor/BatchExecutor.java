@@ -0,0 +1,154 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.executor.statement.PreparedStatementHandler;
+import com.shubai.mybatis.executor.statement.StatementHandler;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
+import com.shubai.mybatis.session.TransactionIsolationLevel;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ClassName: BatchExecutor
+ * Description: 批处理执行器：更新语句通过 addBatch 攒批，在查询、提交或 flushStatements 时按添加顺序 executeBatch
+ * <p>
+ * 连续执行的同一条映射语句（同一个连接、同一条 SQL）共用一个 PreparedStatement；
+ * 中间插入了其他语句时新建一个 PreparedStatement，保证各批次按原来的顺序执行。
+ * 查询之前先执行攒批的语句，查询能看到之前的修改。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 11:40
+ * Version: 1.0
+ */
+public class BatchExecutor extends BaseExecutor {
+
+    /**
+     * 攒批时 update 的返回值，真实的影响行数在 flushStatements 返回的 BatchResult 中
+     */
+    public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
+
+    private final List<PreparedStatement> statementList = new ArrayList<>();
+
+    private final List<BatchResult> batchResultList = new ArrayList<>();
+
+    private String currentSql;
+
+    private MappedStatement currentStatement;
+
+    private Connection currentConnection;
+
+    public BatchExecutor(Configuration configuration, TransactionIsolationLevel level, boolean autoCommit) {
+        super(configuration, level, autoCommit);
+    }
+
+    @Override
+    public <E> List<E> query(MappedStatement ms, Object parameter) throws SQLException {
+        flushStatements();
+        return super.query(ms, parameter);
+    }
+
+    @Override
+    public void query(MappedStatement ms, Object parameter, ResultHandler<?> resultHandler) throws SQLException {
+        flushStatements();
+        super.query(ms, parameter, resultHandler);
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter) throws SQLException {
+        flushStatements();
+        return super.queryCursor(ms, parameter);
+    }
+
+    @Override
+    public int[] batchUpdate(MappedStatement ms, Collection<?> parameters, int batchSize) throws SQLException {
+        // 先执行之前攒批的语句，保证执行顺序
+        flushStatements();
+        return super.batchUpdate(ms, parameters, batchSize);
+    }
+
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        String sql = handler.getBoundSql().getSql();
+        PreparedStatement ps;
+        if (sql.equals(currentSql) && ms == currentStatement && connection == currentConnection) {
+            // 和上一条是同一条语句，追加到当前批次
+            ps = statementList.get(statementList.size() - 1);
+            batchResultList.get(batchResultList.size() - 1).addParameterObject(parameter);
+        } else {
+            ps = handler.prepare(connection);
+            currentSql = sql;
+            currentStatement = ms;
+            currentConnection = connection;
+            statementList.add(ps);
+            BatchResult batchResult = new BatchResult(ms, sql);
+            batchResult.addParameterObject(parameter);
+            batchResultList.add(batchResult);
+        }
+        handler.parameterize(ps);
+        handler.batch(ps);
+        return BATCH_UPDATE_RETURN_VALUE;
+    }
+
+    @Override
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        try (PreparedStatement ps = handler.prepare(connection)) {
+            handler.parameterize(ps);
+            return handler.query(ps);
+        }
+    }
+
+    @Override
+    protected void doQuery(MappedStatement ms, Object parameter, Connection connection,
+                           ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        try (PreparedStatement ps = handler.prepare(connection)) {
+            handler.parameterize(ps);
+            handler.query(ps, resultHandler, resultContext);
+        }
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+        try {
+            if (isRollback) {
+                return Collections.emptyList();
+            }
+            List<BatchResult> results = new ArrayList<>(statementList.size());
+            for (int i = 0; i < statementList.size(); i++) {
+                PreparedStatement ps = statementList.get(i);
+                BatchResult batchResult = batchResultList.get(i);
+                try {
+                    batchResult.setUpdateCounts(ps.executeBatch());
+                } catch (BatchUpdateException e) {
+                    throw new BatchExecutorException(batchResult.getMappedStatement().getId()
+                            + " (batch index #" + (i + 1) + ")" + " failed."
+                            + (i > 0 ? " " + i + " prior sub executor(s) completed successfully, but will be rolled back." : ""),
+                            e, results, batchResult);
+                }
+                results.add(batchResult);
+            }
+            return results;
+        } finally {
+            for (PreparedStatement ps : statementList) {
+                closeStatement(ps);
+            }
+            statementList.clear();
+            batchResultList.clear();
+            currentSql = null;
+            currentStatement = null;
+            currentConnection = null;
+        }
+    }
+}
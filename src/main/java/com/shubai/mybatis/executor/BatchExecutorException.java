@@ -0,0 +1,49 @@
+package com.shubai.mybatis.executor;
+
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * ClassName: BatchExecutorException
+ * Description: 批处理语句执行失败，记录失败之前已经成功执行的批次
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 10:30
+ * Version: 1.0
+ */
+public class BatchExecutorException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final List<BatchResult> successfulBatchResults;
+
+    private final BatchResult batchResult;
+
+    public BatchExecutorException(String message, BatchUpdateException cause, List<BatchResult> successfulBatchResults, BatchResult batchResult) {
+        super(message + " Cause: " + cause, cause.getSQLState(), cause.getErrorCode(), cause);
+        this.successfulBatchResults = successfulBatchResults;
+        this.batchResult = batchResult;
+    }
+
+    /**
+     * 失败之前已经成功执行的批次
+     */
+    public List<BatchResult> getSuccessfulBatchResults() {
+        return successfulBatchResults;
+    }
+
+    /**
+     * 执行失败的批次
+     */
+    public BatchResult getFailingBatchResult() {
+        return batchResult;
+    }
+
+    /**
+     * 失败批次中各参数的影响行数，由驱动决定是否包含失败之后的参数
+     */
+    public int[] getUpdateCounts() {
+        return ((BatchUpdateException) getCause()).getUpdateCounts();
+    }
+}
@@ -0,0 +1,54 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.mapping.MappedStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ClassName: BatchResult
+ * Description: 一条批处理语句的执行结果：同一个 PreparedStatement 上攒批的所有参数以及 executeBatch 返回的影响行数
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 10:25
+ * Version: 1.0
+ */
+public class BatchResult {
+
+    private final MappedStatement mappedStatement;
+
+    private final String sql;
+
+    private final List<Object> parameterObjects = new ArrayList<>();
+
+    private int[] updateCounts;
+
+    public BatchResult(MappedStatement mappedStatement, String sql) {
+        this.mappedStatement = mappedStatement;
+        this.sql = sql;
+    }
+
+    public void addParameterObject(Object parameterObject) {
+        parameterObjects.add(parameterObject);
+    }
+
+    public MappedStatement getMappedStatement() {
+        return mappedStatement;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public List<Object> getParameterObjects() {
+        return parameterObjects;
+    }
+
+    public int[] getUpdateCounts() {
+        return updateCounts;
+    }
+
+    public void setUpdateCounts(int[] updateCounts) {
+        this.updateCounts = updateCounts;
+    }
+}
@@ -0,0 +1,100 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.session.ResultHandler;
+import com.shubai.mybatis.transaction.Transaction;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ClassName: Executor
+ * Description: 执行器，SqlSession 通过执行器执行语句，执行器负责获取连接、创建语句以及管理事务
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 10:20
+ * Version: 1.0
+ */
+public interface Executor {
+
+    /**
+     * 执行插入、更新、删除语句
+     *
+     * @param ms        映射语句
+     * @param parameter 参数对象
+     * @return 影响的行数，批处理执行器返回 BatchExecutor.BATCH_UPDATE_RETURN_VALUE
+     */
+    int update(MappedStatement ms, Object parameter) throws SQLException;
+
+    /**
+     * 批量执行插入、更新、删除语句：每个参数对象绑定到同一个 PreparedStatement 上 addBatch，每 batchSize 行 executeBatch 一次
+     *
+     * @param ms         映射语句
+     * @param parameters 参数对象，每个元素对应一行
+     * @param batchSize  每次 executeBatch 的最大行数，小于等于 0 时使用 Configuration 中的 defaultBatchSize
+     * @return 和 parameters 一一对应的影响行数，驱动无法给出时为 Statement.SUCCESS_NO_INFO
+     */
+    int[] batchUpdate(MappedStatement ms, Collection<?> parameters, int batchSize) throws SQLException;
+
+    /**
+     * 执行查询语句
+     *
+     * @param ms        映射语句
+     * @param parameter 参数对象
+     * @return 映射好的对象列表
+     */
+    <E> List<E> query(MappedStatement ms, Object parameter) throws SQLException;
+
+    /**
+     * 执行查询语句，每映射一行就交给结果处理器，不保存结果；结果处理器要求停止后不再读取后面的行
+     *
+     * @param ms            映射语句
+     * @param parameter     参数对象
+     * @param resultHandler 结果处理器
+     */
+    void query(MappedStatement ms, Object parameter, ResultHandler<?> resultHandler) throws SQLException;
+
+    /**
+     * 执行查询语句并返回游标，遍历游标时才逐行映射；游标使用独立的语句，关闭或遍历结束时关闭该语句
+     *
+     * @param ms        映射语句
+     * @param parameter 参数对象
+     * @return 游标
+     */
+    <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter) throws SQLException;
+
+    /**
+     * 执行攒批的语句，非批处理执行器返回空列表
+     */
+    List<BatchResult> flushStatements() throws SQLException;
+
+    /**
+     * 执行攒批的语句后提交事务
+     *
+     * @param required 是否需要提交连接上的事务
+     */
+    void commit(boolean required) throws SQLException;
+
+    /**
+     * 丢弃攒批的语句后回滚事务
+     *
+     * @param required 是否需要回滚连接上的事务
+     */
+    void rollback(boolean required) throws SQLException;
+
+    /**
+     * 获取环境数据源对应的事务
+     */
+    Transaction getTransaction();
+
+    /**
+     * 关闭执行器，关闭语句并释放所有连接
+     *
+     * @param forceRollback 关闭前是否回滚
+     */
+    void close(boolean forceRollback);
+
+    boolean isClosed();
+}
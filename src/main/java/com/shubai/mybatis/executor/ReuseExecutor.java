@@ -0,0 +1,100 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.executor.statement.PreparedStatementHandler;
+import com.shubai.mybatis.executor.statement.StatementHandler;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
+import com.shubai.mybatis.session.TransactionIsolationLevel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ClassName: ReuseExecutor
+ * Description: 复用执行器：同一个连接上相同的 SQL 复用同一个 PreparedStatement，语句在 flushStatements、提交、回滚或关闭时才关闭
+ * <p>
+ * 语句按连接分组缓存，分片数据源上并行查询所有分片时各个线程使用不同的连接，互不影响；
+ * 自动提交模式下每条查询结束即归还的从库连接，归还前关闭它上面缓存的语句。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 11:20
+ * Version: 1.0
+ */
+public class ReuseExecutor extends BaseExecutor {
+
+    /**
+     * 连接 -> SQL -> 语句
+     */
+    private final Map<Connection, Map<String, PreparedStatement>> statementMap = new ConcurrentHashMap<>();
+
+    public ReuseExecutor(Configuration configuration, TransactionIsolationLevel level, boolean autoCommit) {
+        super(configuration, level, autoCommit);
+    }
+
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        PreparedStatement ps = prepareStatement(handler, connection);
+        return handler.update(ps);
+    }
+
+    @Override
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        PreparedStatement ps = prepareStatement(handler, connection);
+        return handler.query(ps);
+    }
+
+    @Override
+    protected void doQuery(MappedStatement ms, Object parameter, Connection connection,
+                           ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        PreparedStatement ps = prepareStatement(handler, connection);
+        handler.query(ps, resultHandler, resultContext);
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) {
+        for (Map<String, PreparedStatement> statements : statementMap.values()) {
+            for (PreparedStatement ps : statements.values()) {
+                closeStatement(ps);
+            }
+        }
+        statementMap.clear();
+        return Collections.emptyList();
+    }
+
+    @Override
+    protected void doReleaseConnection(Connection connection) {
+        Map<String, PreparedStatement> statements = statementMap.remove(connection);
+        if (statements != null) {
+            for (PreparedStatement ps : statements.values()) {
+                closeStatement(ps);
+            }
+        }
+    }
+
+    /**
+     * 取出缓存的语句并设置参数，没有可用的语句时创建新的语句并缓存
+     */
+    private PreparedStatement prepareStatement(StatementHandler handler, Connection connection) throws SQLException {
+        String sql = handler.getBoundSql().getSql();
+        Map<String, PreparedStatement> statements = statementMap.computeIfAbsent(connection, key -> new ConcurrentHashMap<>());
+        PreparedStatement ps = statements.get(sql);
+        if (ps == null || ps.isClosed()) {
+            ps = handler.prepare(connection);
+            statements.put(sql, ps);
+        } else {
+            ps.clearParameters();
+        }
+        handler.parameterize(ps);
+        return ps;
+    }
+}
@@ -0,0 +1,63 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.executor.statement.PreparedStatementHandler;
+import com.shubai.mybatis.executor.statement.StatementHandler;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
+import com.shubai.mybatis.session.TransactionIsolationLevel;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ClassName: SimpleExecutor
+ * Description: 简单执行器：每次执行都创建新的 PreparedStatement，执行完立即关闭
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 11:10
+ * Version: 1.0
+ */
+public class SimpleExecutor extends BaseExecutor {
+
+    public SimpleExecutor(Configuration configuration, TransactionIsolationLevel level, boolean autoCommit) {
+        super(configuration, level, autoCommit);
+    }
+
+    @Override
+    protected int doUpdate(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        try (PreparedStatement ps = handler.prepare(connection)) {
+            handler.parameterize(ps);
+            return handler.update(ps);
+        }
+    }
+
+    @Override
+    protected <E> List<E> doQuery(MappedStatement ms, Object parameter, Connection connection) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        try (PreparedStatement ps = handler.prepare(connection)) {
+            handler.parameterize(ps);
+            return handler.query(ps);
+        }
+    }
+
+    @Override
+    protected void doQuery(MappedStatement ms, Object parameter, Connection connection,
+                           ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException {
+        StatementHandler handler = new PreparedStatementHandler(configuration, ms, parameter);
+        try (PreparedStatement ps = handler.prepare(connection)) {
+            handler.parameterize(ps);
+            handler.query(ps, resultHandler, resultContext);
+        }
+    }
+
+    @Override
+    protected List<BatchResult> doFlushStatements(boolean isRollback) {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,66 @@
+package com.shubai.mybatis.executor.parameter;
+
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.ParameterMapping;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * ClassName: DefaultParameterHandler
+ * Description: 默认参数处理器
+ * <p>
+ * 参数值由构建语句时为每个占位符创建的 ParameterAccessor 取得：
+ * Mapper 方法传入的 Object[] 有多个参数时，第 i 个占位符对应第 i 个参数；只有一个参数时按该参数处理；
+ * 有类型处理器的简单类型直接作为所有占位符的值；Map（包括 @Param 参数）按 #{} 中的名称取值；
+ * 其他对象按属性路径读取 getter 或字段，读取器在第一次使用时绑定并缓存。
+ * 取得的值交给构建语句时为该占位符选定的类型处理器设置。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 09:45
+ * Version: 1.0
+ */
+public class DefaultParameterHandler implements ParameterHandler {
+
+    private final MappedStatement mappedStatement;
+
+    private final Object parameterObject;
+
+    public DefaultParameterHandler(MappedStatement mappedStatement, Object parameterObject) {
+        this.mappedStatement = mappedStatement;
+        this.parameterObject = parameterObject;
+    }
+
+    @Override
+    public Object getParameterObject() {
+        return parameterObject;
+    }
+
+    @Override
+    public void setParameters(PreparedStatement ps) throws SQLException {
+        List<ParameterMapping> parameterMappings = mappedStatement.getParameterMappings();
+        for (int i = 0; i < parameterMappings.size(); i++) {
+            ParameterMapping parameterMapping = parameterMappings.get(i);
+            int index = i + 1;
+            Object value = getParameterValue(parameterMapping);
+            try {
+                parameterMapping.getTypeHandler().setParameter(ps, index, value, parameterMapping.getJdbcType());
+            } catch (ClassCastException e) {
+                throw new SQLException("Error setting parameter #{" + parameterMapping.getProperty() + "} of statement " + mappedStatement.getId()
+                        + ": expected " + parameterMapping.getJavaType().getName() + " but was " + value.getClass().getName() + ".", e);
+            }
+        }
+    }
+
+    /**
+     * 获取某个占位符对应的参数值
+     *
+     * @param parameterMapping 占位符的参数映射
+     * @return 参数值
+     * @throws SQLException 参数对象中没有该名称对应的参数或属性
+     */
+    public Object getParameterValue(ParameterMapping parameterMapping) throws SQLException {
+        return parameterMapping.getAccessor().getValue(parameterObject);
+    }
+}
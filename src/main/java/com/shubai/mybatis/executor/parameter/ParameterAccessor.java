@@ -0,0 +1,136 @@
+package com.shubai.mybatis.executor.parameter;
+
+import com.shubai.mybatis.binding.ParamMap;
+import com.shubai.mybatis.reflection.PropertyReader;
+import com.shubai.mybatis.reflection.ReflectorFactory;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * ClassName: ParameterAccessor
+ * Description: 一个 #{} 占位符的取值方式，构建 MappedStatement 时创建
+ * <p>
+ * 参数名称在创建时按 . 拆分成属性路径，例如 #{user.address.city}。取值规则：
+ * <ul>
+ *     <li>SqlSession 直接传入的 Object[] 有多个元素时按占位符位置取值，只有一个元素时按该元素处理；</li>
+ *     <li>有类型处理器的简单类型直接作为值（只有一段路径时）；</li>
+ *     <li>Map（包括 @Param 参数组成的 ParamMap）按名称取值；</li>
+ *     <li>其他对象按 getter 或字段读取属性。</li>
+ * </ul>
+ * 路径的每一段都记住上一次遇到的类型和绑定好的 PropertyReader，同一条语句的参数类型不变时，
+ * 取值只需要比较一次 Class 再调用一次 PropertyReader；parameterType 是 JavaBean 时第一段在构建时就已经绑定。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/12 10:20
+ * Version: 1.0
+ */
+public class ParameterAccessor {
+
+    /**
+     * 占位符位置，从 1 开始
+     */
+    private final int position;
+
+    private final String property;
+
+    private final String[] path;
+
+    /**
+     * 每一段路径上一次解析的类型和读取器
+     */
+    private final Resolved[] resolved;
+
+    private final TypeHandlerRegistry typeHandlerRegistry;
+
+    private final ReflectorFactory reflectorFactory;
+
+    public ParameterAccessor(int position, String property, Class<?> parameterType,
+                             TypeHandlerRegistry typeHandlerRegistry, ReflectorFactory reflectorFactory) {
+        this.position = position;
+        this.property = property;
+        this.path = property.split("\\.");
+        this.resolved = new Resolved[path.length];
+        this.typeHandlerRegistry = typeHandlerRegistry;
+        this.reflectorFactory = reflectorFactory;
+        if (parameterType != null && !Map.class.isAssignableFrom(parameterType) && !typeHandlerRegistry.hasTypeHandler(parameterType)
+                && reflectorFactory.findForClass(parameterType).hasGetter(path[0])) {
+            try {
+                resolved[0] = new Resolved(parameterType, reflectorFactory.findForClass(parameterType).getGetter(path[0]));
+            } catch (SQLException e) {
+                // hasGetter 已经检查过，不会发生
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * 从参数对象中取出占位符的值
+     *
+     * @param parameterObject SqlSession 收到的参数对象
+     * @return 参数值
+     * @throws SQLException 参数对象中没有对应的参数或属性
+     */
+    public Object getValue(Object parameterObject) throws SQLException {
+        Object value = parameterObject;
+        if (value instanceof Object[]) {
+            Object[] args = (Object[]) value;
+            if (args.length != 1) {
+                if (position > args.length) {
+                    throw new SQLException("No parameter for placeholder " + position + " (#{" + property + "}), only " + args.length + " parameters were given.");
+                }
+                return args[position - 1];
+            }
+            value = args[0];
+        }
+        if (value == null || path.length == 1 && typeHandlerRegistry.hasTypeHandler(value.getClass())) {
+            return value;
+        }
+        for (int i = 0; i < path.length && value != null; i++) {
+            value = read(i, value);
+        }
+        return value;
+    }
+
+    private Object read(int segment, Object target) throws SQLException {
+        Class<?> type = target.getClass();
+        Resolved current = resolved[segment];
+        if (current != null && current.type == type) {
+            return current.reader.read(target);
+        }
+        if (target instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) target;
+            if (target instanceof ParamMap && !map.containsKey(path[segment])) {
+                throw new SQLException("Parameter '" + path[segment] + "' not found. Available parameters are " + map.keySet() + ".");
+            }
+            return map.get(path[segment]);
+        }
+        PropertyReader reader = reflectorFactory.findForClass(type).getGetter(path[segment]);
+        resolved[segment] = new Resolved(type, reader);
+        return reader.read(target);
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * 上一次解析的类型和读取器，作为一个整体替换，并发读取时不会拿到不匹配的组合
+     */
+    private static final class Resolved {
+
+        private final Class<?> type;
+
+        private final PropertyReader reader;
+
+        Resolved(Class<?> type, PropertyReader reader) {
+            this.type = type;
+            this.reader = reader;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.shubai.mybatis.executor.parameter;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * ClassName: ParameterHandler
+ * Description: 参数处理器，把参数对象设置到 PreparedStatement 的占位符上
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 09:40
+ * Version: 1.0
+ */
+public interface ParameterHandler {
+
+    /**
+     * 获取参数对象
+     */
+    Object getParameterObject();
+
+    /**
+     * 按 BoundSql 中的参数映射设置所有占位符
+     */
+    void setParameters(PreparedStatement ps) throws SQLException;
+}
@@ -0,0 +1,50 @@
+package com.shubai.mybatis.executor.result;
+
+import com.shubai.mybatis.session.ResultContext;
+
+/**
+ * ClassName: DefaultResultContext
+ * Description: 默认结果上下文，一次查询只创建一个实例，每一行只替换其中的结果对象
+ * <p>
+ * 分片数据源上没有分片键的查询依次在每个分片上执行，所有分片共用同一个上下文，行数连续累加，停止后不再查询后面的分片。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/16 09:40
+ * Version: 1.0
+ */
+public class DefaultResultContext<T> implements ResultContext<T> {
+
+    private T resultObject;
+
+    private int resultCount;
+
+    private boolean stopped;
+
+    /**
+     * 切换到下一行的结果对象
+     */
+    public void nextResultObject(T resultObject) {
+        resultCount++;
+        this.resultObject = resultObject;
+    }
+
+    @Override
+    public T getResultObject() {
+        return resultObject;
+    }
+
+    @Override
+    public int getResultCount() {
+        return resultCount;
+    }
+
+    @Override
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+}
@@ -0,0 +1,370 @@
+package com.shubai.mybatis.executor.resultset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClassName: ClassFileWriter
+ * Description: 只覆盖 RowMapperGenerator 用到的指令的最小 class 文件写入器（版本 52，即 Java 8）
+ * <p>
+ * 只支持向前跳转；每个跳转目标都写一个 full_frame，局部变量固定为构造时给出的类型、操作数栈为空。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/10 10:05
+ * Version: 1.0
+ */
+final class ClassFileWriter {
+
+    static final int ALOAD = 0x19;
+    static final int ILOAD = 0x15;
+    static final int LLOAD = 0x16;
+    static final int FLOAD = 0x17;
+    static final int DLOAD = 0x18;
+    static final int ISTORE = 0x36;
+    static final int LSTORE = 0x37;
+    static final int FSTORE = 0x38;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3a;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DUP = 0x59;
+    static final int IFNE = 0x9a;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int INVOKEINTERFACE = 0xb9;
+    static final int NEW = 0xbb;
+    static final int IFNULL = 0xc6;
+    private static final int SIPUSH = 0x11;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+
+    private final Map<String, Integer> constants = new HashMap<>();
+
+    private int constantCount = 1;
+
+    private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream methodsOut = new DataOutputStream(methodBytes);
+
+    private int methodCount;
+
+    private final String className;
+
+    private final String superName;
+
+    ClassFileWriter(String className, String superName) {
+        this.className = className;
+        this.superName = superName;
+    }
+
+    /**
+     * 开始写一个 public 方法
+     *
+     * @param name        方法名
+     * @param descriptor  方法描述符
+     * @param frameLocals 跳转目标处局部变量的类型（内部类名），第 0 个是 this
+     */
+    Code method(String name, String descriptor, String... frameLocals) {
+        return new Code(name, descriptor, frameLocals);
+    }
+
+    byte[] toByteArray() {
+        try {
+            int thisClass = classConstant(className);
+            int superClass = classConstant(superName);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(52);
+            out.writeShort(constantCount);
+            constantPoolBytes.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            // 接口、字段
+            out.writeShort(0);
+            out.writeShort(0);
+            out.writeShort(methodCount);
+            methodBytes.writeTo(out);
+            // 类属性
+            out.writeShort(0);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    int classConstant(String internalName) {
+        Integer index = constants.get("C" + internalName);
+        if (index == null) {
+            int name = utf8(internalName);
+            index = add("C" + internalName, 7, name, -1);
+        }
+        return index;
+    }
+
+    int methodConstant(String owner, String name, String descriptor, boolean isInterface) {
+        String key = (isInterface ? "I" : "M") + owner + '.' + name + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int ownerIndex = classConstant(owner);
+            int nameAndType = nameAndType(name, descriptor);
+            index = add(key, isInterface ? 11 : 10, ownerIndex, nameAndType);
+        }
+        return index;
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        String key = "N" + name + ':' + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            index = add(key, 12, nameIndex, descriptorIndex);
+        }
+        return index;
+    }
+
+    private int utf8(String value) {
+        String key = "U" + value;
+        Integer index = constants.get(key);
+        if (index == null) {
+            try {
+                constantPool.writeByte(1);
+                constantPool.writeUTF(value);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            index = constantCount++;
+            constants.put(key, index);
+        }
+        return index;
+    }
+
+    private int add(String key, int tag, int first, int second) {
+        try {
+            constantPool.writeByte(tag);
+            constantPool.writeShort(first);
+            if (second >= 0) {
+                constantPool.writeShort(second);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        int index = constantCount++;
+        constants.put(key, index);
+        return index;
+    }
+
+    /**
+     * 一个方法的字节码
+     */
+    final class Code {
+
+        private final String name;
+
+        private final String descriptor;
+
+        private final String[] frameLocals;
+
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        private final List<Integer> frameOffsets = new ArrayList<>();
+
+        /**
+         * 待回填的跳转：{指令位置, 跳转偏移}
+         */
+        private final List<int[]> pendingPatches = new ArrayList<>();
+
+        private int maxLocals;
+
+        private Code(String name, String descriptor, String[] frameLocals) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.frameLocals = frameLocals;
+            this.maxLocals = frameLocals.length;
+        }
+
+        Code op(int opcode) {
+            code.write(opcode);
+            return this;
+        }
+
+        /**
+         * 读写局部变量，long、double 占两个槽
+         */
+        Code var(int opcode, int slot) {
+            code.write(opcode);
+            code.write(slot);
+            boolean wide = opcode == LLOAD || opcode == DLOAD || opcode == LSTORE || opcode == DSTORE;
+            maxLocals = Math.max(maxLocals, slot + (wide ? 2 : 1));
+            return this;
+        }
+
+        Code pushInt(int value) {
+            code.write(SIPUSH);
+            writeShort(value);
+            return this;
+        }
+
+        Code type(int opcode, String internalName) {
+            code.write(opcode);
+            writeShort(classConstant(internalName));
+            return this;
+        }
+
+        Code invoke(int opcode, String owner, String name, String descriptor) {
+            boolean isInterface = opcode == INVOKEINTERFACE;
+            code.write(opcode);
+            writeShort(methodConstant(owner, name, descriptor, isInterface));
+            if (isInterface) {
+                code.write(argumentSlots(descriptor) + 1);
+                code.write(0);
+            }
+            return this;
+        }
+
+        /**
+         * 写一条向前跳转的指令
+         *
+         * @return 指令的位置，交给 {@link #label(int)} 回填跳转偏移
+         */
+        int jump(int opcode) {
+            int position = code.size();
+            code.write(opcode);
+            writeShort(0);
+            return position;
+        }
+
+        /**
+         * 把跳转指令的目标设为当前位置
+         */
+        void label(int jumpPosition) {
+            int target = code.size();
+            if (frameOffsets.isEmpty() || frameOffsets.get(frameOffsets.size() - 1) != target) {
+                frameOffsets.add(target);
+            }
+            pendingPatches.add(new int[]{jumpPosition, target - jumpPosition});
+        }
+
+        /**
+         * 写完方法
+         *
+         * @param maxStack 操作数栈的最大深度
+         */
+        void end(int maxStack) {
+            byte[] bytecode = code.toByteArray();
+            for (int[] patch : pendingPatches) {
+                bytecode[patch[0] + 1] = (byte) (patch[1] >> 8);
+                bytecode[patch[0] + 2] = (byte) patch[1];
+            }
+            try {
+                byte[] stackMapTable = stackMapTable();
+                int codeName = utf8("Code");
+                int stackMapName = stackMapTable == null ? 0 : utf8("StackMapTable");
+                int nameIndex = utf8(name);
+                int descriptorIndex = utf8(descriptor);
+                methodsOut.writeShort(ACC_PUBLIC);
+                methodsOut.writeShort(nameIndex);
+                methodsOut.writeShort(descriptorIndex);
+                methodsOut.writeShort(1);
+                methodsOut.writeShort(codeName);
+                int attributesLength = stackMapTable == null ? 0 : 6 + stackMapTable.length;
+                methodsOut.writeInt(12 + bytecode.length + attributesLength);
+                methodsOut.writeShort(maxStack);
+                methodsOut.writeShort(maxLocals);
+                methodsOut.writeInt(bytecode.length);
+                methodsOut.write(bytecode);
+                // 异常表
+                methodsOut.writeShort(0);
+                if (stackMapTable == null) {
+                    methodsOut.writeShort(0);
+                } else {
+                    methodsOut.writeShort(1);
+                    methodsOut.writeShort(stackMapName);
+                    methodsOut.writeInt(stackMapTable.length);
+                    methodsOut.write(stackMapTable);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            methodCount++;
+        }
+
+        private byte[] stackMapTable() throws IOException {
+            if (frameOffsets.isEmpty()) {
+                return null;
+            }
+            int[] localTypes = new int[frameLocals.length];
+            for (int i = 0; i < frameLocals.length; i++) {
+                localTypes[i] = classConstant(frameLocals[i]);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(frameOffsets.size());
+            int previous = -1;
+            for (int offset : frameOffsets) {
+                // full_frame
+                out.writeByte(255);
+                out.writeShort(offset - previous - 1);
+                out.writeShort(localTypes.length);
+                for (int localType : localTypes) {
+                    // Object_variable_info
+                    out.writeByte(7);
+                    out.writeShort(localType);
+                }
+                out.writeShort(0);
+                previous = offset;
+            }
+            return bytes.toByteArray();
+        }
+
+        private void writeShort(int value) {
+            code.write(value >> 8);
+            code.write(value);
+        }
+    }
+
+    /**
+     * 方法描述符中参数占用的局部变量槽数
+     */
+    static int argumentSlots(String descriptor) {
+        int slots = 0;
+        int i = 1;
+        while (descriptor.charAt(i) != ')') {
+            char c = descriptor.charAt(i);
+            if (c == 'J' || c == 'D') {
+                slots += 2;
+                i++;
+            } else if (c == 'L') {
+                slots++;
+                i = descriptor.indexOf(';', i) + 1;
+            } else if (c == '[') {
+                slots++;
+                while (descriptor.charAt(i) == '[') {
+                    i++;
+                }
+                i = descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+            } else {
+                slots++;
+                i++;
+            }
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,84 @@
+package com.shubai.mybatis.executor.resultset;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.cursor.defaults.DefaultCursor;
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ClassName: DefaultResultSetHandler
+ * Description: 默认结果集处理器，通过缓存的预编译行映射器把每一行映射成 resultType 对象
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 09:55
+ * Version: 1.0
+ */
+public class DefaultResultSetHandler implements ResultSetHandler {
+
+    private final Configuration configuration;
+
+    private final MappedStatement mappedStatement;
+
+    public DefaultResultSetHandler(Configuration configuration, MappedStatement mappedStatement) {
+        this.configuration = configuration;
+        this.mappedStatement = mappedStatement;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E> List<E> handleResultSets(Statement stmt) throws SQLException {
+        try (ResultSet resultSet = stmt.getResultSet()) {
+            List<E> list = new ArrayList<>();
+            if (resultSet == null) {
+                return list;
+            }
+            // 每次查询只查找一次行映射器，逐行映射时不再读取元数据
+            RowMapper rowMapper = configuration.getRowMapperCache().getRowMapper(mappedStatement.getId(),
+                    mappedStatement.getBoundSql().getResultType(), resultSet.getMetaData());
+            while (resultSet.next()) {
+                list.add((E) rowMapper.mapRow(resultSet));
+            }
+            return list;
+        }
+    }
+
+    @Override
+    public void handleResultSets(Statement stmt, ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException {
+        try (ResultSet resultSet = stmt.getResultSet()) {
+            if (resultSet == null) {
+                return;
+            }
+            RowMapper rowMapper = configuration.getRowMapperCache().getRowMapper(mappedStatement.getId(),
+                    mappedStatement.getBoundSql().getResultType(), resultSet.getMetaData());
+            // 先检查是否停止再移动游标，停止之后不再从驱动读取任何行
+            while (!resultContext.isStopped() && resultSet.next()) {
+                resultContext.nextResultObject(rowMapper.mapRow(resultSet));
+                resultHandler.handleResult(resultContext);
+            }
+        }
+    }
+
+    @Override
+    public <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException {
+        ResultSet resultSet = stmt.getResultSet();
+        if (resultSet == null) {
+            throw new SQLException("Statement " + mappedStatement.getId() + " did not return a result set.");
+        }
+        try {
+            RowMapper rowMapper = configuration.getRowMapperCache().getRowMapper(mappedStatement.getId(),
+                    mappedStatement.getBoundSql().getResultType(), resultSet.getMetaData());
+            return new DefaultCursor<>(resultSet, stmt, rowMapper);
+        } catch (SQLException | RuntimeException e) {
+            resultSet.close();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.shubai.mybatis.executor.resultset;
+
+/**
+ * ClassName: GeneratedRowMapper
+ * Description: RowMapperGenerator 生成的映射器类的父类，子类只实现 mapRow
+ * <p>
+ * 生成的类由独立的类加载器定义，和本类不在同一个运行时包内，所以构造方法是 protected 的。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/10 09:50
+ * Version: 1.0
+ */
+public abstract class GeneratedRowMapper implements RowMapper {
+
+    private Class<?> resultType;
+
+    private int mappedColumnCount;
+
+    protected GeneratedRowMapper() {
+    }
+
+    /**
+     * 由 RowMapperGenerator 在实例化之后调用
+     */
+    void init(Class<?> resultType, int mappedColumnCount) {
+        this.resultType = resultType;
+        this.mappedColumnCount = mappedColumnCount;
+    }
+
+    @Override
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    @Override
+    public int getMappedColumnCount() {
+        return mappedColumnCount;
+    }
+}
@@ -0,0 +1,262 @@
+package com.shubai.mybatis.executor.resultset;
+
+import com.shubai.mybatis.type.TypeHandler;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+import com.shubai.mybatis.type.UnknownTypeHandler;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * ClassName: MethodHandleRowMapper
+ * Description: 预编译的行映射器：针对一种结果类型和一种列布局，事先确定每一列的类型处理器和对应的 setter
+ * <p>
+ * 编译时按列标签匹配属性（忽略大小写和下划线，user_name 对应 userName），没有对应 setter 的列被忽略；
+ * 构造方法和 setter 通过 LambdaMetafactory 生成为 Supplier、BiConsumer，无法生成时退回到 MethodHandle。
+ * 映射每一行时只按下标通过类型处理器读列并调用预先绑定的 setter，不再查找方法、拼接字符串或读取结果集元数据。
+ * <p>
+ * 结果类型是 String、Long 等可以直接读取的类型时，映射第一列的值。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/09 09:50
+ * Version: 1.0
+ */
+public final class MethodHandleRowMapper implements RowMapper {
+
+    private final Class<?> resultType;
+
+    /**
+     * 创建结果对象，结果类型可以直接读取时为 null
+     */
+    private final Supplier<Object> factory;
+
+    /**
+     * 需要映射的列的位置，从 1 开始
+     */
+    private final int[] columns;
+
+    /**
+     * 每一列的类型处理器，按 setter 的参数类型选定
+     */
+    private final TypeHandler<?>[] typeHandlers;
+
+    private final BiConsumer<Object, Object>[] setters;
+
+    private MethodHandleRowMapper(Class<?> resultType, Supplier<Object> factory, int[] columns, TypeHandler<?>[] typeHandlers, BiConsumer<Object, Object>[] setters) {
+        this.resultType = resultType;
+        this.factory = factory;
+        this.columns = columns;
+        this.typeHandlers = typeHandlers;
+        this.setters = setters;
+    }
+
+    @Override
+    public Object mapRow(ResultSet rs) throws SQLException {
+        if (factory == null) {
+            return typeHandlers[0].getResult(rs, 1);
+        }
+        Object row = factory.get();
+        for (int i = 0; i < columns.length; i++) {
+            Object value = typeHandlers[i].getResult(rs, columns[i]);
+            // 值为 null 时保留属性的默认值
+            if (value != null) {
+                setters[i].accept(row, value);
+            }
+        }
+        return row;
+    }
+
+    @Override
+    public Class<?> getResultType() {
+        return resultType;
+    }
+
+    @Override
+    public int getMappedColumnCount() {
+        return columns.length;
+    }
+
+    /**
+     * 为结果类型和结果集的列布局编译行映射器
+     *
+     * @param resultType          结果类型
+     * @param metaData            结果集元数据
+     * @param typeHandlerRegistry 类型处理器注册中心
+     * @return 行映射器
+     * @throws SQLException 结果类型无法实例化或 setter 无法绑定
+     */
+    public static MethodHandleRowMapper compile(Class<?> resultType, ResultSetMetaData metaData, TypeHandlerRegistry typeHandlerRegistry) throws SQLException {
+        if (isDirectlyReadable(resultType)) {
+            return new MethodHandleRowMapper(resultType, null, new int[]{1},
+                    new TypeHandler<?>[]{typeHandler(typeHandlerRegistry, resultType)}, null);
+        }
+        Method[] columnSetters = resolveSetters(resultType, metaData);
+        List<Integer> columns = new ArrayList<>(columnSetters.length);
+        List<TypeHandler<?>> typeHandlers = new ArrayList<>(columnSetters.length);
+        List<BiConsumer<Object, Object>> setters = new ArrayList<>(columnSetters.length);
+        for (int i = 0; i < columnSetters.length; i++) {
+            Method setter = columnSetters[i];
+            if (setter == null) {
+                continue;
+            }
+            columns.add(i + 1);
+            typeHandlers.add(typeHandler(typeHandlerRegistry, setter.getParameterTypes()[0]));
+            setters.add(bindSetter(resultType, setter));
+        }
+        int[] columnArray = new int[columns.size()];
+        for (int i = 0; i < columnArray.length; i++) {
+            columnArray[i] = columns.get(i);
+        }
+        return new MethodHandleRowMapper(resultType, bindConstructor(resultType), columnArray,
+                typeHandlers.toArray(new TypeHandler<?>[0]), toSetterArray(setters));
+    }
+
+    /**
+     * 泛型数组无法直接创建，元素都来自 bindSetter，转换是安全的
+     */
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object>[] toSetterArray(List<BiConsumer<Object, Object>> setters) {
+        return setters.toArray((BiConsumer<Object, Object>[]) new BiConsumer<?, ?>[setters.size()]);
+    }
+
+    /**
+     * 属性类型对应的类型处理器，没有注册时按驱动的默认类型读取再转换
+     */
+    private static TypeHandler<?> typeHandler(TypeHandlerRegistry typeHandlerRegistry, Class<?> type) {
+        TypeHandler<?> typeHandler = typeHandlerRegistry.getTypeHandler(type);
+        return typeHandler != null ? typeHandler : new UnknownTypeHandler(typeHandlerRegistry, type);
+    }
+
+    /**
+     * 为每一列选择对应的 setter
+     *
+     * @param resultType 结果类型
+     * @param metaData   结果集元数据
+     * @return 下标 i 对应第 i + 1 列，没有对应属性的列为 null
+     */
+    static Method[] resolveSetters(Class<?> resultType, ResultSetMetaData metaData) throws SQLException {
+        Map<String, List<Method>> settersByProperty = findSetters(resultType);
+        Method[] columnSetters = new Method[metaData.getColumnCount()];
+        for (int column = 1; column <= columnSetters.length; column++) {
+            List<Method> candidates = settersByProperty.get(normalize(metaData.getColumnLabel(column)));
+            if (candidates != null) {
+                columnSetters[column - 1] = chooseSetter(candidates, metaData.getColumnClassName(column));
+            }
+        }
+        return columnSetters;
+    }
+
+    static boolean isDirectlyReadable(Class<?> type) {
+        return type.isPrimitive() || type == String.class || Number.class.isAssignableFrom(type)
+                || type == Boolean.class || java.util.Date.class.isAssignableFrom(type) || type == byte[].class;
+    }
+
+    /**
+     * 列标签和属性名统一为小写并去掉下划线
+     */
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * 收集所有公共的单参数 setter，按规范化后的属性名分组
+     */
+    private static Map<String, List<Method>> findSetters(Class<?> type) {
+        Map<String, List<Method>> setters = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            if (method.getName().length() > 3 && method.getName().startsWith("set") && method.getParameterCount() == 1
+                    && !Modifier.isStatic(method.getModifiers())) {
+                setters.computeIfAbsent(normalize(method.getName().substring(3)), key -> new ArrayList<>()).add(method);
+            }
+        }
+        return setters;
+    }
+
+    /**
+     * 属性有多个重载的 setter 时，优先选择参数类型和列的 Java 类型一致的 setter
+     */
+    private static Method chooseSetter(List<Method> candidates, String columnClassName) {
+        if (candidates.size() > 1 && columnClassName != null) {
+            for (Method candidate : candidates) {
+                if (candidate.getParameterTypes()[0].getName().equals(columnClassName)) {
+                    return candidate;
+                }
+            }
+        }
+        return candidates.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Object> bindConstructor(Class<?> type) throws SQLException {
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup().findConstructor(type, MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new SQLException("Result type " + type.getName() + " has no public no-arg constructor. Cause: " + e, e);
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "get",
+                    MethodType.methodType(Supplier.class), MethodType.methodType(Object.class),
+                    constructor, MethodType.methodType(type));
+            return (Supplier<Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            // 无法生成 lambda 时（例如结果类型对本类不可见）直接调用 MethodHandle
+            MethodHandle generic = constructor.asType(MethodType.methodType(Object.class));
+            return () -> {
+                try {
+                    return generic.invokeExact();
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Error instantiating " + type.getName() + ". Cause: " + t, t);
+                }
+            };
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> bindSetter(Class<?> type, Method method) throws SQLException {
+        MethodHandle setter;
+        try {
+            setter = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new SQLException("Setter " + method + " is not accessible. Cause: " + e, e);
+        }
+        Class<?> parameterType = box(method.getParameterTypes()[0]);
+        try {
+            CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "accept",
+                    MethodType.methodType(BiConsumer.class), MethodType.methodType(void.class, Object.class, Object.class),
+                    setter, MethodType.methodType(void.class, type, parameterType));
+            return (BiConsumer<Object, Object>) site.getTarget().invoke();
+        } catch (Throwable e) {
+            MethodHandle generic = setter.asType(MethodType.methodType(void.class, Object.class, Object.class));
+            return (target, value) -> {
+                try {
+                    generic.invokeExact(target, value);
+                } catch (Throwable t) {
+                    throw new IllegalStateException("Error invoking " + method + ". Cause: " + t, t);
+                }
+            };
+        }
+    }
+
+    private static Class<?> box(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return type;
+        }
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
@@ -0,0 +1,35 @@
+package com.shubai.mybatis.executor.resultset;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.session.ResultHandler;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * ClassName: ResultSetHandler
+ * Description: 结果集处理器，把语句执行后的结果集映射成对象
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 09:50
+ * Version: 1.0
+ */
+public interface ResultSetHandler {
+
+    /**
+     * 把语句的当前结果集映射成对象列表，处理完后关闭结果集
+     */
+    <E> List<E> handleResultSets(Statement stmt) throws SQLException;
+
+    /**
+     * 把语句的当前结果集逐行映射后交给结果处理器，不保存结果；上下文被要求停止时不再读取后面的行，处理完后关闭结果集
+     */
+    void handleResultSets(Statement stmt, ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException;
+
+    /**
+     * 把语句的当前结果集包装成游标，遍历时逐行映射，游标关闭时关闭结果集和语句
+     */
+    <E> Cursor<E> handleCursorResultSets(Statement stmt) throws SQLException;
+}
@@ -0,0 +1,48 @@
+package com.shubai.mybatis.executor.resultset;
+
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * ClassName: RowMapper
+ * Description: 行映射器，针对一种结果类型和一种列布局把结果集的当前行映射成对象
+ * <p>
+ * 默认实现是 MethodHandleRowMapper；开启 RowMapperType.GENERATED 时由 RowMapperGenerator 为每种列布局生成专用的映射器类。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/09 09:50
+ * Version: 1.0
+ */
+public interface RowMapper {
+
+    /**
+     * 把结果集的当前行映射成对象
+     */
+    Object mapRow(ResultSet rs) throws SQLException;
+
+    /**
+     * 结果类型
+     */
+    Class<?> getResultType();
+
+    /**
+     * 映射到属性的列数
+     */
+    int getMappedColumnCount();
+
+    /**
+     * 为结果类型和结果集的列布局编译基于 MethodHandle 的行映射器
+     *
+     * @param resultType          结果类型
+     * @param metaData            结果集元数据
+     * @param typeHandlerRegistry 类型处理器注册中心
+     * @return 行映射器
+     * @throws SQLException 结果类型无法实例化或 setter 无法绑定
+     */
+    static RowMapper compile(Class<?> resultType, ResultSetMetaData metaData, TypeHandlerRegistry typeHandlerRegistry) throws SQLException {
+        return MethodHandleRowMapper.compile(resultType, metaData, typeHandlerRegistry);
+    }
+}
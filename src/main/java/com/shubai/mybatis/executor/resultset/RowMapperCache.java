@@ -0,0 +1,147 @@
+package com.shubai.mybatis.executor.resultset;
+
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ClassName: RowMapperCache
+ * Description: 行映射器缓存，按（映射语句、结果类型、列布局）缓存编译好的 RowMapper
+ * <p>
+ * 每次查询只读取一次列标签用于查找缓存，同一条语句的列布局不变时总是命中同一个映射器。
+ * RowMapperType.GENERATED 时第一次遇到某种列布局才生成映射器类，不能生成的结果类型退回到 MethodHandleRowMapper。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/09 10:30
+ * Version: 1.0
+ */
+public class RowMapperCache {
+
+    private final Map<Key, RowMapper> rowMappers = new ConcurrentHashMap<>();
+
+    /**
+     * 结果类型名称 -> Class，避免每次查询都调用 Class.forName
+     */
+    private final Map<String, Class<?>> resultTypes = new ConcurrentHashMap<>();
+
+    private volatile RowMapperType rowMapperType = RowMapperType.METHOD_HANDLE;
+
+    private final TypeHandlerRegistry typeHandlerRegistry;
+
+    public RowMapperCache() {
+        this(new TypeHandlerRegistry());
+    }
+
+    public RowMapperCache(TypeHandlerRegistry typeHandlerRegistry) {
+        this.typeHandlerRegistry = typeHandlerRegistry;
+    }
+
+    /**
+     * 获取行映射器，没有缓存时编译
+     *
+     * @param statementId    映射语句 id
+     * @param resultTypeName 结果类型的全限定名
+     * @param metaData       结果集元数据
+     * @return 行映射器
+     */
+    public RowMapper getRowMapper(String statementId, String resultTypeName, ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] labels = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+        Key key = new Key(statementId, resultTypeName, labels);
+        RowMapper rowMapper = rowMappers.get(key);
+        if (rowMapper == null) {
+            rowMapper = compile(resolveResultType(resultTypeName), metaData);
+            RowMapper existing = rowMappers.putIfAbsent(key, rowMapper);
+            if (existing != null) {
+                rowMapper = existing;
+            }
+        }
+        return rowMapper;
+    }
+
+    private RowMapper compile(Class<?> resultType, ResultSetMetaData metaData) throws SQLException {
+        if (rowMapperType == RowMapperType.GENERATED) {
+            RowMapper generated = RowMapperGenerator.generate(resultType, metaData, typeHandlerRegistry);
+            if (generated != null) {
+                return generated;
+            }
+        }
+        return RowMapper.compile(resultType, metaData, typeHandlerRegistry);
+    }
+
+    private Class<?> resolveResultType(String resultTypeName) throws SQLException {
+        Class<?> type = resultTypes.get(resultTypeName);
+        if (type == null) {
+            try {
+                type = Class.forName(resultTypeName);
+            } catch (ClassNotFoundException e) {
+                throw new SQLException("Error resolving result type " + resultTypeName + ". Cause: " + e, e);
+            }
+            resultTypes.put(resultTypeName, type);
+        }
+        return type;
+    }
+
+    public RowMapperType getRowMapperType() {
+        return rowMapperType;
+    }
+
+    /**
+     * 切换行映射器的实现方式，已经编译的映射器全部失效
+     */
+    public void setRowMapperType(RowMapperType rowMapperType) {
+        this.rowMapperType = rowMapperType;
+        rowMappers.clear();
+    }
+
+    /**
+     * 已编译的行映射器数量
+     */
+    public int size() {
+        return rowMappers.size();
+    }
+
+    private static final class Key {
+
+        private final String statementId;
+
+        private final String resultTypeName;
+
+        private final String[] labels;
+
+        private final int hash;
+
+        Key(String statementId, String resultTypeName, String[] labels) {
+            this.statementId = statementId;
+            this.resultTypeName = resultTypeName;
+            this.labels = labels;
+            this.hash = Objects.hash(statementId, resultTypeName) * 31 + Arrays.hashCode(labels);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && statementId.equals(other.statementId)
+                    && resultTypeName.equals(other.resultTypeName) && Arrays.equals(labels, other.labels);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
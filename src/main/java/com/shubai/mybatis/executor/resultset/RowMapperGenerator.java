@@ -0,0 +1,277 @@
+package com.shubai.mybatis.executor.resultset;
+
+import com.shubai.mybatis.type.BigDecimalTypeHandler;
+import com.shubai.mybatis.type.BooleanTypeHandler;
+import com.shubai.mybatis.type.ByteArrayTypeHandler;
+import com.shubai.mybatis.type.ByteTypeHandler;
+import com.shubai.mybatis.type.DateTypeHandler;
+import com.shubai.mybatis.type.DoubleTypeHandler;
+import com.shubai.mybatis.type.FloatTypeHandler;
+import com.shubai.mybatis.type.IntegerTypeHandler;
+import com.shubai.mybatis.type.LongTypeHandler;
+import com.shubai.mybatis.type.ShortTypeHandler;
+import com.shubai.mybatis.type.SqlDateTypeHandler;
+import com.shubai.mybatis.type.SqlTimeTypeHandler;
+import com.shubai.mybatis.type.SqlTimestampTypeHandler;
+import com.shubai.mybatis.type.StringTypeHandler;
+import com.shubai.mybatis.type.TypeHandler;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ClassName: RowMapperGenerator
+ * Description: 为结果类型和列布局生成专用的映射器类
+ * <p>
+ * 生成的 mapRow 相当于手写的：
+ * <pre>
+ * User user = new User();
+ * long id = rs.getLong(1);
+ * if (!rs.wasNull()) {
+ *     user.setId(Long.valueOf(id));
+ * }
+ * String username = rs.getString(2);
+ * if (username != null) {
+ *     user.setUsername(username);
+ * }
+ * return user;
+ * </pre>
+ * 列的位置、getter 和 setter 都写死在字节码里，没有 Object 中转，primitive 类型的属性不装箱。
+ * 只有 public 的结果类型、public 无参构造方法和 public setter 可以生成；
+ * 其他情况（以及属性类型注册了自定义类型处理器时）返回 null，由调用方退回到 MethodHandleRowMapper。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/10 10:40
+ * Version: 1.0
+ */
+public final class RowMapperGenerator {
+
+    private static final String RESULT_SET = "java/sql/ResultSet";
+
+    private static final String SUPER_CLASS = GeneratedRowMapper.class.getName().replace('.', '/');
+
+    /**
+     * 内置类型处理器 -> 生成的代码中对应的 getter；属性类型注册了其他类型处理器时不生成
+     */
+    private static final Map<Class<?>, Getter> GETTERS = new HashMap<>();
+
+    static {
+        primitive(LongTypeHandler.class, Long.class, "getLong", "J", ClassFileWriter.LSTORE, ClassFileWriter.LLOAD);
+        primitive(IntegerTypeHandler.class, Integer.class, "getInt", "I", ClassFileWriter.ISTORE, ClassFileWriter.ILOAD);
+        primitive(ShortTypeHandler.class, Short.class, "getShort", "S", ClassFileWriter.ISTORE, ClassFileWriter.ILOAD);
+        primitive(ByteTypeHandler.class, Byte.class, "getByte", "B", ClassFileWriter.ISTORE, ClassFileWriter.ILOAD);
+        primitive(BooleanTypeHandler.class, Boolean.class, "getBoolean", "Z", ClassFileWriter.ISTORE, ClassFileWriter.ILOAD);
+        primitive(DoubleTypeHandler.class, Double.class, "getDouble", "D", ClassFileWriter.DSTORE, ClassFileWriter.DLOAD);
+        primitive(FloatTypeHandler.class, Float.class, "getFloat", "F", ClassFileWriter.FSTORE, ClassFileWriter.FLOAD);
+        GETTERS.put(StringTypeHandler.class, new Getter("getString", "Ljava/lang/String;", null));
+        GETTERS.put(BigDecimalTypeHandler.class, new Getter("getBigDecimal", "Ljava/math/BigDecimal;", null));
+        // java.util.Date 属性使用 Timestamp，保留时间部分
+        GETTERS.put(DateTypeHandler.class, new Getter("getTimestamp", "Ljava/sql/Timestamp;", null));
+        GETTERS.put(SqlTimestampTypeHandler.class, new Getter("getTimestamp", "Ljava/sql/Timestamp;", null));
+        GETTERS.put(SqlDateTypeHandler.class, new Getter("getDate", "Ljava/sql/Date;", null));
+        GETTERS.put(SqlTimeTypeHandler.class, new Getter("getTime", "Ljava/sql/Time;", null));
+        GETTERS.put(ByteArrayTypeHandler.class, new Getter("getBytes", "[B", null));
+    }
+
+    /**
+     * 生成的类名的序号
+     */
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private RowMapperGenerator() {
+    }
+
+    /**
+     * 为结果类型和结果集的列布局生成映射器
+     *
+     * @param resultType          结果类型
+     * @param metaData            结果集元数据
+     * @param typeHandlerRegistry 类型处理器注册中心，属性类型使用内置类型处理器时才能生成
+     * @return 生成的映射器，不能生成时为 null
+     */
+    public static RowMapper generate(Class<?> resultType, ResultSetMetaData metaData, TypeHandlerRegistry typeHandlerRegistry) throws SQLException {
+        if (!isGeneratable(resultType)) {
+            return null;
+        }
+        Method[] setters = MethodHandleRowMapper.resolveSetters(resultType, metaData);
+        Getter[] getters = new Getter[setters.length];
+        int mappedColumnCount = 0;
+        for (int i = 0; i < setters.length; i++) {
+            if (setters[i] == null) {
+                continue;
+            }
+            TypeHandler<?> typeHandler = typeHandlerRegistry.getTypeHandler(setters[i].getParameterTypes()[0]);
+            getters[i] = typeHandler == null ? null : GETTERS.get(typeHandler.getClass());
+            if (getters[i] == null) {
+                return null;
+            }
+            mappedColumnCount++;
+        }
+        String className = resultType.getName() + "$$RowMapper" + SEQUENCE.incrementAndGet();
+        byte[] classFile = writeClass(className.replace('.', '/'), resultType, setters, getters);
+        try {
+            Class<?> mapperClass = new GeneratedClassLoader(resultType.getClassLoader()).define(className, classFile);
+            GeneratedRowMapper rowMapper = (GeneratedRowMapper) mapperClass.getConstructor().newInstance();
+            rowMapper.init(resultType, mappedColumnCount);
+            return rowMapper;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new SQLException("Error generating row mapper for " + resultType.getName() + ". Cause: " + e, e);
+        }
+    }
+
+    private static boolean isGeneratable(Class<?> resultType) {
+        if (MethodHandleRowMapper.isDirectlyReadable(resultType) || resultType.getName().startsWith("java.")
+                || !Modifier.isPublic(resultType.getModifiers()) || Modifier.isAbstract(resultType.getModifiers())) {
+            return false;
+        }
+        try {
+            resultType.getConstructor();
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static byte[] writeClass(String className, Class<?> resultType, Method[] setters, Getter[] getters) {
+        String target = resultType.getName().replace('.', '/');
+        ClassFileWriter writer = new ClassFileWriter(className, SUPER_CLASS);
+
+        ClassFileWriter.Code constructor = writer.method("<init>", "()V", className);
+        constructor.var(ClassFileWriter.ALOAD, 0)
+                .invoke(ClassFileWriter.INVOKESPECIAL, SUPER_CLASS, "<init>", "()V")
+                .op(ClassFileWriter.RETURN);
+        constructor.end(1);
+
+        // 局部变量：0 this，1 ResultSet，2 结果对象，3 起是当前列的值
+        ClassFileWriter.Code mapRow = writer.method("mapRow", "(Ljava/sql/ResultSet;)Ljava/lang/Object;", className, RESULT_SET, target);
+        mapRow.type(ClassFileWriter.NEW, target)
+                .op(ClassFileWriter.DUP)
+                .invoke(ClassFileWriter.INVOKESPECIAL, target, "<init>", "()V")
+                .var(ClassFileWriter.ASTORE, 2);
+        for (int i = 0; i < setters.length; i++) {
+            Method setter = setters[i];
+            if (setter == null) {
+                continue;
+            }
+            Class<?> propertyType = setter.getParameterTypes()[0];
+            Getter getter = getters[i];
+            mapRow.var(ClassFileWriter.ALOAD, 1)
+                    .pushInt(i + 1)
+                    .invoke(ClassFileWriter.INVOKEINTERFACE, RESULT_SET, getter.name, "(I)" + getter.descriptor)
+                    .var(getter.store, 3);
+            int skip;
+            if (getter.wrapper == null) {
+                // 引用类型：SQL NULL 读出来就是 null
+                mapRow.var(ClassFileWriter.ALOAD, 3);
+                skip = mapRow.jump(ClassFileWriter.IFNULL);
+            } else {
+                mapRow.var(ClassFileWriter.ALOAD, 1)
+                        .invoke(ClassFileWriter.INVOKEINTERFACE, RESULT_SET, "wasNull", "()Z");
+                skip = mapRow.jump(ClassFileWriter.IFNE);
+            }
+            mapRow.var(ClassFileWriter.ALOAD, 2).var(getter.load, 3);
+            if (getter.wrapper != null && !propertyType.isPrimitive()) {
+                mapRow.invoke(ClassFileWriter.INVOKESTATIC, getter.wrapper, "valueOf",
+                        "(" + getter.descriptor + ")L" + getter.wrapper + ";");
+            }
+            mapRow.invoke(ClassFileWriter.INVOKEVIRTUAL, target, setter.getName(), methodDescriptor(setter));
+            // 链式 setter 的返回值直接丢弃
+            Class<?> returnType = setter.getReturnType();
+            if (returnType == long.class || returnType == double.class) {
+                mapRow.op(ClassFileWriter.POP2);
+            } else if (returnType != void.class) {
+                mapRow.op(ClassFileWriter.POP);
+            }
+            mapRow.label(skip);
+        }
+        mapRow.var(ClassFileWriter.ALOAD, 2).op(ClassFileWriter.ARETURN);
+        // 最深时栈上是结果对象和一个 long/double
+        mapRow.end(3);
+        return writer.toByteArray();
+    }
+
+    private static String methodDescriptor(Method method) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            descriptor.append(descriptor(parameterType));
+        }
+        return descriptor.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type.isArray()) {
+            return type.getName().replace('.', '/');
+        } else if (!type.isPrimitive()) {
+            return "L" + type.getName().replace('.', '/') + ";";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == boolean.class) {
+            return "Z";
+        } else if (type == void.class) {
+            return "V";
+        }
+        // int -> I, double -> D, ...
+        return String.valueOf(Character.toUpperCase(type.getName().charAt(0)));
+    }
+
+    private static void primitive(Class<?> typeHandlerType, Class<?> wrapper, String name, String descriptor, int store, int load) {
+        GETTERS.put(typeHandlerType, new Getter(name, descriptor, wrapper.getName().replace('.', '/'), store, load));
+    }
+
+    /**
+     * 一种属性类型对应的 ResultSet getter
+     */
+    private static final class Getter {
+
+        private final String name;
+
+        private final String descriptor;
+
+        /**
+         * getter 返回 primitive 时对应的包装类型（内部类名），用 wasNull 判断 SQL NULL；返回引用类型时为 null
+         */
+        private final String wrapper;
+
+        private final int store;
+
+        private final int load;
+
+        Getter(String name, String descriptor, String wrapper) {
+            this(name, descriptor, wrapper, ClassFileWriter.ASTORE, ClassFileWriter.ALOAD);
+        }
+
+        Getter(String name, String descriptor, String wrapper, int store, int load) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.wrapper = wrapper;
+            this.store = store;
+            this.load = load;
+        }
+    }
+
+    /**
+     * 定义生成的类：父加载器是结果类型的加载器，找不到的类（例如 GeneratedRowMapper）再从框架自己的加载器中加载
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent != null ? parent : GeneratedRowMapper.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            return GeneratedRowMapper.class.getClassLoader().loadClass(name);
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.shubai.mybatis.executor.resultset;
+
+/**
+ * ClassName: RowMapperType
+ * Description: 行映射器的实现方式
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/10 09:40
+ * Version: 1.0
+ */
+public enum RowMapperType {
+
+    /**
+     * 通过 LambdaMetafactory 绑定的构造方法和 setter 映射，列值经过 Object 传递
+     */
+    METHOD_HANDLE,
+
+    /**
+     * 为每种结果类型和列布局生成专用的映射器类，直接调用 getLong、getString 等类型化的 getter 和 setter
+     */
+    GENERATED
+}
@@ -0,0 +1,103 @@
+package com.shubai.mybatis.executor.statement;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.executor.parameter.DefaultParameterHandler;
+import com.shubai.mybatis.executor.parameter.ParameterHandler;
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.executor.resultset.DefaultResultSetHandler;
+import com.shubai.mybatis.executor.resultset.ResultSetHandler;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * ClassName: PreparedStatementHandler
+ * Description: 基于 PreparedStatement 的语句处理器
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 10:05
+ * Version: 1.0
+ */
+public class PreparedStatementHandler implements StatementHandler {
+
+    private final BoundSql boundSql;
+
+    /**
+     * 语句的 fetchSize，为 null 时不设置
+     */
+    private final Integer fetchSize;
+
+    private final ParameterHandler parameterHandler;
+
+    private final ResultSetHandler resultSetHandler;
+
+    public PreparedStatementHandler(Configuration configuration, MappedStatement mappedStatement, Object parameterObject) {
+        this.boundSql = mappedStatement.getBoundSql();
+        this.fetchSize = mappedStatement.getFetchSize() != null ? mappedStatement.getFetchSize() : configuration.getDefaultFetchSize();
+        this.parameterHandler = new DefaultParameterHandler(mappedStatement, parameterObject);
+        this.resultSetHandler = new DefaultResultSetHandler(configuration, mappedStatement);
+    }
+
+    @Override
+    public PreparedStatement prepare(Connection connection) throws SQLException {
+        PreparedStatement ps = connection.prepareStatement(boundSql.getSql());
+        if (fetchSize != null) {
+            try {
+                ps.setFetchSize(fetchSize);
+            } catch (SQLException e) {
+                ps.close();
+                throw e;
+            }
+        }
+        return ps;
+    }
+
+    @Override
+    public void parameterize(PreparedStatement ps) throws SQLException {
+        parameterHandler.setParameters(ps);
+    }
+
+    @Override
+    public void batch(PreparedStatement ps) throws SQLException {
+        ps.addBatch();
+    }
+
+    @Override
+    public int update(PreparedStatement ps) throws SQLException {
+        return ps.executeUpdate();
+    }
+
+    @Override
+    public <E> List<E> query(PreparedStatement ps) throws SQLException {
+        ps.execute();
+        return resultSetHandler.handleResultSets(ps);
+    }
+
+    @Override
+    public void query(PreparedStatement ps, ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException {
+        ps.execute();
+        resultSetHandler.handleResultSets(ps, resultHandler, resultContext);
+    }
+
+    @Override
+    public <E> Cursor<E> queryCursor(PreparedStatement ps) throws SQLException {
+        ps.execute();
+        return resultSetHandler.handleCursorResultSets(ps);
+    }
+
+    @Override
+    public BoundSql getBoundSql() {
+        return boundSql;
+    }
+
+    @Override
+    public ParameterHandler getParameterHandler() {
+        return parameterHandler;
+    }
+}
@@ -0,0 +1,64 @@
+package com.shubai.mybatis.executor.statement;
+
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.executor.parameter.ParameterHandler;
+import com.shubai.mybatis.executor.result.DefaultResultContext;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.session.ResultHandler;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * ClassName: StatementHandler
+ * Description: 语句处理器，负责创建 PreparedStatement、设置参数以及执行语句，由执行器决定语句的创建和复用方式
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 10:00
+ * Version: 1.0
+ */
+public interface StatementHandler {
+
+    /**
+     * 在连接上创建语句
+     */
+    PreparedStatement prepare(Connection connection) throws SQLException;
+
+    /**
+     * 设置语句参数
+     */
+    void parameterize(PreparedStatement ps) throws SQLException;
+
+    /**
+     * 把语句加入批处理
+     */
+    void batch(PreparedStatement ps) throws SQLException;
+
+    /**
+     * 执行更新语句
+     *
+     * @return 影响的行数
+     */
+    int update(PreparedStatement ps) throws SQLException;
+
+    /**
+     * 执行查询语句并映射结果
+     */
+    <E> List<E> query(PreparedStatement ps) throws SQLException;
+
+    /**
+     * 执行查询语句，把每一行映射后交给结果处理器
+     */
+    void query(PreparedStatement ps, ResultHandler<Object> resultHandler, DefaultResultContext<Object> resultContext) throws SQLException;
+
+    /**
+     * 执行查询语句并返回游标，语句由游标负责关闭
+     */
+    <E> Cursor<E> queryCursor(PreparedStatement ps) throws SQLException;
+
+    BoundSql getBoundSql();
+
+    ParameterHandler getParameterHandler();
+}
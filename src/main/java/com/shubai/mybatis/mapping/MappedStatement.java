@@ -1,7 +1,17 @@
 package com.shubai.mybatis.mapping;
 
+import com.shubai.mybatis.executor.parameter.ParameterAccessor;
+import com.shubai.mybatis.reflection.Reflector;
+import com.shubai.mybatis.reflection.ReflectorFactory;
 import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.type.JdbcType;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -33,6 +43,28 @@ public class MappedStatement {
      */
     private BoundSql boundSql;
 
+    /**
+     * 分片键对应的参数名称（#{} 中的名称），为 null 表示该语句不按分片路由，在分片数据源上查询所有分片
+     */
+    private String shardKey;
+
+    /**
+     * 没有分片键的 UPDATE、DELETE 是否在分片数据源的每个分片上执行，需要在语句上显式声明；
+     * 未声明时分片数据源拒绝执行没有分片键的写语句
+     */
+    private boolean broadcast;
+
+    /**
+     * 查询时每次从数据库读取的行数，为 null 时使用 Configuration 中的 defaultFetchSize；
+     * MySQL 驱动上设置为 Integer.MIN_VALUE 表示逐行流式读取
+     */
+    private Integer fetchSize;
+
+    /**
+     * 按占位符顺序排列的参数映射，类型处理器在构建时选定
+     */
+    private List<ParameterMapping> parameterMappings;
+
     MappedStatement() {
         // constructor disabled
     }
@@ -44,6 +76,13 @@ public class MappedStatement {
 
         private MappedStatement mappedStatement = new MappedStatement();
 
+        /**
+         * #{} 中显式声明的 Java 类型和 JDBC 类型，key 是占位符位置
+         */
+        private final Map<Integer, Class<?>> declaredJavaTypes = new HashMap<>();
+
+        private final Map<Integer, JdbcType> declaredJdbcTypes = new HashMap<>();
+
         public Builder(Configuration configuration, String id, SqlCommandType sqlCommandType, BoundSql boundSql) {
             mappedStatement.configuration = configuration;
             mappedStatement.id = id;
@@ -51,11 +90,124 @@ public class MappedStatement {
             mappedStatement.boundSql = boundSql;
         }
 
+        public Builder shardKey(String shardKey) {
+            mappedStatement.shardKey = shardKey;
+            return this;
+        }
+
+        public Builder broadcast(boolean broadcast) {
+            mappedStatement.broadcast = broadcast;
+            return this;
+        }
+
+        public Builder fetchSize(Integer fetchSize) {
+            mappedStatement.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * 声明某个占位符的类型，例如 #{id, javaType=long, jdbcType=BIGINT}
+         *
+         * @param position 占位符位置，从 1 开始
+         * @param javaType Java 类型，为 null 时按 parameterType 推断
+         * @param jdbcType JDBC 类型，可以为 null
+         */
+        public Builder declareParameter(int position, Class<?> javaType, JdbcType jdbcType) {
+            if (javaType != null) {
+                declaredJavaTypes.put(position, javaType);
+            }
+            if (jdbcType != null) {
+                declaredJdbcTypes.put(position, jdbcType);
+            }
+            return this;
+        }
+
         public MappedStatement build() {
             assert mappedStatement.configuration != null;
             assert mappedStatement.id != null;
+            if (mappedStatement.broadcast && (mappedStatement.shardKey != null
+                    || (mappedStatement.sqlCommandType != SqlCommandType.UPDATE && mappedStatement.sqlCommandType != SqlCommandType.DELETE))) {
+                throw new IllegalArgumentException("Statement " + mappedStatement.id + " declares broadcast, which only applies to an update or delete without a shard key.");
+            }
+            mappedStatement.parameterMappings = buildParameterMappings();
             return mappedStatement;
         }
+
+        /**
+         * 为每个占位符选定类型处理器：parameterType 是有类型处理器的简单类型时所有占位符都使用它，
+         * 是 JavaBean 时按属性路径的类型，Map 或未声明时在执行时按参数值的类型确定；同时为每个占位符创建取值用的 ParameterAccessor
+         */
+        private List<ParameterMapping> buildParameterMappings() {
+            BoundSql boundSql = mappedStatement.boundSql;
+            if (boundSql == null || boundSql.getParameterMappings() == null || boundSql.getParameterMappings().isEmpty()) {
+                return Collections.emptyList();
+            }
+            Configuration configuration = mappedStatement.configuration;
+            Class<?> parameterType = resolveParameterType(boundSql.getParameterType());
+            Map<Integer, String> names = boundSql.getParameterMappings();
+            List<ParameterMapping> parameterMappings = new ArrayList<>(names.size());
+            for (int position = 1; position <= names.size(); position++) {
+                String property = names.get(position);
+                if (property == null) {
+                    throw new IllegalArgumentException("Statement " + mappedStatement.id + " has no parameter at position " + position + ".");
+                }
+                Class<?> javaType = declaredJavaTypes.get(position);
+                if (javaType == null) {
+                    javaType = propertyType(parameterType, property);
+                }
+                parameterMappings.add(new ParameterMapping.Builder(configuration, property, javaType)
+                        .jdbcType(declaredJdbcTypes.get(position))
+                        .accessor(new ParameterAccessor(position, property, parameterType,
+                                configuration.getTypeHandlerRegistry(), configuration.getReflectorFactory()))
+                        .build());
+            }
+            return Collections.unmodifiableList(parameterMappings);
+        }
+
+        private Class<?> resolveParameterType(String parameterType) {
+            if (parameterType == null) {
+                return null;
+            }
+            Class<?> type = mappedStatement.configuration.getTypeAliasRegistry().resolveAlias(parameterType);
+            if (type != null) {
+                return type;
+            }
+            try {
+                return Class.forName(parameterType);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Could not resolve parameterType " + parameterType + " of statement " + mappedStatement.id + ".", e);
+            }
+        }
+
+        /**
+         * 推断参数的 Java 类型，属性路径（例如 user.id）逐段按 getter 或字段的类型解析，无法确定时返回 null
+         */
+        private Class<?> propertyType(Class<?> parameterType, String property) {
+            if (parameterType == null || Map.class.isAssignableFrom(parameterType)) {
+                return null;
+            }
+            TypeHandlerRegistry typeHandlerRegistry = mappedStatement.configuration.getTypeHandlerRegistry();
+            if (typeHandlerRegistry.hasTypeHandler(parameterType)) {
+                return parameterType;
+            }
+            ReflectorFactory reflectorFactory = mappedStatement.configuration.getReflectorFactory();
+            Class<?> type = parameterType;
+            for (String name : property.split("\\.")) {
+                if (type == null || Map.class.isAssignableFrom(type)) {
+                    return null;
+                }
+                Reflector reflector = reflectorFactory.findForClass(type);
+                if (!reflector.hasGetter(name)) {
+                    return null;
+                }
+                try {
+                    type = reflector.getGetterType(name);
+                } catch (SQLException e) {
+                    return null;
+                }
+            }
+            return type;
+        }
     }
 
     public Configuration getConfiguration() {
@@ -73,4 +225,20 @@ public class MappedStatement {
     public BoundSql getBoundSql() {
         return boundSql;
     }
+
+    public String getShardKey() {
+        return shardKey;
+    }
+
+    public boolean isBroadcast() {
+        return broadcast;
+    }
+
+    public Integer getFetchSize() {
+        return fetchSize;
+    }
+
+    public List<ParameterMapping> getParameterMappings() {
+        return parameterMappings;
+    }
 }
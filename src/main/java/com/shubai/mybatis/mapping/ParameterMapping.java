@@ -0,0 +1,111 @@
+package com.shubai.mybatis.mapping;
+
+import com.shubai.mybatis.executor.parameter.ParameterAccessor;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.type.JdbcType;
+import com.shubai.mybatis.type.TypeHandler;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+import com.shubai.mybatis.type.UnknownTypeHandler;
+
+/**
+ * ClassName: ParameterMapping
+ * Description: 一个 #{} 占位符的参数映射：参数名称、Java 类型、JDBC 类型以及构建语句时选定的类型处理器
+ * <p>
+ * Java 类型已知时使用该类型的类型处理器；只声明了 JDBC 类型时按 JDBC 类型查找；都不知道时使用 UnknownTypeHandler，
+ * 执行时按参数值的实际类型查找并记住结果。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 10:50
+ * Version: 1.0
+ */
+public class ParameterMapping {
+
+    /**
+     * #{} 中的参数名称
+     */
+    private String property;
+
+    /**
+     * 参数的 Java 类型，构建语句时无法确定时为 null
+     */
+    private Class<?> javaType;
+
+    /**
+     * #{} 中声明的 JDBC 类型，参数为 null 时用于 setNull
+     */
+    private JdbcType jdbcType;
+
+    private TypeHandler<Object> typeHandler;
+
+    /**
+     * 从参数对象中取出该占位符的值
+     */
+    private ParameterAccessor accessor;
+
+    private ParameterMapping() {
+        // constructor disabled
+    }
+
+    /**
+     * 建造者
+     */
+    public static class Builder {
+
+        private final Configuration configuration;
+
+        private final ParameterMapping parameterMapping = new ParameterMapping();
+
+        public Builder(Configuration configuration, String property, Class<?> javaType) {
+            this.configuration = configuration;
+            parameterMapping.property = property;
+            parameterMapping.javaType = javaType;
+        }
+
+        public Builder jdbcType(JdbcType jdbcType) {
+            parameterMapping.jdbcType = jdbcType;
+            return this;
+        }
+
+        public Builder accessor(ParameterAccessor accessor) {
+            parameterMapping.accessor = accessor;
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public ParameterMapping build() {
+            TypeHandlerRegistry typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+            TypeHandler<?> typeHandler = null;
+            if (parameterMapping.javaType != null) {
+                typeHandler = typeHandlerRegistry.getTypeHandler(parameterMapping.javaType, parameterMapping.jdbcType);
+            } else if (parameterMapping.jdbcType != null) {
+                typeHandler = typeHandlerRegistry.getTypeHandler(parameterMapping.jdbcType);
+            }
+            if (typeHandler == null) {
+                // 每个占位符一个实例，各自记住上一次的参数类型
+                typeHandler = new UnknownTypeHandler(typeHandlerRegistry);
+            }
+            parameterMapping.typeHandler = (TypeHandler<Object>) typeHandler;
+            return parameterMapping;
+        }
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Class<?> getJavaType() {
+        return javaType;
+    }
+
+    public JdbcType getJdbcType() {
+        return jdbcType;
+    }
+
+    public TypeHandler<Object> getTypeHandler() {
+        return typeHandler;
+    }
+
+    public ParameterAccessor getAccessor() {
+        return accessor;
+    }
+}
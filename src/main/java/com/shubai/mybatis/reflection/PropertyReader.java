@@ -0,0 +1,21 @@
+package com.shubai.mybatis.reflection;
+
+/**
+ * ClassName: PropertyReader
+ * Description: 读取对象的一个属性，由 Reflector 绑定到 getter 或字段
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/12 09:35
+ * Version: 1.0
+ */
+@FunctionalInterface
+public interface PropertyReader {
+
+    /**
+     * 读取属性值
+     *
+     * @param target 对象
+     * @return 属性值
+     */
+    Object read(Object target);
+}
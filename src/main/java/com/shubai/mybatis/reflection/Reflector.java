@@ -0,0 +1,178 @@
+package com.shubai.mybatis.reflection;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ClassName: Reflector
+ * Description: 一个类的属性读取信息，按属性名缓存绑定好的 PropertyReader
+ * <p>
+ * 属性按 getXxx()、isXxx()、字段的顺序查找，第一次读取某个属性时绑定：public getter 通过 LambdaMetafactory 生成为 PropertyReader，
+ * 无法生成时（以及非 public 的字段）退回到 MethodHandle。之后每次读取只是一次接口调用，不再查找方法或拼接方法名。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/12 09:40
+ * Version: 1.0
+ */
+public class Reflector {
+
+    private final Class<?> type;
+
+    private final Map<String, Property> properties = new ConcurrentHashMap<>();
+
+    public Reflector(Class<?> type) {
+        this.type = type;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public boolean hasGetter(String name) {
+        return findProperty(name) != null;
+    }
+
+    /**
+     * 获取属性的读取器
+     *
+     * @throws SQLException 没有该属性或无法访问
+     */
+    public PropertyReader getGetter(String name) throws SQLException {
+        return property(name).reader;
+    }
+
+    /**
+     * 获取属性的类型
+     *
+     * @throws SQLException 没有该属性或无法访问
+     */
+    public Class<?> getGetterType(String name) throws SQLException {
+        return property(name).type;
+    }
+
+    private Property property(String name) throws SQLException {
+        Property property = findProperty(name);
+        if (property == null) {
+            throw new SQLException("There is no property named " + name + " in " + type.getName() + ".");
+        }
+        return property;
+    }
+
+    private Property findProperty(String name) {
+        Property property = properties.get(name);
+        if (property == null) {
+            property = resolve(name);
+            if (property != null) {
+                properties.putIfAbsent(name, property);
+            }
+        }
+        return property;
+    }
+
+    private Property resolve(String name) {
+        if (name.isEmpty()) {
+            return null;
+        }
+        String suffix = name.substring(0, 1).toUpperCase() + name.substring(1);
+        for (String getter : new String[]{"get" + suffix, "is" + suffix}) {
+            try {
+                Method method = type.getMethod(getter);
+                PropertyReader reader = method.getReturnType() == void.class || Modifier.isStatic(method.getModifiers()) ? null : bindGetter(method);
+                if (reader != null) {
+                    return new Property(method.getReturnType(), reader);
+                }
+            } catch (NoSuchMethodException e) {
+                // 继续尝试下一种方式
+            }
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(name);
+                PropertyReader reader = Modifier.isStatic(field.getModifiers()) ? null : bindField(field);
+                if (reader != null) {
+                    return new Property(field.getType(), reader);
+                }
+            } catch (NoSuchFieldException e) {
+                // 继续在父类中查找
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 绑定 getter，无法访问时返回 null
+     */
+    private PropertyReader bindGetter(Method method) {
+        MethodHandle getter;
+        try {
+            getter = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // 例如 public 方法声明在非 public 的类中
+            method.setAccessible(true);
+            try {
+                getter = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException | RuntimeException inaccessible) {
+                return null;
+            }
+        }
+        try {
+            CallSite site = LambdaMetafactory.metafactory(MethodHandles.lookup(), "read",
+                    MethodType.methodType(PropertyReader.class), MethodType.methodType(Object.class, Object.class),
+                    getter, MethodType.methodType(box(method.getReturnType()), type));
+            return (PropertyReader) site.getTarget().invoke();
+        } catch (Throwable e) {
+            return invoker(getter, method.toString());
+        }
+    }
+
+    /**
+     * 绑定字段，无法访问时返回 null
+     */
+    private PropertyReader bindField(Field field) {
+        try {
+            field.setAccessible(true);
+            return invoker(MethodHandles.lookup().unreflectGetter(field), field.toString());
+        } catch (IllegalAccessException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static PropertyReader invoker(MethodHandle handle, String description) {
+        MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+        return target -> {
+            try {
+                return generic.invokeExact(target);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Error invoking " + description + ". Cause: " + t, t);
+            }
+        };
+    }
+
+    private static Class<?> box(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    /**
+     * 属性的类型和读取器
+     */
+    private static final class Property {
+
+        private final Class<?> type;
+
+        private final PropertyReader reader;
+
+        Property(Class<?> type, PropertyReader reader) {
+            this.type = type;
+            this.reader = reader;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.shubai.mybatis.reflection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ClassName: ReflectorFactory
+ * Description: 按类缓存 Reflector，同一个类的属性只查找和绑定一次
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/12 09:45
+ * Version: 1.0
+ */
+public class ReflectorFactory {
+
+    private final Map<Class<?>, Reflector> reflectors = new ConcurrentHashMap<>();
+
+    public Reflector findForClass(Class<?> type) {
+        Reflector reflector = reflectors.get(type);
+        if (reflector == null) {
+            reflector = reflectors.computeIfAbsent(type, Reflector::new);
+        }
+        return reflector;
+    }
+}
@@ -3,11 +3,21 @@ package com.shubai.mybatis.session;
 import com.shubai.mybatis.binding.MapperRegistry;
 import com.shubai.mybatis.datasource.druid.DruidDataSourceFactory;
 import com.shubai.mybatis.datasource.pooled.PooledDataSourceFactory;
+import com.shubai.mybatis.datasource.routing.RoutingDataSourceFactory;
+import com.shubai.mybatis.datasource.sharding.ShardingDataSourceFactory;
 import com.shubai.mybatis.datasource.unpooled.UnpooledDataSourceFactory;
+import com.shubai.mybatis.executor.BatchExecutor;
+import com.shubai.mybatis.executor.Executor;
+import com.shubai.mybatis.executor.ReuseExecutor;
+import com.shubai.mybatis.executor.SimpleExecutor;
+import com.shubai.mybatis.executor.resultset.RowMapperCache;
+import com.shubai.mybatis.executor.resultset.RowMapperType;
 import com.shubai.mybatis.mapping.Environment;
 import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.reflection.ReflectorFactory;
 import com.shubai.mybatis.transaction.jdbc.JdbcTransactionFactory;
 import com.shubai.mybatis.type.TypeAliasRegistry;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -42,6 +52,36 @@ public class Configuration {
      */
     protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
 
+    /**
+     * 类型处理器注册中心
+     */
+    protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry();
+
+    /**
+     * 参数对象的属性读取器缓存
+     */
+    protected final ReflectorFactory reflectorFactory = new ReflectorFactory();
+
+    /**
+     * openSession() 默认使用的执行器类型
+     */
+    protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
+
+    /**
+     * 批量写入时每次 executeBatch 发送的最大行数
+     */
+    protected int defaultBatchSize = 1000;
+
+    /**
+     * 查询语句默认的 fetchSize，为 null 时不设置，使用驱动的默认值
+     */
+    protected Integer defaultFetchSize;
+
+    /**
+     * 预编译的行映射器缓存
+     */
+    protected final RowMapperCache rowMapperCache = new RowMapperCache(typeHandlerRegistry);
+
     public Configuration() {
         // 注册事务管理器工厂的别名
         typeAliasRegistry.registerAlias("JDBC", JdbcTransactionFactory.class);
@@ -49,6 +89,8 @@ public class Configuration {
         // 注册数据源工厂的别名
         typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
         typeAliasRegistry.registerAlias("POOLED", PooledDataSourceFactory.class);
+        typeAliasRegistry.registerAlias("ROUTING", RoutingDataSourceFactory.class);
+        typeAliasRegistry.registerAlias("SHARDING", ShardingDataSourceFactory.class);
     }
 
     public void addMappers(String packageName) {
@@ -75,10 +117,38 @@ public class Configuration {
         return mappedStatements.get(id);
     }
 
+    /**
+     * 创建执行器
+     *
+     * @param executorType 执行器类型，为 null 时使用 defaultExecutorType
+     * @param level        事务隔离级别
+     * @param autoCommit   是否自动提交
+     * @return 执行器
+     */
+    public Executor newExecutor(ExecutorType executorType, TransactionIsolationLevel level, boolean autoCommit) {
+        executorType = executorType == null ? defaultExecutorType : executorType;
+        switch (executorType) {
+            case BATCH:
+                return new BatchExecutor(this, level, autoCommit);
+            case REUSE:
+                return new ReuseExecutor(this, level, autoCommit);
+            default:
+                return new SimpleExecutor(this, level, autoCommit);
+        }
+    }
+
     public TypeAliasRegistry getTypeAliasRegistry() {
         return typeAliasRegistry;
     }
 
+    public TypeHandlerRegistry getTypeHandlerRegistry() {
+        return typeHandlerRegistry;
+    }
+
+    public ReflectorFactory getReflectorFactory() {
+        return reflectorFactory;
+    }
+
     public Environment getEnvironment() {
         return environment;
     }
@@ -86,4 +156,40 @@ public class Configuration {
     public void setEnvironment(Environment environment) {
         this.environment = environment;
     }
+
+    public ExecutorType getDefaultExecutorType() {
+        return defaultExecutorType;
+    }
+
+    public void setDefaultExecutorType(ExecutorType defaultExecutorType) {
+        this.defaultExecutorType = defaultExecutorType;
+    }
+
+    public int getDefaultBatchSize() {
+        return defaultBatchSize;
+    }
+
+    public void setDefaultBatchSize(int defaultBatchSize) {
+        this.defaultBatchSize = defaultBatchSize;
+    }
+
+    public Integer getDefaultFetchSize() {
+        return defaultFetchSize;
+    }
+
+    public void setDefaultFetchSize(Integer defaultFetchSize) {
+        this.defaultFetchSize = defaultFetchSize;
+    }
+
+    public RowMapperCache getRowMapperCache() {
+        return rowMapperCache;
+    }
+
+    public RowMapperType getRowMapperType() {
+        return rowMapperCache.getRowMapperType();
+    }
+
+    public void setRowMapperType(RowMapperType rowMapperType) {
+        rowMapperCache.setRowMapperType(rowMapperType);
+    }
 }
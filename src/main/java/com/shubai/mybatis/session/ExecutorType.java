@@ -0,0 +1,19 @@
+package com.shubai.mybatis.session;
+
+/**
+ * ClassName: ExecutorType
+ * Description: 执行器类型，打开 SqlSession 时选择语句的执行方式
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 09:30
+ * Version: 1.0
+ */
+public enum ExecutorType {
+
+    // 每次执行都创建新的 PreparedStatement，执行完立即关闭
+    SIMPLE,
+    // 同一个连接上相同的 SQL 复用 PreparedStatement，直到 SqlSession 关闭
+    REUSE,
+    // 更新语句通过 addBatch 攒批，查询、提交或 flushStatements 时统一 executeBatch
+    BATCH
+}
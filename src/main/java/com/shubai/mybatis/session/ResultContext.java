@@ -0,0 +1,32 @@
+package com.shubai.mybatis.session;
+
+/**
+ * ClassName: ResultContext
+ * Description: 结果上下文，向 ResultHandler 提供当前行映射后的对象以及已经处理的行数
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/16 09:35
+ * Version: 1.0
+ */
+public interface ResultContext<T> {
+
+    /**
+     * 当前行映射后的对象
+     */
+    T getResultObject();
+
+    /**
+     * 已经交给 ResultHandler 的行数，包括当前行
+     */
+    int getResultCount();
+
+    /**
+     * 是否已经要求停止
+     */
+    boolean isStopped();
+
+    /**
+     * 停止读取后面的行，当前回调返回后查询结束，结果集和语句随之释放
+     */
+    void stop();
+}
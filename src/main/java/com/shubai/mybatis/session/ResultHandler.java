@@ -0,0 +1,20 @@
+package com.shubai.mybatis.session;
+
+/**
+ * ClassName: ResultHandler
+ * Description: 结果处理器，查询时每映射一行就回调一次，框架不保存任何结果，适合对大表做聚合等只需要逐行处理的场景
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/16 09:30
+ * Version: 1.0
+ */
+@FunctionalInterface
+public interface ResultHandler<T> {
+
+    /**
+     * 处理一行结果，调用 resultContext.stop() 可以提前结束查询
+     *
+     * @param resultContext 当前行的结果上下文
+     */
+    void handleResult(ResultContext<? extends T> resultContext);
+}
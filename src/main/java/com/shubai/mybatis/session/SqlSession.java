@@ -1,5 +1,10 @@
 package com.shubai.mybatis.session;
 
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.executor.BatchResult;
+
+import java.io.Closeable;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -10,7 +15,7 @@ import java.util.List;
  * DateTime: 2025/11/10 15:39
  * Version: 1.0
  */
-public interface SqlSession {
+public interface SqlSession extends Closeable {
 
     /**
      * 从一个“语句ID”中，获取一条记录（比如，查询一个用户的信息）。
@@ -52,6 +57,46 @@ public interface SqlSession {
      */
     <E> List<E> selectList(String statement, Object parameter);
 
+    /**
+     * 从一个“语句ID”中获取多条记录，每条记录映射后交给结果处理器。
+     *
+     * @param statement 用来找到要执行的SQL语句的唯一标识符
+     * @param handler   结果处理器，每一行回调一次
+     */
+    void select(String statement, ResultHandler<?> handler);
+
+    /**
+     * 从一个“语句ID”和“参数”中获取多条记录，每条记录映射后交给结果处理器。
+     * 框架不保存任何结果，处理器处理完一行后该行即可被回收，适合对大表做聚合；
+     * 处理器调用 ResultContext.stop() 后不再读取后面的行。
+     *
+     * @param statement 用来找到要执行的SQL语句的唯一标识符
+     * @param parameter 传递给SQL语句的参数对象
+     * @param handler   结果处理器，每一行回调一次
+     */
+    void select(String statement, Object parameter, ResultHandler<?> handler);
+
+    /**
+     * 从一个“语句ID”中，以游标的方式获取多条记录。
+     *
+     * @param <T>       游标中每个元素的数据类型
+     * @param statement 用来找到要执行的SQL语句的唯一标识符
+     * @return 游标，遍历时才逐行读取和映射
+     */
+    <T> Cursor<T> selectCursor(String statement);
+
+    /**
+     * 从一个“语句ID”和“参数”中，以游标的方式获取多条记录。
+     * 结果不会一次性放进 List，适合导出等读取大量数据的场景；配合 fetchSize（MySQL 上为 Integer.MIN_VALUE）时驱动也不会缓存整个结果集。
+     * 游标读完或关闭时释放语句，SqlSession 关闭时关闭所有未关闭的游标。
+     *
+     * @param <T>       游标中每个元素的数据类型
+     * @param statement 用来找到要执行的SQL语句的唯一标识符
+     * @param parameter 传递给SQL语句的参数对象
+     * @return 游标，遍历时才逐行读取和映射
+     */
+    <T> Cursor<T> selectCursor(String statement, Object parameter);
+
     /**
      * 执行一个插入（insert）语句。
      *
@@ -106,6 +151,100 @@ public interface SqlSession {
      */
     int delete(String statement, Object parameter);
 
+    /**
+     * 批量执行插入（insert）语句：集合中的每个元素绑定到同一个预编译语句上，按 Configuration 中的 defaultBatchSize 分批发送。
+     *
+     * @param statement  用来找到要执行的SQL语句的唯一标识符
+     * @param parameters 参数对象集合，每个元素对应一行
+     * @return 和集合元素一一对应的影响行数；驱动无法给出行数时为 Statement.SUCCESS_NO_INFO（例如 MySQL 开启 rewriteBatchedStatements）
+     */
+    int[] insertBatch(String statement, Collection<?> parameters);
+
+    /**
+     * 批量执行插入（insert）语句。
+     *
+     * @param statement  用来找到要执行的SQL语句的唯一标识符
+     * @param parameters 参数对象集合，每个元素对应一行
+     * @param batchSize  每次 executeBatch 发送的最大行数
+     * @return 和集合元素一一对应的影响行数
+     */
+    int[] insertBatch(String statement, Collection<?> parameters, int batchSize);
+
+    /**
+     * 批量执行更新（update）语句，按 Configuration 中的 defaultBatchSize 分批发送。
+     *
+     * @param statement  用来找到要执行的SQL语句的唯一标识符
+     * @param parameters 参数对象集合，每个元素对应一行
+     * @return 和集合元素一一对应的影响行数
+     */
+    int[] updateBatch(String statement, Collection<?> parameters);
+
+    /**
+     * 批量执行更新（update）语句。
+     *
+     * @param statement  用来找到要执行的SQL语句的唯一标识符
+     * @param parameters 参数对象集合，每个元素对应一行
+     * @param batchSize  每次 executeBatch 发送的最大行数
+     * @return 和集合元素一一对应的影响行数
+     */
+    int[] updateBatch(String statement, Collection<?> parameters, int batchSize);
+
+    /**
+     * 批量执行删除（delete）语句，按 Configuration 中的 defaultBatchSize 分批发送。
+     *
+     * @param statement  用来找到要执行的SQL语句的唯一标识符
+     * @param parameters 参数对象集合，每个元素对应一行
+     * @return 和集合元素一一对应的影响行数
+     */
+    int[] deleteBatch(String statement, Collection<?> parameters);
+
+    /**
+     * 批量执行删除（delete）语句。
+     *
+     * @param statement  用来找到要执行的SQL语句的唯一标识符
+     * @param parameters 参数对象集合，每个元素对应一行
+     * @param batchSize  每次 executeBatch 发送的最大行数
+     * @return 和集合元素一一对应的影响行数
+     */
+    int[] deleteBatch(String statement, Collection<?> parameters, int batchSize);
+
+    /**
+     * 提交事务。没有执行过更新语句时不提交连接上的事务，批处理执行器会先执行攒批的语句。
+     */
+    void commit();
+
+    /**
+     * 提交事务。
+     *
+     * @param force 为 true 时即使没有执行过更新语句也提交
+     */
+    void commit(boolean force);
+
+    /**
+     * 回滚事务。没有执行过更新语句时不回滚连接上的事务，批处理执行器攒批的语句会被丢弃。
+     */
+    void rollback();
+
+    /**
+     * 回滚事务。
+     *
+     * @param force 为 true 时即使没有执行过更新语句也回滚
+     */
+    void rollback(boolean force);
+
+    /**
+     * 执行批处理执行器中攒批的语句。
+     *
+     * @return 每个批次的执行结果，非批处理执行器返回空列表
+     */
+    List<BatchResult> flushStatements();
+
+    /**
+     * 关闭会话：回滚未提交的修改，关闭语句并释放连接。
+     */
+    @Override
+    void close();
+
     /**
      * 获取一个“映射器”（Mapper）。
      * 映射器是一个接口，里面定义了你所有的数据库操作方法，通过它你可以更方便地执行SQL。
@@ -11,7 +11,29 @@ package com.shubai.mybatis.session;
 public interface SqlSessionFactory {
 
     /**
-     * 打开一个新的 {@link SqlSession} 连接
+     * 打开一个新的 {@link SqlSession} 连接，使用默认执行器，不自动提交
      */
     SqlSession openSession();
+
+    /**
+     * 打开一个新的 {@link SqlSession} 连接，使用默认执行器
+     *
+     * @param autoCommit 是否自动提交
+     */
+    SqlSession openSession(boolean autoCommit);
+
+    /**
+     * 打开一个使用指定执行器的 {@link SqlSession} 连接，不自动提交
+     *
+     * @param execType 执行器类型
+     */
+    SqlSession openSession(ExecutorType execType);
+
+    /**
+     * 打开一个使用指定执行器的 {@link SqlSession} 连接
+     *
+     * @param execType   执行器类型
+     * @param autoCommit 是否自动提交
+     */
+    SqlSession openSession(ExecutorType execType, boolean autoCommit);
 }
@@ -1,16 +1,17 @@
 package com.shubai.mybatis.session.defaults;
 
-import com.shubai.mybatis.binding.MapperRegistry;
-import com.shubai.mybatis.mapping.BoundSql;
-import com.shubai.mybatis.mapping.Environment;
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.cursor.defaults.DefaultCursor;
+import com.shubai.mybatis.executor.BatchResult;
+import com.shubai.mybatis.executor.Executor;
 import com.shubai.mybatis.mapping.MappedStatement;
 import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ResultHandler;
 import com.shubai.mybatis.session.SqlSession;
+import com.shubai.mybatis.session.TransactionIsolationLevel;
 
-import java.lang.reflect.Method;
-import java.sql.*;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -26,8 +27,26 @@ public class DefaultSqlSession implements SqlSession {
     // 全局配置对象
     private Configuration configuration;
 
+    // 执行器，负责获取连接、执行语句和管理事务
+    private final Executor executor;
+
+    // 是否自动提交
+    private final boolean autoCommit;
+
+    // 是否执行过还没有提交或回滚的更新语句
+    private boolean dirty;
+
+    // 还没有关闭的游标，会话关闭时关闭
+    private final List<Cursor<?>> cursorList = new ArrayList<>();
+
     public DefaultSqlSession(Configuration configuration) {
+        this(configuration, configuration.newExecutor(configuration.getDefaultExecutorType(), TransactionIsolationLevel.NONE, true), true);
+    }
+
+    public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
         this.configuration = configuration;
+        this.executor = executor;
+        this.autoCommit = autoCommit;
     }
 
     @Override
@@ -54,74 +73,45 @@ public class DefaultSqlSession implements SqlSession {
 
     @Override
     public <E> List<E> selectList(String statement, Object parameter) {
+        // 根据 statement 从配置中获取对应的 MappedStatement 对象，交给执行器执行
+        MappedStatement mappedStatement = getMappedStatement(statement);
         try {
-            // 根据 statement 从配置中获取对应的 MappedStatement 对象
-            MappedStatement mappedStatement = configuration.getMappedStatement(statement);
-            // 获取环境配置对象
-            Environment environment = configuration.getEnvironment();
-            // 从环境配置中获取数据库连接
-            Connection connection = environment.getDataSource().getConnection();
-            // 获取 BoundSql 对象，包含了 SQL 语句和相关信息
-            BoundSql boundSql = mappedStatement.getBoundSql();
-            // 创建 PreparedStatement 对象，准备执行 SQL 语句
-            PreparedStatement preparedStatement = connection.prepareStatement(boundSql.getSql());
-            // todo:设置参数部分这里存在一些问题，这里先简单处理，只设置一个类型为 Long 的参数，如果测试传入无法转换为 Long 类型的参数会报错，待完善。
-            preparedStatement.setLong(1, Long.parseLong(((Object[]) parameter)[0].toString()));
-            // 调用 JDBC API 执行查询
-            ResultSet resultSet = preparedStatement.executeQuery();
-            // 将结果集转换为对象列表
-            List<E> objList = resultSet2ObjectList(resultSet, Class.forName(boundSql.getResultType()));
-            return objList;
+            return executor.query(mappedStatement, parameter);
         } catch (Exception e) {
-            e.printStackTrace();
-            return null;
+            throw new RuntimeException("Error querying database. Cause: " + e, e);
         }
     }
 
-    /**
-     * 将结果集转换为对象列表
-     *
-     * @param resultSet 结果集
-     * @param clazz     目标对象的类
-     * @param <E>       对象类型
-     * @return 对象列表
-     */
-    private <E> List<E> resultSet2ObjectList(ResultSet resultSet, Class<?> clazz) {
-        // 用于存储结果对象的列表
-        List<E> list = new ArrayList<>();
+    @Override
+    public void select(String statement, ResultHandler<?> handler) {
+        select(statement, null, handler);
+    }
+
+    @Override
+    public void select(String statement, Object parameter, ResultHandler<?> handler) {
+        MappedStatement mappedStatement = getMappedStatement(statement);
+        try {
+            executor.query(mappedStatement, parameter, handler);
+        } catch (Exception e) {
+            throw new RuntimeException("Error querying database. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement) {
+        return selectCursor(statement, null);
+    }
+
+    @Override
+    public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+        MappedStatement mappedStatement = getMappedStatement(statement);
         try {
-            // 获取结果集元数据，其中包含字段名，字段值等信息
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            // 获取结果集中的列数
-            int columnCount = metaData.getColumnCount();
-            // 遍历结果集的每一行，TODO:ResultSet 是游标类型，需要不断调用 next() 方法将游标向下移动，直到没有更多行。
-            while (resultSet.next()) {
-                // 使用反射创建目标对象的实例
-                E obj = (E) clazz.newInstance();
-                // 遍历每一列，将列值设置到目标对象的对应属性中
-                for (int i = 1; i <= columnCount; i++) {
-                    // todo:这里直接使用 getObject 方法获取列值，之后可以根据具体的类型获取对应的值，待完善。
-                    Object value = resultSet.getObject(i);
-                    // 获取列名，并根据列名构建对应的 setter 方法名
-                    String columnName = metaData.getColumnName(i);
-                    // 构建 setter 方法名，例如列名为 "name"，则方法名为 "setName"，TODO:如果返回值类型中没有对应的 setter 方法会报错，且当前 mapper.xml 中 resultType 只能是实体类，不能是基本类型，待完善。
-                    String setMethod = "set" + columnName.substring(0, 1).toUpperCase() + columnName.substring(1);
-                    Method method;
-                    // TODO: 对不同类型进行处理，这里只简单处理了 Date 类型，其他类型可以根据需要添加对应的处理逻辑。
-                    if (value instanceof Timestamp) {
-                        method = clazz.getMethod(setMethod, Date.class);
-                    } else {
-                        method = clazz.getMethod(setMethod, value.getClass());
-                    }
-                    method.invoke(obj, value);
-                }
-                // 将填充好的对象添加到结果列表中
-                list.add(obj);
-            }
+            Cursor<T> cursor = executor.queryCursor(mappedStatement, parameter);
+            registerCursor(cursor);
+            return cursor;
         } catch (Exception e) {
-            e.printStackTrace();
+            throw new RuntimeException("Error querying database. Cause: " + e, e);
         }
-        return list;
     }
 
     @Override
@@ -141,7 +131,13 @@ public class DefaultSqlSession implements SqlSession {
 
     @Override
     public int update(String statement, Object parameter) {
-        return 0;
+        MappedStatement mappedStatement = getMappedStatement(statement);
+        try {
+            dirty = true;
+            return executor.update(mappedStatement, parameter);
+        } catch (Exception e) {
+            throw new RuntimeException("Error updating database. Cause: " + e, e);
+        }
     }
 
     @Override
@@ -154,6 +150,122 @@ public class DefaultSqlSession implements SqlSession {
         return update(statement, parameter);
     }
 
+    @Override
+    public int[] insertBatch(String statement, Collection<?> parameters) {
+        return updateBatch(statement, parameters, 0);
+    }
+
+    @Override
+    public int[] insertBatch(String statement, Collection<?> parameters, int batchSize) {
+        return updateBatch(statement, parameters, batchSize);
+    }
+
+    @Override
+    public int[] updateBatch(String statement, Collection<?> parameters) {
+        return updateBatch(statement, parameters, 0);
+    }
+
+    @Override
+    public int[] updateBatch(String statement, Collection<?> parameters, int batchSize) {
+        MappedStatement mappedStatement = getMappedStatement(statement);
+        try {
+            dirty = true;
+            return executor.batchUpdate(mappedStatement, parameters, batchSize);
+        } catch (Exception e) {
+            throw new RuntimeException("Error updating database in batch. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public int[] deleteBatch(String statement, Collection<?> parameters) {
+        return updateBatch(statement, parameters, 0);
+    }
+
+    @Override
+    public int[] deleteBatch(String statement, Collection<?> parameters, int batchSize) {
+        return updateBatch(statement, parameters, batchSize);
+    }
+
+    @Override
+    public void commit() {
+        commit(false);
+    }
+
+    @Override
+    public void commit(boolean force) {
+        try {
+            executor.commit(isCommitOrRollbackRequired(force));
+            dirty = false;
+        } catch (Exception e) {
+            throw new RuntimeException("Error committing transaction. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public void rollback() {
+        rollback(false);
+    }
+
+    @Override
+    public void rollback(boolean force) {
+        try {
+            executor.rollback(isCommitOrRollbackRequired(force));
+            dirty = false;
+        } catch (Exception e) {
+            throw new RuntimeException("Error rolling back transaction. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public List<BatchResult> flushStatements() {
+        try {
+            return executor.flushStatements();
+        } catch (Exception e) {
+            throw new RuntimeException("Error flushing statements. Cause: " + e, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            closeCursors();
+        } finally {
+            // 有未提交的修改时回滚
+            executor.close(isCommitOrRollbackRequired(false));
+            dirty = false;
+        }
+    }
+
+    private void registerCursor(Cursor<?> cursor) {
+        cursorList.add(cursor);
+        if (cursor instanceof DefaultCursor) {
+            // 游标读完或被关闭后不再由会话持有
+            ((DefaultCursor<?>) cursor).setOnClose(() -> cursorList.remove(cursor));
+        }
+    }
+
+    private void closeCursors() {
+        for (Cursor<?> cursor : new ArrayList<>(cursorList)) {
+            cursor.close();
+        }
+        cursorList.clear();
+    }
+
+    /**
+     * 非自动提交且执行过更新语句，或者强制要求时，才需要提交或回滚连接上的事务
+     */
+    private boolean isCommitOrRollbackRequired(boolean force) {
+        return (!autoCommit && dirty) || force;
+    }
+
+    private MappedStatement getMappedStatement(String statement) {
+        MappedStatement mappedStatement = configuration.getMappedStatement(statement);
+        if (mappedStatement == null) {
+            throw new IllegalArgumentException("Mapped Statements collection does not contain value for " + statement);
+        }
+        return mappedStatement;
+    }
+
     @Override
     public <T> T getMapper(Class<T> mapperClass) {
         return configuration.getMapper(mapperClass, this);
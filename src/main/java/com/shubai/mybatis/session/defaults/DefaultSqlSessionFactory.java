@@ -1,9 +1,12 @@
 package com.shubai.mybatis.session.defaults;
 
 import com.shubai.mybatis.binding.MapperRegistry;
+import com.shubai.mybatis.executor.Executor;
 import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ExecutorType;
 import com.shubai.mybatis.session.SqlSession;
 import com.shubai.mybatis.session.SqlSessionFactory;
+import com.shubai.mybatis.session.TransactionIsolationLevel;
 import com.shubai.mybatis.type.TypeAliasRegistry;
 
 /**
@@ -33,6 +36,29 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
 
     @Override
     public SqlSession openSession() {
-        return new DefaultSqlSession(configuration);
+        return openSessionFromDataSource(configuration.getDefaultExecutorType(), false);
+    }
+
+    @Override
+    public SqlSession openSession(boolean autoCommit) {
+        return openSessionFromDataSource(configuration.getDefaultExecutorType(), autoCommit);
+    }
+
+    @Override
+    public SqlSession openSession(ExecutorType execType) {
+        return openSessionFromDataSource(execType, false);
+    }
+
+    @Override
+    public SqlSession openSession(ExecutorType execType, boolean autoCommit) {
+        return openSessionFromDataSource(execType, autoCommit);
+    }
+
+    /**
+     * 创建执行器并打开会话，连接在第一次执行语句时才从数据源获取
+     */
+    private SqlSession openSessionFromDataSource(ExecutorType execType, boolean autoCommit) {
+        Executor executor = configuration.newExecutor(execType, TransactionIsolationLevel.NONE, autoCommit);
+        return new DefaultSqlSession(configuration, executor, autoCommit);
     }
 }
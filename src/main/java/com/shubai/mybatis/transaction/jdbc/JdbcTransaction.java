@@ -71,8 +71,17 @@ public class JdbcTransaction implements Transaction {
 
     @Override
     public void close() throws SQLException {
-        if (connection != null && !connection.getAutoCommit()) {
-            connection.close();
+        if (connection != null) {
+            try {
+                // 回滚未提交的修改并恢复自动提交再关闭（setAutoCommit(true) 会提交未完成的事务），池化连接归还后不会被误认为仍处于事务中
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                // 自动提交的连接同样需要关闭，否则池化连接永远不会归还
+                connection.close();
+            }
         }
     }
 
@@ -81,7 +90,12 @@ public class JdbcTransaction implements Transaction {
      */
     protected void openConnection() throws SQLException {
         connection = dataSource.getConnection();
-        connection.setTransactionIsolation(level.getLevel());
-        connection.setAutoCommit(autoCommit);
+        // TRANSACTION_NONE 不是合法的隔离级别参数，表示使用连接的默认隔离级别
+        if (level != null && level != TransactionIsolationLevel.NONE) {
+            connection.setTransactionIsolation(level.getLevel());
+        }
+        if (connection.getAutoCommit() != autoCommit) {
+            connection.setAutoCommit(autoCommit);
+        }
     }
 }
@@ -0,0 +1,43 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * ClassName: BaseTypeHandler
+ * Description: 类型处理器的基类，统一处理 null 参数，子类只处理非 null 的参数和读取列值
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:35
+ * Version: 1.0
+ *
+ * @param <T> Java 类型
+ */
+public abstract class BaseTypeHandler<T> implements TypeHandler<T> {
+
+    @Override
+    public void setParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException {
+        if (parameter == null) {
+            ps.setNull(i, jdbcType == null ? Types.NULL : jdbcType.TYPE_CODE);
+        } else {
+            setNonNullParameter(ps, i, parameter, jdbcType);
+        }
+    }
+
+    @Override
+    public T getResult(ResultSet rs, int columnIndex) throws SQLException {
+        return getNullableResult(rs, columnIndex);
+    }
+
+    /**
+     * 设置非 null 的参数
+     */
+    public abstract void setNonNullParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException;
+
+    /**
+     * 读取列值，SQL NULL 时返回 null；primitive getter 返回 0 时需要用 wasNull 判断
+     */
+    public abstract T getNullableResult(ResultSet rs, int columnIndex) throws SQLException;
+}
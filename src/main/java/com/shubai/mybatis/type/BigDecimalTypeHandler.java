@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: BigDecimalTypeHandler
+ * Description: BigDecimal 类型处理器，使用 setBigDecimal、getBigDecimal
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:51
+ * Version: 1.0
+ */
+public class BigDecimalTypeHandler extends BaseTypeHandler<BigDecimal> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, BigDecimal parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBigDecimal(i, parameter);
+    }
+
+    @Override
+    public BigDecimal getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBigDecimal(columnIndex);
+    }
+}
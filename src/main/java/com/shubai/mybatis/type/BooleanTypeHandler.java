@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: BooleanTypeHandler
+ * Description: Boolean、boolean 类型处理器，使用 setBoolean、getBoolean
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:44
+ * Version: 1.0
+ */
+public class BooleanTypeHandler extends BaseTypeHandler<Boolean> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Boolean parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBoolean(i, parameter);
+    }
+
+    @Override
+    public Boolean getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        boolean result = rs.getBoolean(columnIndex);
+        return !result && rs.wasNull() ? null : result;
+    }
+}
@@ -0,0 +1,26 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: ByteArrayTypeHandler
+ * Description: byte[] 类型处理器，使用 setBytes、getBytes
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:55
+ * Version: 1.0
+ */
+public class ByteArrayTypeHandler extends BaseTypeHandler<byte[]> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, byte[] parameter, JdbcType jdbcType) throws SQLException {
+        ps.setBytes(i, parameter);
+    }
+
+    @Override
+    public byte[] getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBytes(columnIndex);
+    }
+}
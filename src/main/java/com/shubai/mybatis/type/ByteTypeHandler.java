@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: ByteTypeHandler
+ * Description: Byte、byte 类型处理器，使用 setByte、getByte
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:43
+ * Version: 1.0
+ */
+public class ByteTypeHandler extends BaseTypeHandler<Byte> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Byte parameter, JdbcType jdbcType) throws SQLException {
+        ps.setByte(i, parameter);
+    }
+
+    @Override
+    public Byte getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        byte result = rs.getByte(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+}
@@ -0,0 +1,29 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * ClassName: DateTypeHandler
+ * Description: java.util.Date 类型处理器，按 Timestamp 读写，保留时间部分
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:57
+ * Version: 1.0
+ */
+public class DateTypeHandler extends BaseTypeHandler<Date> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Date parameter, JdbcType jdbcType) throws SQLException {
+        ps.setTimestamp(i, parameter instanceof Timestamp ? (Timestamp) parameter : new Timestamp(parameter.getTime()));
+    }
+
+    @Override
+    public Date getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        // Timestamp 是 java.util.Date 的子类，直接返回
+        return rs.getTimestamp(columnIndex);
+    }
+}
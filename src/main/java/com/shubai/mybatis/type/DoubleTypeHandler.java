@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: DoubleTypeHandler
+ * Description: Double、double 类型处理器，使用 setDouble、getDouble
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:45
+ * Version: 1.0
+ */
+public class DoubleTypeHandler extends BaseTypeHandler<Double> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Double parameter, JdbcType jdbcType) throws SQLException {
+        ps.setDouble(i, parameter);
+    }
+
+    @Override
+    public Double getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        double result = rs.getDouble(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+}
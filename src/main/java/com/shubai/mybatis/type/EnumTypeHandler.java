@@ -0,0 +1,38 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: EnumTypeHandler
+ * Description: 枚举类型处理器，按枚举常量的名称读写
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 10:00
+ * Version: 1.0
+ *
+ * @param <E> 枚举类型
+ */
+public class EnumTypeHandler<E extends Enum<E>> extends BaseTypeHandler<E> {
+
+    private final Class<E> type;
+
+    public EnumTypeHandler(Class<E> type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Type argument cannot be null");
+        }
+        this.type = type;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, E parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, parameter.name());
+    }
+
+    @Override
+    public E getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        String name = rs.getString(columnIndex);
+        return name == null ? null : Enum.valueOf(type, name);
+    }
+}
@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: FloatTypeHandler
+ * Description: Float、float 类型处理器，使用 setFloat、getFloat
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:46
+ * Version: 1.0
+ */
+public class FloatTypeHandler extends BaseTypeHandler<Float> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Float parameter, JdbcType jdbcType) throws SQLException {
+        ps.setFloat(i, parameter);
+    }
+
+    @Override
+    public Float getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        float result = rs.getFloat(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+}
@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: IntegerTypeHandler
+ * Description: Integer、int 类型处理器，使用 setInt、getInt
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:41
+ * Version: 1.0
+ */
+public class IntegerTypeHandler extends BaseTypeHandler<Integer> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Integer parameter, JdbcType jdbcType) throws SQLException {
+        ps.setInt(i, parameter);
+    }
+
+    @Override
+    public Integer getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        int result = rs.getInt(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+}
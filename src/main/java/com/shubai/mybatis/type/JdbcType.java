@@ -17,12 +17,29 @@ public enum JdbcType {
     /**
      * JDBC 类型枚举，对应 java.sql.Types 中的常量
      */
+    BIT(Types.BIT),
+    TINYINT(Types.TINYINT),
+    SMALLINT(Types.SMALLINT),
     INTEGER(Types.INTEGER),
+    BIGINT(Types.BIGINT),
     FLOAT(Types.FLOAT),
+    REAL(Types.REAL),
     DOUBLE(Types.DOUBLE),
+    NUMERIC(Types.NUMERIC),
     DECIMAL(Types.DECIMAL),
+    CHAR(Types.CHAR),
     VARCHAR(Types.VARCHAR),
-    TIMESTAMP(Types.TIMESTAMP);
+    LONGVARCHAR(Types.LONGVARCHAR),
+    DATE(Types.DATE),
+    TIME(Types.TIME),
+    TIMESTAMP(Types.TIMESTAMP),
+    BINARY(Types.BINARY),
+    VARBINARY(Types.VARBINARY),
+    BLOB(Types.BLOB),
+    CLOB(Types.CLOB),
+    BOOLEAN(Types.BOOLEAN),
+    NULL(Types.NULL),
+    OTHER(Types.OTHER);
 
     /**
      * 枚举类的成员变量，存储对应的 JDBC 类型代码
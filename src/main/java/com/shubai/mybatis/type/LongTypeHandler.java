@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: LongTypeHandler
+ * Description: Long、long 类型处理器，使用 setLong、getLong
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:40
+ * Version: 1.0
+ */
+public class LongTypeHandler extends BaseTypeHandler<Long> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Long parameter, JdbcType jdbcType) throws SQLException {
+        ps.setLong(i, parameter);
+    }
+
+    @Override
+    public Long getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        long result = rs.getLong(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+}
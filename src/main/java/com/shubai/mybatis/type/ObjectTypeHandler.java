@@ -0,0 +1,26 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: ObjectTypeHandler
+ * Description: Object 类型处理器，交给驱动按值的实际类型转换
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:56
+ * Version: 1.0
+ */
+public class ObjectTypeHandler extends BaseTypeHandler<Object> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
+        ps.setObject(i, parameter);
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getObject(columnIndex);
+    }
+}
@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: ShortTypeHandler
+ * Description: Short、short 类型处理器，使用 setShort、getShort
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:42
+ * Version: 1.0
+ */
+public class ShortTypeHandler extends BaseTypeHandler<Short> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Short parameter, JdbcType jdbcType) throws SQLException {
+        ps.setShort(i, parameter);
+    }
+
+    @Override
+    public Short getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        short result = rs.getShort(columnIndex);
+        return result == 0 && rs.wasNull() ? null : result;
+    }
+}
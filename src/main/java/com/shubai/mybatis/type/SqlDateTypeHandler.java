@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: SqlDateTypeHandler
+ * Description: java.sql.Date 类型处理器，使用 setDate、getDate
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:52
+ * Version: 1.0
+ */
+public class SqlDateTypeHandler extends BaseTypeHandler<Date> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Date parameter, JdbcType jdbcType) throws SQLException {
+        ps.setDate(i, parameter);
+    }
+
+    @Override
+    public Date getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getDate(columnIndex);
+    }
+}
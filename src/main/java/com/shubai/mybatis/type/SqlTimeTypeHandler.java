@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.Time;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: SqlTimeTypeHandler
+ * Description: java.sql.Time 类型处理器，使用 setTime、getTime
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:53
+ * Version: 1.0
+ */
+public class SqlTimeTypeHandler extends BaseTypeHandler<Time> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Time parameter, JdbcType jdbcType) throws SQLException {
+        ps.setTime(i, parameter);
+    }
+
+    @Override
+    public Time getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getTime(columnIndex);
+    }
+}
@@ -0,0 +1,27 @@
+package com.shubai.mybatis.type;
+
+import java.sql.Timestamp;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: SqlTimestampTypeHandler
+ * Description: java.sql.Timestamp 类型处理器，使用 setTimestamp、getTimestamp
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:54
+ * Version: 1.0
+ */
+public class SqlTimestampTypeHandler extends BaseTypeHandler<Timestamp> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Timestamp parameter, JdbcType jdbcType) throws SQLException {
+        ps.setTimestamp(i, parameter);
+    }
+
+    @Override
+    public Timestamp getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getTimestamp(columnIndex);
+    }
+}
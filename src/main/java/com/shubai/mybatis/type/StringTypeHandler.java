@@ -0,0 +1,26 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: StringTypeHandler
+ * Description: String 类型处理器，使用 setString、getString
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:50
+ * Version: 1.0
+ */
+public class StringTypeHandler extends BaseTypeHandler<String> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType) throws SQLException {
+        ps.setString(i, parameter);
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getString(columnIndex);
+    }
+}
@@ -0,0 +1,39 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: TypeHandler
+ * Description: 类型处理器，负责一种 Java 类型和 JDBC 类型之间的转换：设置 PreparedStatement 参数、读取 ResultSet 列值
+ * <p>
+ * 类型处理器在构建 MappedStatement（参数）和编译行映射器（结果列）时选定一次，执行语句时直接调用对应的 setXxx、getXxx。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 09:30
+ * Version: 1.0
+ *
+ * @param <T> Java 类型
+ */
+public interface TypeHandler<T> {
+
+    /**
+     * 设置参数
+     *
+     * @param ps        预编译语句
+     * @param i         参数位置，从 1 开始
+     * @param parameter 参数值，可以为 null
+     * @param jdbcType  #{} 中声明的 JDBC 类型，没有声明时为 null
+     */
+    void setParameter(PreparedStatement ps, int i, T parameter, JdbcType jdbcType) throws SQLException;
+
+    /**
+     * 读取当前行某一列的值
+     *
+     * @param rs          结果集
+     * @param columnIndex 列的位置，从 1 开始
+     * @return 列值，SQL NULL 时为 null
+     */
+    T getResult(ResultSet rs, int columnIndex) throws SQLException;
+}
@@ -0,0 +1,190 @@
+package com.shubai.mybatis.type;
+
+import java.math.BigDecimal;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ClassName: TypeHandlerRegistry
+ * Description: 类型处理器注册中心，按 Java 类型和 JDBC 类型查找类型处理器
+ * <p>
+ * 同一种 Java 类型可以按 JDBC 类型注册多个类型处理器，没有声明 JDBC 类型时使用默认的（JDBC 类型为 null 的）类型处理器；
+ * Java 类型未知时可以只按 JDBC 类型查找。枚举类型第一次用到时创建 EnumTypeHandler。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 10:20
+ * Version: 1.0
+ */
+public class TypeHandlerRegistry {
+
+    /**
+     * key: Java 类型
+     * value: JDBC 类型 -> 类型处理器，key 为 null 的是默认类型处理器；注册时整体替换，读取时不加锁
+     */
+    private final Map<Class<?>, Map<JdbcType, TypeHandler<?>>> typeHandlerMap = new ConcurrentHashMap<>();
+
+    /**
+     * 只知道 JDBC 类型时使用的类型处理器
+     */
+    private final Map<JdbcType, TypeHandler<?>> jdbcTypeHandlerMap = new EnumMap<>(JdbcType.class);
+
+    /**
+     * 构造函数，注册系统内置的类型处理器
+     */
+    public TypeHandlerRegistry() {
+        register(Boolean.class, new BooleanTypeHandler());
+        register(boolean.class, new BooleanTypeHandler());
+        register(JdbcType.BOOLEAN, new BooleanTypeHandler());
+        register(JdbcType.BIT, new BooleanTypeHandler());
+
+        register(Byte.class, new ByteTypeHandler());
+        register(byte.class, new ByteTypeHandler());
+        register(JdbcType.TINYINT, new ByteTypeHandler());
+
+        register(Short.class, new ShortTypeHandler());
+        register(short.class, new ShortTypeHandler());
+        register(JdbcType.SMALLINT, new ShortTypeHandler());
+
+        register(Integer.class, new IntegerTypeHandler());
+        register(int.class, new IntegerTypeHandler());
+        register(JdbcType.INTEGER, new IntegerTypeHandler());
+
+        register(Long.class, new LongTypeHandler());
+        register(long.class, new LongTypeHandler());
+        register(JdbcType.BIGINT, new LongTypeHandler());
+
+        register(Float.class, new FloatTypeHandler());
+        register(float.class, new FloatTypeHandler());
+        register(JdbcType.FLOAT, new FloatTypeHandler());
+        register(JdbcType.REAL, new FloatTypeHandler());
+
+        register(Double.class, new DoubleTypeHandler());
+        register(double.class, new DoubleTypeHandler());
+        register(JdbcType.DOUBLE, new DoubleTypeHandler());
+
+        register(BigDecimal.class, new BigDecimalTypeHandler());
+        register(JdbcType.DECIMAL, new BigDecimalTypeHandler());
+        register(JdbcType.NUMERIC, new BigDecimalTypeHandler());
+
+        register(String.class, new StringTypeHandler());
+        register(JdbcType.CHAR, new StringTypeHandler());
+        register(JdbcType.VARCHAR, new StringTypeHandler());
+        register(JdbcType.LONGVARCHAR, new StringTypeHandler());
+        register(JdbcType.CLOB, new StringTypeHandler());
+
+        register(byte[].class, new ByteArrayTypeHandler());
+        register(JdbcType.BINARY, new ByteArrayTypeHandler());
+        register(JdbcType.VARBINARY, new ByteArrayTypeHandler());
+        register(JdbcType.BLOB, new ByteArrayTypeHandler());
+
+        register(Date.class, new DateTypeHandler());
+        register(JdbcType.TIMESTAMP, new DateTypeHandler());
+        register(java.sql.Date.class, new SqlDateTypeHandler());
+        register(JdbcType.DATE, new SqlDateTypeHandler());
+        register(Time.class, new SqlTimeTypeHandler());
+        register(JdbcType.TIME, new SqlTimeTypeHandler());
+        register(Timestamp.class, new SqlTimestampTypeHandler());
+
+        register(Object.class, new ObjectTypeHandler());
+        register(JdbcType.OTHER, new ObjectTypeHandler());
+    }
+
+    /**
+     * 注册 Java 类型的默认类型处理器
+     */
+    public <T> void register(Class<T> javaType, TypeHandler<? extends T> typeHandler) {
+        register(javaType, null, typeHandler);
+    }
+
+    /**
+     * 注册 Java 类型和 JDBC 类型组合的类型处理器
+     *
+     * @param javaType    Java 类型
+     * @param jdbcType    JDBC 类型，为 null 时注册为默认类型处理器
+     * @param typeHandler 类型处理器
+     */
+    public synchronized <T> void register(Class<T> javaType, JdbcType jdbcType, TypeHandler<? extends T> typeHandler) {
+        Map<JdbcType, TypeHandler<?>> existing = typeHandlerMap.get(javaType);
+        Map<JdbcType, TypeHandler<?>> handlers = existing == null ? new HashMap<>() : new HashMap<>(existing);
+        handlers.put(jdbcType, typeHandler);
+        typeHandlerMap.put(javaType, handlers);
+    }
+
+    /**
+     * 注册只知道 JDBC 类型时使用的类型处理器
+     */
+    public synchronized void register(JdbcType jdbcType, TypeHandler<?> typeHandler) {
+        jdbcTypeHandlerMap.put(jdbcType, typeHandler);
+    }
+
+    public boolean hasTypeHandler(Class<?> javaType) {
+        return getTypeHandler(javaType) != null;
+    }
+
+    /**
+     * 获取 Java 类型的默认类型处理器
+     *
+     * @return 类型处理器，没有注册时为 null
+     */
+    public <T> TypeHandler<T> getTypeHandler(Class<T> javaType) {
+        return getTypeHandler(javaType, null);
+    }
+
+    /**
+     * 按 Java 类型和 JDBC 类型获取类型处理器：先找 JDBC 类型对应的，再找默认的；
+     * Java 类型本身没有注册时按父类查找
+     *
+     * @return 类型处理器，没有注册时为 null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> TypeHandler<T> getTypeHandler(Class<T> javaType, JdbcType jdbcType) {
+        Map<JdbcType, TypeHandler<?>> handlers = getJdbcHandlerMap(javaType);
+        if (handlers == null) {
+            return null;
+        }
+        TypeHandler<?> typeHandler = jdbcType == null ? null : handlers.get(jdbcType);
+        if (typeHandler == null) {
+            typeHandler = handlers.get(null);
+        }
+        if (typeHandler == null && handlers.size() == 1) {
+            // 只按某个 JDBC 类型注册过时使用唯一的那个
+            typeHandler = handlers.values().iterator().next();
+        }
+        return (TypeHandler<T>) typeHandler;
+    }
+
+    /**
+     * 只按 JDBC 类型获取类型处理器
+     *
+     * @return 类型处理器，没有注册时为 null
+     */
+    public synchronized TypeHandler<?> getTypeHandler(JdbcType jdbcType) {
+        return jdbcTypeHandlerMap.get(jdbcType);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Map<JdbcType, TypeHandler<?>> getJdbcHandlerMap(Class<?> javaType) {
+        for (Class<?> type = javaType; type != null; type = type.getSuperclass()) {
+            Map<JdbcType, TypeHandler<?>> handlers = typeHandlerMap.get(type);
+            if (handlers != null) {
+                return handlers;
+            }
+            if (type.isEnum()) {
+                handlers = Collections.singletonMap(null, new EnumTypeHandler(type));
+                Map<JdbcType, TypeHandler<?>> existing = typeHandlerMap.putIfAbsent(type, handlers);
+                return existing != null ? existing : handlers;
+            }
+            if (type.getSuperclass() == Object.class) {
+                // 普通的类不继承 Object 的类型处理器，未知类型由调用方决定如何处理
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,83 @@
+package com.shubai.mybatis.type;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: UnknownTypeHandler
+ * Description: 构建语句时无法确定 Java 类型的参数（Map、多个参数）或没有注册类型处理器的属性使用的类型处理器
+ * <p>
+ * 设置参数时按参数值的实际类型到 TypeHandlerRegistry 中查找类型处理器，并记住上一次的类型和处理器：
+ * 同一个占位符每次传入的参数类型通常相同，之后只需要比较一次 Class。没有对应类型处理器时使用 setObject。
+ * 读取列值时先按驱动的默认类型读取，类型不符时再要求驱动转换成目标类型。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 10:05
+ * Version: 1.0
+ */
+public class UnknownTypeHandler extends BaseTypeHandler<Object> {
+
+    private static final TypeHandler<Object> OBJECT_TYPE_HANDLER = new ObjectTypeHandler();
+
+    private final TypeHandlerRegistry typeHandlerRegistry;
+
+    /**
+     * 读取列值时的目标类型，为 null 时不转换
+     */
+    private final Class<?> javaType;
+
+    private volatile Resolved resolved;
+
+    public UnknownTypeHandler(TypeHandlerRegistry typeHandlerRegistry) {
+        this(typeHandlerRegistry, null);
+    }
+
+    public UnknownTypeHandler(TypeHandlerRegistry typeHandlerRegistry, Class<?> javaType) {
+        this.typeHandlerRegistry = typeHandlerRegistry;
+        this.javaType = javaType;
+    }
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, Object parameter, JdbcType jdbcType) throws SQLException {
+        resolve(parameter.getClass()).setParameter(ps, i, parameter, jdbcType);
+    }
+
+    @Override
+    public Object getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        Object value = rs.getObject(columnIndex);
+        if (value == null || javaType == null || javaType.isInstance(value)) {
+            return value;
+        }
+        return rs.getObject(columnIndex, javaType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private TypeHandler<Object> resolve(Class<?> type) {
+        Resolved current = resolved;
+        if (current != null && current.type == type) {
+            return current.typeHandler;
+        }
+        TypeHandler<Object> typeHandler = (TypeHandler<Object>) typeHandlerRegistry.getTypeHandler(type);
+        if (typeHandler == null) {
+            typeHandler = OBJECT_TYPE_HANDLER;
+        }
+        resolved = new Resolved(type, typeHandler);
+        return typeHandler;
+    }
+
+    /**
+     * 上一次解析的参数类型和类型处理器，作为一个整体发布，避免读到不匹配的组合
+     */
+    private static final class Resolved {
+
+        private final Class<?> type;
+
+        private final TypeHandler<Object> typeHandler;
+
+        Resolved(Class<?> type, TypeHandler<Object> typeHandler) {
+            this.type = type;
+            this.typeHandler = typeHandler;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.binding.MapperMethod;
+import com.shubai.mybatis.cursor.Cursor;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.entity.User;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.Environment;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.pooled.StubDriver;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ExecutorType;
+import com.shubai.mybatis.session.SqlSession;
+import com.shubai.mybatis.session.SqlSessionFactory;
+import com.shubai.mybatis.session.SqlSessionFactoryBuilder;
+import com.shubai.mybatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * ClassName: TestCursor
+ * Description: 游标查询：逐行读取和映射，设置 fetchSize，读完或关闭时释放结果集和语句，会话关闭时关闭未关闭的游标
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/15 14:00
+ * Version: 1.0
+ */
+public class TestCursor {
+
+    private static final String SCAN = ScanMapper.class.getName() + ".scan";
+
+    private static final String STREAMING = "user.scanStreaming";
+
+    private static final int ROWS = 1_000_000;
+
+    public interface ScanMapper {
+
+        Cursor<User> scan();
+
+        Iterator<User> iterate();
+
+        Stream<User> stream();
+    }
+
+    private PooledDataSource pooledDataSource;
+
+    private Configuration configuration;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws SQLException {
+        StubDriver.register();
+        pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        configuration = new Configuration();
+        configuration.setEnvironment(new Environment("stub", new JdbcTransactionFactory(), pooledDataSource));
+        for (String method : new String[]{"scan", "iterate", "stream"}) {
+            addStatement(ScanMapper.class.getName() + "." + method, null);
+        }
+        addStatement(STREAMING, Integer.MIN_VALUE);
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        StubDriver.queryRows = ROWS;
+    }
+
+    @After
+    public void tearDown() {
+        StubDriver.queryRows = 0;
+        pooledDataSource.close();
+    }
+
+    @Test
+    public void testRowsAreMappedLazilyAndReleasedWhenClosed() {
+        int fetched = StubDriver.ROWS_FETCHED.get();
+        int resultSetsClosed = StubDriver.RESULT_SETS_CLOSED.get();
+        int statementsClosed = StubDriver.STATEMENTS_CLOSED.get();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REUSE)) {
+            Cursor<User> cursor = sqlSession.selectCursor(SCAN);
+            Assert.assertFalse(cursor.isOpen());
+            Iterator<User> iterator = cursor.iterator();
+            for (long i = 1; i <= 3; i++) {
+                User user = iterator.next();
+                Assert.assertEquals(Long.valueOf(i), user.getId());
+                Assert.assertEquals("user" + i, user.getUsername());
+            }
+            // 只从驱动读取了已经遍历的行
+            Assert.assertEquals(fetched + 3, StubDriver.ROWS_FETCHED.get());
+            Assert.assertEquals(2, cursor.getCurrentIndex());
+            Assert.assertTrue(cursor.isOpen());
+
+            cursor.close();
+            Assert.assertFalse(cursor.isOpen());
+            Assert.assertFalse(cursor.isConsumed());
+            Assert.assertFalse(iterator.hasNext());
+            Assert.assertEquals(resultSetsClosed + 1, StubDriver.RESULT_SETS_CLOSED.get());
+            // 游标使用独立的语句，即使是 REUSE 执行器也在游标关闭时关闭
+            Assert.assertEquals(statementsClosed + 1, StubDriver.STATEMENTS_CLOSED.get());
+            try {
+                cursor.iterator();
+                Assert.fail("a cursor can only be iterated once");
+            } catch (IllegalStateException expected) {
+                // 期望抛出异常
+            }
+        }
+    }
+
+    @Test
+    public void testExhaustedCursorReleasesStatementAndSessionClosesOpenCursors() {
+        StubDriver.queryRows = 5;
+        int resultSetsClosed = StubDriver.RESULT_SETS_CLOSED.get();
+        Cursor<User> unread;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Cursor<User> cursor = sqlSession.selectCursor(SCAN);
+            int count = 0;
+            for (User ignored : cursor) {
+                count++;
+            }
+            Assert.assertEquals(5, count);
+            Assert.assertTrue(cursor.isConsumed());
+            Assert.assertEquals(4, cursor.getCurrentIndex());
+            Assert.assertEquals(resultSetsClosed + 1, StubDriver.RESULT_SETS_CLOSED.get());
+
+            unread = sqlSession.selectCursor(SCAN);
+        }
+        // 会话关闭时关闭没有读完的游标，连接归还给连接池
+        Assert.assertEquals(resultSetsClosed + 2, StubDriver.RESULT_SETS_CLOSED.get());
+        Assert.assertFalse(unread.isOpen());
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getActiveConnectionCount());
+    }
+
+    @Test
+    public void testFetchSize() {
+        StubDriver.queryRows = 1;
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            // 语句上声明的 fetchSize，例如 MySQL 的流式读取
+            sqlSession.selectCursor(STREAMING).close();
+            Assert.assertEquals(Integer.MIN_VALUE, StubDriver.LAST_FETCH_SIZE.get());
+            // 语句没有声明时使用全局的 defaultFetchSize
+            configuration.setDefaultFetchSize(500);
+            Assert.assertEquals(1, sqlSession.selectList(SCAN).size());
+            Assert.assertEquals(500, StubDriver.LAST_FETCH_SIZE.get());
+        } finally {
+            configuration.setDefaultFetchSize(null);
+        }
+    }
+
+    @Test
+    public void testMapperMethodsReturningCursorIteratorAndStream() {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Object cursor = mapperMethod("scan").execute(sqlSession, null);
+            Assert.assertTrue(cursor instanceof Cursor);
+            ((Cursor<?>) cursor).close();
+
+            @SuppressWarnings("unchecked")
+            Iterator<User> iterator = (Iterator<User>) mapperMethod("iterate").execute(sqlSession, null);
+            Assert.assertEquals(Long.valueOf(1), iterator.next().getId());
+
+            int fetched = StubDriver.ROWS_FETCHED.get();
+            int resultSetsClosed = StubDriver.RESULT_SETS_CLOSED.get();
+            @SuppressWarnings("unchecked")
+            Stream<User> stream = (Stream<User>) mapperMethod("stream").execute(sqlSession, null);
+            try (Stream<User> users = stream) {
+                Assert.assertEquals(Collections.singletonList("user10"),
+                        users.skip(9).limit(1).map(User::getUsername).collect(Collectors.toList()));
+            }
+            Assert.assertEquals(fetched + 10, StubDriver.ROWS_FETCHED.get());
+            // 关闭流时关闭游标
+            Assert.assertEquals(resultSetsClosed + 1, StubDriver.RESULT_SETS_CLOSED.get());
+        }
+    }
+
+    private MapperMethod mapperMethod(String name) {
+        for (Method method : ScanMapper.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return new MapperMethod(ScanMapper.class, method, configuration);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private void addStatement(String id, Integer fetchSize) {
+        BoundSql boundSql = new BoundSql("select id, username from user", Collections.emptyMap(), null, "com.shubai.mybatis.entity.User");
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, id, SqlCommandType.SELECT, boundSql)
+                .fetchSize(fetchSize)
+                .build());
+    }
+}
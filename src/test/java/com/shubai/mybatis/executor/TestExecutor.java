@@ -0,0 +1,202 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.Environment;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.pooled.StubDriver;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ExecutorType;
+import com.shubai.mybatis.session.SqlSession;
+import com.shubai.mybatis.session.SqlSessionFactory;
+import com.shubai.mybatis.session.SqlSessionFactoryBuilder;
+import com.shubai.mybatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClassName: TestExecutor
+ * Description: 三种执行器：SIMPLE 每次创建语句，REUSE 在会话内复用语句，BATCH 攒批后在查询、提交或 flushStatements 时执行
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/08 14:00
+ * Version: 1.0
+ */
+public class TestExecutor {
+
+    private static final String INSERT = "user.insert";
+
+    private static final String UPDATE = "user.updateName";
+
+    private static final String SELECT = "user.selectById";
+
+    private PooledDataSource pooledDataSource;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws SQLException {
+        StubDriver.register();
+        pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        Configuration configuration = new Configuration();
+        configuration.setEnvironment(new Environment("stub", new JdbcTransactionFactory(), pooledDataSource));
+        addStatement(configuration, INSERT, SqlCommandType.INSERT, "insert into user (id, name) values (?, ?)", "id", "name");
+        addStatement(configuration, UPDATE, SqlCommandType.UPDATE, "update user set name = ? where id = ?", "name", "id");
+        addStatement(configuration, SELECT, SqlCommandType.SELECT, "select * from user where id = ?", "id");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @After
+    public void tearDown() {
+        pooledDataSource.close();
+    }
+
+    @Test
+    public void testSimpleExecutorPreparesStatementPerCall() {
+        int prepared = StubDriver.PREPARED.get();
+        int closed = StubDriver.STATEMENTS_CLOSED.get();
+        int updates = StubDriver.UPDATES.get();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SIMPLE)) {
+            for (long i = 0; i < 3; i++) {
+                Assert.assertEquals(1, sqlSession.insert(INSERT, new Object[]{i, "user" + i}));
+            }
+            Assert.assertEquals(prepared + 3, StubDriver.PREPARED.get());
+            Assert.assertEquals(closed + 3, StubDriver.STATEMENTS_CLOSED.get());
+            sqlSession.commit();
+        }
+        Assert.assertEquals(updates + 3, StubDriver.UPDATES.get());
+        // 会话关闭后连接归还给连接池
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getActiveConnectionCount());
+    }
+
+    @Test
+    public void testReuseExecutorReusesStatementsUntilClose() {
+        int prepared = StubDriver.PREPARED.get();
+        int closed = StubDriver.STATEMENTS_CLOSED.get();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REUSE)) {
+            for (long i = 0; i < 3; i++) {
+                sqlSession.insert(INSERT, new Object[]{i, "user" + i});
+                sqlSession.update(UPDATE, new Object[]{"renamed" + i, i});
+            }
+            Assert.assertEquals(prepared + 2, StubDriver.PREPARED.get());
+            Assert.assertEquals(closed, StubDriver.STATEMENTS_CLOSED.get());
+            sqlSession.commit();
+            // 提交时关闭语句，之后重新创建
+            Assert.assertEquals(closed + 2, StubDriver.STATEMENTS_CLOSED.get());
+            sqlSession.insert(INSERT, new Object[]{9L, "user9"});
+            Assert.assertEquals(prepared + 3, StubDriver.PREPARED.get());
+        }
+        Assert.assertEquals(closed + 3, StubDriver.STATEMENTS_CLOSED.get());
+    }
+
+    @Test
+    public void testBatchExecutorGroupsConsecutiveStatements() {
+        int prepared = StubDriver.PREPARED.get();
+        int executed = StubDriver.BATCH_EXECUTED.get();
+        int updates = StubDriver.UPDATES.get();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            for (long i = 0; i < 3; i++) {
+                Assert.assertEquals(BatchExecutor.BATCH_UPDATE_RETURN_VALUE, sqlSession.insert(INSERT, new Object[]{i, "user" + i}));
+            }
+            sqlSession.update(UPDATE, new Object[]{"renamed", 0L});
+            sqlSession.insert(INSERT, new Object[]{3L, "user3"});
+            // 攒批期间不执行语句
+            Assert.assertEquals(executed, StubDriver.BATCH_EXECUTED.get());
+
+            List<BatchResult> results = sqlSession.flushStatements();
+            Assert.assertEquals(3, results.size());
+            Assert.assertEquals(INSERT, results.get(0).getMappedStatement().getId());
+            Assert.assertEquals(3, results.get(0).getParameterObjects().size());
+            Assert.assertArrayEquals(new int[]{1, 1, 1}, results.get(0).getUpdateCounts());
+            Assert.assertEquals(UPDATE, results.get(1).getMappedStatement().getId());
+            Assert.assertEquals(1, results.get(2).getUpdateCounts().length);
+            Assert.assertEquals(prepared + 3, StubDriver.PREPARED.get());
+            Assert.assertEquals(executed + 3, StubDriver.BATCH_EXECUTED.get());
+            Assert.assertEquals(updates, StubDriver.UPDATES.get());
+        }
+    }
+
+    @Test
+    public void testBatchExecutorFlushesOnSelectAndCommitAndDiscardsOnRollback() {
+        int executed = StubDriver.BATCH_EXECUTED.get();
+        int commits = StubDriver.COMMITS.get();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            sqlSession.insert(INSERT, new Object[]{1L, "user1"});
+            // 查询之前先执行攒批的语句
+            sqlSession.selectList(SELECT, new Object[]{1L});
+            Assert.assertEquals(executed + 1, StubDriver.BATCH_EXECUTED.get());
+
+            sqlSession.insert(INSERT, new Object[]{2L, "user2"});
+            sqlSession.commit();
+            Assert.assertEquals(executed + 2, StubDriver.BATCH_EXECUTED.get());
+            Assert.assertEquals(commits + 1, StubDriver.COMMITS.get());
+
+            // 回滚丢弃攒批的语句
+            sqlSession.insert(INSERT, new Object[]{3L, "user3"});
+            sqlSession.rollback();
+            Assert.assertTrue(sqlSession.flushStatements().isEmpty());
+            Assert.assertEquals(executed + 2, StubDriver.BATCH_EXECUTED.get());
+        }
+    }
+
+    @Test
+    public void testBatchUpdateIsSentInChunks() {
+        int prepared = StubDriver.PREPARED.get();
+        int added = StubDriver.BATCH_ADDED.get();
+        int executed = StubDriver.BATCH_EXECUTED.get();
+        List<Object[]> rows = new ArrayList<>();
+        for (long i = 0; i < 2_500; i++) {
+            rows.add(new Object[]{i, "user" + i});
+        }
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            int[] updateCounts = sqlSession.insertBatch(INSERT, rows, 1_000);
+            Assert.assertEquals(2_500, updateCounts.length);
+            for (int updateCount : updateCounts) {
+                Assert.assertEquals(1, updateCount);
+            }
+            // 一个预编译语句，1000 + 1000 + 500 三次 executeBatch
+            Assert.assertEquals(prepared + 1, StubDriver.PREPARED.get());
+            Assert.assertEquals(added + 2_500, StubDriver.BATCH_ADDED.get());
+            Assert.assertEquals(executed + 3, StubDriver.BATCH_EXECUTED.get());
+
+            // 不指定批大小时使用 Configuration 中的 defaultBatchSize
+            Assert.assertEquals(2, sqlSession.updateBatch(UPDATE, rows.subList(0, 2)).length);
+            Assert.assertEquals(executed + 4, StubDriver.BATCH_EXECUTED.get());
+            Assert.assertEquals(0, sqlSession.deleteBatch(UPDATE, new ArrayList<>()).length);
+            sqlSession.commit();
+        }
+    }
+
+    @Test
+    public void testBeanParameterIsBoundByName() {
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("id", 7L);
+        parameter.put("name", "seven");
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+            Assert.assertEquals(1, sqlSession.update(UPDATE, parameter));
+            Assert.assertTrue(sqlSession.selectList(SELECT, 7L).isEmpty());
+        }
+    }
+
+    private void addStatement(Configuration configuration, String id, SqlCommandType type, String sql, String... parameterNames) {
+        Map<Integer, String> parameterMappings = new HashMap<>();
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterMappings.put(i + 1, parameterNames[i]);
+        }
+        BoundSql boundSql = new BoundSql(sql, parameterMappings, null, "com.shubai.mybatis.entity.User");
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, id, type, boundSql).build());
+    }
+}
@@ -0,0 +1,178 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.annotations.Param;
+import com.shubai.mybatis.binding.MapperMethod;
+import com.shubai.mybatis.binding.ParamMap;
+import com.shubai.mybatis.entity.User;
+import com.shubai.mybatis.executor.parameter.DefaultParameterHandler;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.reflection.Reflector;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.SqlSession;
+import com.shubai.mybatis.type.LongTypeHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ClassName: TestParameterHandler
+ * Description: #{} 参数按名称绑定：@Param 参数、JavaBean 的属性路径、Map 的 key 以及多参数按位置绑定
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/12 14:10
+ * Version: 1.0
+ */
+public class TestParameterHandler {
+
+    public interface OrderMapper {
+
+        int rename(@Param("user") User user, @Param("name") String name);
+
+        int positional(Long id, String name);
+    }
+
+    public static class Order {
+
+        private final User user;
+
+        private final String remark;
+
+        public Order(User user, String remark) {
+            this.user = user;
+            this.remark = remark;
+        }
+
+        public User getUser() {
+            return user;
+        }
+    }
+
+    @Test
+    public void testParamAnnotationBuildsNamedParameters() throws SQLException {
+        Configuration configuration = new Configuration();
+        MappedStatement ms = statement(configuration, OrderMapper.class.getName() + ".rename", null, "name", "user.id", "param2");
+        configuration.addMappedStatement(ms);
+        MapperMethod mapperMethod = new MapperMethod(OrderMapper.class, method("rename"), configuration);
+
+        Object param = execute(mapperMethod, user(7L, "tom"), "jerry");
+        Assert.assertTrue(param instanceof ParamMap);
+        Assert.assertEquals(Arrays.asList("setString(1, jerry)", "setLong(2, 7)", "setString(3, jerry)"), bind(ms, param));
+
+        // 引用不存在的参数名称时报错，并列出可用的名称
+        MappedStatement missing = statement(configuration, "missing", null, "username");
+        try {
+            bind(missing, param);
+            Assert.fail("unknown parameter name should be rejected");
+        } catch (SQLException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("Parameter 'username' not found"));
+        }
+
+        // 没有 @Param 的方法仍然按位置传递参数数组
+        configuration.addMappedStatement(statement(configuration, OrderMapper.class.getName() + ".positional", null, "id", "name"));
+        Object positional = execute(new MapperMethod(OrderMapper.class, method("positional"), configuration), 1L, "a");
+        Assert.assertTrue(positional instanceof Object[]);
+        Assert.assertEquals(Arrays.asList("setLong(1, 1)", "setString(2, a)"),
+                bind(configuration.getMappedStatement(OrderMapper.class.getName() + ".positional"), positional));
+    }
+
+    @Test
+    public void testNestedPropertyPathIsTypedAndCached() throws SQLException {
+        Configuration configuration = new Configuration();
+        MappedStatement ms = statement(configuration, "byUser", Order.class.getName(), "user.id", "user.username", "remark");
+        // 属性路径的类型在构建时解析，按 Long 的类型处理器绑定
+        Assert.assertSame(LongTypeHandler.class, ms.getParameterMappings().get(0).getTypeHandler().getClass());
+
+        for (int i = 0; i < 3; i++) {
+            Order order = new Order(user(i, "u" + i), "r" + i);
+            Assert.assertEquals(Arrays.asList("setLong(1, " + i + ")", "setString(2, u" + i + ")", "setString(3, r" + i + ")"),
+                    bind(ms, new Object[]{order}));
+        }
+        // 读取器绑定一次之后复用
+        Reflector reflector = configuration.getReflectorFactory().findForClass(User.class);
+        Assert.assertSame(reflector, configuration.getReflectorFactory().findForClass(User.class));
+        Assert.assertSame(reflector.getGetter("id"), reflector.getGetter("id"));
+
+        // 路径中间的属性为 null 时绑定 null
+        Assert.assertEquals("setNull(1, 0)", bind(ms, new Order(null, "x")).get(0));
+        try {
+            bind(statement(configuration, "unknown", Order.class.getName(), "user.age"), new Order(user(1, "a"), "x"));
+            Assert.fail("unknown property should be rejected");
+        } catch (SQLException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("age"));
+        }
+    }
+
+    @Test
+    public void testMapKeysAndSimpleValues() throws SQLException {
+        Configuration configuration = new Configuration();
+        MappedStatement ms = statement(configuration, "byMap", "java.util.HashMap", "id", "username");
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("id", 3L);
+        Assert.assertEquals(Arrays.asList("setLong(1, 3)", "setNull(2, 0)"), bind(ms, parameter));
+
+        // 简单类型作为所有占位符的值
+        MappedStatement simple = statement(configuration, "byId", "long", "id", "id");
+        Assert.assertEquals(Arrays.asList("setLong(1, 5)", "setLong(2, 5)"), bind(simple, 5L));
+    }
+
+    private Object execute(MapperMethod mapperMethod, Object... args) {
+        AtomicReference<Object> captured = new AtomicReference<>();
+        SqlSession sqlSession = (SqlSession) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{SqlSession.class},
+                (proxy, method, arguments) -> {
+                    captured.set(arguments[1]);
+                    return 1;
+                });
+        mapperMethod.execute(sqlSession, args);
+        return captured.get();
+    }
+
+    private static java.lang.reflect.Method method(String name) {
+        for (java.lang.reflect.Method method : OrderMapper.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static User user(long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        return user;
+    }
+
+    private MappedStatement statement(Configuration configuration, String id, String parameterType, String... names) {
+        Map<Integer, String> mappings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            mappings.put(i + 1, names[i]);
+        }
+        BoundSql boundSql = new BoundSql("sql", mappings, parameterType, null);
+        return new MappedStatement.Builder(configuration, id, SqlCommandType.UPDATE, boundSql).build();
+    }
+
+    /**
+     * 绑定参数，返回 PreparedStatement 上的调用记录
+     */
+    private List<String> bind(MappedStatement ms, Object parameter) throws SQLException {
+        List<String> calls = new ArrayList<>();
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName() + "(" + args[0] + ", " + args[1] + ")");
+                    return null;
+                });
+        new DefaultParameterHandler(ms, parameter).setParameters(ps);
+        return calls;
+    }
+}
@@ -0,0 +1,158 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.annotations.Param;
+import com.shubai.mybatis.binding.MapperMethod;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.entity.User;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.Environment;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.pooled.StubDriver;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ExecutorType;
+import com.shubai.mybatis.session.ResultHandler;
+import com.shubai.mybatis.session.SqlSession;
+import com.shubai.mybatis.session.SqlSessionFactory;
+import com.shubai.mybatis.session.SqlSessionFactoryBuilder;
+import com.shubai.mybatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClassName: TestResultHandler
+ * Description: 结果处理器查询：每一行映射后回调，不保存结果，可以提前停止，Mapper 方法通过 ResultHandler 参数使用
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/16 14:00
+ * Version: 1.0
+ */
+public class TestResultHandler {
+
+    private static final String SCAN = "user.scan";
+
+    private static final int ROWS = 1_000_000;
+
+    public interface AggregateMapper {
+
+        void scanFrom(@Param("minId") Long minId, ResultHandler<User> handler);
+
+        int invalid(ResultHandler<User> handler);
+    }
+
+    private PooledDataSource pooledDataSource;
+
+    private Configuration configuration;
+
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Before
+    public void setUp() throws SQLException {
+        StubDriver.register();
+        pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        configuration = new Configuration();
+        configuration.setEnvironment(new Environment("stub", new JdbcTransactionFactory(), pooledDataSource));
+        addStatement(SCAN, "select id, username from user");
+        addStatement(AggregateMapper.class.getName() + ".scanFrom", "select id, username from user where id >= ?", "minId");
+        addStatement(AggregateMapper.class.getName() + ".invalid", "select id, username from user");
+        sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+        StubDriver.queryRows = ROWS;
+    }
+
+    @After
+    public void tearDown() {
+        StubDriver.queryRows = 0;
+        pooledDataSource.close();
+    }
+
+    @Test
+    public void testEveryRowIsPushedToHandler() {
+        int fetched = StubDriver.ROWS_FETCHED.get();
+        int resultSetsClosed = StubDriver.RESULT_SETS_CLOSED.get();
+        int statementsClosed = StubDriver.STATEMENTS_CLOSED.get();
+        long[] sum = {0};
+        int[] count = {0};
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SIMPLE)) {
+            sqlSession.select(SCAN, null, (ResultHandler<User>) context -> {
+                sum[0] += context.getResultObject().getId();
+                count[0] = context.getResultCount();
+            });
+        }
+        Assert.assertEquals(ROWS, count[0]);
+        Assert.assertEquals((long) ROWS * (ROWS + 1) / 2, sum[0]);
+        Assert.assertEquals(fetched + ROWS, StubDriver.ROWS_FETCHED.get());
+        Assert.assertEquals(resultSetsClosed + 1, StubDriver.RESULT_SETS_CLOSED.get());
+        Assert.assertEquals(statementsClosed + 1, StubDriver.STATEMENTS_CLOSED.get());
+    }
+
+    @Test
+    public void testHandlerCanStopEarly() {
+        int fetched = StubDriver.ROWS_FETCHED.get();
+        int resultSetsClosed = StubDriver.RESULT_SETS_CLOSED.get();
+        List<String> names = new ArrayList<>();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.REUSE)) {
+            sqlSession.select(SCAN, (ResultHandler<User>) context -> {
+                names.add(context.getResultObject().getUsername());
+                if (context.getResultCount() == 10) {
+                    context.stop();
+                }
+            });
+            // 停止之后不再从驱动读取后面的行
+            Assert.assertEquals(10, names.size());
+            Assert.assertEquals("user10", names.get(9));
+            Assert.assertEquals(fetched + 10, StubDriver.ROWS_FETCHED.get());
+            Assert.assertEquals(resultSetsClosed + 1, StubDriver.RESULT_SETS_CLOSED.get());
+        }
+    }
+
+    @Test
+    public void testMapperMethodWithResultHandlerParameter() {
+        StubDriver.queryRows = 3;
+        List<Long> ids = new ArrayList<>();
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Object result = mapperMethod("scanFrom").execute(sqlSession,
+                    new Object[]{1L, (ResultHandler<User>) context -> ids.add(context.getResultObject().getId())});
+            Assert.assertNull(result);
+        }
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L), ids);
+
+        try {
+            mapperMethod("invalid");
+            Assert.fail("a ResultHandler method must return void");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getMessage(), expected.getMessage().contains("must be a select returning void"));
+        }
+    }
+
+    private MapperMethod mapperMethod(String name) {
+        for (Method method : AggregateMapper.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return new MapperMethod(AggregateMapper.class, method, configuration);
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private void addStatement(String id, String sql, String... parameterNames) {
+        Map<Integer, String> parameterMappings = new HashMap<>();
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterMappings.put(i + 1, parameterNames[i]);
+        }
+        BoundSql boundSql = new BoundSql(sql, parameterMappings, null, "com.shubai.mybatis.entity.User");
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, id, SqlCommandType.SELECT, boundSql).build());
+    }
+}
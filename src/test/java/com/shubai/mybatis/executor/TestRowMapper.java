@@ -0,0 +1,241 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.entity.User;
+import com.shubai.mybatis.executor.resultset.GeneratedRowMapper;
+import com.shubai.mybatis.executor.resultset.MethodHandleRowMapper;
+import com.shubai.mybatis.executor.resultset.RowMapper;
+import com.shubai.mybatis.executor.resultset.RowMapperCache;
+import com.shubai.mybatis.executor.resultset.RowMapperGenerator;
+import com.shubai.mybatis.executor.resultset.RowMapperType;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ClassName: TestRowMapper
+ * Description: 预编译行映射器：按列标签匹配属性，同一种列布局复用同一个映射器，映射每一行时不再读取元数据；
+ * GENERATED 模式下生成直接调用类型化 getter 和 setter 的映射器类
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/09 11:20
+ * Version: 1.0
+ */
+public class TestRowMapper {
+
+    private static final String STATEMENT = "user.selectAll";
+
+    @Test
+    public void testColumnsAreMappedToProperties() throws Exception {
+        AtomicInteger metaDataCalls = new AtomicInteger();
+        ResultSetMetaData metaData = metaData(metaDataCalls, new String[]{"ID", "email", "USER_NAME"},
+                new String[]{"java.lang.Long", "java.lang.String", "java.lang.String"});
+        RowMapper rowMapper = RowMapper.compile(User.class, metaData, new TypeHandlerRegistry());
+        // email 没有对应的属性，被忽略；USER_NAME 对应 username
+        Assert.assertEquals(2, rowMapper.getMappedColumnCount());
+
+        int calls = metaDataCalls.get();
+        User user = (User) rowMapper.mapRow(resultSet(new Object[]{7L, "ignored", "seven"}));
+        Assert.assertEquals(Long.valueOf(7L), user.getId());
+        Assert.assertEquals("seven", user.getUsername());
+        // 映射行时不读取元数据
+        Assert.assertEquals(calls, metaDataCalls.get());
+
+        User empty = (User) rowMapper.mapRow(resultSet(new Object[]{null, null, null}));
+        Assert.assertNull(empty.getId());
+        Assert.assertNull(empty.getUsername());
+    }
+
+    @Test
+    public void testScalarResultTypeReadsFirstColumn() throws Exception {
+        RowMapper rowMapper = RowMapper.compile(Long.class, metaData(new AtomicInteger(), new String[]{"cnt"}, new String[]{"java.lang.Long"}), new TypeHandlerRegistry());
+        Assert.assertEquals(42L, rowMapper.mapRow(resultSet(new Object[]{42L})));
+    }
+
+    @Test
+    public void testCacheIsKeyedByColumnLayout() throws Exception {
+        RowMapperCache cache = new RowMapperCache();
+        String[] classNames = {"java.lang.Long", "java.lang.String"};
+        RowMapper first = cache.getRowMapper(STATEMENT, User.class.getName(), metaData(new AtomicInteger(), new String[]{"id", "username"}, classNames));
+        RowMapper second = cache.getRowMapper(STATEMENT, User.class.getName(), metaData(new AtomicInteger(), new String[]{"id", "username"}, classNames));
+        Assert.assertSame(first, second);
+
+        // 列顺序变化时编译新的映射器
+        RowMapper reordered = cache.getRowMapper(STATEMENT, User.class.getName(), metaData(new AtomicInteger(), new String[]{"username", "id"}, new String[]{"java.lang.String", "java.lang.Long"}));
+        Assert.assertNotSame(first, reordered);
+        User user = (User) reordered.mapRow(resultSet(new Object[]{"bob", 2L}));
+        Assert.assertEquals("bob", user.getUsername());
+        Assert.assertEquals(Long.valueOf(2L), user.getId());
+        Assert.assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testGeneratedMapperCallsTypedGettersAndSetters() throws Exception {
+        ResultSetMetaData metaData = metaData(new AtomicInteger(),
+                new String[]{"id", "age", "active", "balance", "created_at", "score", "nickname", "unknown"},
+                new String[]{"java.lang.Long", "java.lang.Integer", "java.lang.Boolean", "java.math.BigDecimal",
+                        "java.sql.Timestamp", "java.lang.Double", "java.lang.String", "java.lang.String"});
+        RowMapper rowMapper = RowMapperGenerator.generate(Account.class, metaData, new TypeHandlerRegistry());
+        Assert.assertTrue(rowMapper instanceof GeneratedRowMapper);
+        Assert.assertSame(Account.class, rowMapper.getResultType());
+        Assert.assertEquals(7, rowMapper.getMappedColumnCount());
+
+        Timestamp createdAt = new Timestamp(1_700_000_000_000L);
+        Account account = (Account) rowMapper.mapRow(resultSet(new Object[]{3L, 30, true, new BigDecimal("9.50"), createdAt, 1.5d, "neo", "x"}));
+        Assert.assertEquals(3L, account.getId());
+        Assert.assertEquals(Integer.valueOf(30), account.getAge());
+        Assert.assertTrue(account.isActive());
+        Assert.assertEquals(new BigDecimal("9.50"), account.getBalance());
+        Assert.assertEquals(createdAt, account.getCreatedAt());
+        Assert.assertEquals(1.5d, account.getScore(), 0);
+        Assert.assertEquals("neo", account.getNickname());
+
+        // SQL NULL 保留属性的默认值
+        Account defaults = (Account) rowMapper.mapRow(resultSet(new Object[]{null, null, null, null, null, null, null, null}));
+        Assert.assertEquals(-1L, defaults.getId());
+        Assert.assertNull(defaults.getAge());
+        Assert.assertEquals("anonymous", defaults.getNickname());
+    }
+
+    @Test
+    public void testGeneratedModeFallsBackForUnsupportedTypes() throws Exception {
+        RowMapperCache cache = new RowMapperCache();
+        cache.setRowMapperType(RowMapperType.GENERATED);
+        RowMapper user = cache.getRowMapper(STATEMENT, User.class.getName(),
+                metaData(new AtomicInteger(), new String[]{"id", "username"}, new String[]{"java.lang.Long", "java.lang.String"}));
+        Assert.assertTrue(user instanceof GeneratedRowMapper);
+        // 标量结果类型不生成类
+        RowMapper scalar = cache.getRowMapper("user.count", Long.class.getName(),
+                metaData(new AtomicInteger(), new String[]{"cnt"}, new String[]{"java.lang.Long"}));
+        Assert.assertTrue(scalar instanceof MethodHandleRowMapper);
+        Assert.assertEquals(5L, scalar.mapRow(resultSet(new Object[]{5L})));
+    }
+
+    private ResultSetMetaData metaData(AtomicInteger calls, String[] labels, String[] classNames) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+            calls.incrementAndGet();
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return labels.length;
+                case "getColumnLabel":
+                case "getColumnName":
+                    return labels[(Integer) args[0] - 1];
+                case "getColumnClassName":
+                    return classNames[(Integer) args[0] - 1];
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * 只有一行的结果集，按下标返回列值
+     */
+    private ResultSet resultSet(Object[] row) {
+        boolean[] wasNull = new boolean[1];
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            if ("wasNull".equals(method.getName())) {
+                return wasNull[0];
+            }
+            if (method.getName().startsWith("get") && args != null && args[0] instanceof Integer) {
+                Object value = row[(Integer) args[0] - 1];
+                wasNull[0] = value == null;
+                Class<?> returnType = method.getReturnType();
+                if (value == null && returnType.isPrimitive()) {
+                    // primitive 的默认值：0、0L、false ...
+                    return Array.get(Array.newInstance(returnType, 1), 0);
+                }
+                return value;
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+    }
+
+    /**
+     * 覆盖生成的映射器支持的各种属性类型
+     */
+    public static class Account {
+
+        private long id = -1L;
+
+        private Integer age;
+
+        private boolean active;
+
+        private BigDecimal balance;
+
+        private Date createdAt;
+
+        private double score;
+
+        private String nickname = "anonymous";
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+
+        public void setAge(Integer age) {
+            this.age = age;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public void setBalance(BigDecimal balance) {
+            this.balance = balance;
+        }
+
+        public Date getCreatedAt() {
+            return createdAt;
+        }
+
+        public void setCreatedAt(Date createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * 链式 setter，返回值被丢弃
+         */
+        public Account setScore(double score) {
+            this.score = score;
+            return this;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        public void setNickname(String nickname) {
+            this.nickname = nickname;
+        }
+    }
+}
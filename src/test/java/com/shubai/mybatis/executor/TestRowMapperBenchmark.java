@@ -0,0 +1,181 @@
+package com.shubai.mybatis.executor;
+
+import com.shubai.mybatis.entity.User;
+import com.shubai.mybatis.executor.resultset.GeneratedRowMapper;
+import com.shubai.mybatis.executor.resultset.MethodHandleRowMapper;
+import com.shubai.mybatis.executor.resultset.RowMapper;
+import com.shubai.mybatis.executor.resultset.RowMapperGenerator;
+import com.shubai.mybatis.type.TypeHandlerRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * ClassName: TestRowMapperBenchmark
+ * Description: 对比把一行映射成 User 的开销：逐行反射（DefaultSqlSession 原来的实现）、MethodHandleRowMapper、生成的映射器类
+ * <p>
+ * 结果集是只有一行的动态代理，每次读列的代理开销对三条路径相同，手写的映射作为下限。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/10 15:30
+ * Version: 1.0
+ */
+public class TestRowMapperBenchmark {
+
+    private static final int WARMUP = 500_000;
+
+    private static final int ITERATIONS = 2_000_000;
+
+    private static final int ROUNDS = 5;
+
+    private static final String[] LABELS = {"id", "username"};
+
+    /**
+     * 保存映射结果，防止 JIT 把循环当作死代码消除
+     */
+    private Object sink;
+
+    @Test
+    public void testMappingOverhead() throws Exception {
+        ResultSet rs = resultSet();
+        ResultSetMetaData metaData = rs.getMetaData();
+        RowMapper handwritten = new HandwrittenUserMapper();
+        RowMapper reflective = new ReflectiveUserMapper(metaData);
+        RowMapper methodHandle = RowMapper.compile(User.class, metaData, new TypeHandlerRegistry());
+        RowMapper generated = RowMapperGenerator.generate(User.class, metaData, new TypeHandlerRegistry());
+        Assert.assertTrue(methodHandle instanceof MethodHandleRowMapper);
+        Assert.assertTrue(generated instanceof GeneratedRowMapper);
+        for (RowMapper rowMapper : new RowMapper[]{handwritten, reflective, methodHandle, generated}) {
+            User user = (User) rowMapper.mapRow(rs);
+            Assert.assertEquals(Long.valueOf(42L), user.getId());
+            Assert.assertEquals("shubai", user.getUsername());
+        }
+
+        // 预热，让四条路径都完成 JIT 编译
+        map(handwritten, rs, WARMUP);
+        map(reflective, rs, WARMUP);
+        map(methodHandle, rs, WARMUP);
+        map(generated, rs, WARMUP);
+
+        // 多轮交替测量，每条路径取最快的一轮，减少 JIT 重新编译和 GC 的干扰
+        double raw = Double.MAX_VALUE;
+        double reflection = Double.MAX_VALUE;
+        double handles = Double.MAX_VALUE;
+        double bytecode = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            raw = Math.min(raw, map(handwritten, rs, ITERATIONS));
+            reflection = Math.min(reflection, map(reflective, rs, ITERATIONS));
+            handles = Math.min(handles, map(methodHandle, rs, ITERATIONS));
+            bytecode = Math.min(bytecode, map(generated, rs, ITERATIONS));
+        }
+        System.out.printf("handwritten mapper:    %.2f ns/row%n", raw);
+        System.out.printf("per-row reflection:    %.2f ns/row (overhead %.2f ns)%n", reflection, reflection - raw);
+        System.out.printf("MethodHandleRowMapper: %.2f ns/row (overhead %.2f ns)%n", handles, handles - raw);
+        System.out.printf("generated mapper:      %.2f ns/row (overhead %.2f ns)%n", bytecode, bytecode - raw);
+    }
+
+    private double map(RowMapper rowMapper, ResultSet rs, int times) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            sink = rowMapper.mapRow(rs);
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed / times;
+    }
+
+    /**
+     * 一行 (42, "shubai")，按方法名分派
+     */
+    private ResultSet resultSet() {
+        boolean[] wasNull = new boolean[1];
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ResultSetMetaData.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return LABELS.length;
+                        case "getColumnClassName":
+                            return (Integer) args[0] == 1 ? "java.lang.Long" : "java.lang.String";
+                        default:
+                            return LABELS[(Integer) args[0] - 1];
+                    }
+                });
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getLong":
+                    wasNull[0] = false;
+                    return 42L;
+                case "getString":
+                    wasNull[0] = false;
+                    return "shubai";
+                case "getObject":
+                    wasNull[0] = false;
+                    return (Integer) args[0] == 1 ? (Object) 42L : "shubai";
+                case "wasNull":
+                    return wasNull[0];
+                case "getMetaData":
+                    return metaData;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /**
+     * 手写的映射，作为下限
+     */
+    private static class HandwrittenUserMapper extends GeneratedRowMapper {
+
+        @Override
+        public Object mapRow(ResultSet rs) throws SQLException {
+            User user = new User();
+            long id = rs.getLong(1);
+            if (!rs.wasNull()) {
+                user.setId(id);
+            }
+            String username = rs.getString(2);
+            if (username != null) {
+                user.setUsername(username);
+            }
+            return user;
+        }
+    }
+
+    /**
+     * DefaultSqlSession 原来的逐行反射：getObject 取值，按列名拼出 setter 名并查找方法
+     */
+    private static class ReflectiveUserMapper extends GeneratedRowMapper {
+
+        private final ResultSetMetaData metaData;
+
+        private final Constructor<User> constructor;
+
+        ReflectiveUserMapper(ResultSetMetaData metaData) throws NoSuchMethodException {
+            this.metaData = metaData;
+            this.constructor = User.class.getDeclaredConstructor();
+        }
+
+        @Override
+        public Object mapRow(ResultSet rs) throws SQLException {
+            try {
+                Object row = constructor.newInstance();
+                int columnCount = metaData.getColumnCount();
+                for (int i = 1; i <= columnCount; i++) {
+                    Object value = rs.getObject(i);
+                    String columnName = metaData.getColumnName(i);
+                    String setMethod = "set" + columnName.substring(0, 1).toUpperCase() + columnName.substring(1);
+                    Method method = User.class.getMethod(setMethod, value.getClass());
+                    method.invoke(row, value);
+                }
+                return row;
+            } catch (ReflectiveOperationException e) {
+                throw new SQLException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ClassName: PooledConnectionDispatchBenchmark
+ * Description: 对比 DelegatingConnection 与 JDK 动态代理句柄的单次 JDBC 调用开销
+ * <p>
+ * 类名不匹配 surefire 的测试类命名规则，不随 mvn test 运行，通过 main 方法单独执行。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/28 15:02
+ * Version: 1.0
+ */
+public class PooledConnectionDispatchBenchmark {
+
+    private static final int WARMUP = 2_000_000;
+
+    private static final int ITERATIONS = 10_000_000;
+
+    /**
+     * 保存调用结果，防止 JIT 把循环当作死代码消除
+     */
+    private static boolean sink;
+
+    public static void main(String[] args) throws SQLException {
+        PooledDataSource delegating = newDataSource(false);
+        PooledDataSource reflective = newDataSource(true);
+        Connection delegatingConnection = delegating.getConnection();
+        Connection reflectiveConnection = reflective.getConnection();
+        Connection realConnection = PooledDataSource.unwrapConnection(delegatingConnection);
+
+        // 预热，让三条路径都完成 JIT 编译
+        call(realConnection, WARMUP);
+        call(delegatingConnection, WARMUP);
+        call(reflectiveConnection, WARMUP);
+
+        double raw = call(realConnection, ITERATIONS);
+        double direct = call(delegatingConnection, ITERATIONS);
+        double proxy = call(reflectiveConnection, ITERATIONS);
+        System.out.printf("real connection:      %.2f ns/call%n", raw);
+        System.out.printf("DelegatingConnection: %.2f ns/call (overhead %.2f ns)%n", direct, direct - raw);
+        System.out.printf("reflective proxy:     %.2f ns/call (overhead %.2f ns)%n", proxy, proxy - raw);
+
+        delegatingConnection.close();
+        reflectiveConnection.close();
+        delegating.forceCloseAll();
+        reflective.forceCloseAll();
+    }
+
+    private static double call(Connection connection, int times) throws SQLException {
+        long start = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            sink ^= connection.getAutoCommit();
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) elapsed / times;
+    }
+
+    private static PooledDataSource newDataSource(boolean reflectiveProxy) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolUseReflectiveProxy(reflectiveProxy);
+        return pooledDataSource;
+    }
+}
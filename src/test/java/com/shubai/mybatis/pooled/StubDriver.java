@@ -0,0 +1,335 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.unpooled.UnpooledDataSource;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.*;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * ClassName: StubDriver
+ * Description: 不依赖真实数据库的 JDBC 驱动，url 以 jdbc:stub: 开头，用于连接池的压测和基准测试
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/27 09:40
+ * Version: 1.0
+ */
+public class StubDriver implements Driver {
+
+    public static final String URL = "jdbc:stub:mini-mybatis";
+
+    /**
+     * 已打开的物理连接数
+     */
+    public static final AtomicInteger OPENED = new AtomicInteger();
+
+    /**
+     * 物理连接上被调用过的方法，用于确认池化句柄把调用委托给了真实连接
+     */
+    public static final Set<Method> CONNECTION_CALLS = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Connection.isValid 的调用次数
+     */
+    public static final AtomicInteger VALIDATIONS = new AtomicInteger();
+
+    /**
+     * 真实预编译（Connection.prepareStatement）的次数
+     */
+    public static final AtomicInteger PREPARED = new AtomicInteger();
+
+    /**
+     * 被关闭的预编译语句数
+     */
+    public static final AtomicInteger STATEMENTS_CLOSED = new AtomicInteger();
+
+    /**
+     * PreparedStatement.executeUpdate 的调用次数
+     */
+    public static final AtomicInteger UPDATES = new AtomicInteger();
+
+    /**
+     * PreparedStatement.addBatch 的调用次数
+     */
+    public static final AtomicInteger BATCH_ADDED = new AtomicInteger();
+
+    /**
+     * PreparedStatement.executeBatch 的调用次数
+     */
+    public static final AtomicInteger BATCH_EXECUTED = new AtomicInteger();
+
+    /**
+     * Connection.commit 的调用次数
+     */
+    public static final AtomicInteger COMMITS = new AtomicInteger();
+
+    /**
+     * 查询语句返回的结果集中 ResultSet.next 返回 true 的次数，即驱动交出的行数
+     */
+    public static final AtomicInteger ROWS_FETCHED = new AtomicInteger();
+
+    /**
+     * 被关闭的结果集数
+     */
+    public static final AtomicInteger RESULT_SETS_CLOSED = new AtomicInteger();
+
+    /**
+     * 最近一次 PreparedStatement.setFetchSize 的参数
+     */
+    public static final AtomicInteger LAST_FETCH_SIZE = new AtomicInteger();
+
+    /**
+     * 查询语句返回的行数，为 0 时 execute 不返回结果集；
+     * 结果集有 id（BIGINT）和 username（VARCHAR）两列，第 i 行为 (i, "user" + i)，行在 next 时才生成
+     */
+    public static volatile int queryRows = 0;
+
+    /**
+     * 不为 null 时 isValid 先对 validationEntered 计数，再阻塞到该闩锁打开，用于模拟一次缓慢的校验往返
+     */
+    public static volatile CountDownLatch validationGate;
+
+    /**
+     * 进入 isValid 并开始阻塞的信号，与 validationGate 一起设置
+     */
+    public static volatile CountDownLatch validationEntered;
+
+    /**
+     * 每次建连的模拟耗时（毫秒），用于模拟慢速的 TCP + 认证握手
+     */
+    public static volatile long connectDelayMillis = 0;
+
+    /**
+     * 注册到 DriverManager 和 UnpooledDataSource 的驱动注册表
+     */
+    public static synchronized void register() throws SQLException {
+        if (!UnpooledDataSource.getRegisteredDrivers().containsKey(StubDriver.class.getName())) {
+            StubDriver driver = new StubDriver();
+            DriverManager.registerDriver(driver);
+            UnpooledDataSource.getRegisteredDrivers().put(StubDriver.class.getName(), driver);
+        }
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        if (!acceptsURL(url)) {
+            return null;
+        }
+        if (connectDelayMillis > 0) {
+            try {
+                Thread.sleep(connectDelayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        OPENED.incrementAndGet();
+        // closed、autoCommit
+        boolean[] flags = {false, true};
+        return (Connection) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class[]{Connection.class}, (proxy, method, args) -> {
+            // 先判断再添加，热点路径上重复的方法不会写入集合
+            if (!CONNECTION_CALLS.contains(method)) {
+                CONNECTION_CALLS.add(method);
+            }
+            switch (method.getName()) {
+                case "close":
+                    flags[0] = true;
+                    return null;
+                case "isClosed":
+                    return flags[0];
+                case "isValid":
+                    VALIDATIONS.incrementAndGet();
+                    CountDownLatch gate = validationGate;
+                    if (gate != null) {
+                        validationEntered.countDown();
+                        gate.await();
+                    }
+                    return !flags[0];
+                case "prepareStatement":
+                    return prepareStatement(proxy);
+                case "commit":
+                    COMMITS.incrementAndGet();
+                    return null;
+                case "getAutoCommit":
+                    return flags[1];
+                case "setAutoCommit":
+                    flags[1] = (Boolean) args[0];
+                    return null;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StubConnection@" + System.identityHashCode(proxy);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static PreparedStatement prepareStatement(Object connection) {
+        PREPARED.incrementAndGet();
+        boolean[] closed = {false};
+        // 当前批次中的参数组数
+        int[] batched = {0};
+        // 当前结果集
+        ResultSet[] resultSet = {null};
+        return (PreparedStatement) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class[]{PreparedStatement.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        STATEMENTS_CLOSED.incrementAndGet();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "getConnection":
+                    return connection;
+                case "executeUpdate":
+                    UPDATES.incrementAndGet();
+                    return 1;
+                case "setFetchSize":
+                    LAST_FETCH_SIZE.set((Integer) args[0]);
+                    return null;
+                case "execute":
+                    int rows = queryRows;
+                    resultSet[0] = rows > 0 ? resultSet((Statement) proxy, rows) : null;
+                    return resultSet[0] != null;
+                case "executeQuery":
+                    resultSet[0] = resultSet((Statement) proxy, queryRows);
+                    return resultSet[0];
+                case "getResultSet":
+                    return resultSet[0];
+                case "addBatch":
+                    BATCH_ADDED.incrementAndGet();
+                    batched[0]++;
+                    return null;
+                case "executeBatch":
+                    BATCH_EXECUTED.incrementAndGet();
+                    int[] counts = new int[batched[0]];
+                    Arrays.fill(counts, 1);
+                    batched[0] = 0;
+                    return counts;
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                case "toString":
+                    return "StubPreparedStatement@" + System.identityHashCode(proxy);
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static ResultSet resultSet(Statement statement, int rows) {
+        String[] labels = {"id", "username"};
+        ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getColumnCount":
+                            return labels.length;
+                        case "getColumnLabel":
+                        case "getColumnName":
+                            return labels[(Integer) args[0] - 1];
+                        case "getColumnClassName":
+                            return (Integer) args[0] == 1 ? Long.class.getName() : String.class.getName();
+                        case "getColumnType":
+                            return (Integer) args[0] == 1 ? Types.BIGINT : Types.VARCHAR;
+                        default:
+                            return defaultValue(method.getReturnType());
+                    }
+                });
+        // 当前行号（从 1 开始）、是否已关闭
+        int[] row = {0};
+        boolean[] closed = {false};
+        return (ResultSet) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class[]{ResultSet.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    if (closed[0]) {
+                        throw new SQLException("ResultSet is closed.");
+                    }
+                    if (row[0] >= rows) {
+                        return false;
+                    }
+                    row[0]++;
+                    ROWS_FETCHED.incrementAndGet();
+                    return true;
+                case "getLong":
+                    return (long) row[0];
+                case "getString":
+                    return "user" + row[0];
+                case "getObject":
+                    return args[0].equals(1) || "id".equals(args[0]) ? (Object) (long) row[0] : "user" + row[0];
+                case "wasNull":
+                    return false;
+                case "getMetaData":
+                    return metaData;
+                case "getStatement":
+                    return statement;
+                case "close":
+                    if (!closed[0]) {
+                        closed[0] = true;
+                        RESULT_SETS_CLOSED.incrementAndGet();
+                    }
+                    return null;
+                case "isClosed":
+                    return closed[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url != null && url.startsWith("jdbc:stub:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() {
+        return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+    }
+}
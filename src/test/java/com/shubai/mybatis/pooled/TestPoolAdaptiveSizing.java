@@ -0,0 +1,111 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName: TestPoolAdaptiveSizing
+ * Description: 自适应连接池大小：出现等待时扩容并把新连接交给等待者，负载消失后连续多个空闲窗口才逐步缩容到下限
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/05 16:40
+ * Version: 1.0
+ */
+public class TestPoolAdaptiveSizing {
+
+    private static final int FLOOR = 2;
+
+    private static final int CEILING = 8;
+
+    private static final int CLIENTS = 6;
+
+    @Test
+    public void testSynchronizedPoolGrowsAndShrinks() throws Exception {
+        assertGrowAndShrink(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolGrowsAndShrinks() throws Exception {
+        assertGrowAndShrink(PoolType.CONCURRENT);
+    }
+
+    private void assertGrowAndShrink(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        CountDownLatch acquired = new CountDownLatch(CLIENTS);
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < CLIENTS; i++) {
+            Thread client = new Thread(() -> {
+                try (Connection connection = pooledDataSource.getConnection()) {
+                    if (!connection.isClosed()) {
+                        acquired.countDown();
+                    }
+                    release.await();
+                } catch (SQLException | InterruptedException e) {
+                    // 获取失败时 acquired 不会减到 0
+                }
+            });
+            client.setDaemon(true);
+            client.start();
+        }
+
+        // 连接全部被持有不归还，只有扩容才能让所有客户端拿到连接
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!acquired.await(20, TimeUnit.MILLISECONDS) && System.currentTimeMillis() < deadline) {
+            pooledDataSource.adaptPoolSize();
+        }
+        Assert.assertEquals(0, acquired.getCount());
+        Assert.assertTrue(pooledDataSource.getPoolMaximumActiveConnections() >= CLIENTS);
+        Assert.assertTrue(pooledDataSource.getPoolMaximumActiveConnections() <= CEILING);
+        Assert.assertTrue(pooledDataSource.getPoolState().getAdaptiveGrowCount() > 0);
+
+        release.countDown();
+        while (pooledDataSource.getPoolState().getActiveConnectionCount() > 0) {
+            Thread.sleep(5);
+        }
+        // 归还的长时间占用可能让下一个窗口显得繁忙，先把它观察掉
+        Thread.sleep(10);
+        pooledDataSource.adaptPoolSize();
+        // 需要连续多个空闲窗口才缩容一次
+        for (int i = 1; i < 3; i++) {
+            Thread.sleep(10);
+            Assert.assertEquals(0, pooledDataSource.adaptPoolSize());
+        }
+        Thread.sleep(10);
+        Assert.assertEquals(-1, pooledDataSource.adaptPoolSize());
+        while (pooledDataSource.getPoolMaximumActiveConnections() > FLOOR) {
+            Thread.sleep(2);
+            pooledDataSource.adaptPoolSize();
+        }
+        Assert.assertEquals(FLOOR, pooledDataSource.getPoolMaximumActiveConnections());
+
+        // 缩容后多出来的空闲连接由维护任务关闭
+        pooledDataSource.housekeep();
+        Assert.assertEquals(FLOOR, pooledDataSource.getPoolState().getIdleConnectionCount());
+        Assert.assertEquals(FLOOR, pooledDataSource.getPhysicalConnectionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        pooledDataSource.setPoolMaximumActiveConnections(FLOOR);
+        pooledDataSource.setPoolMaximumIdleConnections(CEILING);
+        pooledDataSource.setPoolAdaptiveMinimumActiveConnections(FLOOR);
+        pooledDataSource.setPoolAdaptiveMaximumActiveConnections(CEILING);
+        pooledDataSource.setPoolAdaptiveWaitThreshold(0);
+        pooledDataSource.setPoolAdaptiveSizing(true);
+        return pooledDataSource;
+    }
+}
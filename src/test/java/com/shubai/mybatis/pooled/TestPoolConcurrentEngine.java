@@ -0,0 +1,167 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolState;
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ClassName: TestPoolConcurrentEngine
+ * Description: CONCURRENT 引擎的借出与归还、最大活动连接数、超时连接回收、等待者交接，以及与 SYNCHRONIZED 引擎一致的 PoolState 统计
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/26 15:30
+ * Version: 1.0
+ */
+public class TestPoolConcurrentEngine {
+
+    @Test
+    public void testCheckoutAndReturnReusesConnection() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        int opened = StubDriver.OPENED.get();
+        Connection connection = pooledDataSource.getConnection();
+        PoolState state = pooledDataSource.getPoolState();
+        Assert.assertEquals(1, state.getActiveConnectionCount());
+        Assert.assertEquals(0, state.getIdleConnectionCount());
+
+        connection.close();
+        Assert.assertEquals(0, state.getActiveConnectionCount());
+        Assert.assertEquals(1, state.getIdleConnectionCount());
+
+        // 归还的连接被再次借出，不再建立新的物理连接
+        for (int i = 0; i < 10; i++) {
+            pooledDataSource.getConnection().close();
+        }
+        Assert.assertEquals(opened + 1, StubDriver.OPENED.get());
+        Assert.assertEquals(11, state.getRequestCount());
+
+        pooledDataSource.forceCloseAll();
+        Assert.assertEquals(0, pooledDataSource.getPhysicalConnectionCount());
+        Assert.assertEquals(0, state.getIdleConnectionCount());
+    }
+
+    @Test
+    public void testIdleLimitDiscardsSurplusReturns() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        pooledDataSource.setPoolMaximumIdleConnections(1);
+        Connection first = pooledDataSource.getConnection();
+        Connection second = pooledDataSource.getConnection();
+        first.close();
+        // 空闲连接已达上限，第二个连接归还时直接关闭
+        second.close();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getIdleConnectionCount());
+        Assert.assertEquals(1, pooledDataSource.getPhysicalConnectionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testMaximumActiveConnectionsAndWaiterHandoff() throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        pooledDataSource.setPoolMaximumActiveConnections(2);
+        Connection first = pooledDataSource.getConnection();
+        Connection second = pooledDataSource.getConnection();
+
+        AtomicReference<Connection> waited = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                waited.set(pooledDataSource.getConnection());
+            } catch (SQLException e) {
+                // 获取失败时 waited 保持 null
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        // 名额已满，第三个请求等待而不是新建连接
+        Assert.assertNull(waited.get());
+        Assert.assertEquals(2, pooledDataSource.getPhysicalConnectionCount());
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getWaitingThreadCount());
+
+        // 归还的连接直接交给等待者
+        first.close();
+        waiter.join(5_000);
+        Assert.assertNotNull(waited.get());
+        Assert.assertEquals(2, pooledDataSource.getPhysicalConnectionCount());
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getHadToWaitCount());
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getWaitingThreadCount());
+
+        waited.get().close();
+        second.close();
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testOverdueConnectionIsReclaimed() throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        pooledDataSource.setPoolMaximumActiveConnections(1);
+        pooledDataSource.setPoolMaximumCheckoutTime(50);
+        Connection overdue = pooledDataSource.getConnection();
+        Thread.sleep(100);
+
+        Connection claimed = pooledDataSource.getConnection();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getClaimedOverdueConnectionCount());
+        Assert.assertEquals(1, pooledDataSource.getPhysicalConnectionCount());
+        // 原使用者的句柄已经失效
+        try {
+            overdue.getAutoCommit();
+            Assert.fail("handle of a reclaimed connection should be rejected");
+        } catch (SQLException expected) {
+            // 期望抛出异常
+        }
+        overdue.close();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getActiveConnectionCount());
+        claimed.close();
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getActiveConnectionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testPoolStateMatchesSynchronizedEngine() throws Exception {
+        PoolState synchronizedState = runScenario(PoolType.SYNCHRONIZED);
+        PoolState concurrentState = runScenario(PoolType.CONCURRENT);
+        Assert.assertEquals(synchronizedState.getRequestCount(), concurrentState.getRequestCount());
+        Assert.assertEquals(synchronizedState.getHadToWaitCount(), concurrentState.getHadToWaitCount());
+        Assert.assertEquals(synchronizedState.getClaimedOverdueConnectionCount(), concurrentState.getClaimedOverdueConnectionCount());
+        Assert.assertEquals(synchronizedState.getBadConnectionCount(), concurrentState.getBadConnectionCount());
+        Assert.assertEquals(synchronizedState.getIdleConnectionCount(), concurrentState.getIdleConnectionCount());
+        Assert.assertEquals(synchronizedState.getActiveConnectionCount(), concurrentState.getActiveConnectionCount());
+        Assert.assertEquals(synchronizedState.getCreatedConnectionCount(), concurrentState.getCreatedConnectionCount());
+    }
+
+    /**
+     * 两个引擎执行同样的借出、等待、超时回收和归还序列
+     */
+    private PoolState runScenario(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolMaximumActiveConnections(2);
+        pooledDataSource.setPoolMaximumCheckoutTime(50);
+        Connection first = pooledDataSource.getConnection();
+        Connection second = pooledDataSource.getConnection();
+        second.close();
+        second = pooledDataSource.getConnection();
+        Thread.sleep(100);
+        // 没有空闲连接也不能新建，回收最早借出的超时连接
+        Connection third = pooledDataSource.getConnection();
+        first.close();
+        second.close();
+        PoolState state = pooledDataSource.getPoolState();
+        Assert.assertEquals(poolType + " active", 1, state.getActiveConnectionCount());
+        third.close();
+        return state;
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        return pooledDataSource;
+    }
+}
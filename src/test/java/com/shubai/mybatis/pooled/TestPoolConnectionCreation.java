@@ -0,0 +1,106 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ClassName: TestPoolConnectionCreation
+ * Description: 物理连接在连接池锁外建立：慢速建连不阻塞借出和归还，同时建连的线程数有上限并记录建连耗时
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/03 11:25
+ * Version: 1.0
+ */
+public class TestPoolConnectionCreation {
+
+    private static final long CONNECT_DELAY = 300;
+
+    @After
+    public void resetDelay() {
+        StubDriver.connectDelayMillis = 0;
+    }
+
+    @Test
+    public void testSlowConnectDoesNotBlockCheckout() throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.SYNCHRONIZED);
+        Connection first = pooledDataSource.getConnection();
+        StubDriver.connectDelayMillis = CONNECT_DELAY;
+        // 另一个线程因为没有空闲连接而新建连接，建连期间一直很慢
+        Thread creator = new Thread(() -> {
+            try {
+                pooledDataSource.getConnection().close();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        creator.start();
+        Thread.sleep(50);
+
+        // 归还和再次借出都不需要等待正在进行的建连
+        long start = System.currentTimeMillis();
+        first.close();
+        Connection again = pooledDataSource.getConnection();
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertTrue("checkout blocked by connection creation: " + elapsed + " ms", elapsed < CONNECT_DELAY / 2);
+        again.close();
+        creator.join();
+
+        Assert.assertEquals(2, pooledDataSource.getPoolState().getCreatedConnectionCount());
+        Assert.assertTrue(pooledDataSource.getPoolState().getCreationTimePercentile(100) >= CONNECT_DELAY * 1000);
+        pooledDataSource.close();
+    }
+
+    @Test
+    public void testConcurrentCreationsAreBounded() throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        pooledDataSource.setPoolMaximumConcurrentCreations(1);
+        StubDriver.connectDelayMillis = 100;
+        List<Thread> threads = new ArrayList<>();
+        List<Connection> connections = new ArrayList<>();
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    Connection connection = pooledDataSource.getConnection();
+                    synchronized (connections) {
+                        connections.add(connection);
+                    }
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        // 同一时刻只允许一个线程建连，三次建连只能串行完成
+        Assert.assertEquals(3, connections.size());
+        Assert.assertTrue("creations were not serialized: " + elapsed + " ms", elapsed >= 300);
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        pooledDataSource.close();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        return pooledDataSource;
+    }
+}
@@ -0,0 +1,113 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ClassName: TestPoolFairWait
+ * Description: poolFairWait 模式：连接按等待先后交接，每次请求遵守整体截止时间并记录等待时间分布
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/01 14:20
+ * Version: 1.0
+ */
+public class TestPoolFairWait {
+
+    private static final int WAITERS = 5;
+
+    @Test
+    public void testSynchronizedPoolHandsOffInArrivalOrder() throws Exception {
+        assertArrivalOrder(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolHandsOffInArrivalOrder() throws Exception {
+        assertArrivalOrder(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testSynchronizedPoolDeadline() throws SQLException {
+        assertDeadline(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolDeadline() throws SQLException {
+        assertDeadline(PoolType.CONCURRENT);
+    }
+
+    private void assertArrivalOrder(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType, 10_000);
+        Connection holder = pooledDataSource.getConnection();
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < WAITERS; i++) {
+            int id = i;
+            Thread thread = new Thread(() -> {
+                try (Connection connection = pooledDataSource.getConnection()) {
+                    order.add(id);
+                    connection.getAutoCommit();
+                } catch (SQLException e) {
+                    order.add(-1);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+            // 等前一个线程排上队再启动下一个，保证到达顺序确定
+            while (pooledDataSource.getPoolState().getWaitingThreadCount() < i + 1) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(20);
+        }
+        holder.close();
+        for (Thread thread : threads) {
+            thread.join(5_000);
+        }
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), order);
+        Assert.assertEquals(WAITERS, pooledDataSource.getPoolState().getHadToWaitCount());
+        Assert.assertEquals(WAITERS, pooledDataSource.getPoolState().getWaitTimeHistogram().getTotalCount());
+        Assert.assertTrue(pooledDataSource.getPoolState().getWaitTimePercentile(99) >= pooledDataSource.getPoolState().getWaitTimePercentile(50));
+        pooledDataSource.forceCloseAll();
+    }
+
+    private void assertDeadline(PoolType poolType) throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(poolType, 200);
+        Connection holder = pooledDataSource.getConnection();
+        long start = System.currentTimeMillis();
+        try {
+            pooledDataSource.getConnection();
+            Assert.fail("pool is exhausted, request should time out");
+        } catch (SQLException expected) {
+            // 期望在截止时间到达后抛出异常
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        Assert.assertTrue("timed out too early: " + elapsed, elapsed >= 200);
+        Assert.assertTrue("timed out too late: " + elapsed, elapsed < 2_000);
+        Assert.assertTrue(pooledDataSource.getPoolState().getWaitTimePercentile(50) >= 200_000);
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getWaitingThreadCount());
+        holder.close();
+        pooledDataSource.forceCloseAll();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType, int timeToWait) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        pooledDataSource.setPoolFairWait(true);
+        pooledDataSource.setPoolMaximumActiveConnections(1);
+        pooledDataSource.setPoolTimeToWait(timeToWait);
+        return pooledDataSource;
+    }
+}
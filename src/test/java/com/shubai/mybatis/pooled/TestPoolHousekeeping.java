@@ -0,0 +1,117 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolState;
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ClassName: TestPoolHousekeeping
+ * Description: 连接池后台维护：空闲超时关闭、最大存活时间淘汰、补足最少空闲连接
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/02 10:40
+ * Version: 1.0
+ */
+public class TestPoolHousekeeping {
+
+    @Test
+    public void testSynchronizedPoolIdleEviction() throws Exception {
+        assertIdleEviction(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolIdleEviction() throws Exception {
+        assertIdleEviction(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testSynchronizedPoolMaxLifetime() throws Exception {
+        assertMaxLifetime(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolMaxLifetime() throws Exception {
+        assertMaxLifetime(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testScheduledHousekeeperFillsMinimumIdle() throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        pooledDataSource.setPoolMinimumIdle(3);
+        pooledDataSource.setPoolHousekeepingPeriod(20);
+        try {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (pooledDataSource.getPoolState().getIdleConnectionCount() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(3, pooledDataSource.getPoolState().getIdleConnectionCount());
+        } finally {
+            pooledDataSource.close();
+        }
+    }
+
+    private void assertIdleEviction(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolMinimumIdle(1);
+        pooledDataSource.setPoolIdleTimeout(50);
+        checkoutAndReturn(pooledDataSource, 3);
+        PoolState state = pooledDataSource.getPoolState();
+        Assert.assertEquals(3, state.getIdleConnectionCount());
+
+        Thread.sleep(100);
+        pooledDataSource.housekeep();
+        // 空闲超时的连接被关闭，但保留 poolMinimumIdle 个
+        Assert.assertEquals(1, state.getIdleConnectionCount());
+        Assert.assertEquals(2, state.getEvictedIdleConnectionCount());
+        pooledDataSource.close();
+    }
+
+    private void assertMaxLifetime(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolMinimumIdle(2);
+        pooledDataSource.setPoolMaxLifetime(100);
+        checkoutAndReturn(pooledDataSource, 2);
+        Connection borrowed = pooledDataSource.getConnection();
+        int opened = StubDriver.OPENED.get();
+
+        Thread.sleep(150);
+        pooledDataSource.housekeep();
+        PoolState state = pooledDataSource.getPoolState();
+        // 到期的空闲连接被淘汰，然后重新补足最少空闲连接
+        Assert.assertEquals(1, state.getRetiredConnectionCount());
+        Assert.assertEquals(2, state.getIdleConnectionCount());
+        Assert.assertEquals(opened + 2, StubDriver.OPENED.get());
+
+        // 借出中的到期连接在归还时关闭
+        borrowed.close();
+        Assert.assertEquals(2, state.getRetiredConnectionCount());
+        Assert.assertEquals(2, state.getIdleConnectionCount());
+        pooledDataSource.close();
+    }
+
+    private void checkoutAndReturn(PooledDataSource pooledDataSource, int count) throws SQLException {
+        Connection[] connections = new Connection[count];
+        for (int i = 0; i < count; i++) {
+            connections[i] = pooledDataSource.getConnection();
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        return pooledDataSource;
+    }
+}
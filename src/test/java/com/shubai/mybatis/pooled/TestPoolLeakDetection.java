@@ -0,0 +1,109 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolState;
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ClassName: TestPoolLeakDetection
+ * Description: 泄漏检测：借出超过阈值的租约被报告一次并计入疑似泄漏数，归还或被强制回收后扣除
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/04 17:05
+ * Version: 1.0
+ */
+public class TestPoolLeakDetection {
+
+    private static final int LEAK_THRESHOLD = 50;
+
+    @Test
+    public void testSynchronizedPoolReportsLeakOnce() throws Exception {
+        assertLeakReported(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolReportsLeakOnce() throws Exception {
+        assertLeakReported(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testSynchronizedPoolClaimEndsSuspectedLease() throws Exception {
+        assertClaimEndsSuspectedLease(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolClaimEndsSuspectedLease() throws Exception {
+        assertClaimEndsSuspectedLease(PoolType.CONCURRENT);
+    }
+
+    private void assertLeakReported(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        PoolState state = pooledDataSource.getPoolState();
+        Connection leaked = pooledDataSource.getConnection();
+        Connection returned = pooledDataSource.getConnection();
+        // 未超过阈值的租约不报告
+        Assert.assertEquals(0, pooledDataSource.detectLeaks());
+        returned.close();
+        Thread.sleep(LEAK_THRESHOLD * 2);
+
+        // 只有仍未归还的租约被报告，且每次租约只报告一次
+        Assert.assertEquals(1, pooledDataSource.detectLeaks());
+        Assert.assertEquals(0, pooledDataSource.detectLeaks());
+        Assert.assertEquals(1, state.getSuspectedLeakCount());
+        Assert.assertEquals(1, state.getReportedLeakCount());
+
+        leaked.close();
+        Assert.assertEquals(0, state.getSuspectedLeakCount());
+        Assert.assertEquals(1, state.getReportedLeakCount());
+        // 同一个物理连接的下一次租约重新计时
+        try (Connection next = pooledDataSource.getConnection()) {
+            Assert.assertFalse(next.isClosed());
+            Assert.assertEquals(0, pooledDataSource.detectLeaks());
+        }
+        pooledDataSource.forceCloseAll();
+    }
+
+    private void assertClaimEndsSuspectedLease(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolMaximumActiveConnections(1);
+        pooledDataSource.setPoolMaximumCheckoutTime(LEAK_THRESHOLD * 2);
+        PoolState state = pooledDataSource.getPoolState();
+        Connection leaked = pooledDataSource.getConnection();
+        Thread.sleep(LEAK_THRESHOLD + 20);
+        Assert.assertEquals(1, pooledDataSource.detectLeaks());
+        Assert.assertEquals(1, state.getSuspectedLeakCount());
+
+        // 超过 poolMaximumCheckoutTime 后被强制回收，疑似泄漏的租约随之结束
+        Thread.sleep(LEAK_THRESHOLD);
+        try (Connection claimed = pooledDataSource.getConnection()) {
+            Assert.assertFalse(claimed.isClosed());
+            Assert.assertEquals(1, state.getClaimedOverdueConnectionCount());
+            Assert.assertEquals(0, state.getSuspectedLeakCount());
+        }
+        try {
+            leaked.getAutoCommit();
+            Assert.fail("handle of a claimed lease should be rejected");
+        } catch (SQLException expected) {
+            // 期望抛出异常
+        }
+        pooledDataSource.forceCloseAll();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        pooledDataSource.setPoolLeakDetectionThreshold(LEAK_THRESHOLD);
+        pooledDataSource.setPoolLeakDetectionSampleRate(1);
+        return pooledDataSource;
+    }
+}
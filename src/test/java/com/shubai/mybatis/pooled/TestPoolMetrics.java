@@ -0,0 +1,122 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.LatencyHistogram;
+import com.shubai.mybatis.datasource.pooled.PoolSnapshot;
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ClassName: TestPoolMetrics
+ * Description: 连接池统计：借出、等待、占用时长的直方图快照，多线程记录不丢计数，以及 JMX MXBean 的注册和注销
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/05 11:30
+ * Version: 1.0
+ */
+public class TestPoolMetrics {
+
+    private static final int HOLD_MILLIS = 20;
+
+    @Test
+    public void testSynchronizedPoolSnapshot() throws Exception {
+        assertSnapshot(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolSnapshot() throws Exception {
+        assertSnapshot(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testHistogramCountsConcurrentRecords() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 1; j <= 10_000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assert.assertEquals(80_000, snapshot.getTotalCount());
+        Assert.assertEquals(10_000, snapshot.getMax());
+        Assert.assertEquals(5_000.5, snapshot.getMean(), 1e-9);
+        // 每组 16 个子桶，相对误差不超过 6.25%
+        Assert.assertEquals(9_900, snapshot.getValueAtPercentile(99), 9_900 * 0.0625);
+        Assert.assertEquals(10_000, snapshot.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testMbeanIsRegisteredUnderPoolName() throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        pooledDataSource.setPoolName("metrics-test");
+        pooledDataSource.setPoolRegisterMbeans(true);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.shubai.mybatis.datasource:type=PooledDataSource,name=\"metrics-test\"");
+        Assert.assertTrue(server.isRegistered(name));
+
+        pooledDataSource.getConnection().close();
+        Assert.assertEquals(1L, server.getAttribute(name, "RequestCount"));
+        Assert.assertEquals(1, server.getAttribute(name, "IdleConnections"));
+        Assert.assertEquals(0, server.invoke(name, "detectLeaks", null, null));
+        // 同一次采集的百分位和最大值来自同一份快照，彼此一致
+        long p50 = (Long) server.getAttribute(name, "AcquireTimeP50");
+        long p99 = (Long) server.getAttribute(name, "AcquireTimeP99");
+        long max = (Long) server.getAttribute(name, "AcquireTimeMax");
+        Assert.assertTrue(p50 <= p99 && p99 <= max);
+
+        pooledDataSource.close();
+        Assert.assertFalse(server.isRegistered(name));
+    }
+
+    private void assertSnapshot(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        for (int i = 0; i < 5; i++) {
+            try (Connection connection = pooledDataSource.getConnection()) {
+                Assert.assertFalse(connection.isClosed());
+                Thread.sleep(HOLD_MILLIS);
+            }
+        }
+        Connection held = pooledDataSource.getConnection();
+        PoolSnapshot snapshot = pooledDataSource.getPoolState().snapshot();
+        Assert.assertEquals(6, snapshot.getRequestCount());
+        Assert.assertEquals(1, snapshot.getActiveConnectionCount());
+        Assert.assertEquals(0, snapshot.getIdleConnectionCount());
+        // 每次成功借出记录一次借出耗时，每次归还记录一次占用时长
+        Assert.assertEquals(6, snapshot.getAcquireTime().getTotalCount());
+        Assert.assertEquals(5, snapshot.getHoldTime().getTotalCount());
+        Assert.assertEquals(0, snapshot.getWaitTime().getTotalCount());
+        Assert.assertTrue(snapshot.getHoldTime().getValueAtPercentile(50) >= HOLD_MILLIS * 1000L);
+        Assert.assertTrue(snapshot.getAcquireTime().getValueAtPercentile(99) <= snapshot.getAcquireTime().getMax());
+
+        // 快照是不可变的，之后的借出不影响已经取得的快照
+        held.close();
+        Assert.assertEquals(5, snapshot.getHoldTime().getTotalCount());
+        Assert.assertEquals(6, pooledDataSource.getPoolState().snapshot().getHoldTime().getTotalCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        return pooledDataSource;
+    }
+}
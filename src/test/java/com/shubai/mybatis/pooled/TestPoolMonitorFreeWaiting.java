@@ -0,0 +1,156 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ClassName: TestPoolMonitorFreeWaiting
+ * Description: 大量线程争抢小连接池：等待连接的线程在 j.u.c 的锁和 Condition 上挂起，不阻塞在任何监视器上
+ * <p>
+ * 平台线程的用例通过线程转储确认等待者没有停在 Object.wait 或者 BLOCKED 在 PoolState 上，
+ * 这两种情况在虚拟线程上都会把载体线程钉住。虚拟线程的用例只在 JDK 21+ 上运行，其他版本报告为跳过。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/04 15:20
+ * Version: 1.0
+ */
+public class TestPoolMonitorFreeWaiting {
+
+    private static final int TASKS = 2_000;
+
+    private static final int POOL_SIZE = 4;
+
+    @Test
+    public void testSynchronizedPoolWaitersHoldNoMonitor() throws Exception {
+        assertWaitersHoldNoMonitor(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolWaitersHoldNoMonitor() throws Exception {
+        assertWaitersHoldNoMonitor(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testSynchronizedPoolUnderVirtualThreads() throws Exception {
+        assertVirtualThreadLoad(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolUnderVirtualThreads() throws Exception {
+        assertVirtualThreadLoad(PoolType.CONCURRENT);
+    }
+
+    private void assertWaitersHoldNoMonitor(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        submitTasks(pooledDataSource, executor, completed, failed);
+        // 连接池耗尽期间检查等待者的阻塞方式
+        Thread.sleep(50);
+        Assert.assertTrue("pool should be exhausted while checking waiters", assertNoMonitorWaits() > 0);
+        awaitTasks(pooledDataSource, executor, completed, failed);
+    }
+
+    private void assertVirtualThreadLoad(PoolType poolType) throws Exception {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        Assume.assumeTrue("virtual threads require JDK 21+", executor != null);
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        // 等待者被钉在载体线程上时，少量载体线程很快耗尽，任务无法在时限内完成
+        submitTasks(pooledDataSource, executor, completed, failed);
+        awaitTasks(pooledDataSource, executor, completed, failed);
+    }
+
+    private void submitTasks(PooledDataSource pooledDataSource, ExecutorService executor, AtomicInteger completed, AtomicInteger failed) {
+        for (int i = 0; i < TASKS; i++) {
+            executor.execute(() -> {
+                try (Connection connection = pooledDataSource.getConnection()) {
+                    connection.getAutoCommit();
+                    Thread.sleep(1);
+                    completed.incrementAndGet();
+                } catch (SQLException | InterruptedException e) {
+                    failed.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    private void awaitTasks(PooledDataSource pooledDataSource, ExecutorService executor, AtomicInteger completed, AtomicInteger failed) throws InterruptedException {
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+        Assert.assertEquals(0, failed.get());
+        Assert.assertEquals(TASKS, completed.get());
+        Assert.assertTrue(pooledDataSource.getPhysicalConnectionCount() <= POOL_SIZE);
+        pooledDataSource.forceCloseAll();
+    }
+
+    /**
+     * 检查所有平台线程：等待连接的线程不能停在 Object.wait，也不能 BLOCKED 在连接池的监视器上
+     *
+     * @return 正在等待连接的线程数
+     */
+    private int assertNoMonitorWaits() {
+        int waiting = 0;
+        for (ThreadInfo info : ManagementFactory.getThreadMXBean().dumpAllThreads(true, false)) {
+            StackTraceElement[] stack = info.getStackTrace();
+            boolean inPool = false;
+            for (StackTraceElement element : stack) {
+                if (element.getClassName().startsWith("com.shubai.mybatis.datasource.pooled.")) {
+                    inPool = true;
+                    break;
+                }
+            }
+            if (!inPool) {
+                continue;
+            }
+            waiting++;
+            Assert.assertFalse("thread blocked on pool monitor: " + info, info.getThreadState() == Thread.State.BLOCKED);
+            Assert.assertTrue("thread holds a monitor inside the pool: " + info, info.getLockedMonitors().length == 0);
+            Assert.assertFalse("thread waits on a monitor inside the pool: " + info,
+                    stack.length > 0 && "java.lang.Object".equals(stack[0].getClassName()) && stack[0].getMethodName().startsWith("wait"));
+        }
+        return waiting;
+    }
+
+    /**
+     * JDK 21+ 返回 Executors.newVirtualThreadPerTaskExecutor，更早的版本返回 null
+     */
+    private ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        pooledDataSource.setPoolMaximumActiveConnections(POOL_SIZE);
+        pooledDataSource.setPoolMaximumIdleConnections(POOL_SIZE);
+        return pooledDataSource;
+    }
+}
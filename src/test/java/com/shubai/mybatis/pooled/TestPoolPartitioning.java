@@ -0,0 +1,112 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ClassName: TestPoolPartitioning
+ * Description: getConnection(username, password) 按账号划分子连接池：各账号的连接可以复用，所有分区共享全局连接上限
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/04 09:30
+ * Version: 1.0
+ */
+public class TestPoolPartitioning {
+
+    @Test
+    public void testSynchronizedPoolReusesTenantConnections() throws SQLException {
+        assertTenantReuse(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolReusesTenantConnections() throws SQLException {
+        assertTenantReuse(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testSynchronizedPoolEvictsIdleConnectionOfOtherTenant() throws Exception {
+        assertGlobalCap(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolEvictsIdleConnectionOfOtherTenant() throws Exception {
+        assertGlobalCap(PoolType.CONCURRENT);
+    }
+
+    private void assertTenantReuse(PoolType poolType) throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        int opened = StubDriver.OPENED.get();
+        for (int i = 0; i < 20; i++) {
+            pooledDataSource.getConnection("alice", "a").close();
+            pooledDataSource.getConnection("bob", "b").close();
+            // 默认账号仍然使用根连接池
+            pooledDataSource.getConnection("root", "root").close();
+        }
+        Assert.assertEquals(opened + 3, StubDriver.OPENED.get());
+        Assert.assertEquals(2, pooledDataSource.getPartitionCount());
+        Assert.assertEquals(3, pooledDataSource.getPhysicalConnectionCount());
+        Assert.assertEquals(1, pooledDataSource.getPoolState("alice", "a").getIdleConnectionCount());
+        Assert.assertEquals(20, pooledDataSource.getPoolState("bob", "b").getRequestCount());
+        Assert.assertEquals(20, pooledDataSource.getPoolState().getRequestCount());
+        // 密码不同视为不同的分区
+        Assert.assertNull(pooledDataSource.getPoolState("alice", "other"));
+
+        pooledDataSource.forceCloseAll();
+        Assert.assertEquals(0, pooledDataSource.getPartitionCount());
+        Assert.assertEquals(0, pooledDataSource.getPhysicalConnectionCount());
+    }
+
+    private void assertGlobalCap(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolMaximumTotalConnections(2);
+        pooledDataSource.getConnection("alice", "a").close();
+        pooledDataSource.getConnection("bob", "b").close();
+        Assert.assertEquals(2, pooledDataSource.getPhysicalConnectionCount());
+
+        // 全局名额已满，关闭其他分区的空闲连接为新账号腾出名额
+        Connection carol = pooledDataSource.getConnection("carol", "c");
+        Assert.assertEquals(2, pooledDataSource.getPhysicalConnectionCount());
+        long evicted = pooledDataSource.getPoolState("alice", "a").getPartitionEvictionCount()
+                + pooledDataSource.getPoolState("bob", "b").getPartitionEvictionCount();
+        Assert.assertEquals(1, evicted);
+
+        // 名额全部被借出时等待，其他分区归还的连接变为空闲后被回收
+        Connection other = pooledDataSource.getConnection("carol", "c");
+        AtomicReference<Connection> waited = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                waited.set(pooledDataSource.getConnection("dave", "d"));
+            } catch (SQLException e) {
+                // 获取失败时 waited 保持 null
+            }
+        });
+        waiter.start();
+        Thread.sleep(100);
+        Assert.assertNull(waited.get());
+        carol.close();
+        waiter.join(5_000);
+        Assert.assertNotNull(waited.get());
+        Assert.assertEquals(2, pooledDataSource.getPhysicalConnectionCount());
+
+        waited.get().close();
+        other.close();
+        pooledDataSource.forceCloseAll();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        return pooledDataSource;
+    }
+}
@@ -0,0 +1,184 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.CachedPreparedStatement;
+import com.shubai.mybatis.datasource.pooled.PoolState;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * ClassName: TestPoolStatementCache
+ * Description: 每个物理连接上的 PreparedStatement LRU 缓存：跨租约复用、命中率统计、淘汰以及连接失效时的清理
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/03 11:10
+ * Version: 1.0
+ */
+public class TestPoolStatementCache {
+
+    private static final String SQL_A = "select * from user where id = ?";
+
+    private static final String SQL_B = "select * from user where name = ?";
+
+    private static final String SQL_C = "select * from user where age = ?";
+
+    @Test
+    public void testDelegatingHandleReusesStatementAcrossLeases() throws SQLException {
+        assertReuseAcrossLeases(false);
+    }
+
+    @Test
+    public void testReflectiveHandleReusesStatementAcrossLeases() throws SQLException {
+        assertReuseAcrossLeases(true);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedStatementIsEvicted() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(2, false);
+        int prepared = StubDriver.PREPARED.get();
+        int closed = StubDriver.STATEMENTS_CLOSED.get();
+        try (Connection connection = pooledDataSource.getConnection()) {
+            connection.prepareStatement(SQL_A).close();
+            connection.prepareStatement(SQL_B).close();
+            // 访问 A 之后 B 成为最久未使用的语句
+            connection.prepareStatement(SQL_A).close();
+            connection.prepareStatement(SQL_C).close();
+            Assert.assertEquals(closed + 1, StubDriver.STATEMENTS_CLOSED.get());
+            connection.prepareStatement(SQL_A).close();
+            connection.prepareStatement(SQL_B).close();
+        }
+        PoolState state = pooledDataSource.getPoolState();
+        Assert.assertEquals(prepared + 4, StubDriver.PREPARED.get());
+        Assert.assertEquals(2, state.getStatementCacheHitCount());
+        Assert.assertEquals(4, state.getStatementCacheMissCount());
+        Assert.assertEquals(2, state.getStatementCacheEvictionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testStatementInUseIsNotShared() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(4, false);
+        try (Connection connection = pooledDataSource.getConnection()) {
+            int closed = StubDriver.STATEMENTS_CLOSED.get();
+            PreparedStatement outer = connection.prepareStatement(SQL_A);
+            PreparedStatement inner = connection.prepareStatement(SQL_A);
+            Assert.assertTrue(outer instanceof CachedPreparedStatement);
+            // 不缓存的语句同样被包装，getConnection 返回句柄而不是真实连接
+            Assert.assertTrue(inner instanceof CachedPreparedStatement);
+            Assert.assertSame(connection, inner.getConnection());
+            Assert.assertEquals(2, pooledDataSource.getPoolState().getStatementCacheMissCount());
+            // 不缓存的语句归还时关闭，缓存中的语句不受影响
+            inner.close();
+            Assert.assertEquals(closed + 1, StubDriver.STATEMENTS_CLOSED.get());
+            Assert.assertFalse(outer.isClosed());
+            outer.close();
+            Assert.assertEquals(closed + 1, StubDriver.STATEMENTS_CLOSED.get());
+        }
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testLeaseEndClosesUnclosedUncachedStatement() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(4, false);
+        Connection connection = pooledDataSource.getConnection();
+        PreparedStatement outer = connection.prepareStatement(SQL_A);
+        PreparedStatement inner = connection.prepareStatement(SQL_A);
+        int closed = StubDriver.STATEMENTS_CLOSED.get();
+        // 两条语句都没有 close 就结束了租约
+        connection.close();
+        Assert.assertTrue(outer.isClosed());
+        Assert.assertTrue(inner.isClosed());
+        Assert.assertEquals(closed + 1, StubDriver.STATEMENTS_CLOSED.get());
+        try {
+            inner.getConnection();
+            Assert.fail("statement of an ended lease should be rejected");
+        } catch (SQLException expected) {
+            // 期望抛出异常
+        }
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testModifiedStatementIsNotReused() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(4, false);
+        int prepared = StubDriver.PREPARED.get();
+        try (Connection connection = pooledDataSource.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement(SQL_A);
+            statement.setFetchSize(100);
+            statement.close();
+            connection.prepareStatement(SQL_A).close();
+        }
+        Assert.assertEquals(prepared + 2, StubDriver.PREPARED.get());
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testLeaseEndReleasesUnclosedStatements() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(4, false);
+        Connection connection = pooledDataSource.getConnection();
+        PreparedStatement leaked = connection.prepareStatement(SQL_A);
+        ResultSet ignore = leaked.executeQuery();
+        connection.close();
+        // 租约结束后旧语句失效，缓存中的语句可以被下一次租约复用
+        Assert.assertTrue(leaked.isClosed());
+        try {
+            leaked.setLong(1, 1L);
+            Assert.fail("statement of a finished lease should be rejected");
+        } catch (SQLException expected) {
+            // 期望抛出异常
+        }
+        try (Connection next = pooledDataSource.getConnection()) {
+            Assert.assertTrue(next.prepareStatement(SQL_A) instanceof CachedPreparedStatement);
+        }
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getStatementCacheHitCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testRetiredConnectionClosesCachedStatements() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(4, false);
+        try (Connection connection = pooledDataSource.getConnection()) {
+            connection.prepareStatement(SQL_A).close();
+            connection.prepareStatement(SQL_B).close();
+        }
+        int closed = StubDriver.STATEMENTS_CLOSED.get();
+        pooledDataSource.forceCloseAll();
+        Assert.assertEquals(closed + 2, StubDriver.STATEMENTS_CLOSED.get());
+    }
+
+    private void assertReuseAcrossLeases(boolean reflectiveProxy) throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(4, reflectiveProxy);
+        int prepared = StubDriver.PREPARED.get();
+        for (int i = 0; i < 3; i++) {
+            try (Connection connection = pooledDataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(SQL_A)) {
+                Assert.assertSame(connection, statement.getConnection());
+                statement.setLong(1, i);
+                statement.executeQuery();
+            }
+        }
+        PoolState state = pooledDataSource.getPoolState();
+        Assert.assertEquals(prepared + 1, StubDriver.PREPARED.get());
+        Assert.assertEquals(2, state.getStatementCacheHitCount());
+        Assert.assertEquals(1, state.getStatementCacheMissCount());
+        Assert.assertEquals(2.0 / 3, state.getStatementCacheHitRatio(), 1e-9);
+        pooledDataSource.forceCloseAll();
+    }
+
+    private PooledDataSource newDataSource(int cacheSize, boolean reflectiveProxy) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolUseReflectiveProxy(reflectiveProxy);
+        pooledDataSource.setPoolPreparedStatementCacheSize(cacheSize);
+        return pooledDataSource;
+    }
+}
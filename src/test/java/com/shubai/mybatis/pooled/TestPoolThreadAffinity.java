@@ -0,0 +1,119 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolState;
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ClassName: TestPoolThreadAffinity
+ * Description: CONCURRENT 引擎的线程亲和快速路径：本线程归还的连接再次借出时命中，其他线程归还的连接通过扫描共享列表“窃取”，
+ * 每个线程最多记住 16 个最近归还的连接
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/26 16:40
+ * Version: 1.0
+ */
+public class TestPoolThreadAffinity {
+
+    /**
+     * 与 ConcurrentBag 中每个线程最多记住的连接数一致
+     */
+    private static final int THREAD_LIST_SIZE = 16;
+
+    @Test
+    public void testSameThreadReborrowHits() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(4);
+        PoolState state = pooledDataSource.getPoolState();
+        Connection connection = pooledDataSource.getConnection();
+        // 第一次借出时本线程列表为空
+        Assert.assertEquals(0, state.getThreadLocalHitCount());
+        Assert.assertEquals(1, state.getThreadLocalMissCount());
+        connection.close();
+
+        pooledDataSource.getConnection().close();
+        Assert.assertEquals(1, state.getThreadLocalHitCount());
+        Assert.assertEquals(1, state.getThreadLocalMissCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testOtherThreadMissesAndSteals() throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(4);
+        PoolState state = pooledDataSource.getPoolState();
+        // 当前线程借出并归还，连接记在当前线程的列表中
+        pooledDataSource.getConnection().close();
+        int opened = StubDriver.OPENED.get();
+        long hits = state.getThreadLocalHitCount();
+        long misses = state.getThreadLocalMissCount();
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread other = new Thread(() -> {
+            try {
+                pooledDataSource.getConnection().close();
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        other.start();
+        other.join(5_000);
+        Assert.assertNull(failure.get());
+        // 其他线程没有命中，但从共享列表中窃取了空闲连接，没有新建连接
+        Assert.assertEquals(hits, state.getThreadLocalHitCount());
+        Assert.assertEquals(misses + 1, state.getThreadLocalMissCount());
+        Assert.assertEquals(opened, StubDriver.OPENED.get());
+        Assert.assertEquals(1, pooledDataSource.getPhysicalConnectionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    @Test
+    public void testThreadListKeepsAtMostSixteenConnections() throws SQLException {
+        int count = THREAD_LIST_SIZE + 4;
+        PooledDataSource pooledDataSource = newDataSource(count);
+        PoolState state = pooledDataSource.getPoolState();
+        returnAll(borrow(pooledDataSource, count));
+        long hits = state.getThreadLocalHitCount();
+        long misses = state.getThreadLocalMissCount();
+
+        // 只有最近归还的 16 个连接记在本线程列表中，其余 4 个从共享列表借出
+        returnAll(borrow(pooledDataSource, count));
+        Assert.assertEquals(hits + THREAD_LIST_SIZE, state.getThreadLocalHitCount());
+        Assert.assertEquals(misses + 4, state.getThreadLocalMissCount());
+        Assert.assertEquals(count, pooledDataSource.getPhysicalConnectionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    private List<Connection> borrow(PooledDataSource pooledDataSource, int count) throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            connections.add(pooledDataSource.getConnection());
+        }
+        return connections;
+    }
+
+    private void returnAll(List<Connection> connections) throws SQLException {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    private PooledDataSource newDataSource(int size) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(PoolType.CONCURRENT);
+        pooledDataSource.setPoolMaximumActiveConnections(size);
+        pooledDataSource.setPoolMaximumIdleConnections(size);
+        return pooledDataSource;
+    }
+}
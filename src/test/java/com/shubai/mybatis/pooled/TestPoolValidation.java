@@ -0,0 +1,131 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.datasource.pooled.ValidationStrategy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName: TestPoolValidation
+ * Description: 借出时使用 Connection.isValid 检测连接，校验窗口内跳过检测，归还时不检测；检测在连接池的锁外进行
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/04 10:15
+ * Version: 1.0
+ */
+public class TestPoolValidation {
+
+    private static final int CHECKOUTS = 100;
+
+    @Test
+    public void testRecentlyUsedConnectionSkipsValidation() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        int validations = StubDriver.VALIDATIONS.get();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            pooledDataSource.getConnection().close();
+        }
+        // 连接一直在被使用，全部落在校验窗口内
+        Assert.assertEquals(validations, StubDriver.VALIDATIONS.get());
+        Assert.assertEquals(CHECKOUTS, pooledDataSource.getPoolState().getSkippedValidationCount());
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getValidationCount());
+        pooledDataSource.close();
+    }
+
+    @Test
+    public void testValidatesOnCheckoutOnly() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.SYNCHRONIZED);
+        pooledDataSource.setPoolValidationWindow(0);
+        int validations = StubDriver.VALIDATIONS.get();
+        for (int i = 0; i < CHECKOUTS; i++) {
+            pooledDataSource.getConnection().close();
+        }
+        // 每次借出调用一次 isValid，归还时不调用
+        Assert.assertEquals(validations + CHECKOUTS, StubDriver.VALIDATIONS.get());
+        Assert.assertEquals(CHECKOUTS, pooledDataSource.getPoolState().getValidationCount());
+        pooledDataSource.close();
+    }
+
+    @Test
+    public void testBrokenConnectionReplacedOnCheckout() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.SYNCHRONIZED);
+        pooledDataSource.setPoolValidationWindow(0);
+        Connection connection = pooledDataSource.getConnection();
+        Connection broken = PooledDataSource.unwrapConnection(connection);
+        // 物理连接在使用者不知情的情况下断开，归还时不检测，仍然放回空闲池
+        broken.close();
+        connection.close();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getIdleConnectionCount());
+
+        Connection replacement = pooledDataSource.getConnection();
+        Assert.assertNotSame(broken, PooledDataSource.unwrapConnection(replacement));
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getBadConnectionCount());
+        replacement.close();
+        pooledDataSource.close();
+    }
+
+    @Test(timeout = 10_000)
+    public void testSynchronizedPoolValidatesOutsideLock() throws Exception {
+        assertValidationDoesNotBlockPool(PoolType.SYNCHRONIZED);
+    }
+
+    @Test(timeout = 10_000)
+    public void testConcurrentPoolValidatesOutsideLock() throws Exception {
+        assertValidationDoesNotBlockPool(PoolType.CONCURRENT);
+    }
+
+    private void assertValidationDoesNotBlockPool(PoolType poolType) throws Exception {
+        // 前一个用例超时失败时闸门可能没有复位
+        StubDriver.validationGate = null;
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolValidationWindow(0);
+        Connection held = pooledDataSource.getConnection();
+        pooledDataSource.getConnection().close();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getIdleConnectionCount());
+
+        CountDownLatch gate = new CountDownLatch(1);
+        StubDriver.validationEntered = new CountDownLatch(1);
+        StubDriver.validationGate = gate;
+        Connection[] validated = new Connection[1];
+        Thread borrower = new Thread(() -> {
+            try {
+                validated[0] = pooledDataSource.getConnection();
+            } catch (SQLException e) {
+                // validated 保持为 null，下面的断言会失败
+            }
+        });
+        try {
+            borrower.start();
+            Assert.assertTrue(StubDriver.validationEntered.await(5, TimeUnit.SECONDS));
+            // 借出线程卡在 isValid 的往返中，其他线程的归还不能排在它后面
+            held.close();
+            Assert.assertEquals(1, pooledDataSource.getPoolState().getIdleConnectionCount());
+        } finally {
+            StubDriver.validationGate = null;
+            gate.countDown();
+        }
+        borrower.join();
+        Assert.assertNotNull(validated[0]);
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getActiveConnectionCount());
+        validated[0].close();
+        Assert.assertEquals(2, pooledDataSource.getPoolState().getIdleConnectionCount());
+        pooledDataSource.close();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        pooledDataSource.setPoolValidationStrategy(ValidationStrategy.JDBC4);
+        return pooledDataSource;
+    }
+}
@@ -0,0 +1,70 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.io.Resources;
+import com.shubai.mybatis.session.SqlSessionFactory;
+import com.shubai.mybatis.session.SqlSessionFactoryBuilder;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName: TestPoolWarmUp
+ * Description: 连接池预热：启动时并行创建 poolMinimumIdle 个空闲连接
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/02 16:10
+ * Version: 1.0
+ */
+public class TestPoolWarmUp {
+
+    @Test
+    public void testSynchronizedPoolWarmUp() throws Exception {
+        assertWarmUp(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolWarmUp() throws Exception {
+        assertWarmUp(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testWarmUpTriggeredByConfiguration() throws Exception {
+        StubDriver.register();
+        Reader reader = Resources.getResourceAsReader("mini-mybatis-stub-config.xml");
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        PooledDataSource pooledDataSource = (PooledDataSource) sqlSessionFactory.openSession().getConfiguration().getEnvironment().getDataSource();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pooledDataSource.getPoolState().getIdleConnectionCount() < 4 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(4, pooledDataSource.getPoolState().getIdleConnectionCount());
+        pooledDataSource.close();
+    }
+
+    private void assertWarmUp(PoolType poolType) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolMinimumIdle(5);
+        pooledDataSource.setPoolMaximumActiveConnections(8);
+        Assert.assertEquals(5, pooledDataSource.warmUp().get(5, TimeUnit.SECONDS).intValue());
+        Assert.assertEquals(5, pooledDataSource.getPoolState().getIdleConnectionCount());
+        // 已经达到最少空闲连接数，再次预热不会新建连接
+        Assert.assertEquals(0, pooledDataSource.warmUp().get(5, TimeUnit.SECONDS).intValue());
+        pooledDataSource.close();
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        return pooledDataSource;
+    }
+}
@@ -0,0 +1,142 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.PoolType;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * ClassName: TestPooledConnectionAllocation
+ * Description: 借出/归还连接的内存分配，稳定状态下每次借出只分配一个租约句柄，不再分配 PooledConnection 和代理对象；
+ * 过期句柄无论经过多少次租约都被拒绝
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/27 10:05
+ * Version: 1.0
+ */
+public class TestPooledConnectionAllocation {
+
+    private static final int WARMUP = 200_000;
+
+    private static final int ITERATIONS = 100_000;
+
+    /**
+     * 整个测量区间允许的固定分配字节数，与借出次数无关
+     */
+    private static final long ALLOCATION_BUDGET = 16 * 1024;
+
+    /**
+     * 每次借出允许分配的字节数：一个 DelegatingConnection 句柄（对象头加三个引用字段），
+     * 旧实现每次归还都会重建 PooledConnection 和 JDK 动态代理，远超这个值
+     */
+    private static final long HANDLE_BYTES = 48;
+
+    /**
+     * 过期句柄测试中经过的租约次数，足以覆盖任何按固定大小循环复用句柄的实现
+     */
+    private static final int LEASES = 16;
+
+    @Test
+    public void testSynchronizedPoolAllocation() throws SQLException {
+        assertOneHandlePerCheckout(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolAllocation() throws SQLException {
+        assertOneHandlePerCheckout(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testSynchronizedPoolStaleDoubleClose() throws SQLException {
+        assertStaleDoubleCloseIgnored(PoolType.SYNCHRONIZED);
+    }
+
+    @Test
+    public void testConcurrentPoolStaleDoubleClose() throws SQLException {
+        assertStaleDoubleCloseIgnored(PoolType.CONCURRENT);
+    }
+
+    @Test
+    public void testStaleHandleRejected() throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(PoolType.CONCURRENT);
+        Connection first = pooledDataSource.getConnection();
+        first.close();
+        Connection second = pooledDataSource.getConnection();
+        // 同一个物理连接被再次借出，但上一次租约的句柄已经失效
+        Assert.assertNotSame(first, second);
+        try {
+            first.getAutoCommit();
+            Assert.fail("stale handle should be rejected");
+        } catch (SQLException expected) {
+            // 期望抛出异常
+        }
+        // 过期句柄的 close 不能把别人正在使用的连接还回连接池
+        first.close();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getActiveConnectionCount());
+        second.close();
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getActiveConnectionCount());
+    }
+
+    private void assertStaleDoubleCloseIgnored(PoolType poolType) throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        pooledDataSource.setPoolMaximumActiveConnections(1);
+        Connection stale = pooledDataSource.getConnection();
+        stale.close();
+        checkoutAndReturn(pooledDataSource, LEASES);
+        Connection current = pooledDataSource.getConnection();
+        Assert.assertNotSame(stale, current);
+
+        // JDBC 规定重复 close 是空操作：不能结束别人的租约，也不能把别人正在使用的物理连接还回连接池
+        stale.close();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getActiveConnectionCount());
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getIdleConnectionCount());
+        Assert.assertTrue(current.getAutoCommit());
+        try {
+            stale.getAutoCommit();
+            Assert.fail("stale handle should be rejected");
+        } catch (SQLException expected) {
+            // 期望抛出异常
+        }
+        current.close();
+        Assert.assertEquals(0, pooledDataSource.getPoolState().getActiveConnectionCount());
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getIdleConnectionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    private void assertOneHandlePerCheckout(PoolType poolType) throws SQLException {
+        PooledDataSource pooledDataSource = newDataSource(poolType);
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        checkoutAndReturn(pooledDataSource, WARMUP);
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        checkoutAndReturn(pooledDataSource, ITERATIONS);
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+        // 除固定开销外每次借出只允许一个句柄，不依赖 JIT 的逃逸分析（-XX:-DoEscapeAnalysis 或 -Xint 下同样成立）
+        Assert.assertTrue("allocated " + allocated + " bytes for " + ITERATIONS + " checkouts",
+                allocated < ALLOCATION_BUDGET + ITERATIONS * HANDLE_BYTES);
+        pooledDataSource.forceCloseAll();
+    }
+
+    private void checkoutAndReturn(PooledDataSource pooledDataSource, int times) throws SQLException {
+        for (int i = 0; i < times; i++) {
+            Connection connection = pooledDataSource.getConnection();
+            connection.getAutoCommit();
+            connection.close();
+        }
+    }
+
+    private PooledDataSource newDataSource(PoolType poolType) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolType(poolType);
+        return pooledDataSource;
+    }
+}
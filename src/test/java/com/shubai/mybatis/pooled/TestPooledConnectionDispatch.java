@@ -0,0 +1,151 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.pooled.DelegatingConnection;
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+
+/**
+ * ClassName: TestPooledConnectionDispatch
+ * Description: DelegatingConnection 与 JDK 动态代理句柄的行为：除 close 外的每个 Connection 方法都委托给真实连接，过期句柄的调用被拒绝
+ * <p>
+ * 两种句柄的单次调用开销见 PooledConnectionDispatchBenchmark，不在单元测试中计时。
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/11/28 15:02
+ * Version: 1.0
+ */
+public class TestPooledConnectionDispatch {
+
+    @Test
+    public void testDelegatingConnectionDelegatesEveryMethod() throws Exception {
+        assertEveryMethodDelegated(false);
+    }
+
+    @Test
+    public void testReflectiveProxyDelegatesEveryMethod() throws Exception {
+        assertEveryMethodDelegated(true);
+    }
+
+    @Test
+    public void testDelegatingConnectionRejectsStaleHandle() throws Exception {
+        assertStaleHandleRejected(false);
+    }
+
+    @Test
+    public void testReflectiveProxyRejectsStaleHandle() throws Exception {
+        assertStaleHandleRejected(true);
+    }
+
+    private void assertEveryMethodDelegated(boolean reflectiveProxy) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(reflectiveProxy);
+        Connection connection = pooledDataSource.getConnection();
+        if (reflectiveProxy) {
+            Assert.assertTrue(Proxy.isProxyClass(connection.getClass()));
+        } else {
+            Assert.assertTrue(connection instanceof DelegatingConnection);
+        }
+        Connection realConnection = PooledDataSource.unwrapConnection(connection);
+        for (Method method : delegatedMethods()) {
+            StubDriver.CONNECTION_CALLS.clear();
+            method.invoke(connection, arguments(method));
+            Assert.assertTrue(method + " should be delegated", StubDriver.CONNECTION_CALLS.contains(method));
+        }
+
+        // close 只是归还连接，真实连接保持打开
+        connection.close();
+        Assert.assertFalse(realConnection.isClosed());
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getIdleConnectionCount());
+        pooledDataSource.forceCloseAll();
+    }
+
+    private void assertStaleHandleRejected(boolean reflectiveProxy) throws Exception {
+        PooledDataSource pooledDataSource = newDataSource(reflectiveProxy);
+        Connection stale = pooledDataSource.getConnection();
+        stale.close();
+        Connection current = pooledDataSource.getConnection();
+        for (Method method : delegatedMethods()) {
+            try {
+                method.invoke(stale, arguments(method));
+                Assert.fail(method + " on a stale handle should be rejected");
+            } catch (InvocationTargetException e) {
+                Assert.assertTrue(method + " threw " + e.getTargetException(), e.getTargetException() instanceof SQLException);
+            }
+        }
+        // 过期句柄的 close 是空操作
+        stale.close();
+        Assert.assertEquals(1, pooledDataSource.getPoolState().getActiveConnectionCount());
+        Assert.assertTrue(current.getAutoCommit());
+        current.close();
+        pooledDataSource.forceCloseAll();
+    }
+
+    /**
+     * Connection 上除 close 外的全部抽象方法；JDK 9 之后新增的 default 方法不要求句柄覆盖
+     */
+    private List<Method> delegatedMethods() {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : Connection.class.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers()) && !"close".equals(method.getName())) {
+                methods.add(method);
+            }
+        }
+        return methods;
+    }
+
+    private Object[] arguments(Method method) {
+        Class<?>[] types = method.getParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            args[i] = argument(types[i]);
+        }
+        return args;
+    }
+
+    private Object argument(Class<?> type) {
+        if (type == int.class) {
+            return 0;
+        } else if (type == boolean.class) {
+            return false;
+        } else if (type == String.class) {
+            return "select 1";
+        } else if (type == Class.class) {
+            return Connection.class;
+        } else if (type == Properties.class) {
+            return new Properties();
+        } else if (type == Map.class) {
+            return Collections.emptyMap();
+        } else if (type == Executor.class) {
+            return (Executor) Runnable::run;
+        } else if (type.isArray()) {
+            return Array.newInstance(type.getComponentType(), 0);
+        }
+        // Savepoint 等其余引用类型
+        return null;
+    }
+
+    private PooledDataSource newDataSource(boolean reflectiveProxy) throws SQLException {
+        StubDriver.register();
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        pooledDataSource.setPoolUseReflectiveProxy(reflectiveProxy);
+        return pooledDataSource;
+    }
+}
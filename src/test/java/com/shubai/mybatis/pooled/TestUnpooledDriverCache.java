@@ -0,0 +1,150 @@
+package com.shubai.mybatis.pooled;
+
+import com.shubai.mybatis.datasource.unpooled.UnpooledDataSource;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * ClassName: TestUnpooledDriverCache
+ * Description: UnpooledDataSource 缓存解析好的驱动和连接属性，直接通过 Driver.connect 建连
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/07 14:30
+ * Version: 1.0
+ */
+public class TestUnpooledDriverCache {
+
+    @Test
+    public void testDriverAndPropertiesAreResolvedOnce() throws SQLException {
+        UnpooledDataSource unpooledDataSource = newDataSource();
+        int instances = RecordingDriver.INSTANCES.get();
+        List<Properties> seen = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            unpooledDataSource.getConnection().close();
+            seen.add(RecordingDriver.lastInfo);
+        }
+        // 驱动类只实例化一次，默认账号的连接属性每次都是同一份
+        Assert.assertTrue(RecordingDriver.INSTANCES.get() - instances <= 1);
+        Assert.assertSame(seen.get(0), seen.get(2));
+        Properties props = seen.get(0);
+        Assert.assertEquals("root", props.getProperty("user"));
+        Assert.assertEquals("root", props.getProperty("password"));
+        Assert.assertEquals("UTF8", props.getProperty("encoding"));
+        try {
+            props.setProperty("user", "other");
+            Assert.fail("cached connection properties should be immutable");
+        } catch (UnsupportedOperationException expected) {
+            // 期望抛出异常
+        }
+    }
+
+    @Test
+    public void testPropertiesRebuiltWhenCredentialsChange() throws SQLException {
+        UnpooledDataSource unpooledDataSource = newDataSource();
+        unpooledDataSource.getConnection().close();
+        Properties before = RecordingDriver.lastInfo;
+
+        // 其他账号使用单独构建的属性，不影响默认账号的缓存
+        unpooledDataSource.getConnection("alice", "a").close();
+        Assert.assertEquals("alice", RecordingDriver.lastInfo.getProperty("user"));
+        unpooledDataSource.getConnection().close();
+        Assert.assertSame(before, RecordingDriver.lastInfo);
+
+        unpooledDataSource.setUsername("bob");
+        unpooledDataSource.getConnection().close();
+        Assert.assertNotSame(before, RecordingDriver.lastInfo);
+        Assert.assertEquals("bob", RecordingDriver.lastInfo.getProperty("user"));
+    }
+
+    @Test
+    public void testUnacceptedUrlIsRejected() {
+        UnpooledDataSource unpooledDataSource = newDataSource();
+        unpooledDataSource.setUrl("jdbc:other:db");
+        try {
+            unpooledDataSource.getConnection();
+            Assert.fail("url not accepted by the driver should be rejected");
+        } catch (SQLException expected) {
+            Assert.assertTrue(expected.getMessage().contains("jdbc:other:db"));
+        }
+    }
+
+    private UnpooledDataSource newDataSource() {
+        UnpooledDataSource unpooledDataSource = new UnpooledDataSource();
+        // 驱动类没有预先注册到 DriverManager，由数据源按类名加载
+        unpooledDataSource.setDriver(RecordingDriver.class.getName());
+        unpooledDataSource.setUrl(RecordingDriver.URL);
+        unpooledDataSource.setUsername("root");
+        unpooledDataSource.setPassword("root");
+        Properties driverProperties = new Properties();
+        driverProperties.setProperty("encoding", "UTF8");
+        unpooledDataSource.setDriverProperties(driverProperties);
+        return unpooledDataSource;
+    }
+
+    /**
+     * 记录每次建连收到的连接属性，连接本身由 StubDriver 创建
+     */
+    public static class RecordingDriver implements Driver {
+
+        static final String URL = "jdbc:recording:mini-mybatis";
+
+        static final AtomicInteger INSTANCES = new AtomicInteger();
+
+        static volatile Properties lastInfo;
+
+        private final StubDriver delegate = new StubDriver();
+
+        public RecordingDriver() {
+            INSTANCES.incrementAndGet();
+        }
+
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            lastInfo = info;
+            return delegate.connect(StubDriver.URL, info);
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return URL.equals(url);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+        }
+    }
+}
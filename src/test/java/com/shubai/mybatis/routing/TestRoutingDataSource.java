@@ -0,0 +1,246 @@
+package com.shubai.mybatis.routing;
+
+import com.shubai.mybatis.datasource.routing.RoutingDataSource;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.Environment;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.pooled.StubDriver;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ExecutorType;
+import com.shubai.mybatis.session.SqlSession;
+import com.shubai.mybatis.session.SqlSessionFactory;
+import com.shubai.mybatis.session.SqlSessionFactoryBuilder;
+import com.shubai.mybatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * ClassName: TestRoutingDataSource
+ * Description: 读写分离数据源：读请求按最少未完成请求分配到从库，写请求和写事务中的读请求使用主库，连续失败的从库被摘除
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/06 11:20
+ * Version: 1.0
+ */
+public class TestRoutingDataSource {
+
+    @Test
+    public void testReadsAreBalancedByOutstandingRequests() throws SQLException {
+        StubDataSource primary = new StubDataSource();
+        StubDataSource replicaA = new StubDataSource();
+        StubDataSource replicaB = new StubDataSource();
+        RoutingDataSource routingDataSource = new RoutingDataSource(primary, Arrays.asList(replicaA, replicaB));
+
+        // 一直占用一个从库的连接，之后的读请求都应该分配到另一个从库
+        Connection held = routingDataSource.getConnection(SqlCommandType.SELECT, false);
+        StubDataSource busy = replicaA.opened.get() == 1 ? replicaA : replicaB;
+        StubDataSource free = busy == replicaA ? replicaB : replicaA;
+        for (int i = 0; i < 10; i++) {
+            routingDataSource.getConnection(SqlCommandType.SELECT, false).close();
+        }
+        Assert.assertEquals(1, busy.opened.get());
+        Assert.assertEquals(10, free.opened.get());
+        Assert.assertEquals(0, primary.opened.get());
+
+        // 两个从库都空闲时轮流分配
+        held.close();
+        for (int i = 0; i < 10; i++) {
+            routingDataSource.getConnection(SqlCommandType.SELECT, false).close();
+        }
+        Assert.assertEquals(6, busy.opened.get());
+        Assert.assertEquals(15, free.opened.get());
+        for (RoutingDataSource.Target replica : routingDataSource.getReplicas()) {
+            Assert.assertEquals(0, replica.getOutstandingRequests());
+        }
+    }
+
+    @Test
+    public void testWritesAndWriteTransactionsUsePrimary() throws SQLException {
+        StubDataSource primary = new StubDataSource();
+        StubDataSource replica = new StubDataSource();
+        RoutingDataSource routingDataSource = new RoutingDataSource(primary, Arrays.asList(replica));
+
+        routingDataSource.getConnection(SqlCommandType.UPDATE, false).close();
+        routingDataSource.getConnection(SqlCommandType.INSERT, false).close();
+        Assert.assertEquals(2, primary.opened.get());
+
+        // 同一线程上持有未提交的主库连接不影响路由，是否处于写事务只由调用方传入
+        Connection transaction = routingDataSource.getConnection(SqlCommandType.UPDATE, false);
+        transaction.setAutoCommit(false);
+        routingDataSource.getConnection(SqlCommandType.SELECT, false).close();
+        Assert.assertEquals(1, replica.opened.get());
+        Assert.assertEquals(3, primary.opened.get());
+
+        // 调用方处于写事务中时读请求使用主库
+        routingDataSource.getConnection(SqlCommandType.SELECT, true).close();
+        Assert.assertEquals(1, replica.opened.get());
+        Assert.assertEquals(4, primary.opened.get());
+        transaction.close();
+        Assert.assertEquals(0, routingDataSource.getPrimary().getOutstandingRequests());
+    }
+
+    @Test
+    public void testAutoCommitSessionReleasesReplicaAfterEachQuery() throws SQLException {
+        for (ExecutorType executorType : ExecutorType.values()) {
+            StubDataSource primary = new StubDataSource();
+            StubDataSource replica = new StubDataSource();
+            RoutingDataSource routingDataSource = new RoutingDataSource(primary, Arrays.asList(replica));
+            RoutingDataSource.Target replicaTarget = routingDataSource.getReplicas().get(0);
+            SqlSessionFactory sqlSessionFactory = newSessionFactory(routingDataSource);
+
+            try (SqlSession sqlSession = sqlSessionFactory.openSession(executorType, true)) {
+                sqlSession.selectList("user.selectById", new Object[]{1L});
+                // 查询结束后从库连接已经归还，会话仍然打开
+                Assert.assertEquals(executorType.name(), 0, replicaTarget.getOutstandingRequests());
+                sqlSession.selectList("user.selectById", new Object[]{2L});
+                Assert.assertEquals(executorType.name(), 0, replicaTarget.getOutstandingRequests());
+                Assert.assertEquals(executorType.name(), 2, replica.opened.get());
+                Assert.assertEquals(executorType.name(), 0, primary.opened.get());
+            }
+        }
+    }
+
+    @Test
+    public void testSessionTransactionReadsFromPrimary() throws SQLException {
+        StubDataSource primary = new StubDataSource();
+        StubDataSource replica = new StubDataSource();
+        RoutingDataSource routingDataSource = new RoutingDataSource(primary, Arrays.asList(replica));
+        RoutingDataSource.Target replicaTarget = routingDataSource.getReplicas().get(0);
+        SqlSessionFactory sqlSessionFactory = newSessionFactory(routingDataSource);
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(false)) {
+            // 事务开始前的读请求使用从库，连接保留到会话结束
+            sqlSession.selectList("user.selectById", new Object[]{1L});
+            Assert.assertEquals(1, replicaTarget.getOutstandingRequests());
+            // 会话在主库上开始事务后，读请求使用同一个主库连接，保证能读到自己的写入
+            sqlSession.update("user.updateById", new Object[]{1L});
+            sqlSession.selectList("user.selectById", new Object[]{1L});
+            Assert.assertEquals(1, replica.opened.get());
+            Assert.assertEquals(1, primary.opened.get());
+            sqlSession.commit();
+        }
+        Assert.assertEquals(0, replicaTarget.getOutstandingRequests());
+        Assert.assertEquals(0, routingDataSource.getPrimary().getOutstandingRequests());
+    }
+
+    private SqlSessionFactory newSessionFactory(RoutingDataSource routingDataSource) {
+        Configuration configuration = new Configuration();
+        configuration.setEnvironment(new Environment("routing", new JdbcTransactionFactory(), routingDataSource));
+        Map<Integer, String> parameterMappings = new HashMap<>();
+        parameterMappings.put(1, "id");
+        BoundSql select = new BoundSql("select * from user where id = ?", parameterMappings, null, "com.shubai.mybatis.entity.User");
+        BoundSql update = new BoundSql("update user set username = 'x' where id = ?", parameterMappings, null, null);
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.selectById", SqlCommandType.SELECT, select).build());
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.updateById", SqlCommandType.UPDATE, update).build());
+        return new SqlSessionFactoryBuilder().build(configuration);
+    }
+
+    @Test
+    public void testFailingReplicaIsEjectedAndRecovers() throws Exception {
+        StubDataSource primary = new StubDataSource();
+        StubDataSource healthy = new StubDataSource();
+        StubDataSource failing = new StubDataSource();
+        failing.down = true;
+        RoutingDataSource routingDataSource = new RoutingDataSource(primary, Arrays.asList(healthy, failing));
+        routingDataSource.setReplicaFailureThreshold(2);
+        routingDataSource.setReplicaEjectionTime(200);
+        RoutingDataSource.Target failingTarget = routingDataSource.getReplicas().get(1);
+
+        // 失败的从库被跳过，读请求改由健康的从库处理，连续失败达到阈值后被摘除
+        for (int i = 0; i < 10; i++) {
+            routingDataSource.getConnection(SqlCommandType.SELECT, false).close();
+        }
+        Assert.assertEquals(10, healthy.opened.get());
+        Assert.assertEquals(2, failing.attempts.get());
+        Assert.assertTrue(failingTarget.isEjected());
+
+        // 所有从库都不可用时退回主库
+        healthy.down = true;
+        routingDataSource.getConnection(SqlCommandType.SELECT, false).close();
+        Assert.assertEquals(1, primary.opened.get());
+        Assert.assertEquals(2, failing.attempts.get());
+        healthy.down = false;
+
+        // 摘除期结束后的第一次尝试成功，从库恢复
+        failing.down = false;
+        Thread.sleep(250);
+        Assert.assertFalse(failingTarget.isEjected());
+        for (int i = 0; i < 4; i++) {
+            routingDataSource.getConnection(SqlCommandType.SELECT, false).close();
+        }
+        Assert.assertTrue(failing.opened.get() > 0);
+        Assert.assertEquals(0, failingTarget.getConsecutiveFailures());
+    }
+
+    /**
+     * 使用 StubDriver 创建连接的数据源，down 为 true 时获取连接失败
+     */
+    private static class StubDataSource implements DataSource {
+
+        private final AtomicInteger attempts = new AtomicInteger();
+
+        private final AtomicInteger opened = new AtomicInteger();
+
+        private volatile boolean down;
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            attempts.incrementAndGet();
+            if (down) {
+                throw new SQLException("stub data source is down");
+            }
+            opened.incrementAndGet();
+            return new StubDriver().connect(StubDriver.URL, new Properties());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() {
+            return null;
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) {
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) {
+        }
+
+        @Override
+        public int getLoginTimeout() {
+            return 0;
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> iface) throws SQLException {
+            throw new SQLException("not a wrapper");
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> iface) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.shubai.mybatis.sharding;
+
+import com.shubai.mybatis.datasource.pooled.PooledDataSource;
+import com.shubai.mybatis.datasource.routing.RoutingDataSource;
+import com.shubai.mybatis.datasource.sharding.ShardingDataSource;
+import com.shubai.mybatis.datasource.unpooled.UnpooledDataSource;
+import com.shubai.mybatis.executor.BatchExecutor;
+import com.shubai.mybatis.io.Resources;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.Environment;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.pooled.StubDriver;
+import com.shubai.mybatis.session.Configuration;
+import com.shubai.mybatis.session.ExecutorType;
+import com.shubai.mybatis.session.SqlSession;
+import com.shubai.mybatis.session.SqlSessionFactory;
+import com.shubai.mybatis.session.SqlSessionFactoryBuilder;
+import com.shubai.mybatis.transaction.jdbc.JdbcTransactionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.sql.DataSource;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClassName: TestShardingDataSource
+ * Description: 分片数据源：按分片键路由到分片，没有分片键的查询在所有分片上并行执行并按分片顺序合并
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/07 11:00
+ * Version: 1.0
+ */
+public class TestShardingDataSource {
+
+    @Test
+    public void testShardKeyRoutesToShard() throws SQLException {
+        List<DataSource> shards = newShards(3);
+        ShardingDataSource shardingDataSource = new ShardingDataSource(Arrays.asList("a", "b", "c"), shards);
+        Assert.assertSame(shards.get(0), shardingDataSource.getShard(3L));
+        Assert.assertSame(shards.get(1), shardingDataSource.getShard(7));
+        Assert.assertSame(shards.get(2), shardingDataSource.getShard(-1L));
+        // 同一个分片键总是路由到同一个分片
+        Assert.assertSame(shardingDataSource.getShard("alice"), shardingDataSource.getShard("alice"));
+        try {
+            shardingDataSource.getShard(null);
+            Assert.fail("null shard key should be rejected");
+        } catch (SQLException expected) {
+            // 期望抛出异常
+        }
+
+        shardingDataSource.setShardingStrategy((shardKey, shardCount) -> shardCount - 1);
+        Assert.assertSame(shards.get(2), shardingDataSource.getShard(0L));
+    }
+
+    @Test
+    public void testScatterGatherRunsShardsInParallelAndMergesInShardOrder() throws SQLException {
+        List<DataSource> shards = newShards(3);
+        ShardingDataSource shardingDataSource = new ShardingDataSource(Arrays.asList("a", "b", "c"), shards);
+        // 每个分片都要等到所有分片开始执行才返回，串行执行时会超时
+        CountDownLatch started = new CountDownLatch(shards.size());
+        List<Integer> merged = shardingDataSource.scatterGather(shard -> {
+            started.countDown();
+            Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+            int index = shards.indexOf(shard);
+            return Arrays.asList(index * 10, index * 10 + 1);
+        });
+        Assert.assertEquals(Arrays.asList(0, 1, 10, 11, 20, 21), merged);
+        shardingDataSource.close();
+    }
+
+    @Test
+    public void testScatterGatherFailsWhenAnyShardFails() {
+        List<DataSource> shards = newShards(2);
+        ShardingDataSource shardingDataSource = new ShardingDataSource(Arrays.asList("a", "b"), shards);
+        try {
+            shardingDataSource.scatterGather(shard -> {
+                if (shard == shards.get(1)) {
+                    throw new SQLException("shard is down");
+                }
+                return Collections.singletonList(1);
+            });
+            Assert.fail("failure of one shard should fail the query");
+        } catch (SQLException expected) {
+            Assert.assertTrue(expected.getMessage().contains("b"));
+        }
+        shardingDataSource.close();
+    }
+
+    @Test
+    public void testShardsConfiguredByXml() throws Exception {
+        StubDriver.register();
+        Reader reader = Resources.getResourceAsReader("mini-mybatis-sharding-config.xml");
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+        ShardingDataSource shardingDataSource = (ShardingDataSource) sqlSessionFactory.openSession().getConfiguration().getEnvironment().getDataSource();
+        Assert.assertEquals(Arrays.asList("user-0", "user-1"), shardingDataSource.getShardNames());
+        Assert.assertTrue(shardingDataSource.getShards().get(0) instanceof PooledDataSource);
+        Assert.assertTrue(shardingDataSource.getShards().get(1) instanceof RoutingDataSource);
+        Assert.assertEquals(2, shardingDataSource.getScatterGatherThreads());
+        shardingDataSource.getConnection().close();
+        shardingDataSource.close();
+    }
+
+    @Test
+    public void testSessionRoutesByShardKeyAndScattersOtherwise() throws SQLException {
+        StubDriver.register();
+        PooledDataSource shard0 = newPooledShard();
+        PooledDataSource shard1 = newPooledShard();
+        ShardingDataSource shardingDataSource = new ShardingDataSource(Arrays.asList("a", "b"), Arrays.asList(shard0, shard1));
+        Configuration configuration = new Configuration();
+        configuration.setEnvironment(new Environment("sharding", new JdbcTransactionFactory(), shardingDataSource));
+        Map<Integer, String> parameterMappings = new HashMap<>();
+        parameterMappings.put(1, "id");
+        BoundSql byId = new BoundSql("select * from user where id = ?", parameterMappings, null, "com.shubai.mybatis.entity.User");
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.selectById", SqlCommandType.SELECT, byId).shardKey("id").build());
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.selectAll", SqlCommandType.SELECT, byId).build());
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.updateById", SqlCommandType.UPDATE, byId).shardKey("id").build());
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            sqlSession.selectList("user.selectById", new Object[]{3L});
+            sqlSession.update("user.updateById", new Object[]{5L});
+            Assert.assertEquals(0, shard0.getPoolState().getRequestCount());
+            Assert.assertEquals(1, shard1.getPoolState().getRequestCount());
+
+            // 没有分片键的查询在每个分片上各执行一次
+            sqlSession.selectList("user.selectAll", new Object[]{1L});
+            Assert.assertEquals(1, shard0.getPoolState().getRequestCount());
+            Assert.assertEquals(1, shard1.getPoolState().getRequestCount());
+            sqlSession.commit();
+        }
+        Assert.assertEquals(0, shard0.getPoolState().getActiveConnectionCount());
+        Assert.assertEquals(0, shard1.getPoolState().getActiveConnectionCount());
+        shardingDataSource.close();
+    }
+
+    @Test
+    public void testScatterQueryAcquiresConnectionsOnCallingThread() throws SQLException {
+        StubDriver.register();
+        Set<Thread> acquiringThreads = ConcurrentHashMap.newKeySet();
+        PooledDataSource shard0 = newRecordingShard(acquiringThreads);
+        PooledDataSource shard1 = newRecordingShard(acquiringThreads);
+        ShardingDataSource shardingDataSource = new ShardingDataSource(Arrays.asList("a", "b"), Arrays.asList(shard0, shard1));
+        Configuration configuration = new Configuration();
+        configuration.setEnvironment(new Environment("sharding", new JdbcTransactionFactory(), shardingDataSource));
+        Map<Integer, String> parameterMappings = new HashMap<>();
+        parameterMappings.put(1, "id");
+        BoundSql byId = new BoundSql("select * from user where id = ?", parameterMappings, null, "com.shubai.mybatis.entity.User");
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.selectAll", SqlCommandType.SELECT, byId).build());
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+        // 分片的连接属于当前会话，只能在调用线程上获取，并行线程只负责执行
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            sqlSession.selectList("user.selectAll", new Object[]{1L});
+        }
+        Assert.assertEquals(Collections.singleton(Thread.currentThread()), acquiringThreads);
+        Assert.assertEquals(1, shard0.getPoolState().getRequestCount());
+        Assert.assertEquals(1, shard1.getPoolState().getRequestCount());
+        shardingDataSource.close();
+    }
+
+    @Test
+    public void testBatchScatterUpdateKeepsSentinel() throws SQLException {
+        StubDriver.register();
+        PooledDataSource shard0 = newPooledShard();
+        PooledDataSource shard1 = newPooledShard();
+        ShardingDataSource shardingDataSource = new ShardingDataSource(Arrays.asList("a", "b"), Arrays.asList(shard0, shard1));
+        Configuration configuration = new Configuration();
+        configuration.setEnvironment(new Environment("sharding", new JdbcTransactionFactory(), shardingDataSource));
+        Map<Integer, String> parameterMappings = new HashMap<>();
+        parameterMappings.put(1, "id");
+        BoundSql byId = new BoundSql("update user set username = 'x' where id = ?", parameterMappings, null, null);
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.updateAll", SqlCommandType.UPDATE, byId).broadcast(true).build());
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+        // 攒批时两个分片的占位值相加会溢出成普通的负数，必须原样返回占位值
+        try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+            Assert.assertEquals(BatchExecutor.BATCH_UPDATE_RETURN_VALUE, sqlSession.update("user.updateAll", new Object[]{1L}));
+            Assert.assertEquals(2, sqlSession.flushStatements().size());
+            sqlSession.commit();
+        }
+
+        // 非攒批时仍然累加各分片的真实影响行数
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            Assert.assertEquals(2, sqlSession.update("user.updateAll", new Object[]{1L}));
+            sqlSession.commit();
+        }
+        shardingDataSource.close();
+    }
+
+    @Test
+    public void testKeylessWritesAreRejectedUnlessBroadcast() throws SQLException {
+        StubDriver.register();
+        PooledDataSource shard0 = newPooledShard();
+        PooledDataSource shard1 = newPooledShard();
+        ShardingDataSource shardingDataSource = new ShardingDataSource(Arrays.asList("a", "b"), Arrays.asList(shard0, shard1));
+        Configuration configuration = new Configuration();
+        configuration.setEnvironment(new Environment("sharding", new JdbcTransactionFactory(), shardingDataSource));
+        Map<Integer, String> parameterMappings = new HashMap<>();
+        parameterMappings.put(1, "id");
+        BoundSql insert = new BoundSql("insert into user (id) values (?)", parameterMappings, null, null);
+        BoundSql update = new BoundSql("update user set username = 'x' where id = ?", parameterMappings, null, null);
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.insert", SqlCommandType.INSERT, insert).build());
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.insertById", SqlCommandType.INSERT, insert).shardKey("id").build());
+        configuration.addMappedStatement(new MappedStatement.Builder(configuration, "user.updateAll", SqlCommandType.UPDATE, update).build());
+        SqlSessionFactory sqlSessionFactory = new SqlSessionFactoryBuilder().build(configuration);
+
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            assertRejected(() -> sqlSession.insert("user.insert", new Object[]{1L}));
+            assertRejected(() -> sqlSession.insertBatch("user.insert", Arrays.asList(new Object[]{1L}, new Object[]{2L})));
+            assertRejected(() -> sqlSession.update("user.updateAll", new Object[]{1L}));
+            // 被拒绝的写语句没有借用任何分片的连接
+            Assert.assertEquals(0, shard0.getPoolState().getRequestCount());
+            Assert.assertEquals(0, shard1.getPoolState().getRequestCount());
+
+            // 带分片键的插入只落在一个分片上
+            int updatesBefore = StubDriver.UPDATES.get();
+            Assert.assertEquals(1, sqlSession.insert("user.insertById", new Object[]{3L}));
+            Assert.assertEquals(updatesBefore + 1, StubDriver.UPDATES.get());
+            Assert.assertEquals(0, shard0.getPoolState().getRequestCount());
+            Assert.assertEquals(1, shard1.getPoolState().getRequestCount());
+            sqlSession.commit();
+        }
+
+        // broadcast 只能用于没有分片键的 UPDATE、DELETE
+        try {
+            new MappedStatement.Builder(configuration, "user.insertEverywhere", SqlCommandType.INSERT, insert).broadcast(true).build();
+            Assert.fail("broadcast insert should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // 期望抛出异常
+        }
+        shardingDataSource.close();
+    }
+
+    private void assertRejected(Runnable write) {
+        try {
+            write.run();
+            Assert.fail("keyless write should be rejected");
+        } catch (RuntimeException expected) {
+            Assert.assertTrue(expected.getCause() instanceof SQLException);
+            Assert.assertTrue(expected.getCause().getMessage().contains("requires a shard key"));
+        }
+    }
+
+    private PooledDataSource newPooledShard() {
+        PooledDataSource pooledDataSource = new PooledDataSource();
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        return pooledDataSource;
+    }
+
+    private PooledDataSource newRecordingShard(Set<Thread> acquiringThreads) {
+        PooledDataSource pooledDataSource = new PooledDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                acquiringThreads.add(Thread.currentThread());
+                return super.getConnection();
+            }
+        };
+        pooledDataSource.setDriver(StubDriver.class.getName());
+        pooledDataSource.setUrl(StubDriver.URL);
+        pooledDataSource.setUsername("root");
+        pooledDataSource.setPassword("root");
+        return pooledDataSource;
+    }
+
+    private List<DataSource> newShards(int count) {
+        DataSource[] shards = new DataSource[count];
+        for (int i = 0; i < count; i++) {
+            shards[i] = new UnpooledDataSource();
+        }
+        return Arrays.asList(shards);
+    }
+}
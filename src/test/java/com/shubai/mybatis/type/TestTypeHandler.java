@@ -0,0 +1,163 @@
+package com.shubai.mybatis.type;
+
+import com.shubai.mybatis.entity.User;
+import com.shubai.mybatis.executor.parameter.DefaultParameterHandler;
+import com.shubai.mybatis.executor.resultset.MethodHandleRowMapper;
+import com.shubai.mybatis.executor.resultset.RowMapper;
+import com.shubai.mybatis.executor.resultset.RowMapperCache;
+import com.shubai.mybatis.executor.resultset.RowMapperType;
+import com.shubai.mybatis.mapping.BoundSql;
+import com.shubai.mybatis.mapping.MappedStatement;
+import com.shubai.mybatis.mapping.SqlCommandType;
+import com.shubai.mybatis.session.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ClassName: TestTypeHandler
+ * Description: 类型处理器注册中心的查找规则，以及参数在构建语句时选定类型处理器、执行时调用类型化的 setXxx
+ * <p>
+ * Author: shubaizz
+ * DateTime: 2025/12/11 14:30
+ * Version: 1.0
+ */
+public class TestTypeHandler {
+
+    public enum Status {
+        ACTIVE, DISABLED
+    }
+
+    @Test
+    public void testRegistryLookup() {
+        TypeHandlerRegistry registry = new TypeHandlerRegistry();
+        Assert.assertTrue(registry.getTypeHandler(Long.class) instanceof LongTypeHandler);
+        Assert.assertSame(LongTypeHandler.class, registry.getTypeHandler(long.class).getClass());
+        Assert.assertTrue(registry.getTypeHandler(Timestamp.class) instanceof SqlTimestampTypeHandler);
+        Assert.assertTrue(registry.getTypeHandler(JdbcType.BIGINT) instanceof LongTypeHandler);
+        // 枚举第一次用到时创建，之后复用
+        TypeHandler<Status> enumTypeHandler = registry.getTypeHandler(Status.class);
+        Assert.assertTrue(enumTypeHandler instanceof EnumTypeHandler);
+        Assert.assertSame(enumTypeHandler, registry.getTypeHandler(Status.class));
+        // 普通 JavaBean 没有类型处理器
+        Assert.assertNull(registry.getTypeHandler(User.class));
+
+        // 按 JDBC 类型注册的类型处理器只在声明了该 JDBC 类型时使用
+        StringTypeHandler clob = new StringTypeHandler();
+        registry.register(String.class, JdbcType.CLOB, clob);
+        Assert.assertSame(clob, registry.getTypeHandler(String.class, JdbcType.CLOB));
+        Assert.assertNotSame(clob, registry.getTypeHandler(String.class));
+        Assert.assertNotSame(clob, registry.getTypeHandler(String.class, JdbcType.VARCHAR));
+    }
+
+    @Test
+    public void testParametersUseTypedSetters() throws SQLException {
+        Configuration configuration = new Configuration();
+        // parameterType 是简单类型：所有占位符使用它的类型处理器
+        MappedStatement byId = statement(configuration, "user.selectById", "java.lang.Long", "id");
+        Assert.assertSame(LongTypeHandler.class, byId.getParameterMappings().get(0).getTypeHandler().getClass());
+        Assert.assertEquals(Arrays.asList("setLong(1, 7)"), bind(byId, 7L));
+
+        // parameterType 是 JavaBean：按属性的类型
+        MappedStatement insert = statement(configuration, "user.insert", User.class.getName(), "id", "username");
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("shubai");
+        Assert.assertEquals(Arrays.asList("setLong(1, 1)", "setString(2, shubai)"), bind(insert, user));
+
+        // 未声明 parameterType：执行时按参数值的类型查找
+        MappedStatement update = statement(configuration, "user.update", null, "status", "createdAt", "id");
+        Map<String, Object> parameter = new HashMap<>();
+        parameter.put("status", Status.DISABLED);
+        parameter.put("createdAt", new Date(0));
+        parameter.put("id", 3);
+        Assert.assertEquals(Arrays.asList("setString(1, DISABLED)", "setTimestamp(2, " + new Timestamp(0) + ")", "setInt(3, 3)"),
+                bind(update, parameter));
+    }
+
+    @Test
+    public void testNullParameterUsesDeclaredJdbcType() throws SQLException {
+        Configuration configuration = new Configuration();
+        BoundSql boundSql = new BoundSql("update user set age = ? where id = ?", mappings("age", "id"), null, null);
+        MappedStatement ms = new MappedStatement.Builder(configuration, "user.updateAge", SqlCommandType.UPDATE, boundSql)
+                .declareParameter(1, null, JdbcType.INTEGER)
+                .declareParameter(2, long.class, JdbcType.BIGINT)
+                .build();
+        Assert.assertEquals(Arrays.asList("setNull(1, " + Types.INTEGER + ")", "setLong(2, 5)"), bind(ms, new Object[]{null, 5L}));
+    }
+
+    @Test
+    public void testCustomTypeHandlerIsUsedForResults() throws SQLException {
+        Configuration configuration = new Configuration();
+        configuration.getTypeHandlerRegistry().register(String.class, new StringTypeHandler() {
+            @Override
+            public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+                String value = super.getNullableResult(rs, columnIndex);
+                return value == null ? null : value.toUpperCase();
+            }
+        });
+        RowMapperCache cache = configuration.getRowMapperCache();
+        cache.setRowMapperType(RowMapperType.GENERATED);
+        // 属性类型使用自定义类型处理器时不生成映射器类
+        RowMapper rowMapper = cache.getRowMapper("user.selectAll", User.class.getName(), metaData("id", "username"));
+        Assert.assertTrue(rowMapper instanceof MethodHandleRowMapper);
+        User user = (User) rowMapper.mapRow(resultSet(9L, "neo"));
+        Assert.assertEquals(Long.valueOf(9L), user.getId());
+        Assert.assertEquals("NEO", user.getUsername());
+    }
+
+    private MappedStatement statement(Configuration configuration, String id, String parameterType, String... names) {
+        BoundSql boundSql = new BoundSql("sql", mappings(names), parameterType, null);
+        return new MappedStatement.Builder(configuration, id, SqlCommandType.UPDATE, boundSql).build();
+    }
+
+    private Map<Integer, String> mappings(String... names) {
+        Map<Integer, String> mappings = new HashMap<>();
+        for (int i = 0; i < names.length; i++) {
+            mappings.put(i + 1, names[i]);
+        }
+        return mappings;
+    }
+
+    /**
+     * 绑定参数，返回 PreparedStatement 上的调用记录
+     */
+    private List<String> bind(MappedStatement ms, Object parameter) throws SQLException {
+        List<String> calls = new ArrayList<>();
+        PreparedStatement ps = (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    calls.add(method.getName() + "(" + args[0] + ", " + args[1] + ")");
+                    return null;
+                });
+        new DefaultParameterHandler(ms, parameter).setParameters(ps);
+        return calls;
+    }
+
+    private ResultSetMetaData metaData(String... labels) {
+        return (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSetMetaData.class},
+                (proxy, method, args) -> {
+                    if ("getColumnCount".equals(method.getName())) {
+                        return labels.length;
+                    }
+                    return "getColumnClassName".equals(method.getName()) ? null : labels[(Integer) args[0] - 1];
+                });
+    }
+
+    private ResultSet resultSet(Object... row) {
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> "wasNull".equals(method.getName()) ? Boolean.FALSE : row[(Integer) args[0] - 1]);
+    }
+}